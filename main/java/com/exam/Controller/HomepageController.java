@@ -1,15 +1,15 @@
 package com.exam.Controller;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -17,28 +17,25 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.random.RandomGenerator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import javax.imageio.ImageIO;
 
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDResources;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.poi.xwpf.usermodel.XWPFRun;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -50,6 +47,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriUtils;
 
@@ -62,7 +60,27 @@ import com.exam.repository.ExamSubmissionRepository;
 import com.exam.repository.SubjectRepository;
 import com.exam.repository.UserRepository;
 import com.exam.service.AnswerKeyService;
+import com.exam.service.AssignmentStoreService;
+import com.exam.service.BulkDistributionService;
+import com.exam.service.CsvReader;
+import com.exam.service.EquationNormalizer;
+import com.exam.service.ExamBlueprint;
+import com.exam.service.ExamContent;
+import com.exam.service.ExamIngestionService;
+import com.exam.service.ImageStoreService;
+import com.exam.service.ImageVariantService;
+import com.exam.service.ExamVariantService;
+import com.exam.service.PaperLayout;
+import com.exam.service.ParsedQuestion;
 import com.exam.service.FisherYatesService;
+import com.exam.service.FormPoolService;
+import com.exam.service.PdfIngestionService;
+import com.exam.service.QuestionReuseIndex;
+import com.exam.service.RandomnessService;
+import com.exam.service.SessionSizeService;
+import com.exam.service.TestAssemblyService;
+import com.exam.service.TopicClassifier;
+import com.exam.service.TopicClassifierService;
 import com.lowagie.text.Chunk;
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
@@ -80,6 +98,10 @@ public class HomepageController {
 
     private static final long MAX_QUESTION_VIDEO_BYTES = 500L * 1024L * 1024L; // 500MB
 
+    // CSV question banks: "(A) text (B) text" choices embedded in one cell, and a trailing "Answer: X"
+    private static final Pattern CSV_EMBEDDED_CHOICE = Pattern.compile("\\([A-D]\\)\\s*([^(]+?)(?=\\s*\\([A-D]\\)|$)");
+    private static final Pattern CSV_ANSWER_SUFFIX = Pattern.compile("(?i)\\s*answer\\s*:\\s*.*$");
+
     @Autowired
     private AnswerKeyService answerKeyService;
     
@@ -98,30 +120,48 @@ public class HomepageController {
     @Autowired
     private SubjectRepository subjectRepository;
 
-    private static final Map<String, List<String>> distributedExams = new HashMap<>();
-    private static final Map<String, Map<String, Object>> distributedExamMetadata = new HashMap<>();
-    private static final Map<String, List<Map<String, Object>>> distributedExamHistory = new HashMap<>();
-    private static final Map<String, Map<String, List<String>>> distributedExamQuestionsByAssignment = new HashMap<>();
-    private static final Map<String, Map<String, List<String>>> distributedQuestionDifficultiesByAssignment = new HashMap<>();
-    private static final Map<String, Map<String, List<String>>> distributedQuestionTopicsByAssignment = new HashMap<>();
-    private static final Map<String, Map<String, Map<Integer, String>>> distributedAnswerKeysByAssignment = new HashMap<>();
-    private static final Map<String, List<String>> distributedQuestionDifficulties = new HashMap<>();
-    private static final Map<String, List<String>> distributedQuestionTopics = new HashMap<>();
-    
+    @Autowired
+    private AssignmentStoreService assignmentStore;
+
+    @Autowired
+    private ExamVariantService examVariantService;
+
+    @Autowired
+    private BulkDistributionService bulkDistributionService;
+
+    @Autowired
+    private SessionSizeService sessionSizeService;
+
+    @Autowired
+    private PdfIngestionService pdfIngestionService;
+
+    @Autowired
+    private ExamIngestionService examIngestionService;
+
+    @Autowired
+    private ImageStoreService imageStoreService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private TopicClassifierService topicClassifierService;
+
+    @Autowired
+    private RandomnessService randomnessService;
+
+    @Autowired
+    private FormPoolService formPoolService;
+
+    @Autowired
+    private TestAssemblyService testAssemblyService;
+
+    @Value("${app.assignments.seeded-variants:false}")
+    private boolean seededVariants;
+
     // Store uploaded exams with their metadata
-    private static final Map<String, UploadedExam> uploadedExams = new HashMap<>();
+    private static final Map<String, UploadedExam> uploadedExams = new java.util.concurrent.ConcurrentHashMap<>();
 
-    /**
-     * Regex: detect LaTeX segments (\command{} or var^{} or var_{}) for auto-wrapping in $...$.
-     * Segment = one or more LaTeX tokens optionally connected by math operators / whitespace.
-     */
-    private static final Pattern LATEX_SEGMENT = Pattern.compile(
-        "(?:\\\\[a-zA-Z]+(?:\\{[^}]*\\})*|[a-zA-Z0-9]*(?:\\^\\{[^}]+\\}|_\\{[^}]+\\}))" +
-        "(?:[0-9a-zA-Z+\\-*/=<>().^_{} ]*" +
-            "(?:\\\\[a-zA-Z]+(?:\\{[^}]*\\})*|[a-zA-Z0-9]*(?:\\^\\{[^}]+\\}|_\\{[^}]+\\}))" +
-        ")*"
-    );
-    
     // Helper class to store exam metadata
     public static class UploadedExam {
         private final String examId;
@@ -132,9 +172,27 @@ public class HomepageController {
         private final List<String> difficulties; // Store difficulty for each question
         private final Map<Integer, String> answerKey;
         private final java.time.LocalDateTime uploadedAt;
+        // Immutable copy handed to distribution; dropped whenever the teacher edits the exam
+        private volatile ExamContent distributionContent;
+        private volatile int revision;
+        // Source-block fingerprint per question and of the uploaded files, for incremental re-uploads;
+        // both dropped on edit, since they no longer line up. Topics per question, kept in step with
+        // question edits, and the classifier (subject dictionary) they came from.
+        private volatile List<String> fingerprints;
+        private volatile String uploadFingerprint;
+        private volatile List<String> topics;
+        private final TopicClassifier topicClassifier;
         
         public UploadedExam(String examId, String examName, String subject, String activityType, 
                           List<String> questions, List<String> difficulties, Map<Integer, String> answerKey) {
+            this(examId, examName, subject, activityType, questions, difficulties, answerKey,
+                 Collections.emptyList(), null, null, null);
+        }
+
+        public UploadedExam(String examId, String examName, String subject, String activityType,
+                          List<String> questions, List<String> difficulties, Map<Integer, String> answerKey,
+                          List<String> fingerprints, String uploadFingerprint, List<String> topics,
+                          TopicClassifier topicClassifier) {
             this.examId = examId;
             this.examName = examName;
             this.subject = subject;
@@ -143,6 +201,10 @@ public class HomepageController {
             this.difficulties = difficulties;
             this.answerKey = answerKey;
             this.uploadedAt = java.time.LocalDateTime.now();
+            this.fingerprints = fingerprints;
+            this.uploadFingerprint = uploadFingerprint;
+            this.topics = topics;
+            this.topicClassifier = topicClassifier;
         }
         
         public String getExamId() { return examId; }
@@ -153,6 +215,38 @@ public class HomepageController {
         public List<String> getDifficulties() { return difficulties; }
         public Map<Integer, String> getAnswerKey() { return answerKey; }
         public java.time.LocalDateTime getUploadedAt() { return uploadedAt; }
+
+        public ExamContent getDistributionContent() { return distributionContent; }
+        public int getRevision() { return revision; }
+        public List<String> getFingerprints() { return fingerprints; }
+        public String getUploadFingerprint() { return uploadFingerprint; }
+        public List<String> getTopics() { return topics; }
+        public TopicClassifier getTopicClassifier() { return topicClassifier; }
+
+        /**
+         * Topic list to update alongside an edit of the questions, or null when there is none in step.
+         */
+        public List<String> getTopicsInStep() {
+            List<String> current = topics;
+            return current != null && current.size() == questions.size() ? current : null;
+        }
+
+        public synchronized void cacheDistributionContent(ExamContent content, int builtAtRevision) {
+            if (builtAtRevision == revision) {
+                distributionContent = content;
+            }
+        }
+
+        public synchronized void markModified() {
+            revision++;
+            distributionContent = null;
+            fingerprints = Collections.emptyList();
+            uploadFingerprint = null;
+            List<String> current = topics;
+            if (current != null && current.size() != questions.size()) {
+                topics = null;
+            }
+        }
     }
     
     // Helper class for shuffling questions while preserving answer associations
@@ -161,6 +255,9 @@ public class HomepageController {
         String answer;
         String difficulty;
         int originalNumber;
+        String fingerprint;
+        // Set when the question was carried over unchanged from the exam being replaced
+        QuestionReuseIndex.Entry reused;
         
         QuestionWithAnswer(String question, String answer, String difficulty, int originalNumber) {
             this.question = question;
@@ -170,20 +267,24 @@ public class HomepageController {
         }
     }
     
-    // Helper class to return both questions and difficulties from CSV processing
-    private static class CsvProcessResult {
-        List<String> questions;
-        List<String> difficulties;
+    // Helper class to return questions, difficulties and fingerprints from CSV or PDF processing.
+    // A null difficulty or topic is still to be inferred.
+    private static class ProcessedExam {
+        List<String> questions = new ArrayList<>();
+        List<String> difficulties = new ArrayList<>();
+        Map<Integer, String> answerKey = new HashMap<>();
+        List<String> fingerprints = new ArrayList<>();
+        List<String> topics = new ArrayList<>();
         
-        CsvProcessResult(List<String> questions, List<String> difficulties) {
-            this.questions = questions;
-            this.difficulties = difficulties;
+        void add(QuestionWithAnswer qa, String question) {
+            answerKey.put(questions.size() + 1, qa.answer);
+            questions.add(question);
+            difficulties.add(qa.difficulty);
+            fingerprints.add(qa.fingerprint);
+            topics.add(qa.reused != null ? qa.reused.getTopic() : null);
         }
     }
 
-    // Store for unlocked exams (studentEmail -> examName)
-    private static final Map<String, Set<String>> unlockedExams = new HashMap<>();
-
     /**
      * Initialize null boolean fields in existing ExamSubmission records
      */
@@ -210,165 +311,6 @@ public class HomepageController {
         }
     }
 
-    // Public getter for accessing distributed exams from other controllers
-    public static Map<String, List<String>> getDistributedExams() {
-        return distributedExams;
-    }
-
-    public static Map<String, Object> getDistributedExamMetadata(String studentEmail) {
-        return distributedExamMetadata.get(studentEmail);
-    }
-
-    public static List<Map<String, Object>> getDistributedExamHistory(String studentEmail) {
-        List<Map<String, Object>> history = distributedExamHistory.get(studentEmail);
-        if (history == null) {
-            return new ArrayList<>();
-        }
-        return history.stream().map(HashMap::new).collect(Collectors.toList());
-    }
-
-    public static Map<String, Object> getDistributedExamAssignmentMetadata(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return null;
-        }
-        return getDistributedExamHistory(studentEmail).stream()
-            .filter(item -> assignmentId.equals(item.get("assignmentId")))
-            .findFirst()
-            .orElse(null);
-    }
-
-    public static List<String> getDistributedExamQuestions(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return distributedExams.get(studentEmail);
-        }
-        Map<String, List<String>> byAssignment = distributedExamQuestionsByAssignment.get(studentEmail);
-        if (byAssignment == null) {
-            return null;
-        }
-        return byAssignment.get(assignmentId);
-    }
-
-    public static List<String> getDistributedQuestionDifficulties(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return distributedQuestionDifficulties.get(studentEmail);
-        }
-        Map<String, List<String>> byAssignment = distributedQuestionDifficultiesByAssignment.get(studentEmail);
-        if (byAssignment == null) {
-            return null;
-        }
-        return byAssignment.get(assignmentId);
-    }
-
-    public static List<String> getDistributedQuestionTopics(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return distributedQuestionTopics.get(studentEmail);
-        }
-        Map<String, List<String>> byAssignment = distributedQuestionTopicsByAssignment.get(studentEmail);
-        if (byAssignment == null) {
-            return null;
-        }
-        return byAssignment.get(assignmentId);
-    }
-
-    public static Map<Integer, String> getDistributedAnswerKey(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return null;
-        }
-        Map<String, Map<Integer, String>> byAssignment = distributedAnswerKeysByAssignment.get(studentEmail);
-        if (byAssignment == null) {
-            return null;
-        }
-        return byAssignment.get(assignmentId);
-    }
-
-    public static List<String> getDistributedQuestionDifficulties(String studentEmail) {
-        return distributedQuestionDifficulties.get(studentEmail);
-    }
-
-    public static List<String> getDistributedQuestionTopics(String studentEmail) {
-        return distributedQuestionTopics.get(studentEmail);
-    }
-    
-    // Check if exam is unlocked for student
-    public static boolean isExamUnlocked(String studentEmail, String examName) {
-        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
-        return studentUnlocks != null && studentUnlocks.contains(examName);
-    }
-    
-    // Remove unlock after submission
-    public static void removeUnlock(String studentEmail, String examName) {
-        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
-        if (studentUnlocks != null) {
-            studentUnlocks.remove(examName);
-        }
-    }
-
-    // Remove student from distributed exams after they have submitted
-    public static void removeDistributedExam(String studentEmail) {
-        distributedExams.remove(studentEmail);
-        distributedExamMetadata.remove(studentEmail);
-        distributedExamHistory.remove(studentEmail);
-        distributedExamQuestionsByAssignment.remove(studentEmail);
-        distributedQuestionDifficultiesByAssignment.remove(studentEmail);
-        distributedQuestionTopicsByAssignment.remove(studentEmail);
-        distributedAnswerKeysByAssignment.remove(studentEmail);
-        distributedQuestionDifficulties.remove(studentEmail);
-        distributedQuestionTopics.remove(studentEmail);
-    }
-
-    public static void removeDistributedExam(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            removeDistributedExam(studentEmail);
-            return;
-        }
-
-        List<Map<String, Object>> history = distributedExamHistory.get(studentEmail);
-        if (history != null) {
-            history.removeIf(item -> assignmentId.equals(item.get("assignmentId")));
-            if (history.isEmpty()) {
-                distributedExamHistory.remove(studentEmail);
-                distributedExamMetadata.remove(studentEmail);
-            } else {
-                distributedExamMetadata.put(studentEmail, new HashMap<>(history.get(history.size() - 1)));
-            }
-        }
-
-        Map<String, List<String>> questionsByAssignment = distributedExamQuestionsByAssignment.get(studentEmail);
-        if (questionsByAssignment != null) {
-            questionsByAssignment.remove(assignmentId);
-            if (questionsByAssignment.isEmpty()) {
-                distributedExamQuestionsByAssignment.remove(studentEmail);
-                distributedExams.remove(studentEmail);
-            }
-        }
-
-        Map<String, List<String>> difficultiesByAssignment = distributedQuestionDifficultiesByAssignment.get(studentEmail);
-        if (difficultiesByAssignment != null) {
-            difficultiesByAssignment.remove(assignmentId);
-            if (difficultiesByAssignment.isEmpty()) {
-                distributedQuestionDifficultiesByAssignment.remove(studentEmail);
-                distributedQuestionDifficulties.remove(studentEmail);
-            }
-        }
-
-        Map<String, List<String>> topicsByAssignment = distributedQuestionTopicsByAssignment.get(studentEmail);
-        if (topicsByAssignment != null) {
-            topicsByAssignment.remove(assignmentId);
-            if (topicsByAssignment.isEmpty()) {
-                distributedQuestionTopicsByAssignment.remove(studentEmail);
-                distributedQuestionTopics.remove(studentEmail);
-            }
-        }
-
-        Map<String, Map<Integer, String>> answerKeysByAssignment = distributedAnswerKeysByAssignment.get(studentEmail);
-        if (answerKeysByAssignment != null) {
-            answerKeysByAssignment.remove(assignmentId);
-            if (answerKeysByAssignment.isEmpty()) {
-                distributedAnswerKeysByAssignment.remove(studentEmail);
-            }
-        }
-    }
-
     @GetMapping("/homepage")
     public String showHomepage(Model model, java.security.Principal principal) {
         String teacherEmail = principal != null ? principal.getName() : "Teacher";
@@ -398,7 +340,7 @@ public class HomepageController {
         Map<String, Map<String, Object>> distributedExamStatus = new HashMap<>();
         for (EnrolledStudent student : enrolledStudents) {
             String studentEmail = student.getStudentEmail();
-            if (distributedExams.containsKey(studentEmail)) {
+            if (assignmentStore.hasAssignments(studentEmail)) {
                 Map<String, Object> status = new HashMap<>();
                 status.put("studentName", student.getStudentName());
                 status.put("studentEmail", studentEmail);
@@ -408,7 +350,7 @@ public class HomepageController {
                 boolean hasSubmitted = submissions.stream()
                     .anyMatch(sub -> sub.getStudentEmail().equals(studentEmail));
                 status.put("hasSubmitted", hasSubmitted);
-                status.put("isUnlocked", unlockedExams.containsKey(studentEmail) && !unlockedExams.get(studentEmail).isEmpty());
+                status.put("isUnlocked", assignmentStore.hasAnyUnlock(studentEmail));
                 
                 distributedExamStatus.put(studentEmail, status);
             }
@@ -601,7 +543,7 @@ public class HomepageController {
         }
         
         model.addAttribute("exam", exam);
-        List<String> questionDisplay = exam.getQuestions().stream()
+        List<String> questionDisplay = parsedQuestionsFor(exam).stream()
             .map(this::formatQuestionForManageView)
             .collect(Collectors.toList());
         model.addAttribute("questionDisplay", questionDisplay);
@@ -690,12 +632,17 @@ public class HomepageController {
             }
 
             // Add the new question to the existing lists
+            List<String> topics = exam.getTopicsInStep();
             exam.getQuestions().add(normalizedQuestionText);
             exam.getDifficulties().add(difficulty);
+            if (topics != null) {
+                topics.add(topicClassifierFor(exam).classify(normalizedQuestionText, exam.getSubject()));
+            }
             
             // Add answer to the answer key (using the next question number)
             int questionNumber = exam.getQuestions().size() - 1; // 0-based index
             exam.getAnswerKey().put(questionNumber, storedAnswer);
+            exam.markModified();
             
             redirectAttributes.addFlashAttribute("successMessage", 
                 "Question added successfully! Total questions: " + exam.getQuestions().size());
@@ -729,9 +676,13 @@ public class HomepageController {
         
         try {
             if (questionIndex >= 0 && questionIndex < exam.getQuestions().size()) {
-                // Remove question and difficulty at the specified index
+                // Remove question, difficulty and topic at the specified index
+                List<String> topics = exam.getTopicsInStep();
                 exam.getQuestions().remove(questionIndex);
                 exam.getDifficulties().remove(questionIndex);
+                if (topics != null) {
+                    topics.remove(questionIndex);
+                }
                 
                 // Rebuild answer key with new indices
                 Map<Integer, String> newAnswerKey = new HashMap<>();
@@ -748,6 +699,7 @@ public class HomepageController {
                 }
                 exam.getAnswerKey().clear();
                 exam.getAnswerKey().putAll(newAnswerKey);
+                exam.markModified();
                 
                 redirectAttributes.addFlashAttribute("successMessage", 
                     "Question deleted successfully! Total questions: " + exam.getQuestions().size());
@@ -823,11 +775,16 @@ public class HomepageController {
                 normalizedQuestionText += "\n[VID:" + videoUrl + "]";
             }
 
+            List<String> topics = exam.getTopicsInStep();
             exam.getQuestions().set(questionIndex, normalizedQuestionText);
             if (questionIndex < exam.getDifficulties().size()) {
                 exam.getDifficulties().set(questionIndex, difficulty);
             }
+            if (topics != null) {
+                topics.set(questionIndex, topicClassifierFor(exam).classify(normalizedQuestionText, exam.getSubject()));
+            }
             exam.getAnswerKey().put(questionIndex, storedAnswer);
+            exam.markModified();
 
             redirectAttributes.addFlashAttribute("successMessage", "Question updated successfully!");
         } catch (Exception e) {
@@ -868,7 +825,11 @@ public class HomepageController {
         Path targetPath = mediaDir.resolve(fileName);
         Files.copy(mediaFile.getInputStream(), targetPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
 
-        return "/uploads/question-media/" + examId + "/" + fileName;
+        String mediaUrl = "/uploads/question-media/" + examId + "/" + fileName;
+        if ("image".equalsIgnoreCase(mediaType)) {
+            imageVariantService.schedule(mediaUrl);
+        }
+        return mediaUrl;
     }
 
     private String buildMultipleChoiceQuestion(String questionText, String choicesText) {
@@ -893,19 +854,26 @@ public class HomepageController {
         return builtQuestion.toString();
     }
 
-    private String formatQuestionForManageView(String questionText) {
-        if (questionText == null) {
-            return "";
+    private String formatQuestionForManageView(ParsedQuestion question) {
+        StringBuilder formatted = new StringBuilder(question.getText().length() + 64);
+        formatted.append(question.getStem());
+        for (String detail : question.getDetails()) {
+            formatted.append("<br>").append(detail);
         }
-
-        String formatted = questionText
-            .replaceFirst("(?i)^\\[TEXT_INPUT\\]\\s*", "")
-            .replaceAll("(?i)\\[IMG:([^\\]]+)\\]",
-                "<div class=\"question-media my-2\"><img src=\"$1\" alt=\"Question image\" class=\"img-fluid rounded border\"/></div>")
-            .replaceAll("(?i)\\[VID:([^\\]]+)\\]",
-                "<div class=\"question-media my-2\"><video src=\"$1\" controls class=\"w-100 rounded border\" style=\"max-height:320px;\"></video></div>");
-
-        return formatted.replace("\n", "<br>");
+        char label = 'A';
+        for (String choice : question.getChoices()) {
+            formatted.append("<br>").append(label).append(") ").append(choice);
+            label++;
+        }
+        for (String url : question.getImageUrls()) {
+            formatted.append("<br><div class=\"question-media my-2\"><img src=\"").append(url)
+                .append("\" alt=\"Question image\" class=\"img-fluid rounded border\"/></div>");
+        }
+        for (String url : question.getVideoUrls()) {
+            formatted.append("<br><div class=\"question-media my-2\"><video src=\"").append(url)
+                .append("\" controls class=\"w-100 rounded border\" style=\"max-height:320px;\"></video></div>");
+        }
+        return formatted.toString();
     }
 
     @PostMapping("/enroll-student")
@@ -983,7 +951,7 @@ public class HomepageController {
     }
     
     @GetMapping("/subject-classroom/{subjectId}")
-    public String viewSubjectClassroom(@PathVariable Long subjectId, Model model, java.security.Principal principal, HttpSession session, HttpServletResponse response) {
+    public String viewSubjectClassroom(@PathVariable Long subjectId, Model model, java.security.Principal principal, HttpServletResponse response) {
         response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
         response.setHeader("Pragma", "no-cache");
         response.setDateHeader("Expires", 0);
@@ -1001,9 +969,9 @@ public class HomepageController {
         List<EnrolledStudent> enrolledStudents = enrolledStudentRepository.findBySubjectId(subjectId);
         
         // Get submissions for students in this subject
-        List<String> studentEmails = enrolledStudents.stream()
+        Set<String> studentEmails = enrolledStudents.stream()
             .map(EnrolledStudent::getStudentEmail)
-            .collect(Collectors.toList());
+            .collect(Collectors.toSet());
         
         List<ExamSubmission> submissions = examSubmissionRepository.findAll().stream()
             .filter(sub -> studentEmails.contains(sub.getStudentEmail()) && 
@@ -1077,7 +1045,7 @@ public class HomepageController {
         classroomStats.put("averagePercentage", String.format("%.1f", classroomAverage));
 
         // Which enrolled students already have a queued exam (for "Queued" badge in distribute modal)
-        Set<String> distributedStudentEmails = distributedExams.keySet().stream()
+        Set<String> distributedStudentEmails = assignmentStore.getStudentsWithAssignments().stream()
             .filter(studentEmails::contains)
             .collect(Collectors.toSet());
 
@@ -1085,11 +1053,14 @@ public class HomepageController {
         List<Map<String, Object>> distributionTracker = buildDistributionTrackerRows(
             enrolledStudents,
             subject.getSubjectName(),
-            submissionsByStudent,
-            session
+            submissionsByStudent
         );
 
         // Per-quiz tracking summary (assigned/submitted/not submitted)
+        Set<String> submittedStudentExams = new HashSet<>();
+        for (ExamSubmission sub : submissions) {
+            submittedStudentExams.add(sub.getStudentEmail() + "\n" + sub.getExamName());
+        }
         Map<String, Map<String, Object>> quizSummaryMap = new LinkedHashMap<>();
         for (Map<String, Object> row : distributionTracker) {
             String examName = (String) row.get("examName");
@@ -1115,9 +1086,7 @@ public class HomepageController {
 
             quizRow.put("assignedCount", ((Integer) quizRow.get("assignedCount")) + 1);
 
-            List<ExamSubmission> studentSubs = submissionsByStudent.getOrDefault(studentEmail, new ArrayList<>());
-            boolean submittedThisQuiz = studentSubs.stream()
-                .anyMatch(sub -> examName.equals(sub.getExamName()));
+            boolean submittedThisQuiz = submittedStudentExams.contains(studentEmail + "\n" + examName);
 
             if (submittedThisQuiz) {
                 quizRow.put("submittedCount", ((Integer) quizRow.get("submittedCount")) + 1);
@@ -1168,10 +1137,53 @@ public class HomepageController {
         model.addAttribute("submittedStudents", submittedStudents);
         model.addAttribute("classroomStudentSummary", classroomStudentSummary);
         model.addAttribute("classroomStats", classroomStats);
+        model.addAttribute("topicDictionaryText", subject.getTopicDictionary() != null
+            ? subject.getTopicDictionary() : topicClassifierService.getDefaultDictionaryText());
+        model.addAttribute("customTopicDictionary", subject.getTopicDictionary() != null);
         
         return "subject-classroom";
     }
 
+    /**
+     * Save (or with {@code reset}, drop) the topic dictionary used to classify this subject's
+     * questions. Applies to exams uploaded or edited from now on.
+     */
+    @PostMapping("/subject-classroom/{subjectId}/topic-dictionary")
+    public String saveTopicDictionary(@PathVariable Long subjectId,
+                                      @RequestParam(required = false) String dictionary,
+                                      @RequestParam(defaultValue = "false") boolean reset,
+                                      java.security.Principal principal,
+                                      org.springframework.web.servlet.mvc.support.RedirectAttributes redirectAttributes) {
+        Optional<Subject> subjectOpt = subjectRepository.findById(Objects.requireNonNull(subjectId));
+        if (subjectOpt.isEmpty() || !subjectOpt.get().getTeacherEmail().equals(principal.getName())) {
+            return "redirect:/teacher/homepage";
+        }
+        Subject subject = subjectOpt.get();
+
+        if (reset || dictionary == null || dictionary.isBlank()) {
+            subject.setTopicDictionary(null);
+            subjectRepository.save(subject);
+            redirectAttributes.addFlashAttribute("successMessage", "Topic keywords reset to the built-in topics.");
+            return "redirect:/teacher/subject-classroom/" + subjectId;
+        }
+
+        try {
+            String normalized = dictionary.trim();
+            TopicClassifier classifier = topicClassifierService.forDictionary(normalized);
+            if (classifier.getTopics().isEmpty()) {
+                throw new IllegalArgumentException("Add at least one \"Topic: keyword, keyword\" line.");
+            }
+            subject.setTopicDictionary(normalized);
+            subjectRepository.save(subject);
+            redirectAttributes.addFlashAttribute("successMessage",
+                "Topic keywords saved (" + classifier.getTopics().size() + " topics).");
+            System.out.println("🏷️ Topic dictionary updated for " + subject.getSubjectName() + ": " + classifier.getTopics());
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Topic keywords not saved: " + e.getMessage());
+        }
+        return "redirect:/teacher/subject-classroom/" + subjectId;
+    }
+
     @GetMapping("/subject-classroom/{subjectId}/enrolled-students")
     public String viewSubjectEnrolledStudents(@PathVariable Long subjectId,
                                               Model model,
@@ -1207,7 +1219,6 @@ public class HomepageController {
                                                   @RequestParam(required = false) String filterDeadline,
                                                   Model model,
                                                   java.security.Principal principal,
-                                                  HttpSession session,
                                                   HttpServletResponse response) {
         response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
         response.setHeader("Pragma", "no-cache");
@@ -1224,9 +1235,9 @@ public class HomepageController {
             .sorted(Comparator.comparing(EnrolledStudent::getStudentName, String.CASE_INSENSITIVE_ORDER))
             .collect(Collectors.toList());
 
-        List<String> studentEmails = enrolledStudents.stream()
+        Set<String> studentEmails = enrolledStudents.stream()
             .map(EnrolledStudent::getStudentEmail)
-            .collect(Collectors.toList());
+            .collect(Collectors.toSet());
 
         List<ExamSubmission> submissions = examSubmissionRepository.findAll().stream()
             .filter(sub -> studentEmails.contains(sub.getStudentEmail())
@@ -1241,8 +1252,7 @@ public class HomepageController {
         List<Map<String, Object>> distributionTracker = buildDistributionTrackerRows(
             enrolledStudents,
             subject.getSubjectName(),
-            submissionsByStudent,
-            session
+            submissionsByStudent
         );
 
         String examNameFilter = filterExamName != null ? filterExamName.trim() : "";
@@ -1288,53 +1298,39 @@ public class HomepageController {
         return "subject-distribution-students";
     }
 
-    private List<Map<String, Object>> getAssignmentMetadataForStudent(String studentEmail, String subjectName, HttpSession session) {
+    private List<Map<String, Object>> getAssignmentMetadataForStudent(String studentEmail, String subjectName) {
         List<Map<String, Object>> assignments = new ArrayList<>();
 
-        List<Map<String, Object>> history = distributedExamHistory.get(studentEmail);
-        if (history != null) {
-            for (Map<String, Object> item : history) {
-                String examSubject = item.get("examSubject") != null ? String.valueOf(item.get("examSubject")) : "";
-                if (subjectName == null || subjectName.isBlank() || (examSubject != null && subjectName.equalsIgnoreCase(examSubject))) {
-                    assignments.add(new HashMap<>(item));
-                }
-            }
+        if (subjectName == null || subjectName.isBlank()) {
+            assignments.addAll(assignmentStore.getHistory(studentEmail));
+        } else {
+            assignments.addAll(assignmentStore.getSubjectAssignments(subjectName, studentEmail));
         }
 
         if (!assignments.isEmpty()) {
             return assignments;
         }
 
-        String examName = (String) session.getAttribute("examName_" + studentEmail);
-        String examSubject = (String) session.getAttribute("examSubject_" + studentEmail);
-        String activityType = (String) session.getAttribute("examActivityType_" + studentEmail);
-        Integer timeLimit = (Integer) session.getAttribute("examTimeLimit_" + studentEmail);
-        String deadlineRaw = (String) session.getAttribute("examDeadline_" + studentEmail);
+        String examName = null;
+        String examSubject = null;
+        String activityType = null;
+        Integer timeLimit = null;
+        String deadlineRaw = null;
 
-        Map<String, Object> metadata = distributedExamMetadata.get(studentEmail);
+        AssignmentStoreService.Assignment latestAssignment = assignmentStore.getLatestAssignment(studentEmail);
+        Map<String, Object> metadata = latestAssignment != null ? latestAssignment.getMetadata() : null;
         if (metadata != null) {
-            if (examName == null || examName.isBlank()) {
-                Object value = metadata.get("examName");
-                examName = value != null ? String.valueOf(value) : null;
-            }
-            if (examSubject == null || examSubject.isBlank()) {
-                Object value = metadata.get("examSubject");
-                examSubject = value != null ? String.valueOf(value) : null;
-            }
-            if (activityType == null || activityType.isBlank()) {
-                Object value = metadata.get("examActivityType");
-                activityType = value != null ? String.valueOf(value) : null;
-            }
-            if (timeLimit == null) {
-                Object value = metadata.get("examTimeLimit");
-                if (value instanceof Number numberValue) {
-                    timeLimit = numberValue.intValue();
-                }
-            }
-            if (deadlineRaw == null || deadlineRaw.isBlank()) {
-                Object value = metadata.get("examDeadline");
-                deadlineRaw = value != null ? String.valueOf(value) : null;
+            Object value = metadata.get("examName");
+            examName = value != null ? String.valueOf(value) : null;
+            value = metadata.get("examSubject");
+            examSubject = value != null ? String.valueOf(value) : null;
+            value = metadata.get("examActivityType");
+            activityType = value != null ? String.valueOf(value) : null;
+            if (metadata.get("examTimeLimit") instanceof Number numberValue) {
+                timeLimit = numberValue.intValue();
             }
+            value = metadata.get("examDeadline");
+            deadlineRaw = value != null ? String.valueOf(value) : null;
         }
 
         if (examName != null && !examName.isBlank()) {
@@ -1348,8 +1344,7 @@ public class HomepageController {
                 fallback.put("examActivityType", activityType != null ? activityType : "Exam");
                 fallback.put("examTimeLimit", timeLimit != null ? timeLimit : 0);
                 fallback.put("examDeadline", deadlineRaw != null ? deadlineRaw : "");
-                List<String> assignedQuestions = distributedExams.get(studentEmail);
-                fallback.put("questionCount", assignedQuestions != null ? assignedQuestions.size() : 0);
+                fallback.put("questionCount", latestAssignment != null ? latestAssignment.getQuestions().size() : 0);
                 assignments.add(fallback);
             }
         }
@@ -1357,17 +1352,67 @@ public class HomepageController {
         return assignments;
     }
 
+    /**
+     * Latest submission per student and exam name (and per subject), built in one pass so each
+     * tracker row is matched in constant time. Names and subjects compare case-insensitively.
+     */
+    private static final class LatestSubmissionIndex {
+        private final Map<String, ExamSubmission> byExam = new HashMap<>();
+        private final Map<String, ExamSubmission> byExamAndSubject = new HashMap<>();
+
+        LatestSubmissionIndex(Collection<List<ExamSubmission>> submissionsByStudent) {
+            for (List<ExamSubmission> studentSubs : submissionsByStudent) {
+                for (ExamSubmission sub : studentSubs) {
+                    if (sub.getExamName() == null) {
+                        continue;
+                    }
+                    String examKey = key(sub.getStudentEmail(), sub.getExamName());
+                    byExam.merge(examKey, sub, LatestSubmissionIndex::later);
+                    if (sub.getSubject() != null) {
+                        byExamAndSubject.merge(examKey + "\n" + sub.getSubject().toLowerCase(Locale.ROOT), sub, LatestSubmissionIndex::later);
+                    }
+                }
+            }
+        }
+
+        ExamSubmission find(String studentEmail, String examName, String examSubject) {
+            if (examName == null) {
+                return null;
+            }
+            String examKey = key(studentEmail, examName);
+            if (examSubject == null || examSubject.isBlank()) {
+                return byExam.get(examKey);
+            }
+            return byExamAndSubject.get(examKey + "\n" + examSubject.toLowerCase(Locale.ROOT));
+        }
+
+        private static String key(String studentEmail, String examName) {
+            return studentEmail + "\n" + examName.toLowerCase(Locale.ROOT);
+        }
+
+        // Newest submittedAt wins; undated submissions only when nothing dated matches; ties keep the first seen
+        private static ExamSubmission later(ExamSubmission current, ExamSubmission candidate) {
+            if (candidate.getSubmittedAt() == null) {
+                return current;
+            }
+            if (current.getSubmittedAt() == null || candidate.getSubmittedAt().isAfter(current.getSubmittedAt())) {
+                return candidate;
+            }
+            return current;
+        }
+    }
+
     private List<Map<String, Object>> buildDistributionTrackerRows(List<EnrolledStudent> enrolledStudents,
                                                                    String subjectName,
-                                                                   Map<String, List<ExamSubmission>> submissionsByStudent,
-                                                                   HttpSession session) {
+                                                                   Map<String, List<ExamSubmission>> submissionsByStudent) {
         List<Map<String, Object>> rows = new ArrayList<>();
+        LatestSubmissionIndex latestSubmissions = new LatestSubmissionIndex(submissionsByStudent.values());
 
         for (EnrolledStudent enrolled : enrolledStudents) {
             String studentEmail = enrolled.getStudentEmail();
             String studentName = enrolled.getStudentName();
             List<ExamSubmission> studentSubs = submissionsByStudent.getOrDefault(studentEmail, new ArrayList<>());
-            List<Map<String, Object>> assignments = getAssignmentMetadataForStudent(studentEmail, subjectName, session);
+            List<Map<String, Object>> assignments = getAssignmentMetadataForStudent(studentEmail, subjectName);
 
             if (assignments.isEmpty() && !studentSubs.isEmpty()) {
                 ExamSubmission latest = studentSubs.stream()
@@ -1413,15 +1458,7 @@ public class HomepageController {
                     }
                 }
 
-                final String matchExamName = examName;
-                final String matchExamSubject = examSubject;
-                ExamSubmission latestMatchingSubmission = studentSubs.stream()
-                    .filter(sub -> matchExamName != null && sub.getExamName() != null && matchExamName.equalsIgnoreCase(sub.getExamName()))
-                    .filter(sub -> matchExamSubject == null || matchExamSubject.isBlank()
-                        || (sub.getSubject() != null && matchExamSubject.equalsIgnoreCase(sub.getSubject())))
-                    .sorted(Comparator.comparing(ExamSubmission::getSubmittedAt, Comparator.nullsLast(Comparator.reverseOrder())))
-                    .findFirst()
-                    .orElse(null);
+                ExamSubmission latestMatchingSubmission = latestSubmissions.find(studentEmail, examName, examSubject);
 
                 String lastSubmittedAt = "Not submitted";
                 if (latestMatchingSubmission != null && latestMatchingSubmission.getSubmittedAt() != null) {
@@ -1456,10 +1493,8 @@ public class HomepageController {
                 row.put("deadline", deadlineDisplay);
                 row.put("lastSubmittedAt", lastSubmittedAt);
                 row.put("isSubmitted", latestMatchingSubmission != null);
-                row.put("isUnlocked", unlockedExams.containsKey(studentEmail)
-                    && unlockedExams.get(studentEmail) != null
-                    && examName != null
-                    && unlockedExams.get(studentEmail).contains(examName));
+                row.put("latestSubmissionId", latestMatchingSubmission != null ? latestMatchingSubmission.getId() : null);
+                row.put("isUnlocked", assignmentStore.isUnlocked(studentEmail, examName));
                 rows.add(row);
             }
         }
@@ -1480,7 +1515,12 @@ public class HomepageController {
                                  @RequestParam(defaultValue = "50") Integer mediumPercent,
                                  @RequestParam(defaultValue = "20") Integer hardPercent,
                                  @RequestParam(required = false) Integer questionCount,
-                                 HttpSession session) {
+                                 @RequestParam(defaultValue = "false") boolean secureRandomness,
+                                 @RequestParam(defaultValue = "false") boolean adaptive,
+                                 @RequestParam(defaultValue = "0.3") double catTargetSe,
+                                 @RequestParam(required = false) String blueprint,
+                                 @RequestParam(required = false) Double targetTheta,
+                                 @RequestParam(required = false) Double targetInformation) {
         if (!isExamAllowedForSubject(subjectId, examId)) {
             if (subjectId != null) {
                 return "redirect:/teacher/subject-classroom/" + subjectId;
@@ -1488,7 +1528,9 @@ public class HomepageController {
             return "redirect:/teacher/homepage";
         }
 
-        doDistributeForStudent(targetStudent, examId, timeLimit, deadline, easyPercent, mediumPercent, hardPercent, questionCount, session);
+        doDistributeForStudent(targetStudent, examId, timeLimit, deadline, easyPercent, mediumPercent, hardPercent, questionCount,
+                               randomnessService.resolve(secureRandomness), adaptive ? catTargetSe : null,
+                               blueprintFrom(blueprint, targetTheta, targetInformation));
         if (subjectId != null) {
             return "redirect:/teacher/subject-classroom/" + subjectId;
         }
@@ -1504,18 +1546,27 @@ public class HomepageController {
                                   @RequestParam(defaultValue = "50") Integer mediumPercent,
                                   @RequestParam(defaultValue = "20") Integer hardPercent,
                                   @RequestParam(required = false) Integer questionCount,
-                                  HttpSession session) {
+                                  @RequestParam(defaultValue = "false") boolean secureRandomness,
+                                  @RequestParam(required = false) Integer formCount,
+                                  @RequestParam(defaultValue = "false") boolean adaptive,
+                                  @RequestParam(defaultValue = "0.3") double catTargetSe,
+                                  @RequestParam(required = false) String blueprint,
+                                  @RequestParam(required = false) Double targetTheta,
+                                  @RequestParam(required = false) Double targetInformation,
+                                  java.security.Principal principal,
+                                  org.springframework.web.servlet.mvc.support.RedirectAttributes redirectAttributes) {
         if (!isExamAllowedForSubject(subjectId, examId)) {
             return "redirect:/teacher/subject-classroom/" + subjectId;
         }
 
-        List<EnrolledStudent> enrolledStudents = enrolledStudentRepository.findBySubjectId(subjectId);
-        for (EnrolledStudent student : enrolledStudents) {
-            doDistributeForStudent(student.getStudentEmail(), examId, timeLimit, deadline,
-                                   easyPercent, mediumPercent, hardPercent, questionCount, session);
-        }
-        System.out.println("Distributed to all " + enrolledStudents.size() + " students in subject " + subjectId);
-        return "redirect:/teacher/subject-classroom/" + subjectId;
+        List<String> studentEmails = enrolledStudentRepository.findBySubjectId(subjectId).stream()
+            .map(EnrolledStudent::getStudentEmail)
+            .collect(Collectors.toList());
+        return startBulkDistribution(principal.getName(), studentEmails, subjectId, examId, timeLimit, deadline,
+                                     easyPercent, mediumPercent, hardPercent, questionCount,
+                                     randomnessService.resolve(secureRandomness), formCount,
+                                     adaptive ? catTargetSe : null, blueprintFrom(blueprint, targetTheta, targetInformation),
+                                     redirectAttributes);
     }
 
     @PostMapping("/distribute-selected")
@@ -1528,17 +1579,24 @@ public class HomepageController {
                                        @RequestParam(defaultValue = "50") Integer mediumPercent,
                                        @RequestParam(defaultValue = "20") Integer hardPercent,
                                        @RequestParam(required = false) Integer questionCount,
-                                       HttpSession session) {
+                                       @RequestParam(defaultValue = "false") boolean secureRandomness,
+                                       @RequestParam(required = false) Integer formCount,
+                                       @RequestParam(defaultValue = "false") boolean adaptive,
+                                       @RequestParam(defaultValue = "0.3") double catTargetSe,
+                                       @RequestParam(required = false) String blueprint,
+                                       @RequestParam(required = false) Double targetTheta,
+                                       @RequestParam(required = false) Double targetInformation,
+                                       java.security.Principal principal,
+                                       org.springframework.web.servlet.mvc.support.RedirectAttributes redirectAttributes) {
         if (!isExamAllowedForSubject(subjectId, examId)) {
             return "redirect:/teacher/subject-classroom/" + subjectId;
         }
 
-        for (String email : selectedStudents) {
-            doDistributeForStudent(email, examId, timeLimit, deadline,
-                                   easyPercent, mediumPercent, hardPercent, questionCount, session);
-        }
-        System.out.println("Distributed to " + selectedStudents.size() + " selected students in subject " + subjectId);
-        return "redirect:/teacher/subject-classroom/" + subjectId;
+        return startBulkDistribution(principal.getName(), selectedStudents, subjectId, examId, timeLimit, deadline,
+                                     easyPercent, mediumPercent, hardPercent, questionCount,
+                                     randomnessService.resolve(secureRandomness), formCount,
+                                     adaptive ? catTargetSe : null, blueprintFrom(blueprint, targetTheta, targetInformation),
+                                     redirectAttributes);
     }
 
     private boolean isExamAllowedForSubject(Long subjectId, String examId) {
@@ -1562,179 +1620,278 @@ public class HomepageController {
             && classroomSubject.equalsIgnoreCase(selectedExam.getSubject());
     }
 
-    private void doDistributeForStudent(String targetStudent, String examId, Integer timeLimit, String deadline,
-                                        Integer easyPercent, Integer mediumPercent, Integer hardPercent,
-                                        Integer questionCount, HttpSession session) {
-        UploadedExam selectedExam = uploadedExams.get(examId);
+    /**
+     * Per-request distribution settings, computed once and shared by every student's paper
+     */
+    private static final class DistributionPlan {
+        final UploadedExam exam;
+        final ExamContent content;
+        final int easyCount;
+        final int mediumCount;
+        final int hardCount;
+        final RandomnessService.Mode randomness;
+        // Standard error an adaptive test stops at; null for a fixed paper
+        final Double catTargetSe;
+        // Set when papers need the assembler (topic quotas or a target information); null for difficulty quotas alone
+        final TestAssemblyService.Assembly assembly;
+        // Quotas the bank could not meet as requested, and where they went
+        final List<String> adjustments;
+
+        DistributionPlan(UploadedExam exam, ExamContent content, int easyCount, int mediumCount, int hardCount,
+                         RandomnessService.Mode randomness, Double catTargetSe,
+                         TestAssemblyService.Assembly assembly, List<String> adjustments) {
+            this.exam = exam;
+            this.content = content;
+            this.easyCount = easyCount;
+            this.mediumCount = mediumCount;
+            this.hardCount = hardCount;
+            this.randomness = randomness;
+            this.catTargetSe = catTargetSe;
+            this.assembly = assembly;
+            this.adjustments = adjustments;
+        }
+    }
 
-        if (selectedExam != null) {
-            // Create a fresh copy of questions and difficulties for this student
-            List<String> allQuestions = new ArrayList<>(selectedExam.getQuestions());
-            List<String> allDifficulties = new ArrayList<>(selectedExam.getDifficulties());
-            Map<Integer, String> originalAnswerKey = selectedExam.getAnswerKey();
-
-            // Categorize questions by difficulty using stored difficulty levels
-            List<Integer> easyIndices = new ArrayList<>();
-            List<Integer> mediumIndices = new ArrayList<>();
-            List<Integer> hardIndices = new ArrayList<>();
-
-            for (int i = 0; i < allQuestions.size(); i++) {
-                String difficulty = allDifficulties.get(i);
-                if (difficulty.equalsIgnoreCase("Easy")) {
-                    easyIndices.add(i);
-                } else if (difficulty.equalsIgnoreCase("Hard")) {
-                    hardIndices.add(i);
-                } else {
-                    mediumIndices.add(i);
-                }
-            }
+    /**
+     * The teacher's blueprint rows and/or IRT target as one blueprint; null when neither is given.
+     * A target without rows keeps the difficulty percentages as quotas.
+     */
+    private ExamBlueprint blueprintFrom(String text, Double targetTheta, Double targetInformation) {
+        ExamBlueprint blueprint = ExamBlueprint.parse(text);
+        if (targetTheta == null) {
+            return blueprint;
+        }
+        return (blueprint != null ? blueprint : ExamBlueprint.of(List.of()))
+            .withTarget(targetTheta, targetInformation != null ? targetInformation : 0);
+    }
 
-            // Calculate number of questions for each difficulty
-            int totalQuestions = (questionCount != null && questionCount > 0 && questionCount <= allQuestions.size())
-                ? questionCount
-                : allQuestions.size();
+    private DistributionPlan planDistribution(UploadedExam selectedExam, Integer easyPercent, Integer mediumPercent,
+                                              Integer hardPercent, Integer questionCount,
+                                              RandomnessService.Mode randomness, Double catTargetSe,
+                                              ExamBlueprint blueprint) {
+        // Every student shares one immutable snapshot; only index orders are stored per student
+        ExamContent content = distributionContentFor(selectedExam);
 
-            System.out.println("Distributing " + totalQuestions + " questions out of " + allQuestions.size() + " available");
+        // Calculate number of questions for each difficulty
+        int totalQuestions = (questionCount != null && questionCount > 0 && questionCount <= content.size())
+            ? questionCount
+            : content.size();
 
-            int easyCount = (int) Math.round(totalQuestions * easyPercent / 100.0);
-            int mediumCount = (int) Math.round(totalQuestions * mediumPercent / 100.0);
-            int hardCount = (int) Math.round(totalQuestions * hardPercent / 100.0);
+        System.out.println("Distributing " + totalQuestions + " questions out of " + content.size() + " available");
 
-            int calculatedTotal = easyCount + mediumCount + hardCount;
-            if (calculatedTotal < totalQuestions) {
-                mediumCount += (totalQuestions - calculatedTotal);
-            } else if (calculatedTotal > totalQuestions) {
-                mediumCount -= (calculatedTotal - totalQuestions);
-            }
+        // Largest remainder: the rounding leftover goes to the largest fractions, not always to Medium
+        int[] counts = ExamBlueprint.apportion(totalQuestions, easyPercent, mediumPercent, hardPercent);
+        ExamBlueprint quotas = ExamBlueprint.byDifficulty(counts[ExamContent.EASY], counts[ExamContent.MEDIUM], counts[ExamContent.HARD]);
+        if (blueprint != null) {
+            // A blueprint with rows replaces the percentages and the question count
+            quotas = (blueprint.getRows().isEmpty() ? quotas : blueprint).withTargetsOf(blueprint);
+        }
 
-            SecureRandom rand = new SecureRandom();
-            Collections.shuffle(easyIndices, rand);
-            Collections.shuffle(mediumIndices, rand);
-            Collections.shuffle(hardIndices, rand);
+        // Resolved once for the whole class; quotas the bank cannot meet are moved, not silently dropped
+        TestAssemblyService.Assembly assembly = testAssemblyService.plan(content, quotas);
+        for (String adjustment : assembly.getAdjustments()) {
+            System.out.println("⚠️ Blueprint adjusted: " + adjustment);
+        }
 
-            List<String> selectedQuestions = new ArrayList<>();
-            List<String> selectedDifficulties = new ArrayList<>();
-            List<Integer> selectedOriginalIndices = new ArrayList<>();
+        // Difficulty quotas alone keep the bucket sampler (and seeded papers); topics or a target need the assembler
+        boolean assembled = quotas.hasTopics() || quotas.hasTarget();
+        return new DistributionPlan(selectedExam, content, assembly.getBucketCount(ExamContent.EASY),
+            assembly.getBucketCount(ExamContent.MEDIUM), assembly.getBucketCount(ExamContent.HARD), randomness,
+            catTargetSe, assembled ? assembly : null, assembly.getAdjustments());
+    }
 
-            for (int i = 0; i < Math.min(easyCount, easyIndices.size()); i++) {
-                int idx = easyIndices.get(i);
-                selectedQuestions.add(allQuestions.get(idx));
-                selectedDifficulties.add(allDifficulties.get(idx));
-                selectedOriginalIndices.add(idx + 1);
-            }
-            for (int i = 0; i < Math.min(mediumCount, mediumIndices.size()); i++) {
-                int idx = mediumIndices.get(i);
-                selectedQuestions.add(allQuestions.get(idx));
-                selectedDifficulties.add(allDifficulties.get(idx));
-                selectedOriginalIndices.add(idx + 1);
-            }
-            for (int i = 0; i < Math.min(hardCount, hardIndices.size()); i++) {
-                int idx = hardIndices.get(i);
-                selectedQuestions.add(allQuestions.get(idx));
-                selectedDifficulties.add(allDifficulties.get(idx));
-                selectedOriginalIndices.add(idx + 1);
-            }
+    /**
+     * Cut one student's paper. Thread-safe: used in parallel by bulk distribution.
+     */
+    private AssignmentStoreService.Assignment buildAssignment(DistributionPlan plan, Integer timeLimit, String deadline) {
+        // The worker thread's own generator: no shared lock, no entropy-pool reads per paper
+        RandomGenerator rand = randomnessService.generator(plan.randomness);
+        Long seed = null;
+        PaperLayout layout;
+        if (usesSeededLayout(seededVariants, plan.assembly != null, plan.randomness)) {
+            seed = rand.nextLong();
+            layout = examVariantService.seeded(plan.content, seed, plan.easyCount, plan.mediumCount, plan.hardCount);
+        } else {
+            layout = cutPaper(plan, rand);
+        }
 
-            List<Integer> shuffleIndices = new ArrayList<>();
-            for (int i = 0; i < selectedQuestions.size(); i++) shuffleIndices.add(i);
-            Collections.shuffle(shuffleIndices, rand);
+        String assignmentId = "A_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        Map<String, Object> metadata = assignmentMetadata(plan, assignmentId, layout, timeLimit, deadline);
+        if (seed != null) {
+            metadata.put("layoutSeed", seed);
+        }
+        return new AssignmentStoreService.Assignment(assignmentId, metadata, plan.content, layout);
+    }
 
-            List<String> finalQuestions = new ArrayList<>();
-            List<String> finalDifficulties = new ArrayList<>();
-            Map<Integer, String> studentAnswerKey = new HashMap<>();
+    /**
+     * Seeded papers keep only 8 bytes of state and are re-derived on demand by any node. They replay
+     * through java.util.Random and cannot reproduce an assembled paper, so SECURE and assembled papers
+     * are always cut in full.
+     */
+    static boolean usesSeededLayout(boolean seededVariants, boolean assembled, RandomnessService.Mode randomness) {
+        return seededVariants && !assembled && randomness != RandomnessService.Mode.SECURE;
+    }
 
-            for (int newPos = 0; newPos < shuffleIndices.size(); newPos++) {
-                int oldPos = shuffleIndices.get(newPos);
-                finalQuestions.add(selectedQuestions.get(oldPos));
-                finalDifficulties.add(selectedDifficulties.get(oldPos));
+    /**
+     * One fixed paper: blueprint assembly when the plan has one, otherwise the difficulty quotas.
+     * Assembled papers are not re-derivable from a seed, so they are never seeded layouts.
+     */
+    private PaperLayout cutPaper(DistributionPlan plan, RandomGenerator rand) {
+        if (plan.assembly != null) {
+            return examVariantService.arrange(plan.content, testAssemblyService.assemble(plan.assembly, rand), rand);
+        }
+        return examVariantService.derive(plan.content, rand, plan.easyCount, plan.mediumCount, plan.hardCount);
+    }
 
-                int originalQuestionIndex = selectedOriginalIndices.get(oldPos);
-                String answer = originalAnswerKey.get(originalQuestionIndex);
-                if (answer != null) {
-                    studentAnswerKey.put(newPos + 1, answer);
-                    System.out.println("Q" + (newPos + 1) + " (originally Q" + originalQuestionIndex + ") -> Answer: " + answer);
-                }
-            }
+    /**
+     * A student's paper from a form pool: the form is picked by hashing the email and shared as-is,
+     * so nothing is generated per student.
+     */
+    private AssignmentStoreService.Assignment formAssignment(DistributionPlan plan, FormPoolService.FormPool pool,
+                                                             String studentEmail, Integer timeLimit, String deadline) {
+        FormPoolService.Form form = pool.formFor(studentEmail);
+        String assignmentId = "A_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        Map<String, Object> metadata = assignmentMetadata(plan, assignmentId, form, timeLimit, deadline);
+        metadata.put("formPoolId", pool.getPoolId());
+        metadata.put("formNumber", form.getFormNumber());
+        return new AssignmentStoreService.Assignment(assignmentId, metadata, form.getContent(), form);
+    }
+
+    private Map<String, Object> assignmentMetadata(DistributionPlan plan, String assignmentId, PaperLayout layout,
+                                                   Integer timeLimit, String deadline) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("assignmentId", assignmentId);
+        metadata.put("examSubject", plan.exam.getSubject());
+        metadata.put("examActivityType", plan.exam.getActivityType());
+        metadata.put("examName", plan.exam.getExamName());
+        metadata.put("examTimeLimit", timeLimit);
+        metadata.put("examDeadline", deadline);
+        metadata.put("questionCount", layout.getQuestionOrder().length);
+        metadata.put("randomness", plan.randomness.name());
+        if (plan.catTargetSe != null) {
+            // Served adaptively: questionCount is the item limit, the paper itself is not shown
+            metadata.put("catTargetSe", plan.catTargetSe);
+        }
+        return metadata;
+    }
 
-            List<String> uniqueExam = new ArrayList<>();
-            for (String questionBlock : finalQuestions) {
-                uniqueExam.add(reshuffleQuestionChoices(questionBlock, rand));
-            }
-
-            distributedExams.put(targetStudent, uniqueExam);
-            session.setAttribute("questionDifficulties_" + targetStudent, finalDifficulties);
-            distributedQuestionDifficulties.put(targetStudent, new ArrayList<>(finalDifficulties));
-
-            List<String> questionTopics = extractTopicsFromQuestions(finalQuestions, selectedExam.getSubject());
-            session.setAttribute("questionTopics_" + targetStudent, questionTopics);
-            distributedQuestionTopics.put(targetStudent, new ArrayList<>(questionTopics));
-            System.out.println("📚 Extracted " + questionTopics.size() + " question topics for Random Forest");
-
-            session.setAttribute("examSubject_" + targetStudent, selectedExam.getSubject());
-            session.setAttribute("examActivityType_" + targetStudent, selectedExam.getActivityType());
-            session.setAttribute("examName_" + targetStudent, selectedExam.getExamName());
-            session.setAttribute("examTimeLimit_" + targetStudent, timeLimit);
-            session.setAttribute("examDeadline_" + targetStudent, deadline);
-
-            Map<String, Object> metadata = new HashMap<>();
-            String assignmentId = "A_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
-            metadata.put("assignmentId", assignmentId);
-            metadata.put("examSubject", selectedExam.getSubject());
-            metadata.put("examActivityType", selectedExam.getActivityType());
-            metadata.put("examName", selectedExam.getExamName());
-            metadata.put("examTimeLimit", timeLimit);
-            metadata.put("examDeadline", deadline);
-            metadata.put("questionCount", uniqueExam.size());
-            distributedExamMetadata.put(targetStudent, metadata);
-
-            Map<String, Object> historyEntry = new HashMap<>(metadata);
-            historyEntry.put("distributedAt", java.time.LocalDateTime.now().toString());
-            List<Map<String, Object>> history = distributedExamHistory.computeIfAbsent(targetStudent, k -> new ArrayList<>());
-            history.add(historyEntry);
-
-            distributedExamQuestionsByAssignment
-                .computeIfAbsent(targetStudent, k -> new HashMap<>())
-                .put(assignmentId, new ArrayList<>(uniqueExam));
-            distributedQuestionDifficultiesByAssignment
-                .computeIfAbsent(targetStudent, k -> new HashMap<>())
-                .put(assignmentId, new ArrayList<>(finalDifficulties));
-            distributedQuestionTopicsByAssignment
-                .computeIfAbsent(targetStudent, k -> new HashMap<>())
-                .put(assignmentId, new ArrayList<>(questionTopics));
-            distributedAnswerKeysByAssignment
-                .computeIfAbsent(targetStudent, k -> new HashMap<>())
-                .put(assignmentId, new HashMap<>(studentAnswerKey));
+    private void doDistributeForStudent(String targetStudent, String examId, Integer timeLimit, String deadline,
+                                        Integer easyPercent, Integer mediumPercent, Integer hardPercent,
+                                        Integer questionCount, RandomnessService.Mode randomness, Double catTargetSe,
+                                        ExamBlueprint blueprint) {
+        UploadedExam selectedExam = uploadedExams.get(examId);
+
+        if (selectedExam != null) {
+            DistributionPlan plan = planDistribution(selectedExam, easyPercent, mediumPercent, hardPercent, questionCount,
+                                                     randomness, catTargetSe, blueprint);
+            AssignmentStoreService.Assignment assignment = buildAssignment(plan, timeLimit, deadline);
+            Map<Integer, String> studentAnswerKey = assignment.getAnswerKey();
+
+            // Questions, key, topics and metadata become visible to the student in one step.
+            // Nothing per student goes into the teacher's session; the store is the only copy.
+            assignmentStore.publish(targetStudent, assignment);
 
             if (!studentAnswerKey.isEmpty()) {
                 answerKeyService.storeStudentAnswerKey(targetStudent, studentAnswerKey);
                 System.out.println("Stored answer key for " + targetStudent + " with " + studentAnswerKey.size() + " answers");
             }
 
-            long actualEasy   = finalDifficulties.stream().filter(d -> d.equalsIgnoreCase("Easy")).count();
-            long actualMedium = finalDifficulties.stream().filter(d -> d.equalsIgnoreCase("Medium")).count();
-            long actualHard   = finalDifficulties.stream().filter(d -> d.equalsIgnoreCase("Hard")).count();
+            int[] perBucket = new int[3];
+            for (int index : assignment.getLayout().getQuestionOrder()) {
+                perBucket[plan.content.getBucket(index)]++;
+            }
 
             System.out.println("Distributed exam to: " + targetStudent);
-            System.out.println("Distribution: " + actualEasy + " Easy, " + actualMedium + " Medium, " + actualHard + " Hard");
+            System.out.println("Distribution: " + perBucket[ExamContent.EASY] + " Easy, " + perBucket[ExamContent.MEDIUM]
+                + " Medium, " + perBucket[ExamContent.HARD] + " Hard");
             System.out.println("Time limit: " + timeLimit + " minutes, Deadline: " + deadline);
         }
     }
+
+    /**
+     * Hand a class-sized distribution to the bulk engine; papers are generated in parallel and
+     * then published student by student. The teacher page polls /teacher/distribution-jobs/{jobId} for progress.
+     * With a form count, that many forms are cut once and students are hashed onto them instead.
+     */
+    private String startBulkDistribution(String teacherEmail, List<String> studentEmails, Long subjectId, String examId, Integer timeLimit,
+                                         String deadline, Integer easyPercent, Integer mediumPercent, Integer hardPercent,
+                                         Integer questionCount, RandomnessService.Mode randomness, Integer formCount,
+                                         Double catTargetSe, ExamBlueprint blueprint,
+                                         org.springframework.web.servlet.mvc.support.RedirectAttributes redirectAttributes) {
+        UploadedExam selectedExam = uploadedExams.get(examId);
+        DistributionPlan plan = planDistribution(selectedExam, easyPercent, mediumPercent, hardPercent, questionCount,
+                                                 randomness, catTargetSe, blueprint);
+
+        BulkDistributionService.BulkDistributionJob job;
+        if (formCount != null && formCount > 0) {
+            FormPoolService.FormPool pool = formPoolService.createPool(plan.content, formCount,
+                random -> cutPaper(plan, random), randomnessService.generator(randomness));
+            job = bulkDistributionService.submit(teacherEmail, selectedExam.getExamName(), studentEmails,
+                email -> formAssignment(plan, pool, email, timeLimit, deadline));
+        } else {
+            job = bulkDistributionService.submit(teacherEmail, selectedExam.getExamName(), studentEmails,
+                email -> buildAssignment(plan, timeLimit, deadline));
+        }
+        redirectAttributes.addFlashAttribute("distributionJobId", job.getJobId());
+        if (!plan.adjustments.isEmpty()) {
+            redirectAttributes.addFlashAttribute("warningMessage",
+                "Blueprint adjusted to fit the question bank: " + String.join("; ", plan.adjustments));
+        }
+        System.out.println("📤 Bulk distribution " + job.getJobId() + " started for " + job.getTotal()
+            + " students in subject " + subjectId + " (" + randomness + " randomness)");
+        return "redirect:/teacher/subject-classroom/" + subjectId;
+    }
+
+    @GetMapping("/distribution-jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getDistributionJob(@PathVariable String jobId,
+                                                                  java.security.Principal principal) {
+        // Only the teacher who started it: the summary lists student emails and failure reasons
+        BulkDistributionService.BulkDistributionJob job = bulkDistributionService.getJob(jobId, principal.getName());
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.toSummary());
+    }
+
+    @GetMapping("/assignment-cache/stats")
+    @ResponseBody
+    public Map<String, Object> getAssignmentCacheStats() {
+        return assignmentStore.getCacheStats();
+    }
+
+    /**
+     * How much disk and PNG encoding the content-addressed image store has saved.
+     */
+    @GetMapping("/image-store/stats")
+    @ResponseBody
+    public Map<String, Object> getImageStoreStats() throws IOException {
+        Map<String, Object> stats = new LinkedHashMap<>(imageStoreService.getDedupReport());
+        stats.put("variants", imageVariantService.getStats());
+        return stats;
+    }
+
+    /**
+     * Serialized size of the teacher's own session; it should stay small however many students get exams.
+     */
+    @GetMapping("/session-size")
+    @ResponseBody
+    public Map<String, Object> getSessionSize(HttpSession session) {
+        return sessionSizeService.measure(session);
+    }
     
     @PostMapping("/unlock-exam")
-    public String unlockExam(@RequestParam String studentEmail,
-                            HttpSession session) {
-        String examName = (String) session.getAttribute("examName_" + studentEmail);
-        if (examName == null || examName.isEmpty()) {
-            Map<String, Object> metadata = distributedExamMetadata.get(studentEmail);
-            if (metadata != null) {
-                Object metaExamName = metadata.get("examName");
-                examName = metaExamName != null ? String.valueOf(metaExamName) : null;
-            }
+    public String unlockExam(@RequestParam String studentEmail) {
+        String examName = null;
+        AssignmentStoreService.Assignment latest = assignmentStore.getLatestAssignment(studentEmail);
+        if (latest != null) {
+            Object metaExamName = latest.getMetadata().get("examName");
+            examName = metaExamName != null ? String.valueOf(metaExamName) : null;
         }
         
         if (examName != null) {
             // Add to unlocked exams
-            unlockedExams.computeIfAbsent(studentEmail, k -> new HashSet<>()).add(examName);
+            assignmentStore.unlock(studentEmail, examName);
             System.out.println("🔓 EXAM UNLOCKED: " + examName + " for student " + studentEmail);
         }
         
@@ -1744,45 +1901,56 @@ public class HomepageController {
     /**
      * Re-shuffle the answer choices within a question block to create unique exams
      */
-    private String reshuffleQuestionChoices(String questionBlock, SecureRandom rand) {
-        String[] lines = questionBlock.split("\n");
-        if (lines.length <= 1) return questionBlock; // No choices to shuffle
+    private String reshuffleQuestionChoices(String questionBlock, RandomGenerator rand) {
+        ParsedQuestion parsed = ParsedQuestion.parse(questionBlock);
+        int choiceCount = parsed.getChoiceCount();
+        if (choiceCount == 0) return questionBlock; // No choices to shuffle
         
-        String questionText = lines[0];
-        List<String> choices = new ArrayList<>();
-        List<String> mediaMarkers = new ArrayList<>();
-        
-        // Extract choices (lines with A), B), C), D) format)
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (line.matches("^[A-Za-z]\\)\\s+.+")) {
-                // Remove the label and extract just the choice text
-                String choiceText = line.replaceFirst("^[A-Za-z]\\)\\s+", "");
-                choices.add(choiceText);
-            } else if (line.matches("^\\[(IMG|VID):.+\\]$")) {
-                mediaMarkers.add(line);
-            }
+        // Shuffle the choice positions using Fisher-Yates, then relabel A), B), ...
+        int[] order = new int[choiceCount];
+        for (int i = 0; i < choiceCount; i++) {
+            order[i] = i;
         }
-        
-        // If no choices found, return original
-        if (choices.isEmpty()) return questionBlock;
-        
-        // Shuffle the choices using Fisher-Yates
-        fisherYatesService.shuffle(choices, rand);
-        
-        // Rebuild the question with reshuffled choices
-        StringBuilder result = new StringBuilder(questionText);
-        char label = 'A';
-        for (String choice : choices) {
-            result.append("\n").append(label).append(") ").append(choice);
-            label++;
+        fisherYatesService.shuffle(order, rand);
+        byte[] choiceOrder = new byte[choiceCount];
+        for (int i = 0; i < choiceCount; i++) {
+            choiceOrder[i] = (byte) order[i];
         }
+        return parsed.render(choiceOrder);
+    }
 
-        for (String marker : mediaMarkers) {
-            result.append("\n").append(marker);
+    /**
+     * Immutable snapshot of an uploaded exam for distribution, built once per edit of the exam
+     */
+    private ExamContent distributionContentFor(UploadedExam exam) {
+        ExamContent content = exam.getDistributionContent();
+        if (content != null) {
+            return content;
         }
-        
-        return result.toString();
+        int revision = exam.getRevision();
+        List<String> topics = exam.getTopics();
+        if (topics == null || topics.size() != exam.getQuestions().size()) {
+            topics = topicClassifierFor(exam).classifyAll(exam.getQuestions(), exam.getSubject());
+        }
+        content = new ExamContent(exam.getExamId(), exam.getQuestions(), exam.getDifficulties(),
+            topics, exam.getAnswerKey());
+        exam.cacheDistributionContent(content, revision);
+        System.out.println("📚 Built distribution snapshot for " + exam.getExamName() + " (" + content.size() + " questions)");
+        return content;
+    }
+
+    /**
+     * Classifier an exam's topics came from: its subject's dictionary at upload time
+     */
+    private TopicClassifier topicClassifierFor(UploadedExam exam) {
+        return exam.getTopicClassifier() != null ? exam.getTopicClassifier() : topicClassifierService.getDefault();
+    }
+
+    /**
+     * Parsed questions of an uploaded exam, from its cached snapshot
+     */
+    private List<ParsedQuestion> parsedQuestionsFor(UploadedExam exam) {
+        return distributionContentFor(exam).getParsedQuestions();
     }
 
     @GetMapping("/process-exams")
@@ -1797,84 +1965,190 @@ public class HomepageController {
                                @RequestParam(value = "subject", required = false) String subject,
                                @RequestParam(value = "quizName", required = false) String quizName,
                                @RequestParam(value = "activityType", required = false) String activityType,
-                               HttpSession session, Model model) throws Exception {
-        String processedExamId = null;
-        if (examCreated != null && !examCreated.isEmpty()) {
-            Map<Integer, String> answerKey = new HashMap<>();
-            String fileName = examCreated.getOriginalFilename();
-            boolean isCsvFormat = fileName != null && fileName.toLowerCase().endsWith(".csv");
-            
-            // Check if separate answer key is provided
-            if (answerKeyPdf != null && !answerKeyPdf.isEmpty()) {
-                String answerKeyFileName = answerKeyPdf.getOriginalFilename();
-                boolean isAnswerKeyCsv = answerKeyFileName != null && answerKeyFileName.toLowerCase().endsWith(".csv");
-                
-                if (isAnswerKeyCsv) {
-                    answerKey = parseAnswerKeyCsv(answerKeyPdf);
-                } else {
-                    answerKey = parseAnswerKeyPdf(answerKeyPdf);
+                               @RequestParam(value = "replaceExamId", required = false) String replaceExamId,
+                               java.security.Principal principal,
+                               org.springframework.web.servlet.mvc.support.RedirectAttributes redirectAttributes) throws IOException {
+        if (examCreated == null || examCreated.isEmpty()) {
+            return "redirect:/teacher/processed-papers";
+        }
+
+        // Only copy the files here; the heavy work runs as a background job the page polls
+        ExamIngestionService.SpooledUpload examUpload = examIngestionService.spool(examCreated);
+        ExamIngestionService.SpooledUpload answerKeyUpload = examIngestionService.spool(answerKeyPdf);
+        List<ExamIngestionService.SpooledUpload> uploads = new ArrayList<>();
+        uploads.add(examUpload);
+        uploads.add(answerKeyUpload);
+
+        String teacherEmail = principal != null ? principal.getName() : null;
+        ExamIngestionService.IngestionJob job = examIngestionService.submit(teacherEmail, examCreated.getOriginalFilename(), uploads,
+            ingestionJob -> ingestExam(ingestionJob, examUpload, answerKeyUpload, subject, quizName, activityType,
+                                       replaceExamId, teacherEmail));
+        redirectAttributes.addFlashAttribute("ingestionJobId", job.getJobId());
+        return "redirect:/teacher/processed-papers";
+    }
+
+    /**
+     * Status of an upload. Once it has completed, it also becomes the session's exam for /export/*.
+     */
+    @GetMapping("/ingestion-jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getIngestionJob(@PathVariable String jobId, HttpSession session,
+                                                               java.security.Principal principal) {
+        // Only the teacher who uploaded it: the summary names the exam and why parsing failed
+        ExamIngestionService.IngestionJob job = examIngestionService.getJob(jobId, principal.getName());
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() == ExamIngestionService.JobStatus.COMPLETED && job.getExamId() != null) {
+            session.setAttribute("lastUploadedExamId", job.getExamId());
+        }
+        return ResponseEntity.ok(job.toSummary());
+    }
+
+    /**
+     * Parse, shuffle and register one uploaded exam. Runs on an ingestion worker, not a request thread.
+     *
+     * With {@code replaceExamId} the upload is a new version of that exam: it keeps the exam id,
+     * questions whose source block is unchanged are carried over as they were (choice order,
+     * answer, difficulty, topic) and only new or edited blocks are parsed. A byte-identical
+     * re-upload skips parsing altogether. The job reports what changed.
+     *
+     * Topics come from the teacher's dictionary for the subject, if they set one up.
+     */
+    private String ingestExam(ExamIngestionService.IngestionJob job, MultipartFile examCreated, MultipartFile answerKeyPdf,
+                              String subject, String quizName, String activityType, String replaceExamId,
+                              String teacherEmail) throws IOException {
+        Map<Integer, String> answerKey = new HashMap<>();
+        String fileName = examCreated.getOriginalFilename();
+        boolean isCsvFormat = fileName != null && fileName.toLowerCase().endsWith(".csv");
+        UploadedExam previous = replaceExamId != null && !replaceExamId.isBlank() ? uploadedExams.get(replaceExamId) : null;
+
+        String fallbackName = (fileName != null ? fileName : "uploaded_exam")
+            .replaceFirst("(?i)\\.pdf$", "")
+            .replaceFirst("(?i)\\.csv$", "");
+        if (previous != null) {
+            fallbackName = previous.getExamName();
+        }
+        String examName = (quizName != null && !quizName.trim().isEmpty()) ? quizName.trim() : fallbackName;
+        String examSubject = (subject != null && !subject.isEmpty()) ? subject
+            : previous != null ? previous.getSubject() : "General";
+        String examActivityType = (activityType != null && !activityType.isEmpty()) ? activityType
+            : previous != null ? previous.getActivityType() : "Exam";
+
+        TopicClassifier topicClassifier = teacherEmail != null
+            ? topicClassifierService.forSubject(subjectRepository.findBySubjectNameAndTeacherEmail(examSubject, teacherEmail).orElse(null))
+            : topicClassifierService.getDefault();
+        String uploadFingerprint = QuestionReuseIndex.uploadFingerprint(examCreated, answerKeyPdf);
+        QuestionReuseIndex reuse = QuestionReuseIndex.empty();
+        if (previous != null) {
+            synchronized (previous) {
+                // Topics depend on the subject and its dictionary, so they only carry over when both are the same
+                boolean sameTopics = examSubject.equals(previous.getSubject()) && topicClassifier == previous.getTopicClassifier();
+                if (uploadFingerprint.equals(previous.getUploadFingerprint()) && sameTopics) {
+                    return registerUnchangedUpload(job, previous, examName, examActivityType);
                 }
-                model.addAttribute("message", "Exam and Answer Key processed successfully!");
+                reuse = QuestionReuseIndex.of(previous.getFingerprints(), previous.getQuestions(), previous.getDifficulties(),
+                    sameTopics ? previous.getTopics() : null, previous.getAnswerKey());
             }
-            
-            // Process exam based on file type
-            List<String> randomizedLines;
-            List<String> difficultyLevels = new ArrayList<>();
-            
-            if (isCsvFormat) {
-                CsvProcessResult csvResult = processCsvExam(examCreated, session, answerKey);
-                randomizedLines = csvResult.questions;
-                difficultyLevels = csvResult.difficulties;
+        }
+
+        // Check if separate answer key is provided
+        if (answerKeyPdf != null && !answerKeyPdf.isEmpty()) {
+            job.progress("Reading answer key", 5);
+            String answerKeyFileName = answerKeyPdf.getOriginalFilename();
+            boolean isAnswerKeyCsv = answerKeyFileName != null && answerKeyFileName.toLowerCase().endsWith(".csv");
+
+            if (isAnswerKeyCsv) {
+                answerKey = parseAnswerKeyCsv(answerKeyPdf);
             } else {
-                randomizedLines = processFisherYates(examCreated, session, answerKey);
-                // For PDF files (exam "paper"), automatically infer difficulty per question
-                for (String block : randomizedLines) {
-                    String typeHint = block.matches("(?s).*[A-Da-d]\\)\\s+.*") ? "MULTIPLE_CHOICE" : "TEXT_INPUT";
-                    String inferred = inferDifficultyFromQuestion(block, typeHint);
-                    difficultyLevels.add(inferred);
-                }
+                answerKey = parseAnswerKeyPdf(answerKeyPdf);
             }
-            session.setAttribute("shuffledExam", randomizedLines);
-            
-            @SuppressWarnings("unchecked")
-            Map<Integer, String> finalAnswerKey = (Map<Integer, String>) session.getAttribute("correctAnswerKey");
-            
-            // Store the uploaded exam for later selection
-            String examId = "EXAM_" + System.currentTimeMillis();
-            String originalFilename = examCreated.getOriginalFilename();
-            String fallbackName = (originalFilename != null ? originalFilename : "uploaded_exam")
-                .replaceFirst("(?i)\\.pdf$", "")
-                .replaceFirst("(?i)\\.csv$", "");
-            String examName = (quizName != null && !quizName.trim().isEmpty()) ? quizName.trim() : fallbackName;
-            String examSubject = (subject != null && !subject.isEmpty()) ? subject : "General";
-            String examActivityType = (activityType != null && !activityType.isEmpty()) ? activityType : "Exam";
-            
-            UploadedExam uploadedExam = new UploadedExam(examId, examName, examSubject, examActivityType, 
-                                                         randomizedLines, difficultyLevels, finalAnswerKey);
-            uploadedExams.put(examId, uploadedExam);
-            processedExamId = examId;
-            model.addAttribute("processedExamId", examId);
-            model.addAttribute("processedExamName", examName);
-            
-            // Build sorted answer key list so teacher can see it on the results page
-            if (finalAnswerKey != null && !finalAnswerKey.isEmpty()) {
-                List<Map<String, Object>> answerKeyDisplay = new ArrayList<>();
-                for (int i = 1; i <= finalAnswerKey.size(); i++) {
-                    Map<String, Object> entry = new HashMap<>();
-                    entry.put("number", i);
-                    entry.put("answer", finalAnswerKey.getOrDefault(i, "Not Set"));
-                    answerKeyDisplay.add(entry);
-                }
-                model.addAttribute("answerKeyDisplay", answerKeyDisplay);
-            }
-            model.addAttribute("type", "exam");
-            model.addAttribute("examUploaded", true);
         }
 
-        if (processedExamId != null) {
-            return "redirect:/teacher/processed-papers/" + processedExamId;
+        // Process exam based on file type
+        ProcessedExam processed;
+        if (isCsvFormat) {
+            job.progress("Parsing CSV questions", 20);
+            processed = processCsvExam(examCreated, answerKey, reuse);
+        } else {
+            job.progress("Extracting text and images", 20);
+            processed = processFisherYates(examCreated, answerKey, reuse);
+        }
+
+        // For PDF files (exam "paper"), automatically infer difficulty per new question
+        job.progress("Inferring difficulty", 80);
+        List<String> newQuestions = new ArrayList<>();
+        for (int i = 0; i < processed.questions.size(); i++) {
+            String block = processed.questions.get(i);
+            if (processed.difficulties.get(i) == null) {
+                String typeHint = block.matches("(?s).*[A-Da-d]\\)\\s+.*") ? "MULTIPLE_CHOICE" : "TEXT_INPUT";
+                processed.difficulties.set(i, inferDifficultyFromQuestion(block, typeHint));
+            }
+            if (processed.topics.get(i) == null) {
+                newQuestions.add(block);
+            }
+        }
+        List<String> newTopics = topicClassifier.classifyAll(newQuestions, examSubject);
+        for (int i = 0, next = 0; i < processed.topics.size(); i++) {
+            if (processed.topics.get(i) == null) {
+                processed.topics.set(i, newTopics.get(next++));
+            }
+        }
+
+        // Store the uploaded exam for later selection
+        job.progress("Saving exam", 95);
+        String examId = previous != null ? previous.getExamId() : nextExamId();
+        UploadedExam uploadedExam = new UploadedExam(examId, examName, examSubject, examActivityType,
+                                                     processed.questions, processed.difficulties, processed.answerKey,
+                                                     processed.fingerprints, uploadFingerprint, processed.topics, topicClassifier);
+        uploadedExams.put(examId, uploadedExam);
+        distributionContentFor(uploadedExam); // parse once now rather than on the first view
+        if (previous != null) {
+            Map<String, Object> changes = reuse.summary();
+            job.reportChanges(changes);
+            System.out.println("📥 Updated exam " + examId + " (" + examName + "): " + changes);
+        } else {
+            System.out.println("📥 Registered exam " + examId + " (" + examName + ", " + processed.questions.size() + " questions)");
         }
-        return "redirect:/teacher/processed-papers";
+        return examId;
+    }
+
+    /**
+     * Same files as the exam being replaced: keep its parsed content and only apply the new name / type.
+     */
+    private String registerUnchangedUpload(ExamIngestionService.IngestionJob job, UploadedExam previous,
+                                           String examName, String examActivityType) {
+        UploadedExam uploadedExam = new UploadedExam(previous.getExamId(), examName, previous.getSubject(), examActivityType,
+                                                     new ArrayList<>(previous.getQuestions()), new ArrayList<>(previous.getDifficulties()),
+                                                     new HashMap<>(previous.getAnswerKey()), previous.getFingerprints(),
+                                                     previous.getUploadFingerprint(),
+                                                     previous.getTopics() != null ? new ArrayList<>(previous.getTopics()) : null,
+                                                     previous.getTopicClassifier());
+        ExamContent content = previous.getDistributionContent();
+        if (content != null) {
+            uploadedExam.cacheDistributionContent(content, uploadedExam.getRevision());
+        }
+        uploadedExams.put(previous.getExamId(), uploadedExam);
+
+        int questions = previous.getQuestions().size();
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("previousQuestions", questions);
+        changes.put("questions", questions);
+        changes.put("unchanged", questions);
+        changes.put("changed", 0);
+        changes.put("added", 0);
+        changes.put("removed", 0);
+        job.reportChanges(changes);
+        System.out.println("📥 Re-upload of " + previous.getExamId() + " (" + examName + ") is identical; kept the parsed exam");
+        return previous.getExamId();
+    }
+
+    // Concurrent ingestion jobs can finish in the same millisecond; keep "EXAM_<millis>" ids unique
+    private final java.util.concurrent.atomic.AtomicLong lastExamIdMillis = new java.util.concurrent.atomic.AtomicLong();
+
+    private String nextExamId() {
+        long millis = lastExamIdMillis.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        return "EXAM_" + millis;
     }
     
     /**
@@ -1898,7 +2172,8 @@ public class HomepageController {
         Map<Integer, String> answerKey = new HashMap<>();
         List<String> lines;
 
-        try (PDDocument document = Loader.loadPDF(file.getBytes())) {
+        try (PdfIngestionService.IngestedPdf pdf = pdfIngestionService.open(file)) {
+            PDDocument document = pdf.getDocument();
             PDFTextStripper stripper = new PDFTextStripper();
             lines = Arrays.stream(stripper.getText(document).split("\\r?\\n"))
                          .filter(line -> !line.trim().isEmpty())
@@ -2056,49 +2331,54 @@ public class HomepageController {
      *    (Answer extracted from question text if it contains "Answer: ...")
      * 3. Simple format: Question (with embedded "Answer: ...")
      * 4. ID, Difficulty, Type, Question format
+     *
+     * Records whose fingerprint is in {@code reuse} are taken over as they were parsed last time.
      */
-    private CsvProcessResult processCsvExam(MultipartFile file, HttpSession session, 
-                                        Map<Integer, String> externalAnswerKey) throws IOException {
+    private ProcessedExam processCsvExam(MultipartFile file, Map<Integer, String> externalAnswerKey,
+                                         QuestionReuseIndex reuse) throws IOException {
         List<String> questionBlocks = new ArrayList<>();
         List<String> difficultyList = new ArrayList<>();
         Map<Integer, String> answerKey = new HashMap<>();
-        
-        System.out.println("=== PROCESSING CSV EXAM ===");
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String headerLine = reader.readLine(); // Read first line
-            System.out.println("CSV First Line: " + headerLine);
-            
-            // Detect CSV format based on headers
-            boolean hasHeader = headerLine.toLowerCase().contains("question") || 
-                               headerLine.toLowerCase().contains("choice") ||
-                               headerLine.toLowerCase().contains("answer") ||
-                               headerLine.toLowerCase().contains("difficulty");
-            
-            // Detect if this is a mixed format CSV with Type column
-            boolean isMixedFormat = headerLine.toLowerCase().contains("type") && 
-                                   (headerLine.toLowerCase().contains("difficulty") || 
-                                    headerLine.toLowerCase().contains("id"));
-            
-            System.out.println("Format detected: " + (isMixedFormat ? "Mixed (Multiple Choice + Open-Ended)" : "Standard"));
-            
-            // Process all rows using processCSVRow which handles both types
-            // Process first line if it's not a header
-            if (!hasHeader && !headerLine.trim().isEmpty()) {
-                processCSVRow(headerLine, 1, questionBlocks, difficultyList, answerKey);
-            }
-            
-            String line;
-            int questionNumber = hasHeader ? 1 : 2;
-            
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                processCSVRow(line, questionNumber, questionBlocks, difficultyList, answerKey);
-                questionNumber++;
+        List<String> fingerprints = new ArrayList<>();
+        Map<Integer, QuestionReuseIndex.Entry> reusedByPosition = new HashMap<>();
+        
+        long parseStart = System.nanoTime();
+        
+        // Streamed record by record; quoted fields may span lines
+        try (CsvReader csv = new CsvReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            CsvReader.Row row = csv.next();
+            if (row != null) {
+                // Detect CSV format based on headers
+                boolean hasHeader = row.containsIgnoreCase("question") || 
+                                   row.containsIgnoreCase("choice") ||
+                                   row.containsIgnoreCase("answer") ||
+                                   row.containsIgnoreCase("difficulty");
+                
+                // Detect if this is a mixed format CSV with Type column
+                boolean isMixedFormat = row.containsIgnoreCase("type") && 
+                                       (row.containsIgnoreCase("difficulty") || 
+                                        row.containsIgnoreCase("id"));
+                
+                System.out.println("=== PROCESSING CSV EXAM (" + (isMixedFormat ? "Mixed (Multiple Choice + Open-Ended)" : "Standard") + ") ===");
+                
+                // Process first record if it's not a header
+                if (!hasHeader && !row.isBlank()) {
+                    processOrReuseCsvRow(row, 1, questionBlocks, difficultyList, answerKey,
+                                         externalAnswerKey, reuse, fingerprints, reusedByPosition);
+                }
+                
+                int questionNumber = hasHeader ? 1 : 2;
+                while ((row = csv.next()) != null) {
+                    if (row.isBlank()) continue;
+                    processOrReuseCsvRow(row, questionNumber, questionBlocks, difficultyList, answerKey,
+                                         externalAnswerKey, reuse, fingerprints, reusedByPosition);
+                    questionNumber++;
+                }
             }
         }
         
-        System.out.println("=== CSV EXAM PARSED: " + questionBlocks.size() + " questions ===");
+        System.out.println("=== CSV EXAM PARSED: " + questionBlocks.size() + " questions in "
+            + (System.nanoTime() - parseStart) / 1_000_000 + " ms ===");
         
         // Merge external answer key if provided and convert letter answers to text
         if (externalAnswerKey != null && !externalAnswerKey.isEmpty()) {
@@ -2106,6 +2386,9 @@ public class HomepageController {
             
             // Convert letter answers (A, B, C, D) to actual choice text
             for (int i = 0; i < questionBlocks.size(); i++) {
+                if (reusedByPosition.containsKey(i + 1)) {
+                    continue; // Already merged when it was first parsed
+                }
                 String question = questionBlocks.get(i);
                 String answer = externalAnswerKey.get(i + 1);
                 
@@ -2114,10 +2397,9 @@ public class HomepageController {
                     String answerTrimmed = answer.trim();
                     if (answerTrimmed.length() == 1 && answerTrimmed.matches("[A-Da-d]")) {
                         // Convert letter to actual choice text
-                        String actualAnswer = convertLetterToChoiceText(question, answerTrimmed);
+                        String actualAnswer = convertLetterToChoiceText(ParsedQuestion.parse(question), answerTrimmed);
                         if (actualAnswer != null) {
                             answerKey.put(i + 1, actualAnswer);
-                            System.out.println("Q" + (i + 1) + " converted answer '" + answerTrimmed + "' to: " + actualAnswer);
                         } else {
                             answerKey.put(i + 1, answer);
                             System.out.println("WARNING: Q" + (i + 1) + " could not convert letter '" + answerTrimmed + "'");
@@ -2141,54 +2423,80 @@ public class HomepageController {
             String question = questionBlocks.get(i);
             String answer = answerKey.get(i + 1);
             String difficulty = i < difficultyList.size() ? difficultyList.get(i) : "Medium";
-            questionsWithAnswers.add(new QuestionWithAnswer(question, answer, difficulty, i + 1));
+            QuestionWithAnswer qa = new QuestionWithAnswer(question, answer, difficulty, i + 1);
+            qa.fingerprint = fingerprints.get(i);
+            qa.reused = reusedByPosition.get(i + 1);
+            questionsWithAnswers.add(qa);
         }
         
-        SecureRandom rand = new SecureRandom();
+        RandomGenerator rand = randomnessService.generator();
         Collections.shuffle(questionsWithAnswers, rand);
         
         // Rebuild with shuffled order
-        questionBlocks.clear();
-        difficultyList.clear();
-        answerKey.clear();
-        for (int i = 0; i < questionsWithAnswers.size(); i++) {
-            QuestionWithAnswer qa = questionsWithAnswers.get(i);
-            
-            // Only shuffle choices for multiple-choice questions
+        ProcessedExam result = new ProcessedExam();
+        for (QuestionWithAnswer qa : questionsWithAnswers) {
+            // Only shuffle choices for new multiple-choice questions; carried-over ones keep theirs
             String shuffledQuestion;
-            if (qa.question.startsWith("[TEXT_INPUT]")) {
-                // Keep text-input questions as-is
+            if (qa.question.startsWith("[TEXT_INPUT]") || qa.reused != null) {
                 shuffledQuestion = qa.question;
             } else {
-                // Re-shuffle choices within each multiple-choice question
                 shuffledQuestion = reshuffleQuestionChoices(qa.question, rand);
             }
-            
-            questionBlocks.add(shuffledQuestion);
-            difficultyList.add(qa.difficulty);
-            answerKey.put(i + 1, qa.answer);
-            
-            System.out.println("Shuffled Q" + (i + 1) + " (originally Q" + qa.originalNumber + ") [" + qa.difficulty + "] -> " + qa.answer);
+            result.add(qa, shuffledQuestion);
         }
         
-        session.setAttribute("correctAnswerKey", answerKey);
-        return new CsvProcessResult(questionBlocks, difficultyList);
+        return result;
     }
     
     /**
-     * Process a single CSV row - handles multiple formats
+     * Take one CSV record over from the exam being replaced if it is unchanged, else parse it.
      */
-    private void processCSVRow(String line, int questionNumber, 
+    private void processOrReuseCsvRow(CsvReader.Row row, int questionNumber,
+                                      List<String> questionBlocks, List<String> difficultyList,
+                                      Map<Integer, String> answerKey, Map<Integer, String> externalAnswerKey,
+                                      QuestionReuseIndex reuse, List<String> fingerprints,
+                                      Map<Integer, QuestionReuseIndex.Entry> reusedByPosition) {
+        int position = questionBlocks.size() + 1;
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < row.size(); i++) {
+            source.append(row.field(i)).append('\u001F');
+        }
+        String fingerprint = QuestionReuseIndex.fingerprint(source,
+            externalAnswerKey != null ? externalAnswerKey.get(position) : null);
+        
+        QuestionReuseIndex.Entry previous = reuse.take(fingerprint);
+        if (previous != null) {
+            questionBlocks.add(previous.getQuestion());
+            difficultyList.add(previous.getDifficulty() != null ? previous.getDifficulty() : "Medium");
+            answerKey.put(position, previous.getAnswer());
+            reusedByPosition.put(position, previous);
+        } else {
+            processCSVRow(row, questionNumber, questionBlocks, difficultyList, answerKey);
+        }
+        if (questionBlocks.size() == position) {
+            fingerprints.add(fingerprint);
+        }
+    }
+    
+    /**
+     * Process a single CSV record - handles multiple formats. Fields are read straight off the
+     * reader's row buffer; only the text that ends up in the question block becomes a String.
+     *
+     * Answers are keyed by the block's position (1-based), like reused rows and the answer-key
+     * merge; {@code questionNumber} counts records and is only used in messages.
+     */
+    private void processCSVRow(CsvReader.Row row, int questionNumber, 
                                List<String> questionBlocks, List<String> difficultyList, 
                                Map<Integer, String> answerKey) {
-        String[] columns = parseCsvLine(line);
+        int columnCount = row.size();
+        int position = questionBlocks.size() + 1;
         
         // Format 4: ID, Difficulty, Type, Question (with embedded choices)
         // Example: 1,Easy,Multiple Choice,"What is...? (A) Choice1 (B) Choice2 (C) Choice3"
-        if (columns.length == 4) {
-            String difficulty = columns[1].trim();
-            String type = columns[2].trim();
-            String fullQuestion = columns[3].trim();
+        if (columnCount == 4) {
+            String difficulty = row.trimmed(1);
+            String type = row.trimmed(2);
+            String fullQuestion = row.trimmed(3);
             
             // Store difficulty level
             difficultyList.add(difficulty);
@@ -2200,7 +2508,6 @@ public class HomepageController {
                 type.equalsIgnoreCase("Open") ||
                 type.equalsIgnoreCase("Text Input")) {
                 questionBlocks.add("[TEXT_INPUT]" + fullQuestion);
-                System.out.println("Parsed CSV Q" + questionNumber + " (Open-Ended/Essay) -> " + fullQuestion.substring(0, Math.min(50, fullQuestion.length())));
                 return;
             }
             
@@ -2215,8 +2522,7 @@ public class HomepageController {
                 questionPart = fullQuestion.substring(0, choicesStart).trim();
                 
                 // Extract choices using regex
-                Pattern choicePattern = Pattern.compile("\\([A-D]\\)\\s*([^(]+?)(?=\\s*\\([A-D]\\)|$)");
-                java.util.regex.Matcher matcher = choicePattern.matcher(fullQuestion);
+                java.util.regex.Matcher matcher = CSV_EMBEDDED_CHOICE.matcher(fullQuestion);
                 
                 // Extract all choices
                 while (matcher.find()) {
@@ -2240,7 +2546,6 @@ public class HomepageController {
                     // Remove trailing newline
                     String formattedBlock = questionBlock.toString().trim();
                     questionBlocks.add(formattedBlock);
-                    System.out.println("Parsed CSV Q" + questionNumber + " (Multiple Choice with " + choices.size() + " choices)");
                     return;
                 }
             }
@@ -2253,18 +2558,17 @@ public class HomepageController {
             
             // Fallback: treat as text input since no choices found
             questionBlocks.add("[TEXT_INPUT]" + fullQuestion);
-            System.out.println("Parsed CSV Q" + questionNumber + " (Fallback to Text Input)");
             return;
         }
         
         // Format 1: Question, ChoiceA, ChoiceB, ChoiceC, ChoiceD, Answer
-        if (columns.length >= 6) {
-            String questionText = columns[0].trim();
-            String choiceA = columns[1].trim();
-            String choiceB = columns[2].trim();
-            String choiceC = columns[3].trim();
-            String choiceD = columns[4].trim();
-            String correctAnswer = columns[5].trim();
+        if (columnCount >= 6) {
+            String questionText = row.trimmed(0);
+            String choiceA = row.trimmed(1);
+            String choiceB = row.trimmed(2);
+            String choiceC = row.trimmed(3);
+            String choiceD = row.trimmed(4);
+            String correctAnswer = row.trimmed(5);
             
             // Build question block
             StringBuilder questionBlock = new StringBuilder();
@@ -2278,24 +2582,22 @@ public class HomepageController {
             // Infer difficulty automatically for this format
             String inferredDifficulty = inferDifficultyFromQuestion(questionText, "MULTIPLE_CHOICE");
             difficultyList.add(inferredDifficulty);
-            answerKey.put(questionNumber, correctAnswer);
+            answerKey.put(position, correctAnswer);
             
-            System.out.println("Parsed CSV Q" + questionNumber + " (Format 1) -> " + correctAnswer);
-            
-        } else if (columns.length >= 5) {
+        } else if (columnCount >= 5) {
             // Format 2: Question, ChoiceA, ChoiceB, ChoiceC, ChoiceD
             // Try to extract answer from question text
-            String questionText = columns[0].trim();
-            String choiceA = columns[1].trim();
-            String choiceB = columns[2].trim();
-            String choiceC = columns[3].trim();
-            String choiceD = columns[4].trim();
+            String questionText = row.trimmed(0);
+            String choiceA = row.trimmed(1);
+            String choiceB = row.trimmed(2);
+            String choiceC = row.trimmed(3);
+            String choiceD = row.trimmed(4);
             
             // Extract answer if embedded in question
             String correctAnswer = extractEmbeddedAnswer(questionText);
             if (correctAnswer != null) {
                 // Remove the answer from question text
-                questionText = questionText.replaceAll("(?i)\\s*answer\\s*:\\s*.*$", "").trim();
+                questionText = CSV_ANSWER_SUFFIX.matcher(questionText).replaceAll("").trim();
             }
             
             // Build question block
@@ -2311,21 +2613,18 @@ public class HomepageController {
             String inferredDifficulty = inferDifficultyFromQuestion(questionText, "MULTIPLE_CHOICE");
             difficultyList.add(inferredDifficulty);
             if (correctAnswer != null) {
-                answerKey.put(questionNumber, correctAnswer);
-                System.out.println("Parsed CSV Q" + questionNumber + " (Format 2 with embedded answer) -> " + correctAnswer);
-            } else {
-                System.out.println("Parsed CSV Q" + questionNumber + " (Format 2 - no answer found)");
+                answerKey.put(position, correctAnswer);
             }
             
-        } else if (columns.length == 1) {
+        } else if (columnCount == 1) {
             // Format 3: Single column with question containing embedded answer and choices
-            String fullText = columns[0].trim();
+            String fullText = row.trimmed(0);
             
             // Try to extract answer
             String correctAnswer = extractEmbeddedAnswer(fullText);
             
             // Remove answer line from text
-            fullText = fullText.replaceAll("(?i)\\s*answer\\s*:\\s*.*$", "").trim();
+            fullText = CSV_ANSWER_SUFFIX.matcher(fullText).replaceAll("").trim();
             
             // Check if it already has choices formatted
             if (fullText.contains("\n") && fullText.matches("(?s).*[A-D]\\).*")) {
@@ -2340,14 +2639,11 @@ public class HomepageController {
             String inferredDifficulty = inferDifficultyFromQuestion(fullText, "TEXT_INPUT");
             difficultyList.add(inferredDifficulty);
             if (correctAnswer != null) {
-                answerKey.put(questionNumber, correctAnswer);
-                System.out.println("Parsed CSV Q" + questionNumber + " (Format 3 with embedded answer) -> " + correctAnswer);
-            } else {
-                System.out.println("Parsed CSV Q" + questionNumber + " (Format 3 - no answer found)");
+                answerKey.put(position, correctAnswer);
             }
             
         } else {
-            System.out.println("WARNING: Skipping malformed CSV line (" + columns.length + " columns): " + line);
+            System.out.println("WARNING: Skipping malformed CSV record at line " + row.getLineNumber() + " (" + columnCount + " columns)");
         }
     }
 
@@ -2425,38 +2721,12 @@ public class HomepageController {
     /**
      * Convert letter answer (A, B, C, D) to actual choice text from question block
      */
-    private String convertLetterToChoiceText(String questionBlock, String letter) {
-        try {
-            // Split question into lines
-            String[] lines = questionBlock.split("\n");
-            
-            // Extract choices (lines that start with A), B), C), or D))
-            List<String> choices = new ArrayList<>();
-            for (int i = 1; i < lines.length; i++) {
-                String line = lines[i].trim();
-                if (line.matches("^[A-Da-d]\\)\\s+.+")) {
-                    // Extract choice text after the letter and parenthesis
-                    String choiceText = line.replaceFirst("^[A-Da-d]\\)\\s+", "").trim();
-                    choices.add(choiceText);
-                }
-            }
-            
-            // Convert letter to index (A=0, B=1, C=2, D=3)
-            char letterUpper = letter.toUpperCase().charAt(0);
-            int index = letterUpper - 'A';
-            
-            // Return choice at index
-            if (index >= 0 && index < choices.size()) {
-                return choices.get(index);
-            } else {
-                System.out.println("ERROR: Letter '" + letter + "' index " + index + " out of range for " + choices.size() + " choices");
-                return null;
-            }
-            
-        } catch (Exception e) {
-            System.out.println("ERROR converting letter '" + letter + "' to choice text: " + e.getMessage());
-            return null;
+    private String convertLetterToChoiceText(ParsedQuestion question, String letter) {
+        String choice = question.getChoiceForLetter(letter);
+        if (choice == null) {
+            System.out.println("ERROR: Letter '" + letter + "' out of range for " + question.getChoiceCount() + " choices");
         }
+        return choice;
     }
     
     /**
@@ -2486,40 +2756,32 @@ public class HomepageController {
         
         System.out.println("=== PARSING CSV ANSWER KEY ===");
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String firstLine = reader.readLine();
-            boolean hasHeader = firstLine != null && 
-                               (firstLine.toLowerCase().contains("question") || 
-                                firstLine.toLowerCase().contains("answer"));
+        try (CsvReader csv = new CsvReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            CsvReader.Row row = csv.next();
+            boolean hasHeader = row != null && 
+                               (row.containsIgnoreCase("question") || 
+                                row.containsIgnoreCase("answer"));
             
-            if (!hasHeader && firstLine != null) {
-                // Process first line as data
-                String[] columns = parseCsvLine(firstLine);
-                if (columns.length >= 2) {
-                    int qNum = Integer.parseInt(columns[0].trim());
-                    answerKey.put(qNum, columns[1].trim());
-                } else if (columns.length == 1) {
-                    answerKey.put(1, columns[0].trim());
+            if (!hasHeader && row != null && !row.isBlank()) {
+                // Process first record as data
+                if (row.size() >= 2) {
+                    answerKey.put(Integer.parseInt(row.trimmed(0)), row.trimmed(1));
+                } else {
+                    answerKey.put(1, row.trimmed(0));
                 }
             }
             
-            String line;
             int questionNumber = hasHeader ? 1 : 2;
             
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
+            while (row != null && (row = csv.next()) != null) {
+                if (row.isBlank()) continue;
                 
-                String[] columns = parseCsvLine(line);
-                
-                if (columns.length >= 2) {
+                if (row.size() >= 2) {
                     // Format: QuestionNumber, Answer
-                    int qNum = Integer.parseInt(columns[0].trim());
-                    answerKey.put(qNum, columns[1].trim());
-                    System.out.println("Parsed CSV Answer Key Q" + qNum + " -> " + columns[1].trim());
-                } else if (columns.length == 1) {
+                    answerKey.put(Integer.parseInt(row.trimmed(0)), row.trimmed(1));
+                } else {
                     // Format: Just answers per line
-                    answerKey.put(questionNumber, columns[0].trim());
-                    System.out.println("Parsed CSV Answer Key Q" + questionNumber + " -> " + columns[0].trim());
+                    answerKey.put(questionNumber, row.trimmed(0));
                     questionNumber++;
                 }
             }
@@ -2530,83 +2792,16 @@ public class HomepageController {
     }
     
     /**
-     * Parse a CSV line handling quoted fields and commas within quotes
+     * Parse and shuffle a PDF exam. Blocks whose fingerprint is in {@code reuse} are taken over as
+     * they were parsed last time; difficulties are left null for the caller to infer.
      */
-    private String[] parseCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean inQuotes = false;
-        
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
-            }
-        }
-        
-        fields.add(currentField.toString());
-        return fields.toArray(String[]::new);
-    }
-
-    private List<String> processFisherYates(MultipartFile file, HttpSession session, 
-                                           Map<Integer, String> externalAnswerKey) throws IOException {
-        // Create a unique uploads folder for images in this exam
-        String examId = UUID.randomUUID().toString().replace("-", "").substring(0, 10);
-        Path uploadsDir = Paths.get("uploads", "exam-images", examId);
-        Files.createDirectories(uploadsDir);
-
+    private ProcessedExam processFisherYates(MultipartFile file, Map<Integer, String> externalAnswerKey,
+                                             QuestionReuseIndex reuse) throws IOException {
         List<String> rawLines = new ArrayList<>();
 
-        try (PDDocument document = Loader.loadPDF(file.getBytes())) {
-            int totalPages = document.getNumberOfPages();
-
-            for (int pageIdx = 0; pageIdx < totalPages; pageIdx++) {
-                // ── 1. Extract images from this page ──────────────────────
-                List<String> pageImageUrls = new ArrayList<>();
-                PDPage page = document.getPage(pageIdx);
-                PDResources resources = page.getResources();
-                if (resources != null) {
-                    for (COSName xName : resources.getXObjectNames()) {
-                        try {
-                            var xObject = resources.getXObject(xName);
-                            if (xObject instanceof PDImageXObject img) {
-                                // Skip tiny images (logos, watermarks, decorative icons)
-                                if (img.getWidth() > 60 && img.getHeight() > 60) {
-                                    String imgFile = "p" + pageIdx + "_" + xName.getName() + ".png";
-                                    Path imgPath = uploadsDir.resolve(imgFile);
-                                    ImageIO.write(img.getImage(), "PNG", imgPath.toFile());
-                                    pageImageUrls.add("/uploads/exam-images/" + examId + "/" + imgFile);
-                                    System.out.println("Extracted image: " + imgFile + " (" + img.getWidth() + "x" + img.getHeight() + ")");
-                                }
-                            }
-                        } catch (IOException e) {
-                            System.out.println("Warning: Could not extract image " + xName.getName() + ": " + e.getMessage());
-                        }
-                    }
-                }
-
-                // ── 2. Emit a page-image marker (before the page's text lines) ──
-                if (!pageImageUrls.isEmpty()) {
-                    rawLines.add("__PAGE_IMAGES__:" + String.join("|", pageImageUrls));
-                }
-
-                // ── 3. Extract text for this page ─────────────────────────
-                PDFTextStripper pageStripper = new PDFTextStripper();
-                pageStripper.setStartPage(pageIdx + 1);
-                pageStripper.setEndPage(pageIdx + 1);
-                String pageText = pageStripper.getText(document);
-
-                Arrays.stream(pageText.split("\\r?\\n"))
-                      .filter(line -> !line.trim().isEmpty())
-                      .map(this::normalizeEquationText)
-                      .forEach(rawLines::add);
-            }
+        try (PdfIngestionService.IngestedPdf pdf = pdfIngestionService.open(file)) {
+            // Pages are extracted in parallel and joined back in page order
+            rawLines.addAll(pdfIngestionService.extractLines(pdf, EquationNormalizer::normalize));
         }
 
         System.out.println("=== PROCESSING EXAM PDF ===");
@@ -2625,11 +2820,8 @@ public class HomepageController {
             Pattern.CASE_INSENSITIVE
         );
 
-        List<String> questionBlocks = new ArrayList<>();
-        Map<Integer, String> answerKey = new HashMap<>();
+        List<String> sourceBlocks = new ArrayList<>();
         StringBuilder currentBlock = new StringBuilder();
-        SecureRandom rand = new SecureRandom();
-        int qID = 0;
 
         // Images waiting to be attached to the next question encountered
         List<String> pendingImages = new ArrayList<>();
@@ -2658,15 +2850,7 @@ public class HomepageController {
             if (isNewQuestion) {
                 // Save previous question block if exists
                 if (currentBlock.length() > 0) {
-                    System.out.println("Processing block for Q" + (qID + 1) + ": " + currentBlock.toString().substring(0, Math.min(50, currentBlock.length())) + "...");
-                    String processed = extractAnswerAndShuffle(currentBlock.toString(), rand, answerKey, qID);
-                    if (!processed.isEmpty()) {
-                        questionBlocks.add(processed);
-                        System.out.println("Successfully processed Q" + (qID + 1));
-                        qID++;
-                    } else {
-                        System.out.println("WARNING: Empty result for Q" + (qID + 1));
-                    }
+                    sourceBlocks.add(currentBlock.toString());
                 }
                 // Strip numeric/Q-prefix: "1. " or "Q1 (Easy): "
                 String questionContent = trimmed
@@ -2691,18 +2875,39 @@ public class HomepageController {
         
         // Don't forget the last question
         if (currentBlock.length() > 0) {
-            System.out.println("Processing final block for Q" + (qID + 1) + ": " + currentBlock.toString().substring(0, Math.min(50, currentBlock.length())) + "...");
-            String processed = extractAnswerAndShuffle(currentBlock.toString(), rand, answerKey, qID);
+            sourceBlocks.add(currentBlock.toString());
+        }
+
+        List<String> questionBlocks = new ArrayList<>();
+        List<String> fingerprints = new ArrayList<>();
+        Map<Integer, QuestionReuseIndex.Entry> reusedByPosition = new HashMap<>();
+        Map<Integer, String> answerKey = new HashMap<>();
+        RandomGenerator rand = randomnessService.generator();
+        for (String sourceBlock : sourceBlocks) {
+            int position = questionBlocks.size() + 1;
+            String fingerprint = QuestionReuseIndex.fingerprint(sourceBlock,
+                externalAnswerKey != null ? externalAnswerKey.get(position) : null);
+            QuestionReuseIndex.Entry previous = reuse.take(fingerprint);
+            if (previous != null) {
+                questionBlocks.add(previous.getQuestion());
+                if (previous.getAnswer() != null) {
+                    answerKey.put(position, previous.getAnswer());
+                }
+                reusedByPosition.put(position, previous);
+                fingerprints.add(fingerprint);
+                continue;
+            }
+            String processed = extractAnswerAndShuffle(sourceBlock, rand, answerKey, position - 1);
             if (!processed.isEmpty()) {
                 questionBlocks.add(processed);
-                System.out.println("Successfully processed Q" + (qID + 1));
-                qID++;
+                fingerprints.add(fingerprint);
             } else {
-                System.out.println("WARNING: Empty result for final Q" + (qID + 1));
+                System.out.println("WARNING: Empty result for Q" + position);
             }
         }
 
-        System.out.println("=== EXAM PARSED: " + questionBlocks.size() + " questions ===");
+        System.out.println("=== EXAM PARSED: " + questionBlocks.size() + " questions ("
+            + reusedByPosition.size() + " unchanged from the previous upload) ===");
 
         // Merge external answer key if provided (external answers override embedded ones)
         if (externalAnswerKey != null && !externalAnswerKey.isEmpty()) {
@@ -2721,8 +2926,6 @@ public class HomepageController {
             }
         }
 
-        session.setAttribute("correctAnswerKey", answerKey);
-        
         // Shuffle the question order to prevent cheating
         // Create a mapping to preserve answer key association
         List<QuestionWithAnswer> questionsWithAnswers = new ArrayList<>();
@@ -2735,29 +2938,28 @@ public class HomepageController {
                 answer = "Not Set"; // Provide a default to make it visible
             }
             
-            questionsWithAnswers.add(new QuestionWithAnswer(question, answer, "Medium", i + 1));
+            QuestionReuseIndex.Entry previous = reusedByPosition.get(i + 1);
+            QuestionWithAnswer qa = new QuestionWithAnswer(question, answer,
+                previous != null ? previous.getDifficulty() : null, i + 1);
+            qa.fingerprint = fingerprints.get(i);
+            qa.reused = previous;
+            questionsWithAnswers.add(qa);
         }
         
         // Shuffle questions with their answers
         Collections.shuffle(questionsWithAnswers, rand);
         
-        // Rebuild questionBlocks and answerKey with new order
-        questionBlocks.clear();
-        answerKey.clear();
-        for (int i = 0; i < questionsWithAnswers.size(); i++) {
-            QuestionWithAnswer qa = questionsWithAnswers.get(i);
-            questionBlocks.add(qa.question);
-            answerKey.put(i + 1, qa.answer);
-            System.out.println("Shuffled Q" + (i + 1) + " (originally Q" + qa.originalNumber + ") -> " + qa.answer);
+        // Rebuild with new order
+        ProcessedExam result = new ProcessedExam();
+        for (QuestionWithAnswer qa : questionsWithAnswers) {
+            result.add(qa, qa.question);
+            System.out.println("Shuffled Q" + result.questions.size() + " (originally Q" + qa.originalNumber + ") -> " + qa.answer);
         }
         
-        // Update session with the shuffled answer key
-        session.setAttribute("correctAnswerKey", answerKey);
-        
-        return questionBlocks;
+        return result;
     }
 
-    private String extractAnswerAndShuffle(String block, SecureRandom rand, Map<Integer, String> key, int id) {
+    private String extractAnswerAndShuffle(String block, RandomGenerator rand, Map<Integer, String> key, int id) {
         String[] lines = block.split("\n");
         
         // Allow single-line questions (could be open-ended)
@@ -2894,117 +3096,15 @@ public class HomepageController {
         return result.toString();
     }
 
-    // ─────────────────────────────────────────────────────────────────────
-    // Math / LaTeX normalization helpers (used during PDF exam ingestion)
-    // ─────────────────────────────────────────────────────────────────────
-
-    /**
-     * Convert Unicode math characters extracted from PDFs into LaTeX notation,
-     * then auto-wrap the detected math segments in $...$ so MathJax can render them.
-     * Lines that already contain LaTeX delimiters ($, \(, \[) are passed through unchanged.
-     */
-    private String normalizeEquationText(String text) {
-        if (text == null || text.isEmpty()) return text;
-
-        // Already wrapped – pass through
-        if (text.contains("$") || text.contains("\\(") || text.contains("\\[")) return text;
-
-        String original = text;
-
-        // ── Superscripts ──────────────────────────────────────────────────
-        text = text.replace("⁰","^{0}").replace("¹","^{1}").replace("²","^{2}")
-                   .replace("³","^{3}").replace("⁴","^{4}").replace("⁵","^{5}")
-                   .replace("⁶","^{6}").replace("⁷","^{7}").replace("⁸","^{8}")
-                   .replace("⁹","^{9}").replace("ⁿ","^{n}").replace("ˣ","^{x}");
-
-        // ── Subscripts ───────────────────────────────────────────────────
-        text = text.replace("₀","_{0}").replace("₁","_{1}").replace("₂","_{2}")
-                   .replace("₃","_{3}").replace("₄","_{4}").replace("₅","_{5}")
-                   .replace("₆","_{6}").replace("₇","_{7}").replace("₈","_{8}")
-                   .replace("₉","_{9}").replace("ₙ","_{n}");
-
-        // ── Unicode fractions ────────────────────────────────────────────
-        text = text.replace("½","\\frac{1}{2}").replace("⅓","\\frac{1}{3}")
-                   .replace("⅔","\\frac{2}{3}").replace("¼","\\frac{1}{4}")
-                   .replace("¾","\\frac{3}{4}").replace("⅛","\\frac{1}{8}")
-                   .replace("⅜","\\frac{3}{8}").replace("⅝","\\frac{5}{8}")
-                   .replace("⅞","\\frac{7}{8}");
-
-        // ── Radical / root ───────────────────────────────────────────────
-        // Match √N, √x, √(expr) before the bare √ fallback
-        text = text.replaceAll("√([0-9]+)",       "\\\\sqrt{$1}");
-        text = text.replaceAll("√([a-zA-Z])",     "\\\\sqrt{$1}");
-        text = text.replaceAll("√\\(([^)]+)\\)",  "\\\\sqrt{$1}");
-        text = text.replace   ("√",                "\\sqrt{}");
-        text = text.replaceAll("∛([0-9]+)",        "\\\\sqrt[3]{$1}");
-        text = text.replaceAll("∛([a-zA-Z])",      "\\\\sqrt[3]{$1}");
-        text = text.replace   ("∛",                "\\sqrt[3]{}");
-
-        // ── Operators ────────────────────────────────────────────────────
-        text = text.replace("×","\\times ").replace("÷","\\div ")
-                   .replace("±","\\pm ").replace("·","\\cdot ");
-
-        // ── Relations ────────────────────────────────────────────────────
-        text = text.replace("≤","\\leq ").replace("≥","\\geq ")
-                   .replace("≠","\\neq ").replace("≈","\\approx ")
-                   .replace("≡","\\equiv ").replace("∝","\\propto ");
-
-        // ── Greek (lower) ─────────────────────────────────────────────────
-        text = text.replace("α","\\alpha").replace("β","\\beta")
-                   .replace("γ","\\gamma").replace("δ","\\delta")
-                   .replace("ε","\\varepsilon").replace("θ","\\theta")
-                   .replace("λ","\\lambda").replace("μ","\\mu")
-                   .replace("π","\\pi").replace("σ","\\sigma")
-                   .replace("τ","\\tau").replace("φ","\\phi")
-                   .replace("χ","\\chi").replace("ψ","\\psi")
-                   .replace("ω","\\omega");
-
-        // ── Greek (upper) ─────────────────────────────────────────────────
-        text = text.replace("Δ","\\Delta").replace("Σ","\\Sigma")
-                   .replace("Γ","\\Gamma").replace("Λ","\\Lambda")
-                   .replace("Ω","\\Omega").replace("Π","\\Pi");
-
-        // ── Calculus & set notation ───────────────────────────────────────
-        text = text.replace("∑","\\sum").replace("∏","\\prod")
-                   .replace("∫","\\int").replace("∂","\\partial")
-                   .replace("∇","\\nabla").replace("∈","\\in")
-                   .replace("∉","\\notin").replace("∪","\\cup")
-                   .replace("∩","\\cap").replace("⊂","\\subset")
-                   .replace("∅","\\emptyset").replace("∞","\\infty");
-
-        // ── Number sets ───────────────────────────────────────────────────
-        text = text.replace("ℝ","\\mathbb{R}").replace("ℤ","\\mathbb{Z}")
-                   .replace("ℕ","\\mathbb{N}").replace("ℚ","\\mathbb{Q}");
-
-        // If nothing changed, no wrapping needed
-        if (text.equals(original)) return text;
-
-        // Wrap detected LaTeX segments in $...$
-        return wrapLatexSegments(text);
-    }
-
-    /**
-     * Scan text for LaTeX command / sub-superscript segments and wrap each in $...$.
-     * Surrounding plain-language words are left unchanged.
-     */
-    private String wrapLatexSegments(String text) {
-        if (text.contains("$") || text.contains("\\(")) return text;
-        Matcher m = LATEX_SEGMENT.matcher(text);
-        StringBuffer sb = new StringBuffer();
-        while (m.find()) {
-            String seg = m.group().trim();
-            if (!seg.isEmpty()) {
-                m.appendReplacement(sb, Matcher.quoteReplacement("$" + seg + "$"));
-            }
-        }
-        m.appendTail(sb);
-        return sb.toString();
+    private UploadedExam lastUploadedExam(HttpSession session) {
+        Object examId = session.getAttribute("lastUploadedExamId");
+        return examId != null ? uploadedExams.get(String.valueOf(examId)) : null;
     }
 
     @GetMapping("/export/pdf")
     public ResponseEntity<byte[]> exportPDF(HttpSession session) throws DocumentException, IOException {
-        @SuppressWarnings("unchecked")
-        List<String> exam = (List<String>) session.getAttribute("shuffledExam");
+        UploadedExam lastUploaded = lastUploadedExam(session);
+        List<ParsedQuestion> exam = lastUploaded != null ? parsedQuestionsFor(lastUploaded) : null;
         
         if (exam == null || exam.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -3033,14 +3133,11 @@ public class HomepageController {
 
             // Add questions
             int questionNumber = 1;
-            for (String question : exam) {
-                // Clean up question text: remove [TEXT_INPUT] and difficulty markers
-                String cleanQuestion = question
-                    .replaceAll("\\[TEXT_INPUT\\]", "")
-                    .replaceAll("\\[(Easy|Medium|Hard|Essay|Open-Ended|Open Ended)\\]", "")
-                    .trim();
+            for (ParsedQuestion question : exam) {
+                // Printable lines already leave out [TEXT_INPUT] and difficulty markers
+                String cleanQuestion = String.join("\n   ", question.getPrintableLines());
                 
-                document.add(new Paragraph(questionNumber + ". " + cleanQuestion.replace("\n", "\n   ")));
+                document.add(new Paragraph(questionNumber + ". " + cleanQuestion));
                 document.add(new Paragraph("\n"));
                 questionNumber++;
             }
@@ -3057,8 +3154,8 @@ public class HomepageController {
 
     @GetMapping("/export/word")
     public ResponseEntity<byte[]> exportWord(HttpSession session) throws IOException {
-        @SuppressWarnings("unchecked")
-        List<String> exam = (List<String>) session.getAttribute("shuffledExam");
+        UploadedExam lastUploaded = lastUploadedExam(session);
+        List<ParsedQuestion> exam = lastUploaded != null ? parsedQuestionsFor(lastUploaded) : null;
         
         if (exam == null || exam.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -3093,22 +3190,18 @@ public class HomepageController {
 
             // Add questions
             int questionNumber = 1;
-            for (String question : exam) {
-                // Clean up question text: remove [TEXT_INPUT] and difficulty markers
-                String cleanQuestion = question
-                    .replaceAll("\\[TEXT_INPUT\\]", "")
-                    .replaceAll("\\[(Easy|Medium|Hard|Essay|Open-Ended|Open Ended)\\]", "")
-                    .trim();
+            for (ParsedQuestion question : exam) {
+                // Printable lines already leave out [TEXT_INPUT] and difficulty markers
+                List<String> lines = question.getPrintableLines();
                 
                 XWPFParagraph questionPara = document.createParagraph();
                 XWPFRun questionRun = questionPara.createRun();
                 
-                String[] lines = cleanQuestion.split("\n");
-                questionRun.setText(questionNumber + ". " + lines[0]);
+                questionRun.setText(questionNumber + ". " + lines.get(0));
                 questionRun.addBreak();
                 
-                for (int i = 1; i < lines.length; i++) {
-                    questionRun.setText("   " + lines[i]);
+                for (int i = 1; i < lines.size(); i++) {
+                    questionRun.setText("   " + lines.get(i));
                     questionRun.addBreak();
                 }
                 
@@ -3456,8 +3549,8 @@ public class HomepageController {
     }
     @GetMapping("/export/answer-key")
     public ResponseEntity<byte[]> exportAnswerKey(HttpSession session) throws DocumentException, IOException {
-        @SuppressWarnings("unchecked")
-        Map<Integer, String> answerKey = (Map<Integer, String>) session.getAttribute("correctAnswerKey");
+        UploadedExam lastUploaded = lastUploadedExam(session);
+        Map<Integer, String> answerKey = lastUploaded != null ? lastUploaded.getAnswerKey() : null;
         
         if (answerKey == null || answerKey.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -3668,17 +3761,13 @@ public class HomepageController {
         }
 
         List<Map<String, Object>> questionRows = new ArrayList<>();
-        List<String> questions = exam.getQuestions() != null ? exam.getQuestions() : new ArrayList<>();
+        List<ParsedQuestion> questions = parsedQuestionsFor(exam);
         List<String> difficulties = exam.getDifficulties() != null ? exam.getDifficulties() : new ArrayList<>();
         Map<Integer, String> answerKey = exam.getAnswerKey() != null ? exam.getAnswerKey() : new HashMap<>();
 
         for (int i = 0; i < questions.size(); i++) {
             int number = i + 1;
-            String block = questions.get(i) != null ? questions.get(i) : "";
-            String prompt = block.split("\\r?\\n", 2)[0]
-                .replaceAll("(?i)\\[(easy|medium|hard|essay|open-ended|open ended|text_input)\\]", "")
-                .replaceAll("(?i)\\[IMG:[^\\]]+\\]", "")
-                .trim();
+            String prompt = questions.get(i).getStem();
 
             String difficulty = i < difficulties.size() ? difficulties.get(i) : "Medium";
             String answer = answerKey.get(number);
@@ -3792,49 +3881,6 @@ public class HomepageController {
         return "redirect:/teacher/subjects";
     }
     
-    /**
-     * Extract topics from questions for Random Forest analysis
-     * This analyzes question text to determine subject areas
-     */
-    private List<String> extractTopicsFromQuestions(List<String> questions, String defaultSubject) {
-        List<String> topics = new ArrayList<>();
-        
-        // Keywords for different topics
-        Map<String, List<String>> topicKeywords = new HashMap<>();
-        topicKeywords.put("Security", Arrays.asList("phishing", "malware", "firewall", "encryption", "authentication", "vulnerability", "attack", "threat", "password", "zero-day"));
-        topicKeywords.put("Networking", Arrays.asList("router", "switch", "ip", "tcp", "udp", "osi", "protocol", "network", "dns", "dhcp", "subnet", "gateway"));
-        topicKeywords.put("Programming", Arrays.asList("python", "java", "code", "function", "variable", "loop", "algorithm", "syntax", "debug", "compile"));
-        topicKeywords.put("Operating Systems", Arrays.asList("windows", "linux", "mac", "os", "kernel", "process", "thread", "memory", "file system"));
-        topicKeywords.put("Database", Arrays.asList("sql", "database", "query", "table", "index", "primary key", "foreign key", "join", "select"));
-        topicKeywords.put("Hardware", Arrays.asList("cpu", "ram", "hard drive", "ssd", "motherboard", "gpu", "memory", "storage", "processor"));
-        topicKeywords.put("Cloud", Arrays.asList("cloud", "aws", "azure", "saas", "paas", "iaas", "virtual", "container", "docker"));
-        topicKeywords.put("Web Development", Arrays.asList("html", "css", "javascript", "http", "url", "browser", "website", "web", "frontend", "backend"));
-        
-        for (String question : questions) {
-            String questionLower = question.toLowerCase();
-            String detectedTopic = defaultSubject != null ? defaultSubject : "General";
-            int maxMatches = 0;
-            
-            // Find topic with most keyword matches
-            for (Map.Entry<String, List<String>> entry : topicKeywords.entrySet()) {
-                int matches = 0;
-                for (String keyword : entry.getValue()) {
-                    if (questionLower.contains(keyword)) {
-                        matches++;
-                    }
-                }
-                if (matches > maxMatches) {
-                    maxMatches = matches;
-                    detectedTopic = entry.getKey();
-                }
-            }
-            
-            topics.add(detectedTopic);
-        }
-        
-        return topics;
-    }
-    
     /**
      * Teacher view of student's Random Forest Performance Analytics
      */
@@ -6,8 +6,9 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Serves uploaded exam images from the local filesystem.
- * Images are saved to ./uploads/exam-images/{examId}/ and
- * accessible at /uploads/exam-images/{examId}/filename.png
+ * PDF images are stored once by content under ./uploads/exam-images/objects/ and
+ * accessible at /uploads/exam-images/objects/{xx}/{sha256}.png (older exams keep
+ * their per-exam ./uploads/exam-images/{examId}/ folders).
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
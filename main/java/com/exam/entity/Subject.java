@@ -23,6 +23,10 @@ public class Subject {
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
+    // Teacher-edited "Topic: keyword, keyword" lines; null means the built-in topics
+    @Column(name = "topic_dictionary", columnDefinition = "TEXT")
+    private String topicDictionary;
+    
     // Constructors
     public Subject() {
         this.createdAt = LocalDateTime.now();
@@ -50,4 +54,7 @@ public class Subject {
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public String getTopicDictionary() { return topicDictionary; }
+    public void setTopicDictionary(String topicDictionary) { this.topicDictionary = topicDictionary; }
 }
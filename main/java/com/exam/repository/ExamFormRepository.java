@@ -0,0 +1,13 @@
+package com.exam.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.exam.entity.ExamForm;
+
+@Repository
+public interface ExamFormRepository extends JpaRepository<ExamForm, Long> {
+    Optional<ExamForm> findByFormId(String formId);
+}
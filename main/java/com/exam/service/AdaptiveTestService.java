@@ -0,0 +1,335 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Live computerized adaptive testing (CAT) on top of {@link IRT3PLService}.
+ *
+ * A student is served one question at a time. After each response the ability estimate is
+ * updated incrementally: the session keeps the log-posterior of theta on a fixed grid (standard
+ * normal prior) and adds one item's log-likelihood to it, so an answer costs O(grid points)
+ * however many items came before. Theta and its standard error are the posterior mean and
+ * standard deviation (EAP), which stay finite on all-correct or all-wrong patterns where the
+ * Newton-Raphson MLE of {@link IRT3PLService#estimateAbility} diverges. The next item is the
+ * unused one with maximum information at the current theta, looked up in the bank's
+ * {@link ItemInformationIndex} rather than scanned.
+ *
+ * Items come from the assignment's {@link ExamContent}; only multiple-choice questions are
+ * used, since typed answers cannot be scored while the test runs.
+ */
+@Service
+public class AdaptiveTestService {
+
+    private static final double GRID_MIN = -4.0;
+    private static final double GRID_STEP = 0.1;
+    private static final int GRID_POINTS = 81;
+    private static final double[] GRID = new double[GRID_POINTS];
+    private static final double[] LOG_PRIOR = new double[GRID_POINTS];
+    static {
+        for (int k = 0; k < GRID_POINTS; k++) {
+            GRID[k] = GRID_MIN + k * GRID_STEP;
+            LOG_PRIOR[k] = -0.5 * GRID[k] * GRID[k];
+        }
+    }
+
+    private static final long IDLE_SESSION_MS = 6L * 60L * 60L * 1000L;
+
+    @Autowired
+    private IRT3PLService irt3PLService;
+
+    @Value("${app.cat.min-items:5}")
+    private int defaultMinItems = 5;
+
+    @Value("${app.cat.max-items:20}")
+    private int defaultMaxItems = 20;
+
+    @Value("${app.cat.target-se:0.3}")
+    private double defaultTargetSe = 0.3;
+
+    // "studentEmail|assignmentId" -> session; a reload resumes the same test
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, String> sessionKeys = new ConcurrentHashMap<>();
+    // Weak keys: a bank goes once no assignment or session holds its content
+    private final Map<ExamContent, ItemBank> banks = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * When to stop: at {@code maxItems}, or once {@code minItems} are answered and the
+     * standard error is at most {@code targetSe}.
+     */
+    public static final class StoppingRule {
+        private final int minItems;
+        private final int maxItems;
+        private final double targetSe;
+
+        public StoppingRule(int minItems, int maxItems, double targetSe) {
+            this.maxItems = Math.max(1, maxItems);
+            this.minItems = Math.max(1, Math.min(minItems, this.maxItems));
+            this.targetSe = targetSe;
+        }
+
+        public int getMinItems() { return minItems; }
+        public int getMaxItems() { return maxItems; }
+        public double getTargetSe() { return targetSe; }
+    }
+
+    /**
+     * Item parameters of the gradable questions of one exam, built once and shared by its sessions.
+     * Holds no reference to its content, which is the weak key it is cached under.
+     */
+    static final class ItemBank {
+        final int[] questionIndex;
+        final List<IRT3PLService.ItemParameters> parameters;
+        final ItemInformationIndex index;
+
+        ItemBank(int[] questionIndex, List<IRT3PLService.ItemParameters> parameters, ItemInformationIndex index) {
+            this.questionIndex = questionIndex;
+            this.parameters = parameters;
+            this.index = index;
+        }
+    }
+
+    /**
+     * One student's test in progress. Guarded by its own monitor.
+     */
+    public static final class Session {
+        private final String sessionId;
+        private final String studentEmail;
+        private final String assignmentId;
+        private final ExamContent content;
+        private final ItemBank bank;
+        private final StoppingRule rule;
+        private final double[] logPosterior = LOG_PRIOR.clone();
+        private final long[] used;
+        // Bank positions in the order served, and the responses to them
+        private final int[] served;
+        private final String[] answers;
+        private final boolean[] correct;
+        private int answered;
+        private int correctCount;
+        private double theta;
+        private double standardError = 1.0;
+        private boolean finished;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        Session(String sessionId, String studentEmail, String assignmentId, ExamContent content, ItemBank bank,
+                StoppingRule rule) {
+            this.sessionId = sessionId;
+            this.studentEmail = studentEmail;
+            this.assignmentId = assignmentId;
+            this.content = content;
+            this.bank = bank;
+            this.rule = rule;
+            this.used = bank.index.newUsedSet();
+            int capacity = Math.min(rule.maxItems, bank.parameters.size());
+            this.served = new int[capacity];
+            this.answers = new String[capacity];
+            this.correct = new boolean[capacity];
+        }
+
+        public String getSessionId() { return sessionId; }
+        public String getStudentEmail() { return studentEmail; }
+        public String getAssignmentId() { return assignmentId; }
+        public StoppingRule getRule() { return rule; }
+        public ExamContent getContent() { return content; }
+
+        public synchronized int getAnswered() { return answered; }
+        public synchronized int getCorrectCount() { return correctCount; }
+        public synchronized double getTheta() { return theta; }
+        public synchronized double getStandardError() { return standardError; }
+        public synchronized boolean isFinished() { return finished; }
+
+        /**
+         * Question index in the content of the item waiting for an answer, or -1 once finished.
+         */
+        public synchronized int getCurrentQuestion() {
+            return finished || answered >= served.length ? -1 : bank.questionIndex[served[answered]];
+        }
+
+        /**
+         * {question index, answer, correct answer, correct} for each answered item, in order.
+         */
+        public synchronized List<Object[]> getResponses() {
+            List<Object[]> responses = new ArrayList<>(answered);
+            for (int i = 0; i < answered; i++) {
+                int question = bank.questionIndex[served[i]];
+                responses.add(new Object[] {question, answers[i], content.getAnswer(question), correct[i]});
+            }
+            return responses;
+        }
+    }
+
+    public StoppingRule defaultRule() {
+        return new StoppingRule(defaultMinItems, defaultMaxItems, defaultTargetSe);
+    }
+
+    /**
+     * Start (or resume) the adaptive test of an assignment. Returns null when the exam has no
+     * multiple-choice question to adapt over.
+     */
+    public Session start(String studentEmail, String assignmentId, ExamContent content, StoppingRule rule) {
+        pruneIdleSessions();
+        String key = studentEmail + "|" + assignmentId;
+        String existingId = sessionKeys.get(key);
+        Session existing = existingId != null ? sessions.get(existingId) : null;
+        if (existing != null && !existing.isFinished()) {
+            existing.lastAccess = System.currentTimeMillis();
+            return existing;
+        }
+
+        ItemBank bank = bankFor(content);
+        if (bank.parameters.isEmpty()) {
+            return null;
+        }
+        Session session = new Session("CAT_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12),
+            studentEmail, assignmentId, content, bank, rule != null ? rule : defaultRule());
+        synchronized (session) {
+            serveNext(session);
+        }
+        sessions.put(session.sessionId, session);
+        sessionKeys.put(key, session.sessionId);
+        return session;
+    }
+
+    /**
+     * The caller's session, or null if it does not exist or belongs to someone else.
+     */
+    public Session getSession(String sessionId, String studentEmail) {
+        Session session = sessionId != null ? sessions.get(sessionId) : null;
+        return session != null && session.studentEmail.equals(studentEmail) ? session : null;
+    }
+
+    /**
+     * Score the answer to the current item, update theta and serve the next item or finish.
+     * Returns true only for the call that finished the test, so exactly one caller records it.
+     */
+    public boolean answer(Session session, String answer) {
+        synchronized (session) {
+            if (session.finished) {
+                return false;
+            }
+            session.lastAccess = System.currentTimeMillis();
+            int position = session.served[session.answered];
+            int question = session.bank.questionIndex[position];
+            boolean isCorrect = isCorrect(session.content.getParsed(question), answer, session.content.getAnswer(question));
+
+            session.answers[session.answered] = answer != null ? answer.trim() : "";
+            session.correct[session.answered] = isCorrect;
+            session.answered++;
+            if (isCorrect) {
+                session.correctCount++;
+            }
+            update(session, session.bank.parameters.get(position), isCorrect);
+
+            StoppingRule rule = session.rule;
+            if (session.answered >= session.served.length
+                || (session.answered >= rule.minItems && session.standardError <= rule.targetSe)) {
+                session.finished = true;
+            } else {
+                serveNext(session);
+            }
+            return session.finished;
+        }
+    }
+
+    /**
+     * Forget a finished or abandoned session.
+     */
+    public void end(Session session) {
+        sessions.remove(session.sessionId);
+        sessionKeys.remove(session.studentEmail + "|" + session.assignmentId, session.sessionId);
+    }
+
+    ItemBank bankFor(ExamContent content) {
+        synchronized (banks) {
+            ItemBank bank = banks.get(content);
+            if (bank == null) {
+                List<Integer> indices = new ArrayList<>();
+                List<IRT3PLService.ItemParameters> parameters = new ArrayList<>();
+                for (int i = 0; i < content.size(); i++) {
+                    ParsedQuestion question = content.getParsed(i);
+                    if (!question.isTextInput() && content.getAnswer(i) != null) {
+                        indices.add(i);
+                        parameters.add(irt3PLService.parametersFor(content.getDifficulty(i), question.getChoiceCount()));
+                    }
+                }
+                bank = new ItemBank(indices.stream().mapToInt(Integer::intValue).toArray(),
+                    Collections.unmodifiableList(parameters), new ItemInformationIndex(parameters, irt3PLService));
+                banks.put(content, bank);
+            }
+            return bank;
+        }
+    }
+
+    /**
+     * Add one response's log-likelihood to the posterior and recompute its mean and deviation.
+     */
+    private void update(Session session, IRT3PLService.ItemParameters item, boolean isCorrect) {
+        double[] logPosterior = session.logPosterior;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < GRID_POINTS; k++) {
+            double p = irt3PLService.calculateProbability(GRID[k], item);
+            logPosterior[k] += Math.log(Math.max(1e-12, isCorrect ? p : 1 - p));
+            max = Math.max(max, logPosterior[k]);
+        }
+        double weight = 0;
+        double sum = 0;
+        double sumSquares = 0;
+        for (int k = 0; k < GRID_POINTS; k++) {
+            double w = Math.exp(logPosterior[k] - max);
+            weight += w;
+            sum += w * GRID[k];
+            sumSquares += w * GRID[k] * GRID[k];
+        }
+        session.theta = sum / weight;
+        session.standardError = Math.sqrt(Math.max(0, sumSquares / weight - session.theta * session.theta));
+    }
+
+    private void serveNext(Session session) {
+        int next = session.bank.index.select(session.theta, session.used);
+        if (next < 0) {
+            session.finished = true;
+            return;
+        }
+        ItemInformationIndex.markUsed(session.used, next);
+        session.served[session.answered] = next;
+    }
+
+    /**
+     * The answer matches the key as choice text, or names the key's choice by letter.
+     */
+    static boolean isCorrect(ParsedQuestion question, String answer, String key) {
+        if (answer == null || answer.isBlank() || key == null) {
+            return false;
+        }
+        String given = answer.trim();
+        String expected = key.trim();
+        if (given.equalsIgnoreCase(expected)) {
+            return true;
+        }
+        String givenChoice = question.getChoiceForLetter(given);
+        String expectedChoice = question.getChoiceForLetter(expected);
+        return (givenChoice != null && givenChoice.trim().equalsIgnoreCase(expected))
+            || (expectedChoice != null && expectedChoice.trim().equalsIgnoreCase(given));
+    }
+
+    private void pruneIdleSessions() {
+        long cutoff = System.currentTimeMillis() - IDLE_SESSION_MS;
+        sessions.values().removeIf(session -> {
+            if (session.lastAccess < cutoff) {
+                sessionKeys.remove(session.studentEmail + "|" + session.assignmentId, session.sessionId);
+                return true;
+            }
+            return false;
+        });
+    }
+}
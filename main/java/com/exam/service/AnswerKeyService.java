@@ -27,6 +27,15 @@ public class AnswerKeyService {
         studentAnswerKeys.put(studentId, new HashMap<>(answerKey));
     }
     
+    /**
+     * Store an immutable answer key shared by several students (a form-pool form) without copying it
+     * @param studentId The student ID
+     * @param answerKey Unmodifiable map of question number to correct answer
+     */
+    public void storeSharedStudentAnswerKey(String studentId, Map<Integer, String> answerKey) {
+        studentAnswerKeys.put(studentId, answerKey);
+    }
+    
     /**
      * Get answer key for a specific student
      * @param studentId The student ID
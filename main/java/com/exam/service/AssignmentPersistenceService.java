@@ -0,0 +1,374 @@
+package com.exam.service;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.exam.entity.DistributedAssignment;
+import com.exam.repository.DistributedAssignmentRepository;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind persistence for distributed assignments.
+ *
+ * The distribution request only enqueues; a single background thread drains the queue every
+ * few hundred milliseconds and writes each batch in one transaction. Writes for the same
+ * assignment inside a batch are coalesced, so a publish followed by a submit never touches MySQL.
+ *
+ * A batch that fails because the database is unreachable is retried as is. A batch the database
+ * rejects (a bad row) is retried {@value #MAX_BATCH_ATTEMPTS} times, then written one write per
+ * transaction so the offending write can be logged and dropped without blocking the ones behind it.
+ */
+@Service
+public class AssignmentPersistenceService {
+
+    private static final Type STRING_LIST = new TypeToken<List<String>>() { }.getType();
+    private static final Type ANSWER_KEY = new TypeToken<Map<Integer, String>>() { }.getType();
+    static final int MAX_BATCH_ATTEMPTS = 3;
+
+    @Autowired
+    private DistributedAssignmentRepository distributedAssignmentRepository;
+
+    @Autowired
+    private FormPoolService formPoolService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.assignments.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.assignments.write-behind.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    private final BlockingDeque<PendingWrite> queue = new LinkedBlockingDeque<>();
+    private final Gson gson = new Gson();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsDeleted = new AtomicLong();
+    private final AtomicLong writesDropped = new AtomicLong();
+    // studentEmail -> writes queued or in flight; the store only evicts students with none
+    private final Map<String, Integer> unflushedByStudent = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+    private TransactionTemplate transactionTemplate;
+
+    private enum WriteType { SAVE, DELETE_ASSIGNMENT, DELETE_STUDENT }
+
+    private static final class PendingWrite {
+        final WriteType type;
+        final String studentEmail;
+        final AssignmentStoreService.Assignment assignment;
+        final String assignmentId;
+        // Batches this write was in that the database rejected; only touched by the flusher thread
+        int rejections;
+
+        PendingWrite(WriteType type, String studentEmail, AssignmentStoreService.Assignment assignment, String assignmentId) {
+            this.type = type;
+            this.studentEmail = studentEmail;
+            this.assignment = assignment;
+            this.assignmentId = assignmentId;
+        }
+
+        String coalesceKey() {
+            return type == WriteType.DELETE_STUDENT ? "student:" + studentEmail : "assignment:" + assignmentId;
+        }
+    }
+
+    @PostConstruct
+    public void startFlusher() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "assignment-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopFlusher() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Drain whatever is left so a clean shutdown loses nothing
+        while (!queue.isEmpty()) {
+            if (!flushSafely()) {
+                break;
+            }
+        }
+        System.out.println("💾 Assignment write-behind stopped (written=" + rowsWritten.get() + ", deleted=" + rowsDeleted.get()
+            + ", dropped=" + writesDropped.get() + ")");
+    }
+
+    public void enqueueSave(String studentEmail, AssignmentStoreService.Assignment assignment) {
+        enqueue(new PendingWrite(WriteType.SAVE, studentEmail, assignment, assignment.getAssignmentId()));
+    }
+
+    public void enqueueDelete(String studentEmail, String assignmentId) {
+        enqueue(new PendingWrite(WriteType.DELETE_ASSIGNMENT, studentEmail, null, assignmentId));
+    }
+
+    public void enqueueDeleteStudent(String studentEmail) {
+        enqueue(new PendingWrite(WriteType.DELETE_STUDENT, studentEmail, null, null));
+    }
+
+    private void enqueue(PendingWrite write) {
+        unflushedByStudent.merge(write.studentEmail, 1, Integer::sum);
+        queue.offer(write);
+    }
+
+    public int getPendingWrites() {
+        return queue.size();
+    }
+
+    /**
+     * Writes the database kept rejecting and that were logged and discarded.
+     */
+    public long getWritesDropped() {
+        return writesDropped.get();
+    }
+
+    /**
+     * True while a write for this student is queued or in flight, i.e. MySQL may still be behind memory.
+     */
+    public boolean hasUnflushedWrites(String studentEmail) {
+        return unflushedByStudent.containsKey(studentEmail);
+    }
+
+    /**
+     * Students that have at least one persisted assignment. Cheap: one DISTINCT on an indexed column.
+     */
+    public List<String> findStudentsWithAssignments() {
+        return distributedAssignmentRepository.findDistinctStudentEmails();
+    }
+
+    /**
+     * Load one student's persisted assignments, oldest first.
+     */
+    public List<AssignmentStoreService.Assignment> loadAssignments(String studentEmail) {
+        List<AssignmentStoreService.Assignment> assignments = new ArrayList<>();
+        for (DistributedAssignment row : distributedAssignmentRepository.findByStudentEmailOrderByDistributedAtAsc(studentEmail)) {
+            assignments.add(toAssignment(row));
+        }
+        return assignments;
+    }
+
+    /**
+     * Flush one batch. Returns false (and puts the batch back) if it has to be retried.
+     */
+    boolean flushSafely() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            writeBatch(batch);
+            markFlushed(batch);
+            return true;
+        } catch (Exception e) {
+            boolean rejected = !isTransient(e);
+            int rejections = 0;
+            for (PendingWrite write : batch) {
+                if (rejected) {
+                    write.rejections++;
+                }
+                rejections = Math.max(rejections, write.rejections);
+            }
+            if (rejections >= MAX_BATCH_ATTEMPTS) {
+                System.err.println("⚠️ Assignment write-behind batch rejected " + rejections + " times, writing "
+                    + batch.size() + " writes one by one: " + e.getMessage());
+                writeOneByOne(batch);
+                return true;
+            }
+            System.err.println("⚠️ Assignment write-behind failed, will retry " + batch.size() + " writes: " + e.getMessage());
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                queue.offerFirst(batch.get(i));
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Isolate the bad write(s) of a rejected batch: each write in its own transaction, in queue
+     * order, and a write the database still rejects is logged and dropped.
+     */
+    private void writeOneByOne(List<PendingWrite> batch) {
+        for (PendingWrite write : batch) {
+            try {
+                writeBatch(List.of(write));
+            } catch (Exception e) {
+                writesDropped.incrementAndGet();
+                System.err.println("❌ Dropping " + write.type + " of assignment " + write.assignmentId + " for "
+                    + write.studentEmail + ": " + e.getMessage());
+            }
+            markFlushed(List.of(write));
+        }
+    }
+
+    private void markFlushed(List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            unflushedByStudent.computeIfPresent(write.studentEmail, (email, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Failures worth retrying as is: the database or connection pool was unavailable, not the data.
+     */
+    private static boolean isTransient(Exception e) {
+        return e instanceof TransientDataAccessException
+            || e instanceof RecoverableDataAccessException
+            || e instanceof DataAccessResourceFailureException
+            || e instanceof CannotCreateTransactionException;
+    }
+
+    /**
+     * Coalesce a batch and write it in one transaction: all of its deletes and saves, or none.
+     */
+    private void writeBatch(List<PendingWrite> batch) {
+        // Keep only the last write per assignment; a student-wide delete cancels earlier saves for that student
+        Map<String, PendingWrite> coalesced = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            if (write.type == WriteType.DELETE_STUDENT) {
+                coalesced.values().removeIf(pending -> pending.studentEmail.equals(write.studentEmail));
+            }
+            coalesced.remove(write.coalesceKey());
+            coalesced.put(write.coalesceKey(), write);
+        }
+
+        List<String> studentsToDelete = new ArrayList<>();
+        List<String> assignmentsToDelete = new ArrayList<>();
+        List<DistributedAssignment> rowsToSave = new ArrayList<>();
+        for (PendingWrite write : coalesced.values()) {
+            switch (write.type) {
+                case DELETE_STUDENT -> studentsToDelete.add(write.studentEmail);
+                case DELETE_ASSIGNMENT -> assignmentsToDelete.add(write.assignmentId);
+                case SAVE -> rowsToSave.add(toEntity(write.studentEmail, write.assignment));
+            }
+        }
+
+        long[] deleted = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!studentsToDelete.isEmpty()) {
+                deleted[0] += distributedAssignmentRepository.deleteByStudentEmailIn(studentsToDelete);
+            }
+            if (!assignmentsToDelete.isEmpty()) {
+                deleted[0] += distributedAssignmentRepository.deleteByAssignmentIdIn(assignmentsToDelete);
+            }
+            if (!rowsToSave.isEmpty()) {
+                distributedAssignmentRepository.saveAll(rowsToSave);
+            }
+        });
+        // Counted only once the transaction has committed
+        rowsDeleted.addAndGet(deleted[0]);
+        rowsWritten.addAndGet(rowsToSave.size());
+    }
+
+    private DistributedAssignment toEntity(String studentEmail, AssignmentStoreService.Assignment assignment) {
+        Map<String, Object> metadata = assignment.getMetadata();
+        DistributedAssignment row = new DistributedAssignment();
+        row.setAssignmentId(assignment.getAssignmentId());
+        row.setStudentEmail(studentEmail);
+        row.setExamName(stringValue(metadata.get("examName")));
+        row.setExamSubject(stringValue(metadata.get("examSubject")));
+        row.setActivityType(stringValue(metadata.get("examActivityType")));
+        Object timeLimit = metadata.get("examTimeLimit");
+        row.setTimeLimit(timeLimit instanceof Number number ? number.intValue() : null);
+        row.setDeadline(stringValue(metadata.get("examDeadline")));
+        row.setQuestionCount(assignment.size());
+        row.setDistributedAt(LocalDateTime.parse(assignment.getDistributedAt()));
+        Object catTargetSe = metadata.get("catTargetSe");
+        row.setCatTargetSe(catTargetSe instanceof Number number ? number.doubleValue() : null);
+        row.setSourceExamId(assignment.getSourceExamId());
+        row.setRandomness(stringValue(metadata.get("randomness")));
+        row.setFormPoolId(stringValue(metadata.get("formPoolId")));
+        Object layoutSeed = metadata.get("layoutSeed");
+        row.setLayoutSeed(layoutSeed instanceof Number number ? number.longValue() : null);
+        if (assignment.getLayout() instanceof FormPoolService.Form form) {
+            // Pool forms are saved once by FormPoolService; the student row only points at its form
+            row.setFormId(form.getFormId());
+            return row;
+        }
+        row.setQuestionsJson(gson.toJson(assignment.getQuestions()));
+        row.setDifficultiesJson(gson.toJson(assignment.getDifficulties()));
+        row.setTopicsJson(gson.toJson(assignment.getTopics()));
+        row.setAnswerKeyJson(gson.toJson(assignment.getAnswerKey()));
+        return row;
+    }
+
+    private AssignmentStoreService.Assignment toAssignment(DistributedAssignment row) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("assignmentId", row.getAssignmentId());
+        metadata.put("examSubject", row.getExamSubject());
+        metadata.put("examActivityType", row.getActivityType());
+        metadata.put("examName", row.getExamName());
+        metadata.put("examTimeLimit", row.getTimeLimit());
+        metadata.put("examDeadline", row.getDeadline());
+        metadata.put("questionCount", row.getQuestionCount());
+        if (row.getCatTargetSe() != null) {
+            metadata.put("catTargetSe", row.getCatTargetSe());
+        }
+        if (row.getRandomness() != null) {
+            metadata.put("randomness", row.getRandomness());
+        }
+        if (row.getFormPoolId() != null) {
+            metadata.put("formPoolId", row.getFormPoolId());
+        }
+        if (row.getLayoutSeed() != null) {
+            metadata.put("layoutSeed", row.getLayoutSeed());
+        }
+
+        if (row.getFormId() != null) {
+            FormPoolService.Form form = formPoolService.findForm(row.getFormId());
+            if (form != null) {
+                metadata.put("formNumber", form.getFormNumber());
+                return new AssignmentStoreService.Assignment(row.getAssignmentId(), metadata, form.getContent(), form,
+                    row.getDistributedAt().toString());
+            }
+            System.err.println("⚠️ Form " + row.getFormId() + " of assignment " + row.getAssignmentId() + " not found");
+        }
+
+        List<String> questions = gson.fromJson(row.getQuestionsJson(), STRING_LIST);
+        List<String> difficulties = gson.fromJson(row.getDifficultiesJson(), STRING_LIST);
+        List<String> topics = gson.fromJson(row.getTopicsJson(), STRING_LIST);
+        Map<Integer, String> answerKey = gson.fromJson(row.getAnswerKeyJson(), ANSWER_KEY);
+
+        return new AssignmentStoreService.Assignment(row.getAssignmentId(), metadata, row.getSourceExamId(),
+            questions != null ? questions : List.of(),
+            difficulties != null ? difficulties : List.of(),
+            topics != null ? topics : List.of(),
+            answerKey != null ? answerKey : Map.of(),
+            row.getDistributedAt().toString());
+    }
+
+    private static String stringValue(Object value) {
+        return value != null ? String.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,712 @@
+package com.exam.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Thread-safe store for exams distributed to students.
+ *
+ * Each student owns one immutable {@link StudentAssignments} snapshot. Writers replace the
+ * snapshot through {@link ConcurrentHashMap#compute}, which locks only that student's bin,
+ * so a teacher distributing to a whole class never blocks students reading their own exams.
+ * Readers call {@link ConcurrentHashMap#get} and always see a complete assignment or none.
+ *
+ * Every change is also handed to {@link AssignmentPersistenceService} (write-behind). After a
+ * restart only the list of affected students is read; each student's assignments are loaded
+ * from MySQL the first time that student is looked up.
+ *
+ * Memory stays bounded: a periodic sweep drops students that have been idle past the TTL, whose
+ * assignments are all past their deadline, or that exceed the resident limit (least recently used
+ * first). Only students whose writes have reached MySQL are dropped, and they are rehydrated
+ * lazily like after a restart.
+ */
+@Service
+public class AssignmentStoreService {
+
+    // studentEmail -> immutable snapshot of every pending assignment
+    private final Map<String, StudentAssignments> assignmentsByStudent = new ConcurrentHashMap<>();
+
+    // studentEmail -> exam names the teacher unlocked past the deadline
+    private final Map<String, Set<String>> unlockedExams = new ConcurrentHashMap<>();
+
+    // Students with persisted assignments that have not been loaded into memory yet
+    private final Set<String> pendingRehydration = ConcurrentHashMap.newKeySet();
+    private final Object[] rehydrationLocks = new Object[64];
+
+    // subject (lower-case) -> studentEmail -> assignmentId -> history row, for resident students only:
+    // eviction drops a student's rows with their snapshot, and the next lookup reloads both.
+    private final Map<String, Map<String, Map<String, Map<String, Object>>>> subjectIndex = new ConcurrentHashMap<>();
+    private final Set<String> indexedStudents = ConcurrentHashMap.newKeySet();
+
+    // studentEmail -> last read or write of that student's snapshot (epoch ms)
+    private final Map<String, Long> lastAccess = new ConcurrentHashMap<>();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong deadlineEvictions = new AtomicLong();
+    private final AtomicLong capacityEvictions = new AtomicLong();
+
+    @Autowired(required = false)
+    private AssignmentPersistenceService persistence;
+
+    @Value("${app.assignments.cache.max-students:5000}")
+    private int maxResidentStudents = 5000;
+
+    @Value("${app.assignments.cache.idle-ttl-minutes:120}")
+    private long idleTtlMinutes = 120;
+
+    @Value("${app.assignments.cache.sweep-interval-seconds:60}")
+    private long sweepIntervalSeconds = 60;
+
+    private ScheduledExecutorService sweeper;
+
+    public AssignmentStoreService() {
+        for (int i = 0; i < rehydrationLocks.length; i++) {
+            rehydrationLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * One distributed exam for one student.
+     *
+     * Stored compactly as a reference to the shared {@link ExamContent} and a {@link PaperLayout}
+     * (question order plus a choice order per question, either held as arrays or re-derived from a
+     * seed). Questions, difficulties, topics and the answer key are read-only views rendered on demand.
+     */
+    public static final class Assignment {
+        private final String assignmentId;
+        private final Map<String, Object> metadata;
+        private final ExamContent content;
+        private final PaperLayout layout;
+        private final int size;
+        private final String distributedAt;
+
+        public Assignment(String assignmentId, Map<String, Object> metadata, ExamContent content,
+                          int[] questionOrder, byte[][] choiceOrder) {
+            this(assignmentId, metadata, content, PaperLayout.fixed(questionOrder, choiceOrder));
+        }
+
+        public Assignment(String assignmentId, Map<String, Object> metadata, ExamContent content, PaperLayout layout) {
+            this(assignmentId, metadata, content, layout, java.time.LocalDateTime.now().toString());
+        }
+
+        public Assignment(String assignmentId, Map<String, Object> metadata, ExamContent content,
+                          PaperLayout layout, String distributedAt) {
+            this.assignmentId = assignmentId;
+            this.metadata = Collections.unmodifiableMap(new HashMap<>(metadata));
+            this.content = content;
+            this.layout = layout;
+            this.size = layout.getQuestionOrder().length;
+            this.distributedAt = distributedAt;
+        }
+
+        /**
+         * Already-rendered paper with no source exam: its own content, identity order.
+         */
+        public Assignment(String assignmentId, Map<String, Object> metadata, List<String> questions,
+                          List<String> difficulties, List<String> topics, Map<Integer, String> answerKey) {
+            this(assignmentId, metadata, null, questions, difficulties, topics, answerKey,
+                 java.time.LocalDateTime.now().toString());
+        }
+
+        /**
+         * Already-rendered paper reloaded from the database, still tied to the exam it was cut from.
+         */
+        public Assignment(String assignmentId, Map<String, Object> metadata, String sourceExamId,
+                          List<String> questions, List<String> difficulties, List<String> topics,
+                          Map<Integer, String> answerKey, String distributedAt) {
+            this(assignmentId, metadata, new ExamContent(sourceExamId, questions, difficulties, topics, answerKey),
+                 PaperLayout.fixed(identityOrder(questions.size()), new byte[questions.size()][]), distributedAt);
+        }
+
+        private static int[] identityOrder(int size) {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+
+        public ExamContent getContent() { return content; }
+        public PaperLayout getLayout() { return layout; }
+        public String getSourceExamId() { return content.getExamId(); }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Question text at a 0-based position on this student's paper.
+         */
+        public String getQuestion(int position) {
+            return content.render(layout.getQuestionOrder()[position], layout.getChoiceOrder()[position]);
+        }
+
+        public List<String> getQuestions() {
+            int[] order = layout.getQuestionOrder();
+            byte[][] choices = layout.getChoiceOrder();
+            return new AbstractList<String>() {
+                @Override public String get(int position) { return content.render(order[position], choices[position]); }
+                @Override public int size() { return order.length; }
+            };
+        }
+
+        /**
+         * Parsed questions of this student's paper, choices already in the paper's order.
+         */
+        public List<ParsedQuestion> getPaper() {
+            int[] order = layout.getQuestionOrder();
+            byte[][] choices = layout.getChoiceOrder();
+            return new AbstractList<ParsedQuestion>() {
+                @Override public ParsedQuestion get(int position) { return content.getParsed(order[position]).withChoiceOrder(choices[position]); }
+                @Override public int size() { return order.length; }
+            };
+        }
+
+        public List<String> getDifficulties() {
+            int[] order = layout.getQuestionOrder();
+            return new AbstractList<String>() {
+                @Override public String get(int position) { return content.getDifficulty(order[position]); }
+                @Override public int size() { return order.length; }
+            };
+        }
+
+        public List<String> getTopics() {
+            int[] order = layout.getQuestionOrder();
+            return new AbstractList<String>() {
+                @Override public String get(int position) { return content.getTopic(order[position]); }
+                @Override public int size() { return order.length; }
+            };
+        }
+
+        /**
+         * Answer key keyed by 1-based position on this student's paper.
+         */
+        public Map<Integer, String> getAnswerKey() {
+            if (layout instanceof FormPoolService.Form form) {
+                return form.getAnswerKey();
+            }
+            int[] order = layout.getQuestionOrder();
+            Map<Integer, String> key = new HashMap<>();
+            for (int position = 0; position < order.length; position++) {
+                String answer = content.getAnswer(order[position]);
+                if (answer != null) {
+                    key.put(position + 1, answer);
+                }
+            }
+            return Collections.unmodifiableMap(key);
+        }
+
+        /**
+         * True when this paper is a pool form: its answer key is shared with every student on the form.
+         */
+        public boolean hasSharedAnswerKey() {
+            return layout instanceof FormPoolService.Form;
+        }
+
+        public String getAssignmentId() { return assignmentId; }
+        public Map<String, Object> getMetadata() { return metadata; }
+        public String getDistributedAt() { return distributedAt; }
+
+        /**
+         * History row as the templates expect it: metadata plus "distributedAt".
+         */
+        public Map<String, Object> toHistoryEntry() {
+            Map<String, Object> entry = new HashMap<>(metadata);
+            entry.put("distributedAt", distributedAt);
+            return entry;
+        }
+    }
+
+    /**
+     * Immutable, ordered set of a student's pending assignments (oldest first).
+     */
+    public static final class StudentAssignments {
+        private final List<Assignment> assignments;
+
+        private StudentAssignments(List<Assignment> assignments) {
+            this.assignments = Collections.unmodifiableList(assignments);
+        }
+
+        public List<Assignment> getAssignments() { return assignments; }
+
+        public Assignment getLatest() {
+            return assignments.isEmpty() ? null : assignments.get(assignments.size() - 1);
+        }
+
+        public Assignment find(String assignmentId) {
+            if (assignmentId == null) {
+                return null;
+            }
+            for (Assignment assignment : assignments) {
+                if (assignmentId.equals(assignment.getAssignmentId())) {
+                    return assignment;
+                }
+            }
+            return null;
+        }
+
+        StudentAssignments withAll(List<Assignment> older) {
+            List<Assignment> next = new ArrayList<>(older.size() + assignments.size());
+            next.addAll(older);
+            for (Assignment assignment : assignments) {
+                if (!containsId(older, assignment.getAssignmentId())) {
+                    next.add(assignment);
+                }
+            }
+            return new StudentAssignments(next);
+        }
+
+        private static boolean containsId(List<Assignment> list, String assignmentId) {
+            for (Assignment assignment : list) {
+                if (assignment.getAssignmentId().equals(assignmentId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        StudentAssignments with(Assignment assignment) {
+            List<Assignment> next = new ArrayList<>(assignments.size() + 1);
+            next.addAll(assignments);
+            next.add(assignment);
+            return new StudentAssignments(next);
+        }
+
+        StudentAssignments without(String assignmentId) {
+            List<Assignment> next = new ArrayList<>(assignments.size());
+            for (Assignment assignment : assignments) {
+                if (!assignment.getAssignmentId().equals(assignmentId)) {
+                    next.add(assignment);
+                }
+            }
+            return next.isEmpty() ? null : new StudentAssignments(next);
+        }
+    }
+
+    /**
+     * Atomically publish an assignment. Questions, key, topics and metadata become visible
+     * to readers together; concurrent publishes for the same student are never lost.
+     */
+    public void publish(String studentEmail, Assignment assignment) {
+        rehydrateIfPending(studentEmail);
+        touch(studentEmail);
+        assignmentsByStudent.compute(studentEmail, (email, current) -> {
+            // Enqueue inside compute so the durable write order matches the in-memory order
+            if (persistence != null) {
+                persistence.enqueueSave(email, assignment);
+            }
+            StudentAssignments next = current == null
+                ? new StudentAssignments(new ArrayList<>(List.of(assignment)))
+                : current.with(assignment);
+            reindex(email, next);
+            return next;
+        });
+    }
+
+    /**
+     * Lock-free read of a student's current snapshot, or null if nothing is pending.
+     */
+    public StudentAssignments getStudentAssignments(String studentEmail) {
+        if (studentEmail == null) {
+            return null;
+        }
+        boolean loaded = rehydrateIfPending(studentEmail);
+        StudentAssignments snapshot = assignmentsByStudent.get(studentEmail);
+        if (snapshot != null) {
+            (loaded ? cacheMisses : cacheHits).incrementAndGet();
+            touch(studentEmail);
+        }
+        return snapshot;
+    }
+
+    private void touch(String studentEmail) {
+        lastAccess.put(studentEmail, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void init() {
+        loadPersistedStudents();
+        if (persistence != null && sweepIntervalSeconds > 0) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "assignment-eviction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::evictSafely, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Read the list of students with persisted assignments. Their rows stay in MySQL until first use.
+     */
+    public void loadPersistedStudents() {
+        if (persistence == null) {
+            return;
+        }
+        try {
+            List<String> students = persistence.findStudentsWithAssignments();
+            pendingRehydration.addAll(students);
+            System.out.println("💾 " + students.size() + " students have persisted assignments (loaded on first access)");
+        } catch (Exception e) {
+            System.err.println("⚠️ Warning: Could not read persisted assignments: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load a student's persisted assignments if they are not in memory. Returns true if this call loaded them.
+     */
+    private boolean rehydrateIfPending(String studentEmail) {
+        if (!pendingRehydration.contains(studentEmail)) {
+            return false;
+        }
+        // One loader per student; other students hashing to a different stripe are not blocked
+        synchronized (rehydrationLocks[(studentEmail.hashCode() & 0x7fffffff) % rehydrationLocks.length]) {
+            if (!pendingRehydration.contains(studentEmail)) {
+                return false;
+            }
+            try {
+                List<Assignment> persisted = persistence.loadAssignments(studentEmail);
+                if (!persisted.isEmpty()) {
+                    assignmentsByStudent.compute(studentEmail, (email, current) -> {
+                        StudentAssignments next = current == null
+                            ? new StudentAssignments(new ArrayList<>(persisted))
+                            : current.withAll(persisted);
+                        reindex(email, next);
+                        return next;
+                    });
+                }
+                pendingRehydration.remove(studentEmail);
+                return true;
+            } catch (Exception e) {
+                System.err.println("⚠️ Could not load persisted assignments for " + studentEmail + ": " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Resolve an assignment by id, falling back to the latest one when no id is given.
+     */
+    public Assignment getAssignment(String studentEmail, String assignmentId) {
+        StudentAssignments snapshot = getStudentAssignments(studentEmail);
+        if (snapshot == null) {
+            return null;
+        }
+        if (assignmentId == null || assignmentId.isBlank()) {
+            return snapshot.getLatest();
+        }
+        return snapshot.find(assignmentId);
+    }
+
+    public Assignment getLatestAssignment(String studentEmail) {
+        StudentAssignments snapshot = getStudentAssignments(studentEmail);
+        return snapshot != null ? snapshot.getLatest() : null;
+    }
+
+    public boolean hasAssignments(String studentEmail) {
+        return getStudentAssignments(studentEmail) != null;
+    }
+
+    /**
+     * Emails of every student with at least one pending assignment.
+     */
+    public Set<String> getStudentsWithAssignments() {
+        if (pendingRehydration.isEmpty()) {
+            return Collections.unmodifiableSet(assignmentsByStudent.keySet());
+        }
+        Set<String> students = new HashSet<>(assignmentsByStudent.keySet());
+        students.addAll(pendingRehydration);
+        return students;
+    }
+
+    /**
+     * History rows (copies) for a student, oldest first.
+     */
+    public List<Map<String, Object>> getHistory(String studentEmail) {
+        StudentAssignments snapshot = getStudentAssignments(studentEmail);
+        List<Map<String, Object>> history = new ArrayList<>();
+        if (snapshot != null) {
+            for (Assignment assignment : snapshot.getAssignments()) {
+                history.add(assignment.toHistoryEntry());
+            }
+        }
+        return history;
+    }
+
+    public void removeAssignment(String studentEmail, String assignmentId) {
+        if (assignmentId == null || assignmentId.isBlank()) {
+            removeAll(studentEmail);
+            return;
+        }
+        rehydrateIfPending(studentEmail);
+        assignmentsByStudent.computeIfPresent(studentEmail, (email, current) -> {
+            if (persistence != null) {
+                persistence.enqueueDelete(email, assignmentId);
+            }
+            StudentAssignments next = current.without(assignmentId);
+            reindex(email, next);
+            return next;
+        });
+        if (!assignmentsByStudent.containsKey(studentEmail)) {
+            lastAccess.remove(studentEmail);
+        }
+    }
+
+    public void removeAll(String studentEmail) {
+        pendingRehydration.remove(studentEmail);
+        // Same compute as publish: a concurrent publish lands wholly before or after, index included
+        assignmentsByStudent.compute(studentEmail, (email, current) -> {
+            if (persistence != null) {
+                persistence.enqueueDeleteStudent(email);
+            }
+            reindex(email, null);
+            return null;
+        });
+        lastAccess.remove(studentEmail);
+    }
+
+    public int getStudentCount() {
+        return assignmentsByStudent.size();
+    }
+
+    // ===== Subject index =====
+
+    /**
+     * History rows of one student's assignments for a subject (case-insensitive), oldest first.
+     * Served from the subject index; MySQL is only read for students not resident (not loaded
+     * since startup, or evicted).
+     */
+    public List<Map<String, Object>> getSubjectAssignments(String subjectName, String studentEmail) {
+        if (studentEmail == null) {
+            return List.of();
+        }
+        if (!indexedStudents.contains(studentEmail)) {
+            rehydrateIfPending(studentEmail);
+        }
+        Map<String, Map<String, Object>> rows = indexedRows(subjectName, studentEmail);
+        if (rows == null && !indexedStudents.contains(studentEmail) && rehydrateIfPending(studentEmail)) {
+            // Evicted between the check above and the lookup
+            rows = indexedRows(subjectName, studentEmail);
+        }
+        return rows != null ? new ArrayList<>(rows.values()) : List.of();
+    }
+
+    private Map<String, Map<String, Object>> indexedRows(String subjectName, String studentEmail) {
+        Map<String, Map<String, Map<String, Object>>> students = subjectIndex.get(subjectKey(subjectName));
+        return students != null ? students.get(studentEmail) : null;
+    }
+
+    /**
+     * Rebuild one student's index entries from their new snapshot (null drops them). Called inside
+     * the compute that installs the snapshot, so updates for a student are applied in order.
+     */
+    private void reindex(String studentEmail, StudentAssignments snapshot) {
+        if (snapshot == null) {
+            // Unmark first: a reader that then misses the rows knows to reload rather than trust them
+            indexedStudents.remove(studentEmail);
+        }
+        Map<String, Map<String, Map<String, Object>>> bySubject = new HashMap<>();
+        if (snapshot != null) {
+            for (Assignment assignment : snapshot.getAssignments()) {
+                bySubject.computeIfAbsent(subjectKey(assignment.getMetadata().get("examSubject")), k -> new LinkedHashMap<>())
+                    .put(assignment.getAssignmentId(), Collections.unmodifiableMap(assignment.toHistoryEntry()));
+            }
+        }
+        for (Map.Entry<String, Map<String, Map<String, Map<String, Object>>>> subject : subjectIndex.entrySet()) {
+            if (!bySubject.containsKey(subject.getKey())) {
+                subject.getValue().remove(studentEmail);
+            }
+        }
+        for (Map.Entry<String, Map<String, Map<String, Object>>> entry : bySubject.entrySet()) {
+            subjectIndex.computeIfAbsent(entry.getKey(), k -> new ConcurrentHashMap<>())
+                .put(studentEmail, Collections.unmodifiableMap(entry.getValue()));
+        }
+        if (snapshot != null) {
+            indexedStudents.add(studentEmail);
+        }
+    }
+
+    private static String subjectKey(Object subject) {
+        return subject != null ? String.valueOf(subject).trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    // ===== Eviction =====
+
+    private void evictSafely() {
+        try {
+            int evicted = evictColdEntries();
+            if (evicted > 0) {
+                System.out.println("🧹 Evicted " + evicted + " students' assignments to MySQL (" + assignmentsByStudent.size() + " resident)");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Assignment eviction sweep failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One eviction sweep. Returns the number of students moved out of memory.
+     */
+    public int evictColdEntries() {
+        if (persistence == null) {
+            // Nothing to spill to; dropping would lose assignments
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        long idleCutoff = now - TimeUnit.MINUTES.toMillis(idleTtlMinutes);
+        // Expired-only students are still shown as missed, so give them one sweep of grace after each visit
+        long expiredCutoff = now - TimeUnit.SECONDS.toMillis(sweepIntervalSeconds);
+        LocalDateTime currentTime = LocalDateTime.now();
+        int evicted = 0;
+
+        for (Map.Entry<String, StudentAssignments> entry : assignmentsByStudent.entrySet()) {
+            String email = entry.getKey();
+            long lastUsed = lastAccess.getOrDefault(email, 0L);
+            if (lastUsed < idleCutoff) {
+                if (spill(email, entry.getValue())) {
+                    idleEvictions.incrementAndGet();
+                    evicted++;
+                }
+            } else if (lastUsed < expiredCutoff && allPastDeadline(email, entry.getValue(), currentTime)) {
+                if (spill(email, entry.getValue())) {
+                    deadlineEvictions.incrementAndGet();
+                    evicted++;
+                }
+            }
+        }
+
+        int excess = assignmentsByStudent.size() - maxResidentStudents;
+        if (excess > 0) {
+            List<Map.Entry<String, Long>> byLastAccess = new ArrayList<>(lastAccess.entrySet());
+            byLastAccess.sort(Map.Entry.comparingByValue());
+            for (Map.Entry<String, Long> entry : byLastAccess) {
+                if (excess <= 0) {
+                    break;
+                }
+                StudentAssignments snapshot = assignmentsByStudent.get(entry.getKey());
+                if (snapshot != null && spill(entry.getKey(), snapshot)) {
+                    capacityEvictions.incrementAndGet();
+                    evicted++;
+                    excess--;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Drop a student's snapshot and subject index rows if the snapshot is unchanged and already
+     * durable; the next lookup reloads both.
+     */
+    private boolean spill(String studentEmail, StudentAssignments snapshot) {
+        if (persistence.hasUnflushedWrites(studentEmail)) {
+            return false;
+        }
+        // Mark first so a reader racing the removal reloads instead of seeing nothing
+        pendingRehydration.add(studentEmail);
+        boolean[] spilled = new boolean[1];
+        assignmentsByStudent.computeIfPresent(studentEmail, (email, current) -> {
+            if (current != snapshot) {
+                return current;
+            }
+            reindex(email, null);
+            spilled[0] = true;
+            return null;
+        });
+        if (spilled[0]) {
+            lastAccess.remove(studentEmail);
+            return true;
+        }
+        // Changed underneath us by a publish/remove, which already rehydrated; keep it resident
+        pendingRehydration.remove(studentEmail);
+        return false;
+    }
+
+    private boolean allPastDeadline(String studentEmail, StudentAssignments snapshot, LocalDateTime now) {
+        for (Assignment assignment : snapshot.getAssignments()) {
+            Object deadline = assignment.getMetadata().get("examDeadline");
+            if (deadline == null || String.valueOf(deadline).isBlank()
+                    || isUnlocked(studentEmail, String.valueOf(assignment.getMetadata().get("examName")))) {
+                return false;
+            }
+            try {
+                if (!LocalDateTime.parse(String.valueOf(deadline)).isBefore(now)) {
+                    return false;
+                }
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hit/miss/eviction counters for monitoring. A miss is a lookup that had to load from MySQL.
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("residentStudents", assignmentsByStudent.size());
+        stats.put("spilledStudents", pendingRehydration.size());
+        stats.put("maxResidentStudents", maxResidentStudents);
+        stats.put("hits", cacheHits.get());
+        stats.put("misses", cacheMisses.get());
+        stats.put("idleEvictions", idleEvictions.get());
+        stats.put("deadlineEvictions", deadlineEvictions.get());
+        stats.put("capacityEvictions", capacityEvictions.get());
+        stats.put("pendingWrites", persistence != null ? persistence.getPendingWrites() : 0);
+        return stats;
+    }
+
+    // ===== Deadline unlocks =====
+
+    public void unlock(String studentEmail, String examName) {
+        unlockedExams.computeIfAbsent(studentEmail, k -> ConcurrentHashMap.newKeySet()).add(examName);
+    }
+
+    public boolean isUnlocked(String studentEmail, String examName) {
+        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
+        return studentUnlocks != null && examName != null && studentUnlocks.contains(examName);
+    }
+
+    public boolean hasAnyUnlock(String studentEmail) {
+        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
+        return studentUnlocks != null && !studentUnlocks.isEmpty();
+    }
+
+    public void removeUnlock(String studentEmail, String examName) {
+        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
+        if (studentUnlocks != null) {
+            studentUnlocks.remove(examName);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk distribution engine behind /teacher/distribute-all and /teacher/distribute-selected.
+ *
+ * Papers are generated in parallel on a fork-join pool (the work is CPU-bound shuffling), then
+ * published to the {@link AssignmentStoreService} student by student, in the teacher's order,
+ * once every paper is generated. Each student is counted as published or failed as soon as their
+ * paper is in, so a job that stops partway says exactly who already has it. A virtual thread
+ * coordinates each job so the teacher's request returns immediately; progress and the
+ * per-student outcome are read back through {@link #getJob}.
+ */
+@Service
+public class BulkDistributionService {
+
+    private static final long FINISHED_JOB_RETENTION_MS = 30L * 60L * 1000L;
+
+    @Autowired
+    private AssignmentStoreService assignmentStore;
+
+    @Autowired
+    private AnswerKeyService answerKeyService;
+
+    private final ForkJoinPool generatorPool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private final Map<String, BulkDistributionJob> jobs = new ConcurrentHashMap<>();
+
+    public enum JobStatus { RUNNING, COMMITTING, COMPLETED, FAILED }
+
+    /**
+     * Progress and outcome of one bulk distribution.
+     */
+    public static final class BulkDistributionJob {
+        private final String jobId;
+        private final String teacherEmail;
+        private final String examName;
+        private final int total;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicInteger generated = new AtomicInteger();
+        private final Map<String, String> failures = new ConcurrentHashMap<>();
+        private final AtomicInteger published = new AtomicInteger();
+        private volatile String error;
+        private volatile JobStatus status = JobStatus.RUNNING;
+        private volatile long finishedAt;
+
+        BulkDistributionJob(String jobId, String teacherEmail, String examName, int total) {
+            this.jobId = jobId;
+            this.teacherEmail = teacherEmail;
+            this.examName = examName;
+            this.total = total;
+        }
+
+        public String getJobId() { return jobId; }
+        public String getTeacherEmail() { return teacherEmail; }
+        public String getExamName() { return examName; }
+        public int getTotal() { return total; }
+        public int getGenerated() { return generated.get(); }
+        public int getPublished() { return published.get(); }
+        public int getFailedCount() { return failures.size(); }
+        public Map<String, String> getFailures() { return failures; }
+        public JobStatus getStatus() { return status; }
+        public String getError() { return error; }
+
+        public boolean isFinished() {
+            return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+        }
+
+        /**
+         * JSON-friendly snapshot for the progress endpoint.
+         */
+        public Map<String, Object> toSummary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("jobId", jobId);
+            summary.put("examName", examName);
+            summary.put("status", status.name());
+            summary.put("total", total);
+            summary.put("generated", generated.get());
+            summary.put("published", published.get());
+            summary.put("failed", failures.size());
+            summary.put("elapsedMs", (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt);
+            List<Map<String, String>> failureRows = new ArrayList<>();
+            failures.forEach((student, reason) -> {
+                Map<String, String> row = new HashMap<>();
+                row.put("studentEmail", student);
+                row.put("reason", reason);
+                failureRows.add(row);
+            });
+            summary.put("failures", failureRows);
+            if (error != null) {
+                summary.put("error", error);
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * Start generating one paper per student in the background.
+     *
+     * @param teacherEmail the submitting teacher, the only one who may read the job back
+     * @param generator builds a student's assignment; must be thread-safe and must not touch the HttpSession
+     */
+    public BulkDistributionJob submit(String teacherEmail, String examName, List<String> studentEmails,
+                                      Function<String, AssignmentStoreService.Assignment> generator) {
+        pruneFinishedJobs();
+        List<String> students = new ArrayList<>(new LinkedHashSet<>(studentEmails));
+        String jobId = "D_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        BulkDistributionJob job = new BulkDistributionJob(jobId, teacherEmail, examName, students.size());
+        jobs.put(jobId, job);
+        Thread.ofVirtual().name("bulk-distribution-" + jobId).start(() -> run(job, students, generator));
+        return job;
+    }
+
+    /**
+     * The job, or null if it does not exist or was submitted by another teacher.
+     */
+    public BulkDistributionJob getJob(String jobId, String teacherEmail) {
+        BulkDistributionJob job = jobId != null ? jobs.get(jobId) : null;
+        return job != null && job.teacherEmail != null && job.teacherEmail.equals(teacherEmail) ? job : null;
+    }
+
+    private void run(BulkDistributionJob job, List<String> students,
+                     Function<String, AssignmentStoreService.Assignment> generator) {
+        try {
+            Map<String, AssignmentStoreService.Assignment> generatedByStudent = new ConcurrentHashMap<>();
+            List<CompletableFuture<Void>> tasks = new ArrayList<>(students.size());
+            for (String student : students) {
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        generatedByStudent.put(student, generator.apply(student));
+                    } catch (Exception e) {
+                        job.failures.put(student, e.getClass().getSimpleName() + ": " + e.getMessage());
+                    } finally {
+                        job.generated.incrementAndGet();
+                    }
+                }, generatorPool));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+
+            // Publish in the order the teacher selected the students, recording each outcome as it happens
+            job.status = JobStatus.COMMITTING;
+            for (String student : students) {
+                AssignmentStoreService.Assignment assignment = generatedByStudent.get(student);
+                if (assignment == null) {
+                    continue;
+                }
+                try {
+                    assignmentStore.publish(student, assignment);
+                    storeAnswerKey(student, assignment);
+                    job.published.incrementAndGet();
+                } catch (Exception e) {
+                    job.failures.put(student, e.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+            }
+            job.status = JobStatus.COMPLETED;
+        } catch (Exception e) {
+            job.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            job.status = JobStatus.FAILED;
+            System.err.println("❌ Bulk distribution " + job.jobId + " failed after " + job.published.get()
+                + " published: " + e.getMessage());
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            System.out.println("📤 Bulk distribution " + job.jobId + " (" + job.examName + "): "
+                + job.published.get() + "/" + job.total + " published, " + job.failures.size() + " failed in "
+                + (job.finishedAt - job.startedAt) + " ms");
+        }
+    }
+
+    private void storeAnswerKey(String student, AssignmentStoreService.Assignment assignment) {
+        Map<Integer, String> answerKey = assignment.getAnswerKey();
+        if (answerKey.isEmpty()) {
+            return;
+        }
+        if (assignment.hasSharedAnswerKey()) {
+            answerKeyService.storeSharedStudentAnswerKey(student, answerKey);
+        } else {
+            answerKeyService.storeStudentAnswerKey(student, answerKey);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - FINISHED_JOB_RETENTION_MS;
+        jobs.values().removeIf(job -> job.isFinished() && job.finishedAt < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        generatorPool.shutdown();
+    }
+}
@@ -0,0 +1,253 @@
+package com.exam.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180 reader for question banks and answer keys.
+ *
+ * Records are read straight from a char buffer into one reusable row buffer; fields are
+ * (start, end) offsets into it, so nothing is copied per field until the caller asks for a
+ * String. Quoted fields may contain commas, doubled quotes and line breaks. Lenient where LMS
+ * exports are sloppy: blanks before an opening quote are dropped, a quote inside an unquoted
+ * field is kept literally, text after a closing quote is appended to the field, a final record
+ * needs no line break, and a leading UTF-8 BOM is skipped.
+ */
+public final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean started;
+    private int lineNumber = 1;
+
+    private final Row row = new Row();
+
+    /**
+     * One record. Valid until the next call to {@link CsvReader#next()}, which reuses it.
+     */
+    public static final class Row {
+        private char[] chars = new char[1024];
+        private int length;
+        private int[] fieldStarts = new int[16];
+        private int[] fieldEnds = new int[16];
+        private int fieldCount;
+        private int lineNumber;
+
+        public int size() {
+            return fieldCount;
+        }
+
+        /**
+         * Line of the file the record starts on (1-based).
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * The raw field, as a view over the row buffer (no copy).
+         */
+        public CharSequence field(int index) {
+            return CharBuffer.wrap(chars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+        }
+
+        public String get(int index) {
+            return new String(chars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+        }
+
+        /**
+         * The field with surrounding whitespace removed, as {@link String#trim()} would.
+         */
+        public String trimmed(int index) {
+            int start = fieldStarts[index];
+            int end = fieldEnds[index];
+            while (start < end && chars[start] <= ' ') start++;
+            while (end > start && chars[end - 1] <= ' ') end--;
+            return new String(chars, start, end - start);
+        }
+
+        /**
+         * True when every field is empty or whitespace (a blank line).
+         */
+        public boolean isBlank() {
+            for (int i = 0; i < length; i++) {
+                if (chars[i] > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Case-insensitive search across the fields, without lower-casing a copy.
+         */
+        public boolean containsIgnoreCase(String needle) {
+            for (int f = 0; f < fieldCount; f++) {
+                int last = fieldEnds[f] - needle.length();
+                for (int i = fieldStarts[f]; i <= last; i++) {
+                    if (regionMatchesIgnoreCase(i, needle)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean regionMatchesIgnoreCase(int offset, String needle) {
+            for (int j = 0; j < needle.length(); j++) {
+                char a = chars[offset + j];
+                char b = needle.charAt(j);
+                if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void reset(int line) {
+            length = 0;
+            fieldCount = 0;
+            lineNumber = line;
+            startField();
+        }
+
+        private void startField() {
+            if (fieldCount == fieldStarts.length) {
+                fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+            }
+            fieldStarts[fieldCount] = length;
+            fieldEnds[fieldCount] = length;
+            fieldCount++;
+        }
+
+        private void clearField() {
+            length = fieldStarts[fieldCount - 1];
+            fieldEnds[fieldCount - 1] = length;
+        }
+
+        private void append(char c) {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            chars[length++] = c;
+            fieldEnds[fieldCount - 1] = length;
+        }
+
+        private void append(char[] source, int from, int to) {
+            int count = to - from;
+            if (length + count > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + count));
+            }
+            System.arraycopy(source, from, chars, length, count);
+            length += count;
+            fieldEnds[fieldCount - 1] = length;
+        }
+    }
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * The next record, or null at end of input. The same {@link Row} instance is returned each time.
+     */
+    public Row next() throws IOException {
+        if (!fill()) {
+            return null;
+        }
+        if (!started) {
+            started = true;
+            if (buffer[position] == '\uFEFF') {
+                position++;
+                if (!fill()) {
+                    return null;
+                }
+            }
+        }
+
+        row.reset(lineNumber);
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (fill()) {
+            if (quoted) {
+                // Copy up to the next quote in one go; newlines inside quotes are data
+                int run = position;
+                while (run < limit && buffer[run] != '"') {
+                    if (buffer[run] == '\n') lineNumber++;
+                    run++;
+                }
+                row.append(buffer, position, run);
+                position = run;
+                if (position == limit) {
+                    continue;
+                }
+                position++;
+                if (fill() && buffer[position] == '"') {
+                    row.append('"');
+                    position++;
+                } else {
+                    quoted = false;
+                }
+                continue;
+            }
+
+            char c = buffer[position];
+            if (c == '"' && fieldStart) {
+                row.clearField();
+                quoted = true;
+                fieldStart = false;
+                position++;
+            } else if (c == ',') {
+                row.startField();
+                fieldStart = true;
+                position++;
+            } else if (c == '\n' || c == '\r') {
+                position++;
+                if (c == '\r' && fill() && buffer[position] == '\n') {
+                    position++;
+                }
+                lineNumber++;
+                return row;
+            } else if (fieldStart && (c == ' ' || c == '\t')) {
+                // Blanks before an opening quote are dropped: 1, "a, b"
+                row.append(c);
+                position++;
+            } else {
+                // Unquoted run up to the next delimiter
+                int run = position;
+                while (run < limit && buffer[run] != ',' && buffer[run] != '\n' && buffer[run] != '\r') {
+                    run++;
+                }
+                row.append(buffer, position, run);
+                position = run;
+                fieldStart = false;
+            }
+        }
+        return row;
+    }
+
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            int read = in.read(buffer, 0, buffer.length);
+            if (read < 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
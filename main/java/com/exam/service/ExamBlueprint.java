@@ -0,0 +1,180 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * What a paper must contain: question counts per topic and difficulty, and optionally the test
+ * information the paper should reach at given abilities. Assembled by {@link TestAssemblyService}.
+ *
+ * Teachers write one row per line (or separated by ';') as {@code Topic: easy/medium/hard}, e.g.
+ * {@code Arrays: 2/3/1}. A row for {@code *} covers every topic not named in another row.
+ */
+public final class ExamBlueprint {
+
+    public static final String ANY_TOPIC = "*";
+
+    private final List<Row> rows;
+    private final double[] targetThetas;
+    private final double[] targetInformation;
+
+    /**
+     * Required counts for one topic (or {@link #ANY_TOPIC}), indexed by {@link ExamContent#EASY} etc.
+     */
+    public static final class Row {
+        private final String topic;
+        private final int[] counts;
+
+        public Row(String topic, int easy, int medium, int hard) {
+            this.topic = topic == null || topic.isBlank() ? ANY_TOPIC : topic.trim();
+            this.counts = new int[] {Math.max(0, easy), Math.max(0, medium), Math.max(0, hard)};
+        }
+
+        public String getTopic() { return topic; }
+        public boolean isAnyTopic() { return ANY_TOPIC.equals(topic); }
+        public int getCount(int bucket) { return counts[bucket]; }
+        public int getTotal() { return counts[0] + counts[1] + counts[2]; }
+    }
+
+    private ExamBlueprint(List<Row> rows, double[] targetThetas, double[] targetInformation) {
+        this.rows = Collections.unmodifiableList(rows);
+        this.targetThetas = targetThetas;
+        this.targetInformation = targetInformation;
+    }
+
+    public static ExamBlueprint of(List<Row> rows) {
+        // Rows for the same topic are merged, so the quotas of a topic live in one place
+        Map<String, int[]> merged = new LinkedHashMap<>();
+        Map<String, String> names = new LinkedHashMap<>();
+        for (Row row : rows) {
+            String key = row.topic.toLowerCase(Locale.ROOT);
+            names.putIfAbsent(key, row.topic);
+            int[] counts = merged.computeIfAbsent(key, k -> new int[3]);
+            for (int bucket = 0; bucket < 3; bucket++) {
+                counts[bucket] += row.counts[bucket];
+            }
+        }
+        List<Row> result = new ArrayList<>(merged.size());
+        merged.forEach((key, counts) -> result.add(new Row(names.get(key), counts[0], counts[1], counts[2])));
+        return new ExamBlueprint(result, new double[0], new double[0]);
+    }
+
+    /**
+     * Difficulty quotas only: one row for any topic.
+     */
+    public static ExamBlueprint byDifficulty(int easy, int medium, int hard) {
+        return of(List.of(new Row(ANY_TOPIC, easy, medium, hard)));
+    }
+
+    /**
+     * Parse the teacher's text. Malformed rows are skipped with a warning; returns null when no
+     * row is usable.
+     */
+    public static ExamBlueprint parse(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        List<Row> rows = new ArrayList<>();
+        for (String line : text.split("[;\\r\\n]+")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int colon = line.lastIndexOf(':');
+            String[] counts = colon >= 0 ? line.substring(colon + 1).trim().split("\\s*[/,]\\s*") : new String[0];
+            if (counts.length != 3) {
+                System.err.println("⚠️ Ignoring blueprint row (expected 'Topic: easy/medium/hard'): " + line.trim());
+                continue;
+            }
+            try {
+                rows.add(new Row(line.substring(0, colon), Integer.parseInt(counts[0]),
+                    Integer.parseInt(counts[1]), Integer.parseInt(counts[2])));
+            } catch (NumberFormatException e) {
+                System.err.println("⚠️ Ignoring blueprint row (counts must be whole numbers): " + line.trim());
+            }
+        }
+        return rows.isEmpty() ? null : of(rows);
+    }
+
+    /**
+     * The same quotas, also aiming for at least {@code information} test information at {@code theta}.
+     */
+    public ExamBlueprint withTarget(double theta, double information) {
+        double[] thetas = Arrays.copyOf(targetThetas, targetThetas.length + 1);
+        double[] targets = Arrays.copyOf(targetInformation, targetInformation.length + 1);
+        thetas[thetas.length - 1] = theta;
+        targets[targets.length - 1] = information;
+        return new ExamBlueprint(rows, thetas, targets);
+    }
+
+    /**
+     * The same quotas with the targets of another blueprint.
+     */
+    public ExamBlueprint withTargetsOf(ExamBlueprint other) {
+        return new ExamBlueprint(rows, other.targetThetas, other.targetInformation);
+    }
+
+    public List<Row> getRows() { return rows; }
+    public boolean hasTarget() { return targetThetas.length > 0; }
+    public double[] getTargetThetas() { return targetThetas.clone(); }
+    public double[] getTargetInformation() { return targetInformation.clone(); }
+
+    /**
+     * Whether the rows name topics, as opposed to difficulty quotas alone.
+     */
+    public boolean hasTopics() {
+        for (Row row : rows) {
+            if (!row.isAnyTopic()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getTotal() {
+        int total = 0;
+        for (Row row : rows) {
+            total += row.getTotal();
+        }
+        return total;
+    }
+
+    /**
+     * Split {@code total} in proportion to {@code weights} by largest remainder: every share is
+     * its floor or ceiling, and the leftover goes to the largest fractions rather than to a
+     * fixed bucket. Ties go to the earlier weight.
+     */
+    public static int[] apportion(int total, double... weights) {
+        int[] shares = new int[weights.length];
+        double sum = 0;
+        for (double weight : weights) {
+            sum += Math.max(0, weight);
+        }
+        if (total <= 0 || sum <= 0) {
+            return shares;
+        }
+        double[] remainders = new double[weights.length];
+        int assigned = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double exact = total * Math.max(0, weights[i]) / sum;
+            shares[i] = (int) Math.floor(exact);
+            remainders[i] = exact - shares[i];
+            assigned += shares[i];
+        }
+        for (; assigned < total; assigned++) {
+            int largest = 0;
+            for (int i = 1; i < weights.length; i++) {
+                if (remainders[i] > remainders[largest]) {
+                    largest = i;
+                }
+            }
+            shares[largest]++;
+            remainders[largest] = -1;
+        }
+        return shares;
+    }
+}
@@ -0,0 +1,133 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of an uploaded exam, shared by every assignment cut from it.
+ *
+ * An assignment only keeps a question order and a choice order per question; the text is
+ * rendered from here on demand. Edits to the uploaded exam produce a new snapshot, so papers
+ * already handed out never change underneath a student.
+ */
+public final class ExamContent {
+
+    // Difficulty buckets; anything that is not Easy or Hard counts as Medium
+    public static final int EASY = 0;
+    public static final int MEDIUM = 1;
+    public static final int HARD = 2;
+
+    private final String examId;
+    private final List<String> questions;
+    private final List<String> difficulties;
+    private final List<String> topics;
+    private final Map<Integer, String> answerKey;
+    private final ParsedQuestion[] parsed;
+    // Bucket of each question, and each bucket's question indices in exam order
+    private final byte[] bucketOf;
+    private final int[][] buckets;
+
+    /**
+     * @param answerKey answers keyed by 1-based question number, as stored on the uploaded exam
+     */
+    public ExamContent(String examId, List<String> questions, List<String> difficulties,
+                       List<String> topics, Map<Integer, String> answerKey) {
+        this.examId = examId;
+        this.questions = Collections.unmodifiableList(new ArrayList<>(questions));
+        this.difficulties = Collections.unmodifiableList(new ArrayList<>(difficulties));
+        this.topics = Collections.unmodifiableList(new ArrayList<>(topics));
+        this.answerKey = Collections.unmodifiableMap(new HashMap<>(answerKey));
+        this.parsed = new ParsedQuestion[this.questions.size()];
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = ParsedQuestion.parse(this.questions.get(i), getDifficulty(i), getTopic(i));
+        }
+
+        this.bucketOf = new byte[this.questions.size()];
+        int[] bucketSizes = new int[3];
+        for (int i = 0; i < bucketOf.length; i++) {
+            String difficulty = getDifficulty(i);
+            int bucket = difficulty.equalsIgnoreCase("Easy") ? EASY : difficulty.equalsIgnoreCase("Hard") ? HARD : MEDIUM;
+            bucketOf[i] = (byte) bucket;
+            bucketSizes[bucket]++;
+        }
+        this.buckets = new int[][] {new int[bucketSizes[EASY]], new int[bucketSizes[MEDIUM]], new int[bucketSizes[HARD]]};
+        int[] filled = new int[3];
+        for (int i = 0; i < bucketOf.length; i++) {
+            buckets[bucketOf[i]][filled[bucketOf[i]]++] = i;
+        }
+    }
+
+    public String getExamId() { return examId; }
+    public List<String> getQuestions() { return questions; }
+    public List<String> getDifficulties() { return difficulties; }
+    public List<String> getTopics() { return topics; }
+    public Map<Integer, String> getAnswerKey() { return answerKey; }
+
+    public int size() {
+        return questions.size();
+    }
+
+    public String getDifficulty(int index) {
+        return index < difficulties.size() ? difficulties.get(index) : "Medium";
+    }
+
+    /**
+     * {@link #EASY}, {@link #MEDIUM} or {@link #HARD} for a 0-based source question index.
+     */
+    public int getBucket(int index) {
+        return bucketOf[index];
+    }
+
+    public int getBucketSize(int bucket) {
+        return buckets[bucket].length;
+    }
+
+    /**
+     * Source indices of one bucket, in exam order. Shared and never copied: callers in this
+     * package sample from it and must not write to it.
+     */
+    int[] bucketIndices(int bucket) {
+        return buckets[bucket];
+    }
+
+    public String getTopic(int index) {
+        return index < topics.size() ? topics.get(index) : "General";
+    }
+
+    /**
+     * Answer for a 0-based source question index, or null if the key has none.
+     */
+    public String getAnswer(int index) {
+        return answerKey.get(index + 1);
+    }
+
+    /**
+     * Parsed form of a 0-based source question, built once with this snapshot.
+     */
+    public ParsedQuestion getParsed(int index) {
+        return parsed[index];
+    }
+
+    public List<ParsedQuestion> getParsedQuestions() {
+        return Collections.unmodifiableList(Arrays.asList(parsed));
+    }
+
+    /**
+     * Number of labelled choices (A), B), ...) in a question; 0 when the block has none.
+     */
+    public int getChoiceCount(int index) {
+        return parsed[index].getChoiceCount();
+    }
+
+    /**
+     * Render a question with its choices in the given order and relabelled A), B), ...
+     * Output matches what the distribution code produced when it stored full strings.
+     */
+    public String render(int index, byte[] choiceOrder) {
+        return parsed[index].render(choiceOrder);
+    }
+}
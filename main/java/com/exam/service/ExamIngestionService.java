@@ -0,0 +1,262 @@
+package com.exam.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background job runner for /teacher/process-exams.
+ *
+ * The request only spools the uploaded files to disk and gets a job id back; parsing, image
+ * extraction, shuffling and difficulty inference run on a small fixed pool so a burst of
+ * uploads queues up instead of taking Tomcat workers away from students taking exams.
+ */
+@Service
+public class ExamIngestionService {
+
+    private static final long FINISHED_JOB_RETENTION_MS = 30L * 60L * 1000L;
+
+    @Value("${app.ingestion.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs = 2;
+
+    private ExecutorService ingestionPool;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    public enum JobStatus { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * The work of one job; returns the id of the exam it registered.
+     */
+    @FunctionalInterface
+    public interface IngestionTask {
+        String run(IngestionJob job) throws Exception;
+    }
+
+    /**
+     * Progress and outcome of one upload.
+     */
+    public static final class IngestionJob {
+        private final String jobId;
+        private final String teacherEmail;
+        private final String fileName;
+        private final long submittedAt = System.currentTimeMillis();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile String stage = "Waiting for a free worker";
+        private volatile int percent;
+        private volatile String examId;
+        private volatile String error;
+        private volatile long finishedAt;
+        private volatile Map<String, Object> changes;
+
+        IngestionJob(String jobId, String teacherEmail, String fileName) {
+            this.jobId = jobId;
+            this.teacherEmail = teacherEmail;
+            this.fileName = fileName;
+        }
+
+        public String getJobId() { return jobId; }
+        public String getTeacherEmail() { return teacherEmail; }
+        public String getFileName() { return fileName; }
+        public JobStatus getStatus() { return status; }
+        public String getExamId() { return examId; }
+        public String getError() { return error; }
+
+        public boolean isFinished() {
+            return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+        }
+
+        /**
+         * Report the step the job is on; percent is a rough 0-100 estimate for the progress bar.
+         */
+        public void progress(String stage, int percent) {
+            this.stage = stage;
+            this.percent = Math.max(0, Math.min(100, percent));
+        }
+
+        /**
+         * For an upload that replaced an existing exam: how many questions were unchanged, changed, added, removed.
+         */
+        public void reportChanges(Map<String, Object> changes) {
+            this.changes = changes;
+        }
+
+        /**
+         * JSON-friendly snapshot for the status endpoint.
+         */
+        public Map<String, Object> toSummary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("jobId", jobId);
+            summary.put("fileName", fileName);
+            summary.put("status", status.name());
+            summary.put("stage", stage);
+            summary.put("percent", percent);
+            summary.put("examId", examId);
+            summary.put("error", error);
+            summary.put("changes", changes);
+            summary.put("elapsedMs", (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - submittedAt);
+            return summary;
+        }
+    }
+
+    /**
+     * An upload copied to a temp file so it outlives the request (the servlet container deletes
+     * its own multipart files when the request ends).
+     */
+    public static final class SpooledUpload implements MultipartFile {
+        private final String name;
+        private final String originalFilename;
+        private final String contentType;
+        private final Path file;
+
+        SpooledUpload(String name, String originalFilename, String contentType, Path file) {
+            this.name = name;
+            this.originalFilename = originalFilename;
+            this.contentType = contentType;
+            this.file = file;
+        }
+
+        @Override public String getName() { return name; }
+        @Override public String getOriginalFilename() { return originalFilename; }
+        @Override public String getContentType() { return contentType; }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            try {
+                return Files.size(file);
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(file);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(file, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not delete spooled upload " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        ingestionPool = Executors.newFixedThreadPool(Math.max(1, maxConcurrentJobs), runnable -> {
+            Thread thread = new Thread(runnable, "exam-ingestion-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            // Parsing is batch work; let request threads win when the CPU is contended
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestionPool.shutdownNow();
+    }
+
+    /**
+     * Copy an upload to a temp file; returns null for a missing or empty part.
+     */
+    public SpooledUpload spool(MultipartFile upload) throws IOException {
+        if (upload == null || upload.isEmpty()) {
+            return null;
+        }
+        Path file = Files.createTempFile("ingest-", ".upload");
+        try (InputStream in = upload.getInputStream()) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new SpooledUpload(upload.getName(), upload.getOriginalFilename(), upload.getContentType(), file);
+    }
+
+    /**
+     * Queue a job for {@code teacherEmail}, the only one who may read it back. The spooled uploads
+     * are deleted when it finishes, whatever the outcome.
+     */
+    public IngestionJob submit(String teacherEmail, String fileName, List<SpooledUpload> uploads, IngestionTask task) {
+        pruneFinishedJobs();
+        String jobId = "I_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        IngestionJob job = new IngestionJob(jobId, teacherEmail, fileName);
+        jobs.put(jobId, job);
+        List<SpooledUpload> owned = new ArrayList<>(uploads);
+        ingestionPool.execute(() -> run(job, owned, task));
+        return job;
+    }
+
+    /**
+     * The job, or null if it does not exist or was submitted by another teacher.
+     */
+    public IngestionJob getJob(String jobId, String teacherEmail) {
+        IngestionJob job = jobId != null ? jobs.get(jobId) : null;
+        return job != null && job.teacherEmail != null && job.teacherEmail.equals(teacherEmail) ? job : null;
+    }
+
+    private void run(IngestionJob job, List<SpooledUpload> uploads, IngestionTask task) {
+        job.status = JobStatus.RUNNING;
+        job.progress("Starting", 0);
+        try {
+            job.examId = task.run(job);
+            job.progress("Done", 100);
+            job.status = JobStatus.COMPLETED;
+        } catch (Exception e) {
+            job.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            job.status = JobStatus.FAILED;
+            System.err.println("❌ Exam ingestion " + job.jobId + " (" + job.fileName + ") failed: " + job.error);
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            for (SpooledUpload upload : uploads) {
+                if (upload != null) {
+                    upload.delete();
+                }
+            }
+            System.out.println("📥 Exam ingestion " + job.jobId + " (" + job.fileName + ") " + job.status
+                + " in " + (job.finishedAt - job.submittedAt) + " ms");
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - FINISHED_JOB_RETENTION_MS;
+        jobs.values().removeIf(job -> job.isFinished() && job.finishedAt < cutoff);
+    }
+}
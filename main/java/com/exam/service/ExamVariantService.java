@@ -0,0 +1,157 @@
+package com.exam.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cuts student papers out of an {@link ExamContent}.
+ *
+ * A paper is fully determined by the content, the difficulty quotas and the random stream, so
+ * a seeded paper only needs its seed: any node can rebuild the same questions, choice order and
+ * answer key with {@link #derive}. Recently used seeded layouts are kept in a small LRU cache.
+ */
+@Service
+public class ExamVariantService {
+
+    @Autowired
+    private FisherYatesService fisherYatesService;
+
+    @Value("${app.assignments.variant-cache-size:256}")
+    private int cacheSize = 256;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    // Access-ordered LinkedHashMap = LRU; guarded by its own monitor
+    private final LinkedHashMap<SeededLayout, PaperLayout> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SeededLayout, PaperLayout> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * Pick easy/medium/hard questions by quota, shuffle their order and each question's choices.
+     *
+     * The buckets are precomputed on the content and sampled with a partial Fisher-Yates, so a
+     * paper of k questions costs O(k) whatever the size of the bank.
+     */
+    public PaperLayout derive(ExamContent content, RandomGenerator rng, int easyCount, int mediumCount, int hardCount) {
+        int[] easy = fisherYatesService.sample(content.bucketIndices(ExamContent.EASY), easyCount, rng);
+        int[] medium = fisherYatesService.sample(content.bucketIndices(ExamContent.MEDIUM), mediumCount, rng);
+        int[] hard = fisherYatesService.sample(content.bucketIndices(ExamContent.HARD), hardCount, rng);
+
+        int[] questionOrder = new int[easy.length + medium.length + hard.length];
+        System.arraycopy(easy, 0, questionOrder, 0, easy.length);
+        System.arraycopy(medium, 0, questionOrder, easy.length, medium.length);
+        System.arraycopy(hard, 0, questionOrder, easy.length + medium.length, hard.length);
+        return arrange(content, questionOrder, rng);
+    }
+
+    /**
+     * Paper of already chosen questions (e.g. by {@link TestAssemblyService}): shuffles their
+     * order in place and each question's choices.
+     */
+    public PaperLayout arrange(ExamContent content, int[] questionOrder, RandomGenerator rng) {
+        fisherYatesService.shuffle(questionOrder, rng);
+
+        byte[][] choiceOrder = new byte[questionOrder.length][];
+        for (int position = 0; position < questionOrder.length; position++) {
+            choiceOrder[position] = shuffleChoices(content.getChoiceCount(questionOrder[position]), rng);
+        }
+        return PaperLayout.fixed(questionOrder, choiceOrder);
+    }
+
+    /**
+     * Layout that stores only its seed and quotas and is rebuilt (or served from cache) on access.
+     */
+    public PaperLayout seeded(ExamContent content, long seed, int easyCount, int mediumCount, int hardCount) {
+        return new SeededLayout(content, seed, easyCount, mediumCount, hardCount);
+    }
+
+    public long getCacheHits() { return cacheHits.get(); }
+    public long getCacheMisses() { return cacheMisses.get(); }
+
+    private PaperLayout resolve(SeededLayout key) {
+        synchronized (cache) {
+            PaperLayout cached = cache.get(key);
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                return cached;
+            }
+        }
+        cacheMisses.incrementAndGet();
+        // java.util.Random's sequence is specified, so every JVM derives the same paper
+        PaperLayout layout = derive(key.content, new Random(key.seed), key.easyCount, key.mediumCount, key.hardCount);
+        synchronized (cache) {
+            cache.put(key, layout);
+        }
+        return layout;
+    }
+
+    private byte[] shuffleChoices(int choiceCount, RandomGenerator rng) {
+        if (choiceCount == 0) {
+            return null;
+        }
+        byte[] order = new byte[choiceCount];
+        for (int i = 0; i < choiceCount; i++) {
+            order[i] = (byte) i;
+        }
+        fisherYatesService.shuffle(order, rng);
+        return order;
+    }
+
+    /**
+     * Seed plus quotas; doubles as the cache key (content compared by identity, one per exam revision).
+     */
+    private final class SeededLayout implements PaperLayout {
+        private final ExamContent content;
+        private final long seed;
+        private final int easyCount;
+        private final int mediumCount;
+        private final int hardCount;
+
+        SeededLayout(ExamContent content, long seed, int easyCount, int mediumCount, int hardCount) {
+            this.content = content;
+            this.seed = seed;
+            this.easyCount = easyCount;
+            this.mediumCount = mediumCount;
+            this.hardCount = hardCount;
+        }
+
+        @Override
+        public int[] getQuestionOrder() {
+            return resolve(this).getQuestionOrder();
+        }
+
+        @Override
+        public byte[][] getChoiceOrder() {
+            return resolve(this).getChoiceOrder();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof SeededLayout that)) {
+                return false;
+            }
+            return content == that.content && seed == that.seed && easyCount == that.easyCount
+                && mediumCount == that.mediumCount && hardCount == that.hardCount;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(content);
+            hash = 31 * hash + Long.hashCode(seed);
+            hash = 31 * hash + easyCount;
+            hash = 31 * hash + mediumCount;
+            return 31 * hash + hardCount;
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.exam.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.security.SecureRandom;
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * Fisher-Yates Shuffle Algorithm Service
@@ -13,7 +14,8 @@ import java.util.*;
 @Service
 public class FisherYatesService {
 
-    private final SecureRandom random = new SecureRandom();
+    @Autowired
+    private RandomnessService randomness;
     
     /**
      * Represents a question with its choices
@@ -54,15 +56,16 @@ public class FisherYatesService {
      * Shuffle a list using Fisher-Yates algorithm
      * Time complexity: O(n)
      * Space complexity: O(1)
+     * Uses the calling thread's generator from {@link RandomnessService}.
      */
     public <T> void shuffle(List<T> list) {
-        shuffle(list, random);
+        shuffle(list, randomness.generator());
     }
     
     /**
      * Shuffle a list using Fisher-Yates algorithm with custom random generator
      */
-    public <T> void shuffle(List<T> list, Random rng) {
+    public <T> void shuffle(List<T> list, RandomGenerator rng) {
         int n = list.size();
         
         // Fisher-Yates shuffle: iterate from last to first
@@ -77,6 +80,65 @@ public class FisherYatesService {
         }
     }
     
+    /**
+     * Shuffle an int array in place; same swap sequence as {@link #shuffle(List, RandomGenerator)}.
+     */
+    public void shuffle(int[] array, RandomGenerator rng) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+    
+    /**
+     * Shuffle a byte array in place; same swap sequence as {@link #shuffle(int[], RandomGenerator)}.
+     */
+    public void shuffle(byte[] array, RandomGenerator rng) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            byte temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+    
+    /**
+     * Pick k distinct elements of {@code source} in random order (partial Fisher-Yates).
+     * 
+     * Only the first k swaps of a forward shuffle are made, so the cost is O(k) however large
+     * the pool is, and {@code source} is left untouched. For a small sample of a large pool only
+     * the swapped slots are tracked instead of copying the pool; both paths give the same
+     * result for the same random stream. Asking for more than the pool holds returns all of it.
+     */
+    public int[] sample(int[] source, int k, RandomGenerator rng) {
+        int n = source.length;
+        int count = Math.max(0, Math.min(k, n));
+        int[] sample = new int[count];
+        
+        if (count * 4 >= n) {
+            int[] pool = source.clone();
+            for (int i = 0; i < count; i++) {
+                int j = i + rng.nextInt(n - i);
+                sample[i] = pool[j];
+                pool[j] = pool[i];
+            }
+            return sample;
+        }
+        
+        // Slot -> value for slots written so far; any other slot still holds source[slot]
+        Map<Integer, Integer> moved = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            int j = i + rng.nextInt(n - i);
+            Integer atJ = moved.get(j);
+            Integer atI = moved.get(i);
+            sample[i] = atJ != null ? atJ : source[j];
+            moved.put(j, atI != null ? atI : source[i]);
+        }
+        return sample;
+    }
+    
     /**
      * Shuffle question choices while preserving the correct answer
      */
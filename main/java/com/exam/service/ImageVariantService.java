@@ -0,0 +1,344 @@
+package com.exam.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background pipeline that makes downscaled copies of question images for small screens.
+ *
+ * Every image under {@code uploads/exam-images} and {@code uploads/question-media} gets a PNG
+ * and a lossy JPEG per configured width bucket narrower than the original, written to
+ * {@code uploads/variants/<source path without extension>/w<width>.<ext>}. Transcoding runs on
+ * one low-priority thread; until an image has been processed, {@link #resolve} simply hands back
+ * the original.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final String URL_ROOT = "/uploads/";
+    private static final List<String> SOURCE_DIRS = List.of("exam-images", "question-media");
+    private static final Set<String> SOURCE_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif", "bmp");
+    private static final String VARIANTS_DIR = "variants";
+    private static final String DONE_MARKER = ".done";
+
+    @Value("${app.images.uploads-dir:uploads}")
+    private String uploadsDir = "uploads";
+
+    @Value("${app.images.variant-widths:320,640,1024}")
+    private String variantWidths = "320,640,1024";
+
+    @Value("${app.images.variant-jpeg-quality:0.75}")
+    private float jpegQuality = 0.75f;
+
+    private ExecutorService transcodePool;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong imagesTranscoded = new AtomicLong();
+    private final AtomicLong variantsWritten = new AtomicLong();
+    private final AtomicLong sourceBytes = new AtomicLong();
+    private final AtomicLong smallestVariantBytes = new AtomicLong();
+
+    public ImageVariantService() {
+    }
+
+    /**
+     * Standalone pipeline (tests, tools) over the uploads folder {@code uploadsRoot}.
+     */
+    public ImageVariantService(Path uploadsRoot) {
+        this.uploadsDir = uploadsRoot.toString();
+    }
+
+    @PostConstruct
+    public void init() {
+        transcodePool = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-variants");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        // Backfill anything uploaded before the pipeline existed (or while it was down)
+        transcodePool.execute(this::scheduleBacklog);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (transcodePool != null) {
+            transcodePool.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue variants for an uploaded image URL ({@code /uploads/...}). Safe to call repeatedly.
+     */
+    public void schedule(String sourceUrl) {
+        Path source = sourcePath(sourceUrl);
+        if (source == null || transcodePool == null || isDone(sourceUrl) || !queued.add(sourceUrl)) {
+            return;
+        }
+        transcodePool.execute(() -> {
+            try {
+                transcode(sourceUrl);
+            } catch (Exception e) {
+                System.err.println("⚠️ Could not create variants for " + sourceUrl + ": " + e.getMessage());
+            } finally {
+                queued.remove(sourceUrl);
+            }
+        });
+    }
+
+    /**
+     * URL of the best copy of {@code sourceUrl} for a {@code width}-pixel slot: the smallest
+     * bucket at least that wide (the smaller of PNG and JPEG, or PNG only if {@code lossy} is
+     * false), otherwise the original. Returns null if the URL is not an uploaded image.
+     */
+    public String resolve(String sourceUrl, int width, boolean lossy) {
+        Path source = sourcePath(sourceUrl);
+        if (source == null) {
+            return null;
+        }
+        if (!isDone(sourceUrl)) {
+            schedule(sourceUrl);
+            return sourceUrl;
+        }
+        Path variantDir = variantDir(sourceUrl);
+        for (int bucket : buckets()) {
+            if (bucket < width) {
+                continue;
+            }
+            Path png = variantDir.resolve("w" + bucket + ".png");
+            Path jpg = variantDir.resolve("w" + bucket + ".jpg");
+            try {
+                if (lossy && Files.exists(jpg) && (!Files.exists(png) || Files.size(jpg) < Files.size(png))) {
+                    return variantUrl(sourceUrl, jpg);
+                }
+                if (Files.exists(png)) {
+                    return variantUrl(sourceUrl, png);
+                }
+            } catch (IOException e) {
+                return sourceUrl;
+            }
+        }
+        return sourceUrl;
+    }
+
+    /**
+     * Write all variants for one image now, on the calling thread. Returns the number written.
+     */
+    public int transcode(String sourceUrl) throws IOException {
+        Path source = sourcePath(sourceUrl);
+        if (source == null || !Files.exists(source)) {
+            return 0;
+        }
+        Path variantDir = variantDir(sourceUrl);
+        Files.createDirectories(variantDir);
+
+        int written = 0;
+        long smallest = Files.size(source);
+        BufferedImage original = ImageIO.read(source.toFile());
+        if (original != null) {
+            for (int bucket : buckets()) {
+                // Never upscale; narrower screens fall back to the original
+                if (bucket >= original.getWidth()) {
+                    continue;
+                }
+                BufferedImage scaled = scaleToWidth(original, bucket);
+                Path png = variantDir.resolve("w" + bucket + ".png");
+                Path jpg = variantDir.resolve("w" + bucket + ".jpg");
+                writeAtomically(png, target -> ImageIO.write(scaled, "PNG", target.toFile()));
+                writeAtomically(jpg, target -> writeJpeg(flatten(scaled), target));
+                smallest = Math.min(smallest, Math.min(Files.size(png), Files.size(jpg)));
+                written += 2;
+            }
+        }
+        Files.write(variantDir.resolve(DONE_MARKER), new byte[0]);
+
+        imagesTranscoded.incrementAndGet();
+        variantsWritten.addAndGet(written);
+        sourceBytes.addAndGet(Files.size(source));
+        smallestVariantBytes.addAndGet(smallest);
+        return written;
+    }
+
+    /**
+     * Pipeline counters since startup.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("widthBuckets", buckets());
+        stats.put("queued", queued.size());
+        stats.put("imagesTranscoded", imagesTranscoded.get());
+        stats.put("variantsWritten", variantsWritten.get());
+        stats.put("sourceBytes", sourceBytes.get());
+        stats.put("smallestVariantBytes", smallestVariantBytes.get());
+        return stats;
+    }
+
+    private void scheduleBacklog() {
+        Path root = Paths.get(uploadsDir);
+        int scheduled = 0;
+        for (String dir : SOURCE_DIRS) {
+            Path sourceRoot = root.resolve(dir);
+            if (!Files.isDirectory(sourceRoot)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(sourceRoot)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    String url = URL_ROOT + root.relativize(file).toString().replace('\\', '/');
+                    if (sourcePath(url) != null && !isDone(url)) {
+                        schedule(url);
+                        scheduled++;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not scan " + sourceRoot + " for image variants: " + e.getMessage());
+            }
+        }
+        if (scheduled > 0) {
+            System.out.println("🖼️ Queued " + scheduled + " existing image(s) for variant generation");
+        }
+    }
+
+    private int[] buckets() {
+        return Arrays.stream(variantWidths.split(","))
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .mapToInt(Integer::parseInt)
+            .filter(value -> value > 0)
+            .sorted()
+            .distinct()
+            .toArray();
+    }
+
+    /**
+     * File behind an upload URL, or null if it is not an image in one of the source folders.
+     */
+    private Path sourcePath(String sourceUrl) {
+        if (sourceUrl == null || !sourceUrl.startsWith(URL_ROOT)) {
+            return null;
+        }
+        String relative = sourceUrl.substring(URL_ROOT.length());
+        String extension = relative.substring(relative.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        if (!SOURCE_EXTENSIONS.contains(extension)) {
+            return null;
+        }
+        Path root = Paths.get(uploadsDir).toAbsolutePath().normalize();
+        Path source = root.resolve(relative).normalize();
+        for (String dir : SOURCE_DIRS) {
+            if (source.startsWith(root.resolve(dir))) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    private Path variantDir(String sourceUrl) {
+        String relative = sourceUrl.substring(URL_ROOT.length());
+        String withoutExtension = relative.substring(0, relative.lastIndexOf('.'));
+        return Paths.get(uploadsDir).toAbsolutePath().normalize().resolve(VARIANTS_DIR).resolve(withoutExtension);
+    }
+
+    private String variantUrl(String sourceUrl, Path variant) {
+        String relative = sourceUrl.substring(URL_ROOT.length());
+        String withoutExtension = relative.substring(0, relative.lastIndexOf('.'));
+        return URL_ROOT + VARIANTS_DIR + "/" + withoutExtension + "/" + variant.getFileName();
+    }
+
+    private boolean isDone(String sourceUrl) {
+        return Files.exists(variantDir(sourceUrl).resolve(DONE_MARKER));
+    }
+
+    /**
+     * Halve while more than twice the target, then one bilinear step; close to area averaging
+     * without the cost of {@code SCALE_AREA_AVERAGING}.
+     */
+    private static BufferedImage scaleToWidth(BufferedImage source, int width) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        while (currentWidth > width) {
+            int nextWidth = currentWidth / 2 >= width ? currentWidth / 2 : width;
+            int nextHeight = Math.max(1, (int) Math.round((double) source.getHeight() * nextWidth / source.getWidth()));
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, type);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            g.dispose();
+            current = next;
+            currentWidth = nextWidth;
+        }
+        return current;
+    }
+
+    // JPEG has no alpha channel; exam scans sit on white paper anyway
+    private static BufferedImage flatten(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return rgb;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileWriter {
+        void write(Path target) throws IOException;
+    }
+
+    // Readers of the variants folder never see a half-written file
+    private static void writeAtomically(Path target, FileWriter writer) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            writer.write(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
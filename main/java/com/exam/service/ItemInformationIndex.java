@@ -0,0 +1,122 @@
+package com.exam.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed item information for adaptive item selection.
+ *
+ * {@link IRT3PLService#selectNextItem} evaluates the information of every unused item (one
+ * {@code exp} each) on every call. This index evaluates it once per item on a fine theta grid
+ * and keeps, for each grid point, the items ordered by information. Selecting the next item
+ * walks the orderings of the two grid points around theta side by side, skipping items marked
+ * in a primitive bitset, and stops once the interpolated information of the next two entries
+ * bounds everything further down (the threshold algorithm). The result is the exact maximum of
+ * the interpolated information; a call usually costs O(items already used) plus a short walk
+ * instead of O(bank size).
+ *
+ * Built once per item bank and immutable afterwards, so concurrent sessions share it; each
+ * session keeps its own {@link #newUsedSet() used set}.
+ */
+public final class ItemInformationIndex {
+
+    static final double GRID_MIN = -4.0;
+    static final double GRID_MAX = 4.0;
+    static final double GRID_STEP = 0.05;
+    static final int GRID_POINTS = (int) Math.round((GRID_MAX - GRID_MIN) / GRID_STEP) + 1;
+
+    private final int size;
+    // information[k * size + item] and order[k * size + rank], one row per grid point
+    private final float[] information;
+    private final int[] order;
+
+    public ItemInformationIndex(List<IRT3PLService.ItemParameters> items, IRT3PLService irt3PLService) {
+        this.size = items.size();
+        this.information = new float[GRID_POINTS * size];
+        this.order = new int[GRID_POINTS * size];
+        long[] keys = new long[size];
+        for (int k = 0; k < GRID_POINTS; k++) {
+            double theta = GRID_MIN + k * GRID_STEP;
+            int row = k * size;
+            for (int i = 0; i < size; i++) {
+                float info = (float) Math.max(0.0, irt3PLService.itemInformation(theta, items.get(i)));
+                information[row + i] = info;
+                // Non-negative float bits sort like the floats: most informative first, ties by index
+                keys[i] = ((long) (Integer.MAX_VALUE - Float.floatToIntBits(info)) << 32) | i;
+            }
+            Arrays.sort(keys);
+            for (int rank = 0; rank < size; rank++) {
+                order[row + rank] = (int) keys[rank];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * An empty used set sized for this bank.
+     */
+    public long[] newUsedSet() {
+        return new long[(size + 63) >>> 6];
+    }
+
+    public static void markUsed(long[] used, int item) {
+        used[item >>> 6] |= 1L << item;
+    }
+
+    public static boolean isUsed(long[] used, int item) {
+        return (used[item >>> 6] & (1L << item)) != 0;
+    }
+
+    /**
+     * The unused item with maximum grid-interpolated information at theta, or -1 if every item
+     * is used. Theta outside the grid is clamped to its ends. Ties go to the lower index among
+     * the items compared; the walk stops at the first bound that cannot beat the best.
+     */
+    public int select(double theta, long[] used) {
+        double position = (Math.max(GRID_MIN, Math.min(GRID_MAX, theta)) - GRID_MIN) / GRID_STEP;
+        int lower = Math.min((int) position, GRID_POINTS - 2);
+        double weight = position - lower;
+        int lowerRow = lower * size;
+        int upperRow = lowerRow + size;
+
+        int best = -1;
+        double bestInformation = -1.0;
+        int lowerRank = 0;
+        int upperRank = 0;
+        while (true) {
+            lowerRank = nextUnused(lowerRow, lowerRank, used);
+            upperRank = nextUnused(upperRow, upperRank, used);
+            if (lowerRank == size || upperRank == size) {
+                // One ordering is exhausted, so every unused item has been compared
+                return best;
+            }
+            int fromLower = order[lowerRow + lowerRank++];
+            int fromUpper = order[upperRow + upperRank++];
+            // No item further down either ordering can be more informative than this
+            double bound = (1 - weight) * information[lowerRow + fromLower] + weight * information[upperRow + fromUpper];
+            if (bound <= bestInformation) {
+                return best;
+            }
+            double info = (1 - weight) * information[lowerRow + fromLower] + weight * information[upperRow + fromLower];
+            if (info > bestInformation || (info == bestInformation && fromLower < best)) {
+                bestInformation = info;
+                best = fromLower;
+            }
+            info = (1 - weight) * information[lowerRow + fromUpper] + weight * information[upperRow + fromUpper];
+            if (info > bestInformation || (info == bestInformation && fromUpper < best)) {
+                bestInformation = info;
+                best = fromUpper;
+            }
+        }
+    }
+
+    private int nextUnused(int row, int rank, long[] used) {
+        while (rank < size && isUsed(used, order[row + rank])) {
+            rank++;
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,41 @@
+package com.exam.service;
+
+/**
+ * Question order and per-question choice order of one student's paper.
+ * Indices refer to the questions of the {@link ExamContent} the paper was cut from.
+ */
+public interface PaperLayout {
+
+    /**
+     * 0-based source question index for each position on the paper.
+     */
+    int[] getQuestionOrder();
+
+    /**
+     * Choice order for each position; an entry is null when that question has no choices.
+     */
+    byte[][] getChoiceOrder();
+
+    static PaperLayout fixed(int[] questionOrder, byte[][] choiceOrder) {
+        return new Fixed(questionOrder, choiceOrder);
+    }
+
+    /**
+     * Layout held in memory as-is.
+     */
+    final class Fixed implements PaperLayout {
+        private final int[] questionOrder;
+        private final byte[][] choiceOrder;
+
+        Fixed(int[] questionOrder, byte[][] choiceOrder) {
+            this.questionOrder = questionOrder;
+            this.choiceOrder = choiceOrder;
+        }
+
+        @Override
+        public int[] getQuestionOrder() { return questionOrder; }
+
+        @Override
+        public byte[][] getChoiceOrder() { return choiceOrder; }
+    }
+}
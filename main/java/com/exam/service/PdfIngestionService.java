@@ -0,0 +1,271 @@
+package com.exam.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opens uploaded PDFs without holding the whole file on the heap, and extracts their text and
+ * images page-parallel.
+ *
+ * The upload is streamed to a temp file and parsed through a buffered {@code RandomAccessRead}
+ * (only a few pages of the file are cached in memory). Decoded streams go to PDFBox's scratch
+ * file once they exceed the configured main-memory budget, so peak heap per upload stays
+ * roughly constant however large the PDF is.
+ *
+ * A PDDocument is not thread-safe, so {@link #extractLines} gives each worker its own document
+ * over the same temp file and a contiguous range of pages; the ranges are joined in page order.
+ * Images go to the shared {@link ImageStoreService}, so repeats are not re-encoded.
+ */
+@Service
+public class PdfIngestionService {
+
+    public static final String PAGE_IMAGES_MARKER = "__PAGE_IMAGES__:";
+
+    // Below this, opening extra documents costs more than the pages take to process
+    private static final int MIN_PAGES_PER_WORKER = 4;
+
+    @Value("${app.pdf.ingest.max-main-memory-mb:16}")
+    private long maxMainMemoryMb = 16;
+
+    @Value("${app.pdf.ingest.temp-dir:}")
+    private String tempDir = "";
+
+    @Value("${app.pdf.ingest.parallelism:0}")
+    private int parallelism;
+
+    // Extraction runs on behalf of ingestion jobs, so by default it shares their budget
+    @Value("${app.ingestion.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs = 2;
+
+    @Autowired
+    private ImageStoreService imageStore;
+
+    private ExecutorService extractionPool;
+
+    public PdfIngestionService() {
+    }
+
+    /**
+     * Standalone service (benchmarks, tools) storing images in {@code imageStore}.
+     */
+    public PdfIngestionService(ImageStoreService imageStore) {
+        this.imageStore = imageStore;
+    }
+
+    /**
+     * An open PDF backed by a temp file. Closing it closes the document and, for the original
+     * upload, deletes the file.
+     */
+    public static final class IngestedPdf implements AutoCloseable {
+        private final PDDocument document;
+        private final RandomAccessReadBufferedFile source;
+        private final Path tempFile;
+        private final boolean ownsFile;
+
+        IngestedPdf(PDDocument document, RandomAccessReadBufferedFile source, Path tempFile, boolean ownsFile) {
+            this.document = document;
+            this.source = source;
+            this.tempFile = tempFile;
+            this.ownsFile = ownsFile;
+        }
+
+        public PDDocument getDocument() { return document; }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                document.close();
+            } finally {
+                source.close();
+                if (ownsFile) {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Math.max(1, maxConcurrentJobs);
+        AtomicInteger counter = new AtomicInteger();
+        extractionPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-extract-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            // Same batch priority as the ingestion workers that feed it
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+        parallelism = threads;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (extractionPool != null) {
+            extractionPool.shutdownNow();
+        }
+    }
+
+    public IngestedPdf open(MultipartFile file) throws IOException {
+        Path workDir = workDir();
+        Path tempFile = Files.createTempFile(workDir, "upload-", ".pdf");
+        try {
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return load(tempFile, true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Open a PDF that is already on disk. The file is left in place on close.
+     */
+    public IngestedPdf open(Path pdfFile) throws IOException {
+        return load(pdfFile, false);
+    }
+
+    private IngestedPdf load(Path pdfFile, boolean ownsFile) throws IOException {
+        RandomAccessReadBufferedFile source = new RandomAccessReadBufferedFile(pdfFile);
+        try {
+            MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(maxMainMemoryMb * 1024L * 1024L)
+                .setTempDir(workDir().toFile());
+            PDDocument document = Loader.loadPDF(source, memory.streamCache);
+            return new IngestedPdf(document, source, pdfFile, ownsFile);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    private Path workDir() throws IOException {
+        Path workDir = tempDir.isBlank() ? Paths.get(System.getProperty("java.io.tmpdir")) : Paths.get(tempDir);
+        Files.createDirectories(workDir);
+        return workDir;
+    }
+
+    /**
+     * Non-blank text lines of every page, in page order. A page with images large enough to keep
+     * is preceded by a {@link #PAGE_IMAGES_MARKER} line listing their image-store URLs.
+     */
+    public List<String> extractLines(IngestedPdf pdf, UnaryOperator<String> lineMapper) throws IOException {
+        return extractLines(pdf, lineMapper, parallelism);
+    }
+
+    /**
+     * Same as {@link #extractLines(IngestedPdf, UnaryOperator)} with at most {@code workers} pages in flight.
+     */
+    public List<String> extractLines(IngestedPdf pdf, UnaryOperator<String> lineMapper, int workers) throws IOException {
+        int totalPages = pdf.getDocument().getNumberOfPages();
+        int chunks = Math.min(Math.max(1, workers), Math.max(1, totalPages / MIN_PAGES_PER_WORKER));
+        if (chunks <= 1 || extractionPool == null) {
+            return extractRange(pdf.getDocument(), 0, totalPages, lineMapper);
+        }
+
+        List<Future<List<String>>> parts = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) totalPages * chunk / chunks);
+            int to = (int) ((long) totalPages * (chunk + 1) / chunks);
+            parts.add(extractionPool.submit(() -> {
+                try (IngestedPdf copy = open(pdf.tempFile)) {
+                    return extractRange(copy.getDocument(), from, to, lineMapper);
+                }
+            }));
+        }
+
+        List<String> lines = new ArrayList<>();
+        try {
+            for (Future<List<String>> part : parts) {
+                lines.addAll(part.get());
+            }
+        } catch (InterruptedException e) {
+            parts.forEach(part -> part.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF extraction interrupted", e);
+        } catch (ExecutionException e) {
+            parts.forEach(part -> part.cancel(true));
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("PDF extraction failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return lines;
+    }
+
+    private List<String> extractRange(PDDocument document, int fromPage, int toPage,
+                                      UnaryOperator<String> lineMapper) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int pageIdx = fromPage; pageIdx < toPage; pageIdx++) {
+            // ── 1. Extract images from this page ──────────────────────
+            List<String> pageImageUrls = new ArrayList<>();
+            PDPage page = document.getPage(pageIdx);
+            PDResources resources = page.getResources();
+            if (resources != null) {
+                for (COSName xName : resources.getXObjectNames()) {
+                    try {
+                        var xObject = resources.getXObject(xName);
+                        if (xObject instanceof PDImageXObject img) {
+                            // Skip tiny images (logos, watermarks, decorative icons)
+                            if (img.getWidth() > 60 && img.getHeight() > 60) {
+                                String imageUrl = imageStore.store(img);
+                                pageImageUrls.add(imageUrl);
+                                System.out.println("Extracted image: p" + pageIdx + "_" + xName.getName() + " -> " + imageUrl
+                                    + " (" + img.getWidth() + "x" + img.getHeight() + ")");
+                            }
+                        }
+                    } catch (IOException e) {
+                        System.out.println("Warning: Could not extract image " + xName.getName() + ": " + e.getMessage());
+                    }
+                }
+            }
+
+            // ── 2. Emit a page-image marker (before the page's text lines) ──
+            if (!pageImageUrls.isEmpty()) {
+                lines.add(PAGE_IMAGES_MARKER + String.join("|", pageImageUrls));
+            }
+
+            // ── 3. Extract text for this page ─────────────────────────
+            PDFTextStripper pageStripper = new PDFTextStripper();
+            pageStripper.setStartPage(pageIdx + 1);
+            pageStripper.setEndPage(pageIdx + 1);
+            String pageText = pageStripper.getText(document);
+
+            Arrays.stream(pageText.split("\\r?\\n"))
+                  .filter(line -> !line.trim().isEmpty())
+                  .map(lineMapper)
+                  .forEach(lines::add);
+        }
+        return lines;
+    }
+}
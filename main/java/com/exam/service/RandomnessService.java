@@ -0,0 +1,97 @@
+package com.exam.service;
+
+import java.nio.ByteBuffer;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Random streams for exam generation.
+ *
+ * FAST (the default) gives each thread its own {@link SplittableRandom}, split from one root that
+ * is seeded once from {@link SecureRandom}: papers are unpredictable across restarts, generation
+ * never contends on a shared lock and never waits on the OS entropy pool. SECURE gives each thread
+ * its own DRBG-backed {@link SecureRandom} for high-stakes exams where the choice order must be
+ * cryptographically unpredictable; its output is drawn in blocks, since a DRBG call costs about the
+ * same for 8 bytes as for 512. Generators are per-thread; never hand one to another thread.
+ */
+@Service
+public class RandomnessService {
+
+    public enum Mode { FAST, SECURE }
+
+    @Value("${app.randomness.mode:FAST}")
+    private Mode defaultMode = Mode.FAST;
+
+    // Guarded by its own monitor; split() is not thread-safe
+    private final SplittableRandom root = new SplittableRandom(new SecureRandom().nextLong());
+
+    private final ThreadLocal<SplittableRandom> fast = ThreadLocal.withInitial(this::splitRoot);
+    private final ThreadLocal<BufferedSecureRandom> secure = ThreadLocal.withInitial(BufferedSecureRandom::new);
+
+    public Mode getDefaultMode() {
+        return defaultMode;
+    }
+
+    /**
+     * This thread's generator in the configured mode.
+     */
+    public RandomGenerator generator() {
+        return generator(defaultMode);
+    }
+
+    /**
+     * This thread's generator in the given mode (the configured one when null).
+     */
+    public RandomGenerator generator(Mode mode) {
+        return (mode != null ? mode : defaultMode) == Mode.SECURE ? secure.get() : fast.get();
+    }
+
+    /**
+     * Mode for a request: SECURE when the teacher asked for it, otherwise the configured mode.
+     */
+    public Mode resolve(boolean secureRequested) {
+        return secureRequested ? Mode.SECURE : defaultMode;
+    }
+
+    private SplittableRandom splitRoot() {
+        synchronized (root) {
+            return root.split();
+        }
+    }
+
+    /**
+     * A thread's DRBG, read {@value #BLOCK_BYTES} bytes at a time.
+     */
+    private static final class BufferedSecureRandom implements RandomGenerator {
+        private static final int BLOCK_BYTES = 512;
+
+        private final SecureRandom source = newSecureRandom();
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES).position(BLOCK_BYTES);
+
+        @Override
+        public long nextLong() {
+            if (block.remaining() < Long.BYTES) {
+                source.nextBytes(block.array());
+                block.clear();
+            }
+            return block.getLong();
+        }
+    }
+
+    private static SecureRandom newSecureRandom() {
+        try {
+            // 256-bit DRBG that reseeds only on request, so it never blocks on /dev/random
+            return SecureRandom.getInstance("DRBG",
+                DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            System.err.println("⚠️ DRBG unavailable, using the default SecureRandom: " + e.getMessage());
+            return new SecureRandom();
+        }
+    }
+}
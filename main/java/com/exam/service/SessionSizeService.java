@@ -0,0 +1,77 @@
+package com.exam.service;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Measures how big an HttpSession would be when serialized (what the container persists or
+ * replicates). Used to check that per-student state stays out of the teacher's session.
+ */
+@Service
+public class SessionSizeService {
+
+    private static final int LARGEST_ATTRIBUTES = 10;
+
+    /**
+     * Serialized size of every attribute, largest first. Attributes that cannot be serialized
+     * are listed with size -1 and left out of the total.
+     */
+    public Map<String, Object> measure(HttpSession session) {
+        List<Map<String, Object>> attributes = new ArrayList<>();
+        long totalBytes = 0;
+        int attributeCount = 0;
+        for (String name : Collections.list(session.getAttributeNames())) {
+            long size = serializedSize(session.getAttribute(name));
+            attributeCount++;
+            if (size > 0) {
+                totalBytes += size;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", name);
+            row.put("bytes", size);
+            attributes.add(row);
+        }
+        attributes.sort((a, b) -> Long.compare((Long) b.get("bytes"), (Long) a.get("bytes")));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessionId", session.getId());
+        result.put("attributeCount", attributeCount);
+        result.put("totalBytes", totalBytes);
+        result.put("largestAttributes", attributes.subList(0, Math.min(LARGEST_ATTRIBUTES, attributes.size())));
+        return result;
+    }
+
+    private long serializedSize(Object value) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            return -1;
+        }
+        return counter.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -91,47 +91,35 @@ function showSaveIndicator() {
     }, 1500);
 }
 
+// Width buckets the server keeps downscaled copies for (app.images.variant-widths)
+const IMAGE_WIDTH_BUCKETS = [320, 640, 1024];
+
+/**
+ * srcset that lets the browser fetch the smallest stored copy of an image that fits the screen
+ */
+function imageSrcset(url) {
+    return IMAGE_WIDTH_BUCKETS
+        .map(width => `/student/exam-image?src=${encodeURIComponent(url)}&w=${width} ${width}w`)
+        .join(', ');
+}
+
 /**
  * Display current question
  */
 function displayQuestion() {
-    let question = exam[currentPage];
+    // Parsed on the server: { text, textInput, choices, images, videos }, markers already removed
+    const question = exam[currentPage];
     const questionNumber = currentPage + 1;
-    
-    // Remove [TEXT_INPUT] prefix if present
-    const isTextInput = question.includes('[TEXT_INPUT]');
-    if (isTextInput) {
-        question = question.replace('[TEXT_INPUT]', '').trim();
-    }
-    
-    // Remove difficulty markers like [Easy], [Medium], [Hard], [Essay], [Open-Ended]
-    question = question.replace(/\[(Easy|Medium|Hard|Essay|Open-Ended|Open Ended|TEXT_INPUT)\]/gi, '').trim();
-
-    // ── Extract [IMG:url] markers from question text ──────────────────────
-    const imgPattern = /\[IMG:([^\]]+)\]/g;
-    const imageUrls = [];
-    let imgMatch;
-    while ((imgMatch = imgPattern.exec(question)) !== null) {
-        imageUrls.push(imgMatch[1]);
-    }
+    const isTextInput = question.textInput;
+    const imageUrls = question.images;
+    const videoUrls = question.videos;
 
-    const vidPattern = /\[VID:([^\]]+)\]/g;
-    const videoUrls = [];
-    let vidMatch;
-    while ((vidMatch = vidPattern.exec(question)) !== null) {
-        videoUrls.push(vidMatch[1]);
-    }
-
-    // Remove the [IMG:...] markers from the text shown to students
-    question = question.replace(/\[IMG:[^\]]+\]/g, '').trim();
-    question = question.replace(/\[VID:[^\]]+\]/g, '').trim();
-
-    // Build HTML for any extracted images
+    // Build HTML for any images / videos
     let imagesHtml = '';
     if (imageUrls.length > 0) {
         imagesHtml = '<div class="question-media my-3">';
         imageUrls.forEach(url => {
-            imagesHtml += `<img src="${url}" alt="Question image" class="img-fluid rounded shadow-sm border" style="max-height:400px; display:block; margin:8px auto;">`;
+            imagesHtml += `<img src="${url}" srcset="${imageSrcset(url)}" sizes="(max-width: 576px) 100vw, 720px" loading="lazy" alt="Question image" class="img-fluid rounded shadow-sm border" style="max-height:400px; display:block; margin:8px auto;">`;
         });
         videoUrls.forEach(url => {
             imagesHtml += `<video src="${url}" controls class="img-fluid rounded shadow-sm border" style="max-height:400px; display:block; margin:8px auto; width:100%;"></video>`;
@@ -150,7 +138,7 @@ function displayQuestion() {
     if (isTextInput) {
         // Text-input question (prefix hidden from student)
         html += `
-            <p class="lead mb-2">${question}</p>
+            <p class="lead mb-2">${question.text}</p>
             ${imagesHtml}
             <div class="form-group">
                 <label class="form-label fw-bold">Your Answer:</label>
@@ -163,19 +151,14 @@ function displayQuestion() {
         `;
     } else {
         // Multiple-choice question
-        const lines = question.split('\n');
-        const questionText = lines[0];
-        const choices = lines.slice(1).filter(line => line.trim());
-        
         html += `
-            <p class="lead mb-2">${questionText}</p>
+            <p class="lead mb-2">${question.text}</p>
             ${imagesHtml}
             <div class="choices">
         `;
         
-        choices.forEach((choice, idx) => {
-            const choiceLetter = choice.split(')')[0].trim();
-            const choiceText = choice.substring(choice.indexOf(')') + 1).trim();
+        question.choices.forEach((choiceText, idx) => {
+            const choiceLetter = String.fromCharCode(65 + idx);
             const isSelected = answers['q' + questionNumber] === choiceText;
             
             html += `
@@ -10,6 +10,9 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,8 +30,12 @@ import com.exam.repository.EnrolledStudentRepository;
 import com.exam.repository.ExamSubmissionRepository;
 import com.exam.repository.SubjectRepository;
 import com.exam.repository.UserRepository;
+import com.exam.service.AdaptiveTestService;
 import com.exam.service.AnswerKeyService;
+import com.exam.service.AssignmentStoreService;
 import com.exam.service.IRT3PLService;
+import com.exam.service.ImageVariantService;
+import com.exam.service.ParsedQuestion;
 import com.exam.service.RandomForestAnalyticsService;
 import com.exam.service.RandomForestService;
 
@@ -62,11 +69,20 @@ public class StudentController {
     @Autowired
     private SubjectRepository subjectRepository;
 
-    // This would normally be injected from a service, but for now we'll reference the static map
-    // In production, this should be stored in database
-    private static Map<String, List<String>> getDistributedExams() {
-        // This is a workaround - in production use a service/repository
-        return com.exam.Controller.HomepageController.getDistributedExams();
+    @Autowired
+    private AssignmentStoreService assignmentStore;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private AdaptiveTestService adaptiveTestService;
+
+    /**
+     * Questions/difficulties/topics/key/metadata for an assignment, or the latest one when no id is given.
+     */
+    private AssignmentStoreService.Assignment getDistributedAssignment(String studentEmail, String assignmentId) {
+        return assignmentStore.getAssignment(studentEmail, assignmentId);
     }
 
     @GetMapping("/dashboard")
@@ -100,7 +116,7 @@ public class StudentController {
                     List<Map<String, Object>> activities = new ArrayList<>();
                     
                     // Check all distributed assignments for this subject
-                    List<Map<String, Object>> assignmentHistory = HomepageController.getDistributedExamHistory(studentEmail);
+                    List<Map<String, Object>> assignmentHistory = assignmentStore.getHistory(studentEmail);
                     if (!assignmentHistory.isEmpty()) {
                         for (Map<String, Object> assignment : assignmentHistory) {
                             String examSubject = String.valueOf(assignment.getOrDefault("examSubject", ""));
@@ -115,7 +131,8 @@ public class StudentController {
                             Object timeObj = assignment.get("examTimeLimit");
                             int examTimeLimit = timeObj instanceof Number ? ((Number) timeObj).intValue() : 60;
                             String examDeadline = String.valueOf(assignment.getOrDefault("examDeadline", ""));
-                            List<String> examQuestions = HomepageController.getDistributedExamQuestions(studentEmail, assignmentId);
+                            AssignmentStoreService.Assignment distributed = getDistributedAssignment(studentEmail, assignmentId);
+                            List<String> examQuestions = distributed != null ? distributed.getQuestions() : null;
 
                             Map<String, Object> activity = new HashMap<>();
                             activity.put("name", (examName != null && !examName.isBlank()) ? examName : "Untitled Exam");
@@ -325,7 +342,7 @@ public class StudentController {
                            java.security.Principal principal) {
         String studentId = principal.getName();
         Map<String, Object> selectedAssignment = null;
-        List<Map<String, Object>> assignmentHistory = HomepageController.getDistributedExamHistory(studentId);
+        List<Map<String, Object>> assignmentHistory = assignmentStore.getHistory(studentId);
 
         if (!assignmentHistory.isEmpty()) {
             if (assignmentId != null && !assignmentId.isBlank()) {
@@ -348,10 +365,11 @@ public class StudentController {
             return "redirect:/student/dashboard";
         }
 
-        List<String> exam = HomepageController.getDistributedExamQuestions(studentId, assignmentId);
-        if (exam == null || exam.isEmpty()) {
-            exam = getDistributedExams().get(studentId);
+        AssignmentStoreService.Assignment distributed = getDistributedAssignment(studentId, assignmentId);
+        if (distributed == null) {
+            distributed = assignmentStore.getLatestAssignment(studentId);
         }
+        List<String> exam = distributed != null ? distributed.getQuestions() : null;
         if (exam == null || exam.isEmpty()) {
             model.addAttribute("error", "No exam available for you yet.");
             return "redirect:/student/dashboard";
@@ -363,7 +381,7 @@ public class StudentController {
         String examName = (String) session.getAttribute("examName_" + studentId);
         Map<String, Object> distributedMeta = selectedAssignment != null
             ? selectedAssignment
-            : HomepageController.getDistributedExamMetadata(studentId);
+            : distributed.getMetadata();
         if ((examName == null || examName.isEmpty()) && distributedMeta != null) {
             Object metaExamName = distributedMeta.get("examName");
             examName = metaExamName != null ? String.valueOf(metaExamName) : null;
@@ -372,7 +390,7 @@ public class StudentController {
         
         if (examName != null) {
             // Check if exam is unlocked by teacher (bypasses deadline only)
-            isUnlocked = HomepageController.isExamUnlocked(studentId, examName);
+            isUnlocked = assignmentStore.isUnlocked(studentId, examName);
             
             if (isUnlocked) {
                 System.out.println("🔓 UNLOCKED ACCESS: Student " + studentId + " accessing unlocked exam: " + examName);
@@ -483,7 +501,14 @@ public class StudentController {
             session.setAttribute("examDeadline_" + studentId, String.valueOf(distributedMeta.getOrDefault("examDeadline", examDeadline)));
         }
 
-        Map<Integer, String> assignmentKey = HomepageController.getDistributedAnswerKey(studentId, assignmentId);
+        // Adaptive exams are served one question at a time by the /student/cat endpoints
+        if (distributedMeta != null && distributedMeta.get("catTargetSe") != null) {
+            model.addAttribute("assignmentId", assignmentId);
+            model.addAttribute("examName", examName != null ? examName : distributedMeta.get("examName"));
+            return "student-exam-adaptive";
+        }
+
+        Map<Integer, String> assignmentKey = distributed.getAnswerKey();
         if (assignmentKey != null && !assignmentKey.isEmpty()) {
             session.setAttribute("currentAssignmentAnswerKey_" + studentId, assignmentKey);
         }
@@ -492,13 +517,8 @@ public class StudentController {
         @SuppressWarnings("unchecked")
         List<String> difficulties = (List<String>) session.getAttribute("questionDifficulties_" + studentId);
         if (difficulties == null || (assignmentId != null && !assignmentId.isBlank())) {
-            difficulties = HomepageController.getDistributedQuestionDifficulties(studentId, assignmentId);
-        }
-        if (difficulties == null) {
-            difficulties = HomepageController.getDistributedQuestionDifficulties(studentId);
-            if (difficulties != null) {
-                session.setAttribute("questionDifficulties_" + studentId, difficulties);
-            }
+            difficulties = distributed.getDifficulties();
+            session.setAttribute("questionDifficulties_" + studentId, difficulties);
         }
         if (difficulties == null) {
             // Generate default difficulties if not found
@@ -509,22 +529,183 @@ public class StudentController {
         }
         model.addAttribute("difficulties", difficulties);
         
-        List<String> topics = HomepageController.getDistributedQuestionTopics(studentId, assignmentId);
-        if (topics != null) {
-            session.setAttribute("questionTopics_" + studentId, topics);
-        }
+        session.setAttribute("questionTopics_" + studentId, distributed.getTopics());
 
-        model.addAttribute("exam", exam);
+        model.addAttribute("paper", distributed.getPaper().stream()
+            .map(this::toPaperQuestion)
+            .collect(Collectors.toList()));
         return "student-exam-paginated";
     }
 
+    /**
+     * What the exam page needs to show one question, so the browser does not parse question text
+     */
+    private Map<String, Object> toPaperQuestion(ParsedQuestion question) {
+        Map<String, Object> view = new HashMap<>();
+        List<String> text = new ArrayList<>(1 + question.getDetails().size());
+        text.add(question.getStem());
+        text.addAll(question.getDetails());
+        view.put("text", String.join("\n", text));
+        view.put("textInput", question.isTextInput());
+        view.put("choices", question.getChoices());
+        view.put("images", question.getImageUrls());
+        view.put("videos", question.getVideoUrls());
+        return view;
+    }
+
+    /**
+     * Start or resume the adaptive test of an assignment; returns the first (or current) question.
+     */
+    @PostMapping("/cat/start")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> startAdaptiveTest(@RequestParam String assignmentId,
+                                                                 java.security.Principal principal) {
+        String studentId = principal.getName();
+        AssignmentStoreService.Assignment assignment = getDistributedAssignment(studentId, assignmentId);
+        if (assignment == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> metadata = assignment.getMetadata();
+        // Like the exam page: no new test after the deadline unless the teacher unlocked the exam
+        Object examName = metadata.get("examName");
+        if (deadlinePassed(metadata) && (examName == null || !assignmentStore.isUnlocked(studentId, String.valueOf(examName)))) {
+            System.out.println("🚫 DEADLINE EXCEEDED: Student " + studentId + " tried to start adaptive test " + assignmentId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "The exam deadline has passed. You can no longer access this exam."));
+        }
+        int maxItems = metadata.get("questionCount") instanceof Number number ? number.intValue() : assignment.size();
+        double targetSe = metadata.get("catTargetSe") instanceof Number number
+            ? number.doubleValue()
+            : adaptiveTestService.defaultRule().getTargetSe();
+        AdaptiveTestService.StoppingRule rule = new AdaptiveTestService.StoppingRule(
+            adaptiveTestService.defaultRule().getMinItems(), maxItems, targetSe);
+
+        AdaptiveTestService.Session cat = adaptiveTestService.start(studentId, assignmentId, assignment.getContent(), rule);
+        if (cat == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "This exam has no multiple-choice questions to adapt over."));
+        }
+        System.out.println("🎯 CAT " + cat.getSessionId() + " started for " + studentId + " (max " + rule.getMaxItems()
+            + " items, target SE " + rule.getTargetSe() + ")");
+        return ResponseEntity.ok(toAdaptiveStep(cat, null));
+    }
+
+    /**
+     * Answer the current adaptive question; returns the next one, or the result once the test stops.
+     */
+    @PostMapping("/cat/answer")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> answerAdaptiveTest(@RequestParam String sessionId,
+                                                                  @RequestParam(required = false) String answer,
+                                                                  java.security.Principal principal) {
+        String studentId = principal.getName();
+        AdaptiveTestService.Session cat = adaptiveTestService.getSession(sessionId, studentId);
+        if (cat == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Only the request whose answer finished the test records it; a duplicate last POST just sees it finished
+        if (!adaptiveTestService.answer(cat, answer)) {
+            return ResponseEntity.ok(toAdaptiveStep(cat, null));
+        }
+        // Like /submit: a test finished after the deadline is still recorded, but flagged as late
+        AssignmentStoreService.Assignment assignment = getDistributedAssignment(studentId, cat.getAssignmentId());
+        boolean late = assignment != null && deadlinePassed(assignment.getMetadata());
+        if (late) {
+            System.out.println("⚠️ LATE SUBMISSION: Student " + studentId + " finished adaptive test "
+                + cat.getAssignmentId() + " after deadline " + assignment.getMetadata().get("examDeadline"));
+        }
+        ExamSubmission saved = saveAdaptiveSubmission(cat, assignment);
+        adaptiveTestService.end(cat);
+        Map<String, Object> step = toAdaptiveStep(cat, saved);
+        step.put("lateSubmission", late);
+        return ResponseEntity.ok(step);
+    }
+
+    private Map<String, Object> toAdaptiveStep(AdaptiveTestService.Session cat, ExamSubmission saved) {
+        Map<String, Object> step = new HashMap<>();
+        step.put("sessionId", cat.getSessionId());
+        step.put("answered", cat.getAnswered());
+        step.put("maxItems", cat.getRule().getMaxItems());
+        step.put("finished", cat.isFinished());
+        int question = cat.getCurrentQuestion();
+        if (question >= 0) {
+            step.put("question", toPaperQuestion(cat.getContent().getParsed(question)));
+        }
+        if (saved != null) {
+            step.put("score", saved.getScore());
+            step.put("total", saved.getTotalQuestions());
+            step.put("percentage", saved.getPercentage());
+            step.put("theta", cat.getTheta());
+            step.put("standardError", cat.getStandardError());
+            step.put("scaledScore", irt3PLService.thetaToScaledScore(cat.getTheta(), 500, 100));
+            step.put("submissionId", saved.getId());
+        }
+        return step;
+    }
+
+    /**
+     * Whether the assignment has a deadline and it has passed; an unparseable deadline never blocks.
+     */
+    private boolean deadlinePassed(Map<String, Object> metadata) {
+        Object deadline = metadata.get("examDeadline");
+        if (deadline == null || String.valueOf(deadline).isEmpty()) {
+            return false;
+        }
+        try {
+            return LocalDateTime.now().isAfter(LocalDateTime.parse(String.valueOf(deadline)));
+        } catch (Exception e) {
+            System.out.println("⚠️ Error parsing deadline: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Record a finished adaptive test like a regular submission and take the assignment off the list.
+     */
+    private ExamSubmission saveAdaptiveSubmission(AdaptiveTestService.Session cat, AssignmentStoreService.Assignment assignment) {
+        String studentId = cat.getStudentEmail();
+        Map<String, Object> metadata = assignment != null ? assignment.getMetadata() : Map.of();
+
+        StringBuilder details = new StringBuilder();
+        int number = 1;
+        for (Object[] response : cat.getResponses()) {
+            details.append(number++).append("|")
+                   .append(response[1]).append("|")
+                   .append(response[2]).append("|")
+                   .append(response[3]).append(";");
+        }
+
+        ExamSubmission submission = new ExamSubmission();
+        submission.setStudentEmail(studentId);
+        submission.setExamName(String.valueOf(metadata.getOrDefault("examName", "General Exam")));
+        submission.setSubject(String.valueOf(metadata.getOrDefault("examSubject", "General")));
+        submission.setActivityType(String.valueOf(metadata.getOrDefault("examActivityType", "Exam")));
+        submission.setScore(cat.getCorrectCount());
+        submission.setTotalQuestions(cat.getAnswered());
+        submission.setPercentage(cat.getAnswered() > 0 ? cat.getCorrectCount() * 100.0 / cat.getAnswered() : 0.0);
+        submission.setAccuracy(submission.getPercentage());
+        submission.setResultsReleased(true);
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setReleasedAt(LocalDateTime.now());
+        submission.setAnswerDetailsJson(details.toString());
+        ExamSubmission saved = examSubmissionRepository.save(submission);
+
+        assignmentStore.removeAssignment(studentId, cat.getAssignmentId());
+        System.out.println("🎯 CAT " + cat.getSessionId() + " finished for " + studentId + ": " + cat.getCorrectCount()
+            + "/" + cat.getAnswered() + ", θ=" + String.format("%.3f", cat.getTheta())
+            + " (SE " + String.format("%.3f", cat.getStandardError()) + ")");
+        return saved;
+    }
+
     @PostMapping("/submit")
     public String submitExam(@RequestParam Map<String, String> answers, 
                             HttpSession session, Model model,
                             java.security.Principal principal) {
         String studentId = principal != null ? principal.getName() : "guest";
         String currentAssignmentId = (String) session.getAttribute("currentAssignmentId_" + studentId);
-        Map<String, Object> currentAssignmentMeta = HomepageController.getDistributedExamAssignmentMetadata(studentId, currentAssignmentId);
+        AssignmentStoreService.Assignment currentAssignment = currentAssignmentId != null && !currentAssignmentId.isBlank()
+            ? getDistributedAssignment(studentId, currentAssignmentId)
+            : null;
+        Map<String, Object> currentAssignmentMeta = currentAssignment != null ? currentAssignment.toHistoryEntry() : null;
         
         // Check if deadline has passed (allow submission with warning if just exceeded)
         String deadline = (String) session.getAttribute("examDeadline_" + studentId);
@@ -565,7 +746,7 @@ public class StudentController {
         @SuppressWarnings("unchecked")
         Map<Integer, String> key = (Map<Integer, String>) session.getAttribute("currentAssignmentAnswerKey_" + studentId);
         if ((key == null || key.isEmpty()) && currentAssignmentId != null && !currentAssignmentId.isBlank()) {
-            key = HomepageController.getDistributedAnswerKey(studentId, currentAssignmentId);
+            key = currentAssignment != null ? currentAssignment.getAnswerKey() : null;
         }
         if (key == null || key.isEmpty()) {
             key = answerKeyService.getStudentAnswerKey(studentId);
@@ -658,17 +839,16 @@ public class StudentController {
             List<String> questionTopics = (List<String>) session.getAttribute("questionTopics_" + studentId);
             @SuppressWarnings("unchecked")
             List<String> questionDifficulties = (List<String>) session.getAttribute("questionDifficulties_" + studentId);
-            if (questionTopics == null) {
-                questionTopics = HomepageController.getDistributedQuestionTopics(studentId);
-                if (questionTopics != null) {
-                    session.setAttribute("questionTopics_" + studentId, questionTopics);
-                }
+            AssignmentStoreService.Assignment latestAssignment = currentAssignment != null
+                ? currentAssignment
+                : assignmentStore.getLatestAssignment(studentId);
+            if (questionTopics == null && latestAssignment != null) {
+                questionTopics = latestAssignment.getTopics();
+                session.setAttribute("questionTopics_" + studentId, questionTopics);
             }
-            if (questionDifficulties == null) {
-                questionDifficulties = HomepageController.getDistributedQuestionDifficulties(studentId);
-                if (questionDifficulties != null) {
-                    session.setAttribute("questionDifficulties_" + studentId, questionDifficulties);
-                }
+            if (questionDifficulties == null && latestAssignment != null) {
+                questionDifficulties = latestAssignment.getDifficulties();
+                session.setAttribute("questionDifficulties_" + studentId, questionDifficulties);
             }
             
             // Default values if not found in session
@@ -805,7 +985,7 @@ public class StudentController {
             String activityType = (String) session.getAttribute("examActivityType_" + studentId);
             Map<String, Object> submitMeta = currentAssignmentMeta != null
                 ? currentAssignmentMeta
-                : HomepageController.getDistributedExamMetadata(studentId);
+                : (latestAssignment != null ? latestAssignment.getMetadata() : null);
             if (submitMeta != null) {
                 if (examName == null || examName.isEmpty()) {
                     Object metaExamName = submitMeta.get("examName");
@@ -873,12 +1053,12 @@ public class StudentController {
             // Remove unlock status after successful submission (lock exam again)
             String submittedExamName = (String) session.getAttribute("examName_" + studentId);
             if (submittedExamName != null) {
-                HomepageController.removeUnlock(studentId, submittedExamName);
+                assignmentStore.removeUnlock(studentId, submittedExamName);
                 System.out.println("🔒 EXAM RE-LOCKED after submission: " + submittedExamName + " for " + studentId);
             }
 
             // Remove only the submitted assignment from distributed exams
-            HomepageController.removeDistributedExam(studentId, currentAssignmentId);
+            assignmentStore.removeAssignment(studentId, currentAssignmentId);
             System.out.println("🗑️ ASSIGNMENT REMOVED from distributed list for student: " + studentId + " | assignmentId=" + currentAssignmentId);
 
             session.removeAttribute("currentAssignmentId_" + studentId);
@@ -903,6 +1083,21 @@ public class StudentController {
         }
     }
     
+    /**
+     * Redirect to the smallest stored copy of a question image that is at least {@code w} pixels
+     * wide (the exam page asks through {@code srcset}); the original until variants exist.
+     */
+    @GetMapping("/exam-image")
+    public ResponseEntity<Void> examImage(@RequestParam String src,
+                                          @RequestParam(defaultValue = "0") int w,
+                                          @RequestParam(defaultValue = "true") boolean lossy) {
+        String target = imageVariantService.resolve(src, w, lossy);
+        if (target == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.FOUND).header(HttpHeaders.LOCATION, target).build();
+    }
+
     /**
      * Display submission success page (after redirect from POST submit)
      */
@@ -0,0 +1,145 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Durable copy of one exam distributed to one student.
+ * Written behind the in-memory AssignmentStoreService so pending exams survive a restart.
+ */
+@Entity
+@Table(name = "distributed_assignments",
+       indexes = {
+           @Index(name = "idx_distributed_assignments_student", columnList = "student_email")
+       })
+public class DistributedAssignment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "assignment_id", nullable = false, unique = true, length = 64)
+    private String assignmentId;
+
+    @Column(name = "student_email", nullable = false)
+    private String studentEmail;
+
+    @Column(name = "exam_name")
+    private String examName;
+
+    @Column(name = "exam_subject")
+    private String examSubject;
+
+    @Column(name = "activity_type")
+    private String activityType;
+
+    @Column(name = "time_limit")
+    private Integer timeLimit;
+
+    @Column(name = "deadline")
+    private String deadline;
+
+    @Column(name = "question_count")
+    private int questionCount;
+
+    @Column(name = "distributed_at", nullable = false)
+    private LocalDateTime distributedAt;
+
+    @Column(name = "questions_json", columnDefinition = "LONGTEXT")
+    private String questionsJson;
+
+    @Column(name = "difficulties_json", columnDefinition = "TEXT")
+    private String difficultiesJson;
+
+    @Column(name = "topics_json", columnDefinition = "TEXT")
+    private String topicsJson;
+
+    @Column(name = "answer_key_json", columnDefinition = "TEXT")
+    private String answerKeyJson;
+
+    // Set for form-pool papers; the questions and key then live on the ExamForm row only
+    @Column(name = "form_id", length = 64)
+    private String formId;
+
+    // Set for adaptive (CAT) exams: the standard error the test stops at
+    @Column(name = "cat_target_se")
+    private Double catTargetSe;
+
+    // The uploaded exam the paper was cut from
+    @Column(name = "source_exam_id", length = 64)
+    private String sourceExamId;
+
+    // RandomnessService mode the paper was cut with (FAST or SECURE)
+    @Column(name = "randomness", length = 16)
+    private String randomness;
+
+    @Column(name = "form_pool_id", length = 64)
+    private String formPoolId;
+
+    // Set for seeded papers: the seed the layout was derived from
+    @Column(name = "layout_seed")
+    private Long layoutSeed;
+
+    public DistributedAssignment() {
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getAssignmentId() { return assignmentId; }
+    public void setAssignmentId(String assignmentId) { this.assignmentId = assignmentId; }
+
+    public String getStudentEmail() { return studentEmail; }
+    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+
+    public String getExamName() { return examName; }
+    public void setExamName(String examName) { this.examName = examName; }
+
+    public String getExamSubject() { return examSubject; }
+    public void setExamSubject(String examSubject) { this.examSubject = examSubject; }
+
+    public String getActivityType() { return activityType; }
+    public void setActivityType(String activityType) { this.activityType = activityType; }
+
+    public Integer getTimeLimit() { return timeLimit; }
+    public void setTimeLimit(Integer timeLimit) { this.timeLimit = timeLimit; }
+
+    public String getDeadline() { return deadline; }
+    public void setDeadline(String deadline) { this.deadline = deadline; }
+
+    public int getQuestionCount() { return questionCount; }
+    public void setQuestionCount(int questionCount) { this.questionCount = questionCount; }
+
+    public LocalDateTime getDistributedAt() { return distributedAt; }
+    public void setDistributedAt(LocalDateTime distributedAt) { this.distributedAt = distributedAt; }
+
+    public String getQuestionsJson() { return questionsJson; }
+    public void setQuestionsJson(String questionsJson) { this.questionsJson = questionsJson; }
+
+    public String getDifficultiesJson() { return difficultiesJson; }
+    public void setDifficultiesJson(String difficultiesJson) { this.difficultiesJson = difficultiesJson; }
+
+    public String getTopicsJson() { return topicsJson; }
+    public void setTopicsJson(String topicsJson) { this.topicsJson = topicsJson; }
+
+    public String getAnswerKeyJson() { return answerKeyJson; }
+    public void setAnswerKeyJson(String answerKeyJson) { this.answerKeyJson = answerKeyJson; }
+
+    public String getFormId() { return formId; }
+    public void setFormId(String formId) { this.formId = formId; }
+
+    public Double getCatTargetSe() { return catTargetSe; }
+    public void setCatTargetSe(Double catTargetSe) { this.catTargetSe = catTargetSe; }
+
+    public String getSourceExamId() { return sourceExamId; }
+    public void setSourceExamId(String sourceExamId) { this.sourceExamId = sourceExamId; }
+
+    public String getRandomness() { return randomness; }
+    public void setRandomness(String randomness) { this.randomness = randomness; }
+
+    public String getFormPoolId() { return formPoolId; }
+    public void setFormPoolId(String formPoolId) { this.formPoolId = formPoolId; }
+
+    public Long getLayoutSeed() { return layoutSeed; }
+    public void setLayoutSeed(Long layoutSeed) { this.layoutSeed = layoutSeed; }
+}
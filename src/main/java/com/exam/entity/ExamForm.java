@@ -0,0 +1,81 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One pre-generated form of a form-pool distribution.
+ * Students given this form only store its id on their DistributedAssignment row, so the rendered
+ * questions and answer key are written once per form instead of once per student.
+ */
+@Entity
+@Table(name = "exam_forms",
+       indexes = {
+           @Index(name = "idx_exam_forms_pool", columnList = "pool_id")
+       })
+public class ExamForm {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "form_id", nullable = false, unique = true, length = 64)
+    private String formId;
+
+    @Column(name = "pool_id", nullable = false, length = 64)
+    private String poolId;
+
+    @Column(name = "form_number", nullable = false)
+    private int formNumber;
+
+    @Column(name = "source_exam_id", length = 64)
+    private String sourceExamId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "questions_json", columnDefinition = "LONGTEXT")
+    private String questionsJson;
+
+    @Column(name = "difficulties_json", columnDefinition = "TEXT")
+    private String difficultiesJson;
+
+    @Column(name = "topics_json", columnDefinition = "TEXT")
+    private String topicsJson;
+
+    @Column(name = "answer_key_json", columnDefinition = "TEXT")
+    private String answerKeyJson;
+
+    public ExamForm() {
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getFormId() { return formId; }
+    public void setFormId(String formId) { this.formId = formId; }
+
+    public String getPoolId() { return poolId; }
+    public void setPoolId(String poolId) { this.poolId = poolId; }
+
+    public int getFormNumber() { return formNumber; }
+    public void setFormNumber(int formNumber) { this.formNumber = formNumber; }
+
+    public String getSourceExamId() { return sourceExamId; }
+    public void setSourceExamId(String sourceExamId) { this.sourceExamId = sourceExamId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getQuestionsJson() { return questionsJson; }
+    public void setQuestionsJson(String questionsJson) { this.questionsJson = questionsJson; }
+
+    public String getDifficultiesJson() { return difficultiesJson; }
+    public void setDifficultiesJson(String difficultiesJson) { this.difficultiesJson = difficultiesJson; }
+
+    public String getTopicsJson() { return topicsJson; }
+    public void setTopicsJson(String topicsJson) { this.topicsJson = topicsJson; }
+
+    public String getAnswerKeyJson() { return answerKeyJson; }
+    public void setAnswerKeyJson(String answerKeyJson) { this.answerKeyJson = answerKeyJson; }
+}
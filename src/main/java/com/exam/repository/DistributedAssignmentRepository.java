@@ -0,0 +1,25 @@
+package com.exam.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.exam.entity.DistributedAssignment;
+
+@Repository
+public interface DistributedAssignmentRepository extends JpaRepository<DistributedAssignment, Long> {
+    List<DistributedAssignment> findByStudentEmailOrderByDistributedAtAsc(String studentEmail);
+
+    @Transactional
+    long deleteByAssignmentIdIn(Collection<String> assignmentIds);
+
+    @Transactional
+    long deleteByStudentEmailIn(Collection<String> studentEmails);
+
+    @Query("SELECT DISTINCT d.studentEmail FROM DistributedAssignment d")
+    List<String> findDistinctStudentEmails();
+}
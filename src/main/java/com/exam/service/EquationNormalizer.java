@@ -0,0 +1,178 @@
+package com.exam.service;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts Unicode math characters extracted from PDFs into LaTeX notation, then wraps the
+ * detected math segments in $...$ so MathJax can render them. Lines that already contain LaTeX
+ * delimiters ($, \(, \[) are passed through unchanged.
+ *
+ * One left-to-right pass over the line, driven by a lookup table indexed by char. A line with
+ * nothing to convert (most of them) is returned as the same instance without allocating.
+ * Output matches the original chain of {@code String.replace} / {@code replaceAll} calls
+ * exactly, quirks included; the golden corpus in the tests pins that down.
+ */
+public final class EquationNormalizer {
+
+    private static final char ROOT = '√';
+    private static final char CUBE_ROOT = '∛';
+
+    // LaTeX segments (\command{} or var^{} or var_{}), optionally joined by operators / whitespace
+    private static final Pattern LATEX_SEGMENT = Pattern.compile(
+        "(?:\\\\[a-zA-Z]+(?:\\{[^}]*\\})*|[a-zA-Z0-9]*(?:\\^\\{[^}]+\\}|_\\{[^}]+\\}))" +
+        "(?:[0-9a-zA-Z+\\-*/=<>().^_{} ]*" +
+            "(?:\\\\[a-zA-Z]+(?:\\{[^}]*\\})*|[a-zA-Z0-9]*(?:\\^\\{[^}]+\\}|_\\{[^}]+\\}))" +
+        ")*"
+    );
+
+    private static final String[][] SUBSTITUTIONS = {
+        // ── Superscripts ──────────────────────────────────────────────────
+        {"⁰", "^{0}"}, {"¹", "^{1}"}, {"²", "^{2}"}, {"³", "^{3}"}, {"⁴", "^{4}"}, {"⁵", "^{5}"},
+        {"⁶", "^{6}"}, {"⁷", "^{7}"}, {"⁸", "^{8}"}, {"⁹", "^{9}"}, {"ⁿ", "^{n}"}, {"ˣ", "^{x}"},
+        // ── Subscripts ───────────────────────────────────────────────────
+        {"₀", "_{0}"}, {"₁", "_{1}"}, {"₂", "_{2}"}, {"₃", "_{3}"}, {"₄", "_{4}"}, {"₅", "_{5}"},
+        {"₆", "_{6}"}, {"₇", "_{7}"}, {"₈", "_{8}"}, {"₉", "_{9}"}, {"ₙ", "_{n}"},
+        // ── Unicode fractions ────────────────────────────────────────────
+        {"½", "\\frac{1}{2}"}, {"⅓", "\\frac{1}{3}"}, {"⅔", "\\frac{2}{3}"}, {"¼", "\\frac{1}{4}"},
+        {"¾", "\\frac{3}{4}"}, {"⅛", "\\frac{1}{8}"}, {"⅜", "\\frac{3}{8}"}, {"⅝", "\\frac{5}{8}"},
+        {"⅞", "\\frac{7}{8}"},
+        // ── Operators ────────────────────────────────────────────────────
+        {"×", "\\times "}, {"÷", "\\div "}, {"±", "\\pm "}, {"·", "\\cdot "},
+        // ── Relations ────────────────────────────────────────────────────
+        {"≤", "\\leq "}, {"≥", "\\geq "}, {"≠", "\\neq "}, {"≈", "\\approx "}, {"≡", "\\equiv "},
+        {"∝", "\\propto "},
+        // ── Greek (lower) ─────────────────────────────────────────────────
+        {"α", "\\alpha"}, {"β", "\\beta"}, {"γ", "\\gamma"}, {"δ", "\\delta"}, {"ε", "\\varepsilon"},
+        {"θ", "\\theta"}, {"λ", "\\lambda"}, {"μ", "\\mu"}, {"π", "\\pi"}, {"σ", "\\sigma"},
+        {"τ", "\\tau"}, {"φ", "\\phi"}, {"χ", "\\chi"}, {"ψ", "\\psi"}, {"ω", "\\omega"},
+        // ── Greek (upper) ─────────────────────────────────────────────────
+        {"Δ", "\\Delta"}, {"Σ", "\\Sigma"}, {"Γ", "\\Gamma"}, {"Λ", "\\Lambda"}, {"Ω", "\\Omega"},
+        {"Π", "\\Pi"},
+        // ── Calculus & set notation ───────────────────────────────────────
+        {"∑", "\\sum"}, {"∏", "\\prod"}, {"∫", "\\int"}, {"∂", "\\partial"}, {"∇", "\\nabla"},
+        {"∈", "\\in"}, {"∉", "\\notin"}, {"∪", "\\cup"}, {"∩", "\\cap"}, {"⊂", "\\subset"},
+        {"∅", "\\emptyset"}, {"∞", "\\infty"},
+        // ── Number sets ───────────────────────────────────────────────────
+        {"ℝ", "\\mathbb{R}"}, {"ℤ", "\\mathbb{Z}"}, {"ℕ", "\\mathbb{N}"}, {"ℚ", "\\mathbb{Q}"},
+    };
+
+    // Indexed by char; null means "copy as is". The roots are handled separately.
+    private static final String[] TABLE = buildTable();
+
+    private EquationNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return text;
+
+        // Already wrapped – pass through
+        if (text.indexOf('$') >= 0 || text.contains("\\(") || text.contains("\\[")) return text;
+
+        int first = firstSubstitution(text);
+        // If nothing changes, no wrapping needed
+        if (first < 0) return text;
+
+        StringBuilder out = new StringBuilder(text.length() + 32);
+        out.append(text, 0, first);
+        convert(text, first, text.length(), true, out);
+        return wrapLatexSegments(out.toString());
+    }
+
+    private static int firstSubstitution(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ROOT || c == CUBE_ROOT || (c < TABLE.length && TABLE[c] != null)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Convert {@code text[from, to)} into {@code out}. {@code √(...)} becomes {@code \sqrt{...}}
+     * only at the top level, as a regex match never starts inside a previous match.
+     */
+    private static void convert(String text, int from, int to, boolean matchParens, StringBuilder out) {
+        int copyFrom = from;
+        int i = from;
+        while (i < to) {
+            char c = text.charAt(i);
+            if (c == ROOT || c == CUBE_ROOT) {
+                out.append(text, copyFrom, i);
+                i = convertRoot(text, i, to, matchParens && c == ROOT, out);
+                copyFrom = i;
+            } else if (c < TABLE.length && TABLE[c] != null) {
+                out.append(text, copyFrom, i).append(TABLE[c]);
+                copyFrom = ++i;
+            } else {
+                i++;
+            }
+        }
+        out.append(text, copyFrom, to);
+    }
+
+    /**
+     * √N, √x and √(expr) (then bare √); ∛N and ∛x (then bare ∛). Returns the index after the
+     * consumed input.
+     */
+    private static int convertRoot(String text, int at, int to, boolean matchParens, StringBuilder out) {
+        String open = text.charAt(at) == ROOT ? "\\sqrt{" : "\\sqrt[3]{";
+        int next = at + 1;
+        char c = next < to ? text.charAt(next) : 0;
+
+        if (c >= '0' && c <= '9') {
+            int end = next;
+            while (end < to && text.charAt(end) >= '0' && text.charAt(end) <= '9') {
+                end++;
+            }
+            out.append(open).append(text, next, end).append('}');
+            return end;
+        }
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            out.append(open).append(c).append('}');
+            return next + 1;
+        }
+        if (c == '(' && matchParens) {
+            int close = text.indexOf(')', next + 1);
+            if (close > next + 1 && close < to) {
+                out.append(open);
+                convert(text, next + 1, close, false, out);
+                out.append('}');
+                return close + 1;
+            }
+        }
+        out.append(open).append('}');
+        return next;
+    }
+
+    /**
+     * Scan text for LaTeX command / sub-superscript segments and wrap each in $...$.
+     * Surrounding plain-language words are left unchanged.
+     */
+    private static String wrapLatexSegments(String text) {
+        if (text.contains("$") || text.contains("\\(")) return text;
+        Matcher m = LATEX_SEGMENT.matcher(text);
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        while (m.find()) {
+            String seg = m.group().trim();
+            if (!seg.isEmpty()) {
+                m.appendReplacement(sb, Matcher.quoteReplacement("$" + seg + "$"));
+            }
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static String[] buildTable() {
+        char max = 0;
+        for (String[] substitution : SUBSTITUTIONS) {
+            max = (char) Math.max(max, substitution[0].charAt(0));
+        }
+        String[] table = new String[max + 1];
+        for (String[] substitution : SUBSTITUTIONS) {
+            table[substitution[0].charAt(0)] = substitution[1];
+        }
+        return table;
+    }
+}
@@ -0,0 +1,243 @@
+package com.exam.service;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.exam.entity.ExamForm;
+import com.exam.repository.ExamFormRepository;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Form pools for very large classes.
+ *
+ * Instead of one paper per student, a fixed number of forms is cut from the exam once (same
+ * difficulty quotas, same shuffles) and each student is given a form by hashing their email.
+ * Students on the same form share its layout and answer key, and only the forms are persisted,
+ * so generation and storage grow with the number of forms rather than the number of students.
+ */
+@Service
+public class FormPoolService {
+
+    public static final int MAX_FORMS = 256;
+
+    private static final Type STRING_LIST = new TypeToken<List<String>>() { }.getType();
+    private static final Type ANSWER_KEY = new TypeToken<Map<Integer, String>>() { }.getType();
+    private static final int MAX_CACHED_FORMS = 4096;
+
+    @Autowired
+    private ExamVariantService examVariantService;
+
+    @Autowired
+    private ExamFormRepository examFormRepository;
+
+    private final Gson gson = new Gson();
+    // formId -> form, so reloaded assignments share the form instead of re-reading it per student
+    private final Map<String, Form> formsById = new ConcurrentHashMap<>();
+
+    /**
+     * One form: a paper layout shared by every student hashed onto it, with its answer key built once.
+     */
+    public static final class Form implements PaperLayout {
+        private final String formId;
+        private final int formNumber;
+        private final ExamContent content;
+        private final int[] questionOrder;
+        private final byte[][] choiceOrder;
+        private final Map<Integer, String> answerKey;
+
+        Form(String formId, int formNumber, ExamContent content, int[] questionOrder, byte[][] choiceOrder) {
+            this.formId = formId;
+            this.formNumber = formNumber;
+            this.content = content;
+            this.questionOrder = questionOrder;
+            this.choiceOrder = choiceOrder;
+            Map<Integer, String> key = new HashMap<>();
+            for (int position = 0; position < questionOrder.length; position++) {
+                String answer = content.getAnswer(questionOrder[position]);
+                if (answer != null) {
+                    key.put(position + 1, answer);
+                }
+            }
+            this.answerKey = Collections.unmodifiableMap(key);
+        }
+
+        public String getFormId() { return formId; }
+
+        /**
+         * 1-based, as shown to the teacher ("Form 3").
+         */
+        public int getFormNumber() { return formNumber; }
+        public ExamContent getContent() { return content; }
+        public Map<Integer, String> getAnswerKey() { return answerKey; }
+
+        @Override
+        public int[] getQuestionOrder() { return questionOrder; }
+
+        @Override
+        public byte[][] getChoiceOrder() { return choiceOrder; }
+    }
+
+    /**
+     * The forms of one distribution and the salt students are hashed with.
+     */
+    public static final class FormPool {
+        private final String poolId;
+        private final long salt;
+        private final List<Form> forms;
+
+        FormPool(String poolId, long salt, List<Form> forms) {
+            this.poolId = poolId;
+            this.salt = salt;
+            this.forms = Collections.unmodifiableList(forms);
+        }
+
+        public String getPoolId() { return poolId; }
+        public List<Form> getForms() { return forms; }
+
+        /**
+         * The form a student sits. Stable for the pool, independent of who else is in the class.
+         */
+        public Form formFor(String studentEmail) {
+            return forms.get(formIndex(studentEmail, salt, forms.size()));
+        }
+    }
+
+    /**
+     * Cut {@code formCount} forms (capped at {@link #MAX_FORMS}) with the given quotas and save them.
+     */
+    public FormPool createPool(ExamContent content, int formCount, int easyCount, int mediumCount, int hardCount,
+                               RandomGenerator rng) {
+        return createPool(content, formCount,
+            random -> examVariantService.derive(content, random, easyCount, mediumCount, hardCount), rng);
+    }
+
+    /**
+     * Cut {@code formCount} forms (capped at {@link #MAX_FORMS}) with a custom cutter, e.g. a
+     * blueprint assembly, and save them.
+     */
+    public FormPool createPool(ExamContent content, int formCount, Function<RandomGenerator, PaperLayout> cutter,
+                               RandomGenerator rng) {
+        FormPool pool = buildPool(content, formCount, cutter, rng);
+        List<ExamForm> rows = new ArrayList<>(pool.forms.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Form form : pool.forms) {
+            rows.add(toEntity(pool.poolId, form, now));
+        }
+        examFormRepository.saveAll(rows);
+        if (formsById.size() + pool.forms.size() > MAX_CACHED_FORMS) {
+            formsById.clear();
+        }
+        for (Form form : pool.forms) {
+            formsById.put(form.formId, form);
+        }
+        System.out.println("🧾 Form pool " + pool.poolId + ": " + pool.forms.size() + " forms of "
+            + pool.forms.get(0).questionOrder.length + " questions");
+        return pool;
+    }
+
+    /**
+     * A form by id, from memory or, after a restart, from its saved row. Null if it no longer exists.
+     */
+    public Form findForm(String formId) {
+        Form form = formsById.get(formId);
+        if (form != null) {
+            return form;
+        }
+        Optional<ExamForm> row = examFormRepository.findByFormId(formId);
+        if (row.isEmpty()) {
+            return null;
+        }
+        form = toForm(row.get());
+        Form existing = formsById.putIfAbsent(formId, form);
+        return existing != null ? existing : form;
+    }
+
+    FormPool buildPool(ExamContent content, int formCount, int easyCount, int mediumCount, int hardCount,
+                       RandomGenerator rng) {
+        return buildPool(content, formCount,
+            random -> examVariantService.derive(content, random, easyCount, mediumCount, hardCount), rng);
+    }
+
+    FormPool buildPool(ExamContent content, int formCount, Function<RandomGenerator, PaperLayout> cutter,
+                       RandomGenerator rng) {
+        int count = Math.max(1, Math.min(formCount, MAX_FORMS));
+        String poolId = "F_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        List<Form> forms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PaperLayout layout = cutter.apply(rng);
+            forms.add(new Form(poolId + "_" + (i + 1), i + 1, content, layout.getQuestionOrder(), layout.getChoiceOrder()));
+        }
+        return new FormPool(poolId, rng.nextLong(), forms);
+    }
+
+    /**
+     * Salted 64-bit mix of the normalized email, reduced to a form index. Spreads any class
+     * evenly over the forms, so two neighbours share a form with probability 1/formCount.
+     */
+    static int formIndex(String studentEmail, long salt, int formCount) {
+        long h = salt ^ (studentEmail != null ? studentEmail.trim().toLowerCase(Locale.ROOT).hashCode() : 0);
+        // MurmurHash3 finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) formCount);
+    }
+
+    private ExamForm toEntity(String poolId, Form form, LocalDateTime createdAt) {
+        List<String> questions = new ArrayList<>(form.questionOrder.length);
+        List<String> difficulties = new ArrayList<>(form.questionOrder.length);
+        List<String> topics = new ArrayList<>(form.questionOrder.length);
+        for (int position = 0; position < form.questionOrder.length; position++) {
+            int index = form.questionOrder[position];
+            questions.add(form.content.render(index, form.choiceOrder[position]));
+            difficulties.add(form.content.getDifficulty(index));
+            topics.add(form.content.getTopic(index));
+        }
+        ExamForm row = new ExamForm();
+        row.setFormId(form.formId);
+        row.setPoolId(poolId);
+        row.setFormNumber(form.formNumber);
+        row.setSourceExamId(form.content.getExamId());
+        row.setCreatedAt(createdAt);
+        row.setQuestionsJson(gson.toJson(questions));
+        row.setDifficultiesJson(gson.toJson(difficulties));
+        row.setTopicsJson(gson.toJson(topics));
+        row.setAnswerKeyJson(gson.toJson(form.answerKey));
+        return row;
+    }
+
+    private Form toForm(ExamForm row) {
+        List<String> questions = gson.fromJson(row.getQuestionsJson(), STRING_LIST);
+        List<String> difficulties = gson.fromJson(row.getDifficultiesJson(), STRING_LIST);
+        List<String> topics = gson.fromJson(row.getTopicsJson(), STRING_LIST);
+        Map<Integer, String> answerKey = gson.fromJson(row.getAnswerKeyJson(), ANSWER_KEY);
+        questions = questions != null ? questions : List.of();
+
+        // Saved already rendered: its own content in identity order, like a reloaded assignment
+        ExamContent content = new ExamContent(row.getSourceExamId(), questions,
+            difficulties != null ? difficulties : List.of(), topics != null ? topics : List.of(),
+            answerKey != null ? answerKey : Map.of());
+        int[] order = new int[questions.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        return new Form(row.getFormId(), row.getFormNumber(), content, order, new byte[order.length][]);
+    }
+}
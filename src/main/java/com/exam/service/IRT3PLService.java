@@ -158,19 +158,34 @@ public class IRT3PLService {
         double information = 0.0;
         
         for (ItemParameters params : itemParams) {
-            double a = params.getDiscrimination();
-            double c = params.getGuessing();
-            double prob = calculateProbability(theta, params);
-            
-            double pStar = (prob - c) / (1 - c);
-            double itemInfo = a * a * pStar * (1 - pStar) * ((1 - c) * (1 - c));
-            
-            information += itemInfo;
+            information += itemInformation(theta, params);
         }
         
         return information;
     }
     
+    /**
+     * Information of one item at a given ability level; the measure item selection maximizes
+     */
+    public double itemInformation(double theta, ItemParameters params) {
+        double a = params.getDiscrimination();
+        double c = params.getGuessing();
+        double prob = calculateProbability(theta, params);
+        
+        double pStar = (prob - c) / (1 - c);
+        return a * a * pStar * (1 - pStar) * ((1 - c) * (1 - c));
+    }
+    
+    /**
+     * Uncalibrated parameters for a question from its difficulty label and number of choices:
+     * b = -1 / 0 / +1 for Easy / Medium / Hard, a = 1, c = 1 / choices (0 for text answers)
+     */
+    public ItemParameters parametersFor(String difficulty, int choiceCount) {
+        double b = "Easy".equalsIgnoreCase(difficulty) ? -1.0 : "Hard".equalsIgnoreCase(difficulty) ? 1.0 : 0.0;
+        double c = choiceCount > 1 ? 1.0 / choiceCount : 0.0;
+        return new ItemParameters(1.0, b, c);
+    }
+    
     /**
      * Generate default item parameters for questions
      * In practice, these would be calibrated from pilot testing
@@ -238,7 +253,8 @@ public class IRT3PLService {
     
     /**
      * Select next best item for adaptive testing
-     * Returns the index of the item with maximum information at current ability
+     * Returns the index of the item with maximum information at current ability.
+     * Scans the whole bank; live sessions use a precomputed {@link ItemInformationIndex}
      */
     public int selectNextItem(double currentTheta, List<ItemParameters> availableItems, Set<Integer> usedIndices) {
         int bestIndex = -1;
@@ -247,13 +263,7 @@ public class IRT3PLService {
         for (int i = 0; i < availableItems.size(); i++) {
             if (usedIndices.contains(i)) continue;
             
-            ItemParameters params = availableItems.get(i);
-            double a = params.getDiscrimination();
-            double c = params.getGuessing();
-            double prob = calculateProbability(currentTheta, params);
-            
-            double pStar = (prob - c) / (1 - c);
-            double information = a * a * pStar * (1 - pStar) * ((1 - c) * (1 - c));
+            double information = itemInformation(currentTheta, availableItems.get(i));
             
             if (information > maxInformation) {
                 maxInformation = information;
@@ -0,0 +1,224 @@
+package com.exam.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Content-addressed store for images pulled out of uploaded PDFs.
+ *
+ * Each image is keyed by a SHA-256 of its encoded PDF stream together with everything that
+ * decides its pixels: the whole image dictionary (filters, decode parameters, /Decode, masks and
+ * soft mask) and the resolved colour space, including palettes and ICC profiles. It is written
+ * once as {@code <root>/<first two hex chars>/<hash>.png}. Question blocks point at that shared
+ * URL, so a re-uploaded paper, or a school logo that appears on every exam, costs a hash instead
+ * of a decode, a PNG encode and another file.
+ */
+@Service
+public class ImageStoreService {
+
+    @Value("${app.images.store-dir:uploads/exam-images/objects}")
+    private String storeDir = "uploads/exam-images/objects";
+
+    @Value("${app.images.url-prefix:/uploads/exam-images/objects/}")
+    private String urlPrefix = "/uploads/exam-images/objects/";
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    private final AtomicLong objectsWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong dedupHits = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public ImageStoreService() {
+    }
+
+    /**
+     * Standalone store (benchmarks, tools) rooted at {@code root} and served under {@code urlPrefix}.
+     */
+    public ImageStoreService(Path root, String urlPrefix) {
+        this.storeDir = root.toString();
+        this.urlPrefix = urlPrefix;
+    }
+
+    /**
+     * Store an image if its content is new and return its URL either way.
+     */
+    public String store(PDImageXObject image) throws IOException {
+        String key = contentKey(image);
+        String relative = key.substring(0, 2) + "/" + key + ".png";
+        Path target = Paths.get(storeDir).resolve(relative);
+
+        if (Files.exists(target)) {
+            dedupHits.incrementAndGet();
+            bytesSaved.addAndGet(Files.size(target));
+            return urlPrefix + relative;
+        }
+
+        // Write beside the target and rename, so a concurrent reader never sees a half-written PNG
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), key, ".tmp");
+        try {
+            ImageIO.write(image.getImage(), "PNG", temp.toFile());
+            long size = Files.size(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            objectsWritten.incrementAndGet();
+            bytesWritten.addAndGet(size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if (imageVariantService != null) {
+            imageVariantService.schedule(urlPrefix + relative);
+        }
+        return urlPrefix + relative;
+    }
+
+    /**
+     * Dedup savings since startup plus what is on disk now.
+     */
+    public Map<String, Object> getDedupReport() throws IOException {
+        long storedObjects = 0;
+        long storedBytes = 0;
+        Path root = Paths.get(storeDir);
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".png"))::iterator) {
+                    storedObjects++;
+                    storedBytes += Files.size(file);
+                }
+            }
+        }
+
+        long written = objectsWritten.get();
+        long hits = dedupHits.get();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("storeDir", root.toAbsolutePath().toString());
+        report.put("storedObjects", storedObjects);
+        report.put("storedBytes", storedBytes);
+        report.put("objectsWritten", written);
+        report.put("bytesWritten", bytesWritten.get());
+        report.put("dedupHits", hits);
+        report.put("bytesSaved", bytesSaved.get());
+        report.put("hitRate", written + hits == 0 ? 0.0 : (double) hits / (written + hits));
+        return report;
+    }
+
+    private String contentKey(PDImageXObject image) throws IOException {
+        MessageDigest digest = sha256();
+        // The encoded stream and its dictionary (soft mask and masks included), so a repeat never has to be decoded
+        digestCos(digest, image.getCOSObject(), Collections.newSetFromMap(new IdentityHashMap<>()));
+        // A /ColorSpace that names a page resource only means something once resolved
+        PDColorSpace colorSpace = image.isStencil() ? null : image.getColorSpace();
+        update(digest, "|cs:");
+        digestCos(digest, colorSpace != null ? colorSpace.getCOSObject() : null, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Canonical, unambiguous bytes of a COS value: dictionaries by sorted key, streams as their
+     * dictionary plus raw (still encoded) bytes, references by what they point to. /Length is left
+     * out; it only describes bytes that are hashed anyway.
+     */
+    private void digestCos(MessageDigest digest, COSBase value, Set<COSBase> visiting) throws IOException {
+        if (value instanceof COSObject reference) {
+            value = reference.getObject();
+        }
+        if (value == null || value instanceof org.apache.pdfbox.cos.COSNull) {
+            update(digest, "null;");
+        } else if (value instanceof COSName name) {
+            update(digest, "/" + name.getName().length() + ":" + name.getName());
+        } else if (value instanceof COSString string) {
+            byte[] bytes = string.getBytes();
+            update(digest, "(" + bytes.length + ":");
+            digest.update(bytes);
+        } else if (value instanceof COSInteger integer) {
+            update(digest, "i" + integer.longValue() + ";");
+        } else if (value instanceof COSNumber number) {
+            update(digest, "f" + number.floatValue() + ";");
+        } else if (value instanceof COSBoolean bool) {
+            update(digest, bool.getValue() ? "true;" : "false;");
+        } else if (value instanceof COSArray array) {
+            update(digest, "[" + array.size() + ":");
+            for (int i = 0; i < array.size(); i++) {
+                digestCos(digest, array.get(i), visiting);
+            }
+            update(digest, "]");
+        } else if (value instanceof COSDictionary dictionary) {
+            if (!visiting.add(dictionary)) {
+                update(digest, "cycle;");
+                return;
+            }
+            List<COSName> keys = new ArrayList<>(dictionary.keySet());
+            keys.remove(COSName.LENGTH);
+            keys.sort(Comparator.comparing(COSName::getName));
+            update(digest, "<<" + keys.size() + ":");
+            for (COSName key : keys) {
+                digestCos(digest, key, visiting);
+                digestCos(digest, dictionary.getItem(key), visiting);
+            }
+            update(digest, ">>");
+            if (dictionary instanceof COSStream stream) {
+                update(digest, "stream:");
+                try (InputStream raw = stream.createRawInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = raw.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+                update(digest, ":endstream");
+            }
+            visiting.remove(dictionary);
+        } else {
+            update(digest, value.getClass().getSimpleName() + ";");
+        }
+    }
+
+    private static void update(MessageDigest digest, String text) {
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
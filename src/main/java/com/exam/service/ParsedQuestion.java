@@ -0,0 +1,225 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * One question block split into its parts: stem, labelled choices, media markers and type.
+ *
+ * Questions are stored as text blocks ({@code "stem\nA) x\nB) y\n[IMG:url]"}); this is the same
+ * block parsed once, so rendering, exports and answer-key conversion read fields instead of
+ * re-splitting and regex-matching the text on every use. Immutable.
+ */
+public final class ParsedQuestion {
+
+    public enum Type { MULTIPLE_CHOICE, TEXT_INPUT }
+
+    public static final String TEXT_INPUT_MARKER = "[TEXT_INPUT]";
+
+    // Markers that are never shown to students: question type, difficulty tags and inline media
+    private static final Pattern HIDDEN_MARKERS = Pattern.compile(
+        "(?i)\\[(easy|medium|hard|essay|open-ended|open ended|text_input)\\]|\\[(IMG|VID):[^\\]]+\\]");
+
+    private final String text;
+    private final Type type;
+    private final String difficulty;
+    private final String topic;
+    private final String firstLine;
+    private final String stem;
+    private final List<String> details;
+    private final String[] choices;
+    private final List<String> choiceList;
+    private final String[] mediaMarkers;
+    private final List<String> imageUrls;
+    private final List<String> videoUrls;
+
+    private ParsedQuestion(String text, Type type, String difficulty, String topic, String firstLine, String stem,
+                           List<String> details, String[] choices, String[] mediaMarkers,
+                           List<String> imageUrls, List<String> videoUrls) {
+        this.text = text;
+        this.type = type;
+        this.difficulty = difficulty;
+        this.topic = topic;
+        this.firstLine = firstLine;
+        this.stem = stem;
+        this.details = details;
+        this.choices = choices;
+        this.choiceList = Collections.unmodifiableList(Arrays.asList(choices));
+        this.mediaMarkers = mediaMarkers;
+        this.imageUrls = imageUrls;
+        this.videoUrls = videoUrls;
+    }
+
+    public static ParsedQuestion parse(String text) {
+        return parse(text, null, null);
+    }
+
+    /**
+     * Parse a stored question block. Choice lines are {@code X) text}, media lines are
+     * {@code [IMG:url]} / {@code [VID:url]}; any other line after the first is kept as a detail.
+     * Difficulty and topic are the ones stored with the question, defaulting to Medium / General.
+     */
+    public static ParsedQuestion parse(String text, String difficulty, String topic) {
+        String block = text != null ? text : "";
+        String[] lines = block.split("\n");
+        List<String> details = new ArrayList<>();
+        List<String> choices = new ArrayList<>();
+        List<String> media = new ArrayList<>();
+        List<String> images = new ArrayList<>();
+        List<String> videos = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].trim();
+            int choiceStart = choiceTextStart(line);
+            if (choiceStart > 0) {
+                choices.add(line.substring(choiceStart));
+            } else if (isMediaLine(line)) {
+                media.add(line);
+                (line.startsWith("[IMG:") ? images : videos).add(line.substring(5, line.length() - 1));
+            } else {
+                String detail = HIDDEN_MARKERS.matcher(line).replaceAll("").trim();
+                if (!detail.isEmpty()) {
+                    details.add(detail);
+                }
+            }
+        }
+
+        boolean textInput = block.startsWith(TEXT_INPUT_MARKER) || choices.isEmpty();
+        String stem = HIDDEN_MARKERS.matcher(lines[0]).replaceAll("").trim();
+        return new ParsedQuestion(block, textInput ? Type.TEXT_INPUT : Type.MULTIPLE_CHOICE,
+            difficulty != null ? difficulty : "Medium", topic != null ? topic : "General", lines[0], stem,
+            Collections.unmodifiableList(details), choices.toArray(new String[0]), media.toArray(new String[0]),
+            Collections.unmodifiableList(images), Collections.unmodifiableList(videos));
+    }
+
+    /**
+     * The block as stored.
+     */
+    public String getText() { return text; }
+    public Type getType() { return type; }
+    public String getDifficulty() { return difficulty; }
+    public String getTopic() { return topic; }
+
+    /**
+     * Marked {@code [TEXT_INPUT]}, or has no choices to pick from.
+     */
+    public boolean isTextInput() { return type == Type.TEXT_INPUT; }
+
+    /**
+     * First line of the block without type, difficulty or media markers.
+     */
+    public String getStem() { return stem; }
+
+    /**
+     * Lines after the stem that are neither choices nor media, markers removed.
+     */
+    public List<String> getDetails() { return details; }
+
+    public List<String> getImageUrls() { return imageUrls; }
+    public List<String> getVideoUrls() { return videoUrls; }
+
+    public int getChoiceCount() {
+        return choices.length;
+    }
+
+    /**
+     * Choice text without its label.
+     */
+    public String getChoice(int index) {
+        return choices[index];
+    }
+
+    public List<String> getChoices() { return choiceList; }
+
+    /**
+     * Choice text for a letter answer such as "B" (case-insensitive), or null if out of range.
+     */
+    public String getChoiceForLetter(String letter) {
+        if (letter == null || letter.trim().length() != 1) {
+            return null;
+        }
+        int index = Character.toUpperCase(letter.trim().charAt(0)) - 'A';
+        return index >= 0 && index < choices.length ? choices[index] : null;
+    }
+
+    /**
+     * Block with its choices in the given order, relabelled A), B), ... and followed by the media
+     * lines. Detail lines are not carried over; a null order or a block without choices renders as stored.
+     */
+    public String render(byte[] choiceOrder) {
+        if (choiceOrder == null || choices.length == 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length() + 16);
+        result.append(firstLine);
+        char label = 'A';
+        for (byte position : choiceOrder) {
+            result.append("\n").append(label).append(") ").append(choices[position & 0xFF]);
+            label++;
+        }
+        for (String marker : mediaMarkers) {
+            result.append("\n").append(marker);
+        }
+        return result.toString();
+    }
+
+    /**
+     * This question as {@link #render} lays it out, without parsing the rendered text again.
+     */
+    public ParsedQuestion withChoiceOrder(byte[] choiceOrder) {
+        if (choiceOrder == null || choices.length == 0) {
+            return this;
+        }
+        String[] reordered = new String[choiceOrder.length];
+        for (int i = 0; i < choiceOrder.length; i++) {
+            reordered[i] = choices[choiceOrder[i] & 0xFF];
+        }
+        return new ParsedQuestion(render(choiceOrder), type, difficulty, topic, firstLine, stem,
+            Collections.emptyList(), reordered, mediaMarkers, imageUrls, videoUrls);
+    }
+
+    /**
+     * Lines for printed papers: stem, details, relabelled choices, then media markers.
+     */
+    public List<String> getPrintableLines() {
+        List<String> lines = new ArrayList<>(1 + details.size() + choices.length + mediaMarkers.length);
+        lines.add(stem);
+        lines.addAll(details);
+        char label = 'A';
+        for (String choice : choices) {
+            lines.add(label + ") " + choice);
+            label++;
+        }
+        Collections.addAll(lines, mediaMarkers);
+        return lines;
+    }
+
+    /**
+     * Start of the choice text in a trimmed {@code X) text} line, or -1. Same lines as
+     * {@code ^[A-Za-z]\)\s+.+}, without a regex.
+     */
+    private static int choiceTextStart(String line) {
+        if (line.length() < 4 || line.charAt(1) != ')' || !isAsciiLetter(line.charAt(0)) || !isRegexSpace(line.charAt(2))) {
+            return -1;
+        }
+        int start = 3;
+        while (start < line.length() && isRegexSpace(line.charAt(start))) {
+            start++;
+        }
+        return start < line.length() ? start : -1;
+    }
+
+    private static boolean isMediaLine(String line) {
+        return line.length() >= 7 && (line.startsWith("[IMG:") || line.startsWith("[VID:")) && line.endsWith("]");
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,181 @@
+package com.exam.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Parsed questions of a previous upload, keyed by the fingerprint of the source block they came
+ * from, so a re-upload only re-parses the blocks that actually changed.
+ *
+ * A fingerprint covers the block text as extracted (whitespace collapsed) plus the external
+ * answer-key entry for it, if any. Image lines are part of the block, and image URLs are content
+ * hashes, so replacing a picture changes the fingerprint too. Identical blocks are handed out in
+ * upload order, one previous question per block.
+ */
+public final class QuestionReuseIndex {
+
+    /**
+     * What a previous upload made of one source block.
+     */
+    public static final class Entry {
+        private final String question;
+        private final String answer;
+        private final String difficulty;
+        private final String topic;
+
+        public Entry(String question, String answer, String difficulty, String topic) {
+            this.question = question;
+            this.answer = answer;
+            this.difficulty = difficulty;
+            this.topic = topic;
+        }
+
+        public String getQuestion() { return question; }
+        public String getAnswer() { return answer; }
+        public String getDifficulty() { return difficulty; }
+        public String getTopic() { return topic; }
+    }
+
+    private final Map<String, ArrayDeque<Entry>> entries = new HashMap<>();
+    private final int previousQuestions;
+    private int reused;
+    private int reparsed;
+
+    private QuestionReuseIndex(int previousQuestions) {
+        this.previousQuestions = previousQuestions;
+    }
+
+    /**
+     * An index that never matches: a first upload.
+     */
+    public static QuestionReuseIndex empty() {
+        return new QuestionReuseIndex(0);
+    }
+
+    /**
+     * Index a previous upload. The lists are parallel; {@code answerKey} is 1-based like
+     * {@code UploadedExam}'s, and {@code topics} may be null when they were never computed.
+     */
+    public static QuestionReuseIndex of(List<String> fingerprints, List<String> questions, List<String> difficulties,
+                                        List<String> topics, Map<Integer, String> answerKey) {
+        QuestionReuseIndex index = new QuestionReuseIndex(questions.size());
+        int count = Math.min(fingerprints.size(), questions.size());
+        for (int i = 0; i < count; i++) {
+            String fingerprint = fingerprints.get(i);
+            if (fingerprint == null) {
+                continue;
+            }
+            Entry entry = new Entry(questions.get(i), answerKey.get(i + 1),
+                i < difficulties.size() ? difficulties.get(i) : null,
+                topics != null && i < topics.size() ? topics.get(i) : null);
+            index.entries.computeIfAbsent(fingerprint, key -> new ArrayDeque<>()).add(entry);
+        }
+        return index;
+    }
+
+    /**
+     * The previous result for this block, or null when the block is new or changed. Each call
+     * is counted for {@link #summary}.
+     */
+    public Entry take(String fingerprint) {
+        ArrayDeque<Entry> candidates = entries.get(fingerprint);
+        Entry entry = candidates != null ? candidates.poll() : null;
+        if (entry != null) {
+            reused++;
+        } else {
+            reparsed++;
+        }
+        return entry;
+    }
+
+    public boolean isEmpty() {
+        return previousQuestions == 0;
+    }
+
+    /**
+     * Unchanged / changed / added / removed counts. A block that is new in this upload and a
+     * previous one that is gone are paired up as one changed question.
+     */
+    public Map<String, Object> summary() {
+        int removedOrChanged = Math.max(0, previousQuestions - reused);
+        int changed = Math.min(reparsed, removedOrChanged);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("previousQuestions", previousQuestions);
+        summary.put("questions", reused + reparsed);
+        summary.put("unchanged", reused);
+        summary.put("changed", changed);
+        summary.put("added", reparsed - changed);
+        summary.put("removed", removedOrChanged - changed);
+        return summary;
+    }
+
+    /**
+     * Fingerprint of one source block, with the external answer-key entry for it (may be null).
+     */
+    public static String fingerprint(CharSequence block, String externalAnswer) {
+        StringBuilder normalized = new StringBuilder(block.length() + 16);
+        boolean pendingSpace = false;
+        for (int i = 0; i < block.length(); i++) {
+            char c = block.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        if (externalAnswer != null) {
+            normalized.append('\u0000').append(externalAnswer.trim());
+        }
+        MessageDigest digest = sha256();
+        byte[] hash = digest.digest(normalized.toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash, 0, 16);
+    }
+
+    /**
+     * Fingerprint of the uploaded files byte for byte; an identical re-upload skips parsing entirely.
+     */
+    public static String uploadFingerprint(MultipartFile exam, MultipartFile answerKey) throws IOException {
+        MessageDigest digest = sha256();
+        for (MultipartFile file : new MultipartFile[] {exam, answerKey}) {
+            digest.update((byte) '|');
+            if (file == null || file.isEmpty()) {
+                continue;
+            }
+            String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+            // The extension picks the parser, so it is part of the content
+            digest.update(name.substring(name.lastIndexOf('.') + 1).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            try (InputStream in = file.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Automated test assembly: picks the questions of a paper so that it meets an
+ * {@link ExamBlueprint}'s topic-by-difficulty quotas and, optionally, its IRT target information.
+ *
+ * Work is split the way bulk distribution needs it. {@link #plan} runs once per distribution:
+ * it partitions the bank into blueprint cells (topic x difficulty), repairs quotas the bank
+ * cannot meet by moving the shortfall to the nearest cells with spare questions (same topic
+ * first, then same difficulty, then anything) and records each move, and precomputes item
+ * information at the target abilities. {@link #assemble} then runs per student:
+ * <ul>
+ *   <li>without a target, each cell's quota is a partial Fisher-Yates sample, O(paper size);</li>
+ *   <li>with a target, each cell draws a random pool of {@value #POOL_FACTOR}x its quota, fills
+ *       the quota greedily by the information that still closes the gap to the target, then
+ *       repairs by swapping picked and unpicked pool items of the same cell while the gap
+ *       shrinks. Swaps never cross cells, so the quotas hold throughout.</li>
+ * </ul>
+ * Neither depends on the bank size, so papers from banks of thousands of items stay well under
+ * a millisecond. Item parameters are the uncalibrated ones of {@link IRT3PLService#parametersFor}.
+ */
+@Service
+public class TestAssemblyService {
+
+    // Random candidates drawn per required question when aiming for a target information
+    static final int POOL_FACTOR = 4;
+
+    private static final String[] DIFFICULTY_NAMES = {"Easy", "Medium", "Hard"};
+
+    @Autowired
+    private IRT3PLService irt3PLService;
+
+    @Autowired
+    private FisherYatesService fisherYatesService;
+
+    /**
+     * A blueprint resolved against one bank: feasible quotas per cell and their candidates.
+     * Immutable; shared by every paper of a distribution.
+     */
+    public static final class Assembly {
+        private final ExamContent content;
+        private final String[] cellNames;
+        // Candidates per cell (row * 3 + difficulty bucket) and the repaired quota for it
+        private final int[][] candidates;
+        private final int[] quotas;
+        private final int total;
+        private final int[] bucketCounts;
+        private final double[] targets;
+        // information[item * targets.length + j] at the j-th target theta; null without a target
+        private final float[] information;
+        private final List<String> adjustments;
+
+        Assembly(ExamContent content, String[] cellNames, int[][] candidates, int[] quotas, double[] targets,
+                 float[] information, List<String> adjustments) {
+            this.content = content;
+            this.cellNames = cellNames;
+            this.candidates = candidates;
+            this.quotas = quotas;
+            this.targets = targets;
+            this.information = information;
+            this.adjustments = Collections.unmodifiableList(adjustments);
+            int sum = 0;
+            this.bucketCounts = new int[3];
+            for (int cell = 0; cell < quotas.length; cell++) {
+                sum += quotas[cell];
+                bucketCounts[cell % 3] += quotas[cell];
+            }
+            this.total = sum;
+        }
+
+        public ExamContent getContent() { return content; }
+        public int getTotal() { return total; }
+        public boolean hasTarget() { return targets.length > 0; }
+
+        /**
+         * Questions per paper of one difficulty bucket, after repair.
+         */
+        public int getBucketCount(int bucket) { return bucketCounts[bucket]; }
+
+        /**
+         * One line per quota the bank could not meet as written, e.g. "Arrays/Hard: 2 moved to Arrays/Medium".
+         */
+        public List<String> getAdjustments() { return adjustments; }
+
+        /**
+         * Questions per paper of a cell such as "Arrays/Easy" (0 if the blueprint has no such cell).
+         */
+        public int getQuota(String topic, int bucket) {
+            for (int cell = bucket; cell < quotas.length; cell += 3) {
+                if (cellNames[cell].equalsIgnoreCase(topic + "/" + DIFFICULTY_NAMES[bucket])) {
+                    return quotas[cell];
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Resolve a blueprint against a bank. Runs once per distribution, O(bank size x targets).
+     */
+    public Assembly plan(ExamContent content, ExamBlueprint blueprint) {
+        List<ExamBlueprint.Row> rows = blueprint.getRows();
+        Map<String, Integer> rowOfTopic = new HashMap<>();
+        int anyRow = -1;
+        for (int r = 0; r < rows.size(); r++) {
+            if (rows.get(r).isAnyTopic()) {
+                anyRow = r;
+            } else {
+                rowOfTopic.put(normalize(rows.get(r).getTopic()), r);
+            }
+        }
+
+        int cells = rows.size() * 3;
+        int[] cellOf = new int[content.size()];
+        int[] cellSizes = new int[cells];
+        for (int i = 0; i < cellOf.length; i++) {
+            Integer row = rowOfTopic.get(normalize(content.getTopic(i)));
+            int r = row != null ? row : anyRow;
+            cellOf[i] = r < 0 ? -1 : r * 3 + content.getBucket(i);
+            if (cellOf[i] >= 0) {
+                cellSizes[cellOf[i]]++;
+            }
+        }
+        int[][] candidates = new int[cells][];
+        String[] cellNames = new String[cells];
+        int[] quotas = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            candidates[cell] = new int[cellSizes[cell]];
+            cellNames[cell] = rows.get(cell / 3).getTopic() + "/" + DIFFICULTY_NAMES[cell % 3];
+            quotas[cell] = rows.get(cell / 3).getCount(cell % 3);
+        }
+        int[] filled = new int[cells];
+        for (int i = 0; i < cellOf.length; i++) {
+            if (cellOf[i] >= 0) {
+                candidates[cellOf[i]][filled[cellOf[i]]++] = i;
+            }
+        }
+
+        List<String> adjustments = repair(candidates, quotas, cellNames);
+
+        double[] targets = blueprint.getTargetInformation();
+        float[] information = null;
+        if (targets.length > 0) {
+            double[] thetas = blueprint.getTargetThetas();
+            int total = 0;
+            for (int quota : quotas) {
+                total += quota;
+            }
+            for (int j = 0; j < targets.length; j++) {
+                // No explicit amount: as much as the paper can give (item information stays below 1)
+                targets[j] = targets[j] > 0 ? targets[j] : total;
+            }
+            information = new float[content.size() * targets.length];
+            for (int i = 0; i < content.size(); i++) {
+                IRT3PLService.ItemParameters params = irt3PLService.parametersFor(content.getDifficulty(i), content.getChoiceCount(i));
+                for (int j = 0; j < targets.length; j++) {
+                    information[i * targets.length + j] = (float) irt3PLService.itemInformation(thetas[j], params);
+                }
+            }
+        }
+        return new Assembly(content, cellNames, candidates, quotas, targets, information, adjustments);
+    }
+
+    /**
+     * Source question indices of one student's paper, grouped by cell (callers shuffle the order).
+     * Thread-safe: used in parallel by bulk distribution.
+     */
+    public int[] assemble(Assembly assembly, RandomGenerator rng) {
+        int[] paper = new int[assembly.total];
+        int filled = 0;
+        if (!assembly.hasTarget()) {
+            for (int cell = 0; cell < assembly.quotas.length; cell++) {
+                int[] picked = fisherYatesService.sample(assembly.candidates[cell], assembly.quotas[cell], rng);
+                System.arraycopy(picked, 0, paper, filled, picked.length);
+                filled += picked.length;
+            }
+            return paper;
+        }
+
+        double[] current = new double[assembly.targets.length];
+        int[][] pools = new int[assembly.quotas.length][];
+        for (int cell = 0; cell < pools.length; cell++) {
+            int quota = assembly.quotas[cell];
+            if (quota == 0) {
+                continue;
+            }
+            int[] pool = fisherYatesService.sample(assembly.candidates[cell],
+                (int) Math.min(assembly.candidates[cell].length, (long) quota * POOL_FACTOR), rng);
+            // Greedy: the pool is in random order, so ties (and a met target) fall back to a random pick
+            for (int slot = 0; slot < quota; slot++) {
+                int best = slot;
+                double bestGain = -1;
+                for (int p = slot; p < pool.length; p++) {
+                    double gain = gain(assembly, pool[p], current);
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        best = p;
+                    }
+                }
+                int item = pool[best];
+                pool[best] = pool[slot];
+                pool[slot] = item;
+                add(assembly, item, current, 1);
+            }
+            pools[cell] = pool;
+        }
+
+        // Repair: one pass of improving swaps within each cell
+        double shortfall = shortfall(assembly.targets, current);
+        for (int cell = 0; cell < pools.length && shortfall > 0; cell++) {
+            int[] pool = pools[cell];
+            int quota = assembly.quotas[cell];
+            for (int slot = 0; slot < quota && pool != null; slot++) {
+                for (int p = quota; p < pool.length; p++) {
+                    add(assembly, pool[slot], current, -1);
+                    add(assembly, pool[p], current, 1);
+                    double swapped = shortfall(assembly.targets, current);
+                    if (swapped < shortfall - 1e-12) {
+                        int item = pool[slot];
+                        pool[slot] = pool[p];
+                        pool[p] = item;
+                        shortfall = swapped;
+                    } else {
+                        add(assembly, pool[p], current, -1);
+                        add(assembly, pool[slot], current, 1);
+                    }
+                }
+            }
+        }
+        for (int cell = 0; cell < pools.length; cell++) {
+            if (pools[cell] != null) {
+                System.arraycopy(pools[cell], 0, paper, filled, assembly.quotas[cell]);
+                filled += assembly.quotas[cell];
+            }
+        }
+        return paper;
+    }
+
+    /**
+     * Move each infeasible quota's shortfall to cells with spare questions: same topic at the
+     * nearest difficulty, then same difficulty in other topics, then anywhere.
+     */
+    static List<String> repair(int[][] candidates, int[] quotas, String[] cellNames) {
+        List<String> adjustments = new ArrayList<>();
+        int rows = quotas.length / 3;
+        for (int cell = 0; cell < quotas.length; cell++) {
+            int shortfall = quotas[cell] - candidates[cell].length;
+            if (shortfall <= 0) {
+                continue;
+            }
+            quotas[cell] = candidates[cell].length;
+            int row = cell / 3;
+            int bucket = cell % 3;
+            List<Integer> alternatives = new ArrayList<>();
+            for (int other : nearestBuckets(bucket)) {
+                alternatives.add(row * 3 + other);
+            }
+            for (int r = 0; r < rows; r++) {
+                if (r != row) {
+                    alternatives.add(r * 3 + bucket);
+                }
+            }
+            for (int other : nearestBuckets(bucket)) {
+                for (int r = 0; r < rows; r++) {
+                    if (r != row) {
+                        alternatives.add(r * 3 + other);
+                    }
+                }
+            }
+            for (int alternative : alternatives) {
+                int moved = Math.min(shortfall, candidates[alternative].length - quotas[alternative]);
+                if (moved > 0) {
+                    quotas[alternative] += moved;
+                    shortfall -= moved;
+                    adjustments.add(cellNames[cell] + ": " + moved + " moved to " + cellNames[alternative]);
+                }
+                if (shortfall == 0) {
+                    break;
+                }
+            }
+            if (shortfall > 0) {
+                adjustments.add(cellNames[cell] + ": " + shortfall + " could not be placed; papers are shorter");
+            }
+        }
+        return adjustments;
+    }
+
+    private static int[] nearestBuckets(int bucket) {
+        return switch (bucket) {
+            case ExamContent.EASY -> new int[] {ExamContent.MEDIUM, ExamContent.HARD};
+            case ExamContent.HARD -> new int[] {ExamContent.MEDIUM, ExamContent.EASY};
+            default -> new int[] {ExamContent.EASY, ExamContent.HARD};
+        };
+    }
+
+    private static String normalize(String topic) {
+        return topic == null ? "" : topic.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Information an item adds where the paper is still below target.
+     */
+    private static double gain(Assembly assembly, int item, double[] current) {
+        double gain = 0;
+        int base = item * current.length;
+        for (int j = 0; j < current.length; j++) {
+            gain += Math.min(assembly.information[base + j], Math.max(0, assembly.targets[j] - current[j]));
+        }
+        return gain;
+    }
+
+    private static void add(Assembly assembly, int item, double[] current, int sign) {
+        int base = item * current.length;
+        for (int j = 0; j < current.length; j++) {
+            current[j] += sign * assembly.information[base + j];
+        }
+    }
+
+    private static double shortfall(double[] targets, double[] current) {
+        double sum = 0;
+        for (int j = 0; j < targets.length; j++) {
+            double gap = Math.max(0, targets[j] - current[j]);
+            sum += gap * gap;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,258 @@
+package com.exam.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keyword topic classifier compiled from a topic dictionary (topic -> keywords).
+ *
+ * All keywords are compiled into one Aho-Corasick automaton, so a question is classified in a
+ * single pass over its text whatever the size of the dictionary. Keywords match case-insensitively
+ * and only as whole words ("ip" does not match "zip"). The topic with the most distinct keywords
+ * found wins; ties go to the topic listed first. Immutable and thread-safe once built.
+ */
+public final class TopicClassifier {
+
+    private final Map<String, List<String>> dictionary;
+    private final String[] topicNames;
+
+    // Dense DFA over a compact alphabet: transitions[state][charClass]
+    private final int[][] transitions;
+    private final int[] asciiClass;
+    private final Map<Character, Integer> otherClass;
+    // Keywords ending at each state (own and through failure links)
+    private final int[][] output;
+    private final int[] keywordLength;
+    private final int[][] keywordTopics;
+
+    public TopicClassifier(Map<String, List<String>> dictionary) {
+        Map<String, List<String>> topics = new LinkedHashMap<>();
+        // keyword -> topic indices, in first-seen order
+        Map<String, List<Integer>> keywordToTopics = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : dictionary.entrySet()) {
+            String topic = entry.getKey().trim();
+            if (topic.isEmpty() || topics.containsKey(topic)) {
+                continue;
+            }
+            LinkedHashSet<String> keywords = new LinkedHashSet<>();
+            for (String keyword : entry.getValue()) {
+                String normalized = keyword.trim().toLowerCase(Locale.ROOT);
+                if (!normalized.isEmpty()) {
+                    keywords.add(normalized);
+                }
+            }
+            int topicIndex = topics.size();
+            topics.put(topic, Collections.unmodifiableList(new ArrayList<>(keywords)));
+            for (String keyword : keywords) {
+                keywordToTopics.computeIfAbsent(keyword, k -> new ArrayList<>()).add(topicIndex);
+            }
+        }
+        this.dictionary = Collections.unmodifiableMap(topics);
+        this.topicNames = topics.keySet().toArray(new String[0]);
+
+        String[] keywords = keywordToTopics.keySet().toArray(new String[0]);
+        this.keywordLength = new int[keywords.length];
+        this.keywordTopics = new int[keywords.length][];
+        for (int k = 0; k < keywords.length; k++) {
+            keywordLength[k] = keywords[k].length();
+            keywordTopics[k] = keywordToTopics.get(keywords[k]).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Alphabet: every character used by some keyword
+        this.asciiClass = new int[128];
+        Arrays.fill(asciiClass, -1);
+        this.otherClass = new HashMap<>();
+        int alphabet = 0;
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (charClass(c) < 0) {
+                    if (c < 128) {
+                        asciiClass[c] = alphabet++;
+                    } else {
+                        otherClass.put(c, alphabet++);
+                    }
+                }
+            }
+        }
+
+        // Trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(newState(alphabet));
+        ends.add(new ArrayList<>());
+        for (int k = 0; k < keywords.length; k++) {
+            int state = 0;
+            for (int i = 0; i < keywords[k].length(); i++) {
+                int cls = charClass(keywords[k].charAt(i));
+                if (trie.get(state)[cls] < 0) {
+                    trie.get(state)[cls] = trie.size();
+                    trie.add(newState(alphabet));
+                    ends.add(new ArrayList<>());
+                }
+                state = trie.get(state)[cls];
+            }
+            ends.get(state).add(k);
+        }
+
+        // Failure links breadth-first, turning the trie into a DFA and merging outputs
+        int states = trie.size();
+        int[] fail = new int[states];
+        this.transitions = trie.toArray(new int[0][]);
+        this.output = new int[states][];
+        output[0] = new int[0];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < alphabet; cls++) {
+            int child = transitions[0][cls];
+            if (child < 0) {
+                transitions[0][cls] = 0;
+            } else {
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> matches = new ArrayList<>(ends.get(state));
+            for (int k : output[fail[state]]) {
+                matches.add(k);
+            }
+            output[state] = matches.stream().mapToInt(Integer::intValue).toArray();
+            for (int cls = 0; cls < alphabet; cls++) {
+                int child = transitions[state][cls];
+                if (child < 0) {
+                    transitions[state][cls] = transitions[fail[state]][cls];
+                } else {
+                    fail[child] = transitions[fail[state]][cls];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Topics in priority order, with their normalized keywords.
+     */
+    public Map<String, List<String>> getDictionary() {
+        return dictionary;
+    }
+
+    public List<String> getTopics() {
+        return Collections.unmodifiableList(Arrays.asList(topicNames));
+    }
+
+    /**
+     * Topic with the most distinct keyword hits, or {@code fallbackTopic} when nothing matches.
+     */
+    public String classify(CharSequence text, String fallbackTopic) {
+        String detected = fallbackTopic != null ? fallbackTopic : "General";
+        if (text == null || topicNames.length == 0) {
+            return detected;
+        }
+        boolean[] seen = new boolean[keywordLength.length];
+        int[] counts = new int[topicNames.length];
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            int cls = charClass(Character.toLowerCase(text.charAt(i)));
+            state = cls < 0 ? 0 : transitions[state][cls];
+            for (int k : output[state]) {
+                if (seen[k]) {
+                    continue;
+                }
+                int start = i - keywordLength[k] + 1;
+                if ((start == 0 || !isWordChar(text.charAt(start - 1))) && (i + 1 == length || !isWordChar(text.charAt(i + 1)))) {
+                    seen[k] = true;
+                    for (int topic : keywordTopics[k]) {
+                        counts[topic]++;
+                    }
+                }
+            }
+        }
+
+        int maxMatches = 0;
+        for (int topic = 0; topic < topicNames.length; topic++) {
+            if (counts[topic] > maxMatches) {
+                maxMatches = counts[topic];
+                detected = topicNames[topic];
+            }
+        }
+        return detected;
+    }
+
+    public List<String> classifyAll(List<String> questions, String fallbackTopic) {
+        List<String> topics = new ArrayList<>(questions.size());
+        for (String question : questions) {
+            topics.add(classify(question, fallbackTopic));
+        }
+        return topics;
+    }
+
+    /**
+     * Parse a teacher-edited dictionary: one {@code Topic: keyword, keyword, ...} per line.
+     * Blank lines and lines starting with '#' are skipped.
+     *
+     * @throws IllegalArgumentException naming the first line that is not in that form
+     */
+    public static Map<String, List<String>> parseDictionary(String text) {
+        Map<String, List<String>> dictionary = new LinkedHashMap<>();
+        if (text == null) {
+            return dictionary;
+        }
+        String[] lines = text.split("\\r?\\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0 || line.substring(0, colon).isBlank()) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " should look like \"Topic: keyword, keyword\": " + line);
+            }
+            List<String> keywords = dictionary.computeIfAbsent(line.substring(0, colon).trim(), k -> new ArrayList<>());
+            for (String keyword : line.substring(colon + 1).split(",")) {
+                if (!keyword.isBlank()) {
+                    keywords.add(keyword.trim());
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Inverse of {@link #parseDictionary}, for editing.
+     */
+    public static String formatDictionary(Map<String, List<String>> dictionary) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : dictionary.entrySet()) {
+            text.append(entry.getKey()).append(": ").append(String.join(", ", entry.getValue())).append("\n");
+        }
+        return text.toString();
+    }
+
+    private int charClass(char c) {
+        if (c < 128) {
+            return asciiClass[c];
+        }
+        Integer cls = otherClass.get(c);
+        return cls != null ? cls : -1;
+    }
+
+    private static int[] newState(int alphabet) {
+        int[] state = new int[alphabet];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+}
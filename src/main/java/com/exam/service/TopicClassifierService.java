@@ -0,0 +1,78 @@
+package com.exam.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.exam.entity.Subject;
+
+/**
+ * Compiled topic classifiers for question banks.
+ *
+ * A subject can carry its own topic dictionary, edited by the teacher; subjects without one use
+ * the built-in IT dictionary below. Classifiers are compiled once per distinct dictionary and
+ * shared, so ingestion and question edits never rebuild the keyword tables.
+ */
+@Service
+public class TopicClassifierService {
+
+    // Built-in topics, in tie-break order
+    private static final Map<String, List<String>> DEFAULT_DICTIONARY = new LinkedHashMap<>();
+    static {
+        DEFAULT_DICTIONARY.put("Security", List.of("phishing", "malware", "firewall", "encryption", "authentication", "vulnerability", "attack", "threat", "password", "zero-day"));
+        DEFAULT_DICTIONARY.put("Networking", List.of("router", "switch", "ip", "tcp", "udp", "osi", "protocol", "network", "dns", "dhcp", "subnet", "gateway"));
+        DEFAULT_DICTIONARY.put("Programming", List.of("python", "java", "code", "function", "variable", "loop", "algorithm", "syntax", "debug", "compile"));
+        DEFAULT_DICTIONARY.put("Operating Systems", List.of("windows", "linux", "mac", "os", "kernel", "process", "thread", "memory", "file system"));
+        DEFAULT_DICTIONARY.put("Database", List.of("sql", "database", "query", "table", "index", "primary key", "foreign key", "join", "select"));
+        DEFAULT_DICTIONARY.put("Hardware", List.of("cpu", "ram", "hard drive", "ssd", "motherboard", "gpu", "memory", "storage", "processor"));
+        DEFAULT_DICTIONARY.put("Cloud", List.of("cloud", "aws", "azure", "saas", "paas", "iaas", "virtual", "container", "docker"));
+        DEFAULT_DICTIONARY.put("Web Development", List.of("html", "css", "javascript", "http", "url", "browser", "website", "web", "frontend", "backend"));
+    }
+
+    private static final int MAX_COMPILED = 256;
+
+    private final TopicClassifier defaultClassifier = new TopicClassifier(DEFAULT_DICTIONARY);
+    // Keyed by the dictionary as the teacher saved it
+    private final Map<String, TopicClassifier> compiled = new ConcurrentHashMap<>();
+
+    public TopicClassifier getDefault() {
+        return defaultClassifier;
+    }
+
+    /**
+     * Classifier for a subject's own dictionary, or the built-in one when it has none.
+     */
+    public TopicClassifier forSubject(Subject subject) {
+        return forDictionary(subject != null ? subject.getTopicDictionary() : null);
+    }
+
+    /**
+     * Classifier for a dictionary in the {@link TopicClassifier#parseDictionary} text form.
+     *
+     * @throws IllegalArgumentException if the text is not a valid dictionary
+     */
+    public TopicClassifier forDictionary(String dictionaryText) {
+        if (dictionaryText == null || dictionaryText.isBlank()) {
+            return defaultClassifier;
+        }
+        TopicClassifier classifier = compiled.get(dictionaryText);
+        if (classifier == null) {
+            classifier = new TopicClassifier(TopicClassifier.parseDictionary(dictionaryText));
+            if (compiled.size() >= MAX_COMPILED) {
+                compiled.clear();
+            }
+            compiled.put(dictionaryText, classifier);
+        }
+        return classifier;
+    }
+
+    /**
+     * The built-in dictionary as editable text, to start a subject's own from.
+     */
+    public String getDefaultDictionaryText() {
+        return TopicClassifier.formatDictionary(DEFAULT_DICTIONARY);
+    }
+}
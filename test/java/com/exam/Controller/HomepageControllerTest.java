@@ -0,0 +1,28 @@
+package com.exam.Controller;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.exam.service.RandomnessService;
+
+class HomepageControllerTest {
+
+	@Test
+	void securePapersNeverReplayThroughASeed() {
+		assertFalse(HomepageController.usesSeededLayout(true, false, RandomnessService.Mode.SECURE));
+		assertFalse(HomepageController.usesSeededLayout(true, true, RandomnessService.Mode.SECURE));
+	}
+
+	@Test
+	void fastPapersStaySeeded() {
+		assertTrue(HomepageController.usesSeededLayout(true, false, RandomnessService.Mode.FAST));
+	}
+
+	@Test
+	void assembledOrUnseededPapersAreCutInFull() {
+		assertFalse(HomepageController.usesSeededLayout(true, true, RandomnessService.Mode.FAST));
+		assertFalse(HomepageController.usesSeededLayout(false, false, RandomnessService.Mode.FAST));
+	}
+}
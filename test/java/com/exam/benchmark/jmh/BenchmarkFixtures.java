@@ -0,0 +1,263 @@
+package com.exam.benchmark.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.exam.service.ExamContent;
+import com.exam.service.IRT3PLService;
+import com.exam.service.RandomForestAnalyticsService;
+
+/**
+ * Seeded, generated inputs shaped like what the app sees: PDF text lines with Unicode math,
+ * question blocks as they are stored after parsing, CSV banks, student answers and analytics
+ * records. The same seed always gives the same fixture, so runs are comparable.
+ */
+final class BenchmarkFixtures {
+
+	private static final String[] TOPIC_TERMS = {
+		"firewall", "phishing attack", "encryption key", "TCP handshake", "DNS lookup", "subnet mask",
+		"Java function", "loop variable", "SQL query", "primary key", "foreign key join", "CPU cache",
+		"SSD storage", "cloud container", "Docker image", "HTML form", "HTTP request", "kernel thread",
+		"photosynthesis", "supply and demand", "plate tectonics", "the French Revolution"
+	};
+
+	private static final String[] STEMS = {
+		"Which of the following best describes %s?",
+		"Which statement about %s is NOT correct?",
+		"What happens first when a %s is processed, and then what follows?",
+		"All of the following are true of %s except:",
+		"Explain how %s works and why it matters in practice.",
+		"A student claims that %s never fails. Which evidence would prove this false?"
+	};
+
+	private static final String[] MATH = {
+		"x² + 3x − 4 = 0", "√(b² − 4ac)", "∫ x dx from 0 to π", "½ × 8 ÷ 2", "θ ≥ 45°", "∑ n² for n ≤ 10",
+		"α + β = 90", "H₂O", "x ≠ 0", "$x^2 + y^2 = r^2$"
+	};
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * Lines as the PDF extractor emits them: numbered stems, choice lines, answer lines and
+	 * about one line in five with Unicode math.
+	 */
+	static List<String> pdfLines(int count, long seed) {
+		Random random = new Random(seed);
+		List<String> lines = new ArrayList<>(count);
+		int question = 1;
+		while (lines.size() < count) {
+			String stem = stem(random);
+			if (random.nextInt(3) == 0) {
+				stem += " Given " + MATH[random.nextInt(MATH.length)] + ", solve for x.";
+			}
+			lines.add(question++ + ". " + stem);
+			for (char label = 'A'; label <= 'D' && lines.size() < count; label++) {
+				String choice = random.nextInt(5) == 0 ? MATH[random.nextInt(MATH.length)] : choiceText(random);
+				lines.add(label + ") " + choice);
+			}
+			if (lines.size() < count) {
+				lines.add("Answer: " + (char) ('A' + random.nextInt(4)));
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Question blocks as stored on an UploadedExam: about 80% multiple choice with four
+	 * labelled choices, the rest [TEXT_INPUT] essays; some carry an image marker.
+	 */
+	static List<String> questionBlocks(int count, long seed) {
+		Random random = new Random(seed);
+		List<String> blocks = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String stem = stem(random);
+			if (random.nextInt(5) == 0) {
+				blocks.add("[TEXT_INPUT]" + stem + " Use at least two examples from class.");
+				continue;
+			}
+			StringBuilder block = new StringBuilder(stem);
+			for (char label = 'A'; label <= 'D'; label++) {
+				block.append('\n').append(label).append(") ").append(choiceText(random));
+			}
+			if (random.nextInt(8) == 0) {
+				block.append("\n[IMG:/uploads/exam-images/objects/").append(Integer.toHexString(random.nextInt(256)))
+					.append('/').append(Long.toHexString(random.nextLong())).append(".png]");
+			}
+			blocks.add(block.toString());
+		}
+		return blocks;
+	}
+
+	/**
+	 * A processed exam of {@code count} question blocks, a quarter easy, half medium and a
+	 * quarter hard, ready to cut papers from.
+	 */
+	static ExamContent examContent(int count, long seed) {
+		return examContent(count, 1, seed);
+	}
+
+	/**
+	 * The same bank spread round-robin over {@code topicCount} topics ("Topic 0", "Topic 1", ...).
+	 */
+	static ExamContent examContent(int count, int topicCount, long seed) {
+		List<String> questions = questionBlocks(count, seed);
+		List<String> difficulties = new ArrayList<>(count);
+		List<String> topics = new ArrayList<>(count);
+		Map<Integer, String> answerKey = new HashMap<>();
+		String[] levels = {"Easy", "Medium", "Medium", "Hard"};
+		for (int i = 0; i < count; i++) {
+			difficulties.add(levels[i % levels.length]);
+			topics.add(topicCount > 1 ? "Topic " + (i % topicCount) : "General");
+			answerKey.put(i + 1, "A");
+		}
+		return new ExamContent("EXAM_BENCH", questions, difficulties, topics, answerKey);
+	}
+
+	/**
+	 * A question bank in the "ID, Difficulty, Type, Question" format, with quoted commas,
+	 * doubled quotes and a multi-line stem every tenth row.
+	 */
+	static byte[] csvBank(int rows, long seed) {
+		String[] difficulties = {"Easy", "Medium", "Hard"};
+		Random random = new Random(seed);
+		StringBuilder csv = new StringBuilder(rows * 160);
+		csv.append("ID,Difficulty,Type,Question\r\n");
+		for (int i = 1; i <= rows; i++) {
+			csv.append(i).append(',').append(difficulties[random.nextInt(3)]).append(',');
+			String stem = stem(random).replace("\"", "\"\"");
+			if (i % 7 == 0) {
+				csv.append("Essay,\"").append(stem).append('"');
+			} else {
+				csv.append("Multiple Choice,\"").append(stem).append(i % 10 == 0 ? "\n" : " ");
+				for (char label = 'A'; label <= 'D'; label++) {
+					csv.append('(').append(label).append(") ").append(choiceText(random)).append(' ');
+				}
+				csv.append("Answer: ").append((char) ('A' + random.nextInt(4))).append('"');
+			}
+			csv.append("\r\n");
+		}
+		return csv.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * {student answer, correct answer} pairs: letters, exact and re-cased text, paraphrased
+	 * essay answers with most key words, wrong and blank answers.
+	 */
+	static String[][] answerPairs(int count, long seed) {
+		Random random = new Random(seed);
+		String[][] pairs = new String[count][];
+		for (int i = 0; i < count; i++) {
+			String correct = choiceText(random);
+			switch (random.nextInt(6)) {
+				case 0 -> pairs[i] = new String[] {String.valueOf((char) ('a' + random.nextInt(4))), "B"};
+				case 1 -> pairs[i] = new String[] {correct.toUpperCase(), correct};
+				case 2 -> {
+					String essay = "The " + TOPIC_TERMS[random.nextInt(TOPIC_TERMS.length)]
+						+ " protects the network by filtering incoming traffic before it reaches the servers.";
+					pairs[i] = new String[] {"Basically, it " + essay.toLowerCase().replace("the servers", "our servers!"), essay};
+				}
+				case 3 -> pairs[i] = new String[] {choiceText(random), correct};
+				case 4 -> pairs[i] = new String[] {"   ", correct};
+				default -> pairs[i] = new String[] {correct, correct};
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * Historical analytics records, labelled by the same rules the service falls back to, with
+	 * a little label noise so the trees have something to split on.
+	 */
+	static List<RandomForestAnalyticsService.StudentFeatures> studentFeatures(int count, long seed) {
+		Random random = new Random(seed);
+		String[] categories = {"Excellent", "Pass", "Partial Mastery", "Fail", "Difficulty Risk"};
+		List<RandomForestAnalyticsService.StudentFeatures> records = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			RandomForestAnalyticsService.StudentFeatures features = new RandomForestAnalyticsService.StudentFeatures();
+			double ability = clamp(0.55 + random.nextGaussian() * 0.2);
+			features.topicMasteryPrimary = clamp(ability + random.nextGaussian() * 0.1);
+			features.topicMasterySecondary = clamp(ability + random.nextGaussian() * 0.1);
+			features.topicMasteryGeneral = clamp((features.topicMasteryPrimary + features.topicMasterySecondary) / 2);
+			features.difficultyResilience = clamp(ability - 0.1 + random.nextGaussian() * 0.15);
+			features.accuracy = clamp(ability + random.nextGaussian() * 0.05);
+			features.timeEfficiency = clamp(0.7 + random.nextGaussian() * 0.15);
+			features.confidence = clamp(0.6 + random.nextGaussian() * 0.2);
+			if (random.nextInt(20) == 0) {
+				features.actualCategory = categories[random.nextInt(categories.length)];
+			} else if (features.difficultyResilience < 0.4) {
+				features.actualCategory = "Difficulty Risk";
+			} else {
+				double overall = features.topicMasteryGeneral * 100;
+				features.actualCategory = overall >= 90 ? "Excellent" : overall >= 70 ? "Pass" : overall >= 50 ? "Partial Mastery" : "Fail";
+			}
+			records.add(features);
+		}
+		return records;
+	}
+
+	/**
+	 * 3PL item parameters in the ranges calibration produces.
+	 */
+	static List<IRT3PLService.ItemParameters> items(int count, long seed) {
+		Random random = new Random(seed);
+		List<IRT3PLService.ItemParameters> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			items.add(new IRT3PLService.ItemParameters(0.6 + random.nextDouble() * 1.6,
+				random.nextGaussian(), 0.15 + random.nextDouble() * 0.1));
+		}
+		return items;
+	}
+
+	/**
+	 * Responses of a student of ability {@code theta}, drawn from the 3PL model.
+	 */
+	static List<Boolean> responses(List<IRT3PLService.ItemParameters> items, double theta, long seed) {
+		Random random = new Random(seed);
+		List<Boolean> responses = new ArrayList<>(items.size());
+		for (IRT3PLService.ItemParameters item : items) {
+			double p = item.getGuessing() + (1 - item.getGuessing())
+				/ (1 + Math.exp(-1.7 * item.getDiscrimination() * (theta - item.getDifficulty())));
+			responses.add(random.nextDouble() < p);
+		}
+		return responses;
+	}
+
+	/**
+	 * A handle on a private controller helper, bound to {@code target}, so the suites measure
+	 * the code that ships rather than a copy of it.
+	 */
+	static MethodHandle privateMethod(Object target, String name, Class<?> returnType, Class<?>... parameterTypes) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(target.getClass(), MethodHandles.lookup());
+			return lookup.findVirtual(target.getClass(), name, MethodType.methodType(returnType, parameterTypes)).bindTo(target);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Benchmarked method " + name + " not found", e);
+		}
+	}
+
+	private static String stem(Random random) {
+		return String.format(STEMS[random.nextInt(STEMS.length)], TOPIC_TERMS[random.nextInt(TOPIC_TERMS.length)]);
+	}
+
+	private static String choiceText(Random random) {
+		String term = TOPIC_TERMS[random.nextInt(TOPIC_TERMS.length)];
+		return switch (random.nextInt(4)) {
+			case 0 -> "It encrypts the " + term;
+			case 1 -> "The " + term + " is checked first";
+			case 2 -> "None of the above";
+			default -> term.substring(0, 1).toUpperCase() + term.substring(1) + " with " + (2 + random.nextInt(64)) + " entries";
+		};
+	}
+
+	private static double clamp(double value) {
+		return Math.max(0, Math.min(1, value));
+	}
+}
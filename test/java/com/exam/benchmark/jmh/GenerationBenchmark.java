@@ -0,0 +1,132 @@
+package com.exam.benchmark.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.exam.Controller.HomepageController;
+import com.exam.service.AssignmentStoreService;
+import com.exam.service.ExamBlueprint;
+import com.exam.service.ExamContent;
+import com.exam.service.ExamVariantService;
+import com.exam.service.FisherYatesService;
+import com.exam.service.IRT3PLService;
+import com.exam.service.PaperLayout;
+import com.exam.service.RandomnessService;
+import com.exam.service.TestAssemblyService;
+
+/**
+ * Paper generation: re-shuffling the choices of stored question blocks, as every upload does,
+ * cutting one student's paper out of a bank by difficulty quota, assembling one from a large
+ * bank by topic-by-difficulty blueprint, and holding a distributed paper in the assignment store.
+ * Scored per question / paper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+
+	private static final int QUESTIONS = 500;
+	private static final int BANK = 300;
+	private static final int LARGE_BANK = 5_000;
+
+	private List<String> questionBlocks;
+	private RandomGenerator random;
+	private MethodHandle reshuffleChoices;
+	private ExamVariantService variants;
+	private ExamContent bank;
+	private TestAssemblyService assembler;
+	private TestAssemblyService.Assembly blueprint;
+	private TestAssemblyService.Assembly targetedBlueprint;
+	private PaperLayout storedLayout;
+	private Map<String, Object> storedMetadata;
+
+	@Setup
+	public void setUp() {
+		questionBlocks = BenchmarkFixtures.questionBlocks(QUESTIONS, 20);
+		random = new RandomnessService().generator();
+
+		HomepageController controller = new HomepageController();
+		ReflectionTestUtils.setField(controller, "fisherYatesService", new FisherYatesService());
+		reshuffleChoices = BenchmarkFixtures.privateMethod(controller, "reshuffleQuestionChoices",
+			String.class, String.class, RandomGenerator.class);
+
+		variants = new ExamVariantService();
+		ReflectionTestUtils.setField(variants, "fisherYatesService", new FisherYatesService());
+		bank = BenchmarkFixtures.examContent(BANK, 21);
+
+		assembler = new TestAssemblyService();
+		ReflectionTestUtils.setField(assembler, "irt3PLService", new IRT3PLService());
+		ReflectionTestUtils.setField(assembler, "fisherYatesService", new FisherYatesService());
+		ExamContent largeBank = BenchmarkFixtures.examContent(LARGE_BANK, 8, 22);
+		ExamBlueprint rows = ExamBlueprint.parse("Topic 0: 2/3/1\nTopic 1: 2/3/1\nTopic 2: 1/4/1\nTopic 3: 1/4/1\n*: 4/8/4");
+		blueprint = assembler.plan(largeBank, rows);
+		targetedBlueprint = assembler.plan(largeBank, rows.withTarget(0.5, 0));
+
+		PaperLayout derived = variants.derive(bank, random, 15, 25, 10);
+		storedLayout = PaperLayout.fixed(derived.getQuestionOrder(), derived.getChoiceOrder());
+		storedMetadata = new HashMap<>();
+		storedMetadata.put("assignmentId", "A_BENCH");
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUESTIONS)
+	public void reshuffleQuestionChoices(Blackhole blackhole) throws Throwable {
+		for (String block : questionBlocks) {
+			blackhole.consume((String) reshuffleChoices.invokeExact(block, random));
+		}
+	}
+
+	/**
+	 * A 10-question paper (3 easy, 5 medium, 2 hard) from a 300-question bank.
+	 */
+	@Benchmark
+	public PaperLayout derivePaper() {
+		return variants.derive(bank, random, 3, 5, 2);
+	}
+
+	/**
+	 * The questions of a 40-question blueprint paper (5 topic rows) from a 5000-question bank.
+	 */
+	@Benchmark
+	public int[] assembleBlueprintPaper() {
+		return assembler.assemble(blueprint, random);
+	}
+
+	/**
+	 * The same, also maximizing test information at theta = 0.5.
+	 */
+	@Benchmark
+	public int[] assembleTargetedBlueprintPaper() {
+		return assembler.assemble(targetedBlueprint, random);
+	}
+
+	/**
+	 * One student's 50-question paper as the store holds it: shared bank plus index orders. The
+	 * paper is kept for the rest of the session, so {@code -prof gc}'s gc.alloc.rate.norm is its footprint.
+	 */
+	@Benchmark
+	public AssignmentStoreService.Assignment storePaper() {
+		return new AssignmentStoreService.Assignment("A_BENCH", storedMetadata, bank, storedLayout);
+	}
+}
@@ -0,0 +1,115 @@
+package com.exam.benchmark.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.exam.Controller.StudentController;
+import com.exam.service.IRT3PLService;
+import com.exam.service.RandomForestAnalyticsService;
+
+/**
+ * Submission path: answer matching, IRT ability estimation and the Random Forest analytics
+ * (training on history, and predicting for one student).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradingBenchmark {
+
+	private static final int ANSWERS = 1_000;
+	private static final int EXAM_ITEMS = 40;
+	private static final int STUDENTS = 200;
+	private static final int HISTORY = 500;
+
+	private String[][] answerPairs;
+	private MethodHandle isAnswerCorrect;
+
+	private IRT3PLService irt;
+	private List<IRT3PLService.ItemParameters> items;
+	private List<List<Boolean>> responses;
+
+	private List<RandomForestAnalyticsService.StudentFeatures> history;
+	private RandomForestAnalyticsService trainedForest;
+	private List<RandomForestAnalyticsService.StudentFeatures> students;
+
+	@Setup
+	public void setUp() {
+		answerPairs = BenchmarkFixtures.answerPairs(ANSWERS, 30);
+		isAnswerCorrect = BenchmarkFixtures.privateMethod(new StudentController(), "isAnswerCorrect",
+			boolean.class, String.class, String.class);
+
+		irt = new IRT3PLService();
+		items = BenchmarkFixtures.items(EXAM_ITEMS, 31);
+		responses = new ArrayList<>(STUDENTS);
+		Random abilities = new Random(32);
+		for (int i = 0; i < STUDENTS; i++) {
+			responses.add(BenchmarkFixtures.responses(items, abilities.nextGaussian(), 33 + i));
+		}
+
+		history = BenchmarkFixtures.studentFeatures(HISTORY, 34);
+		students = BenchmarkFixtures.studentFeatures(STUDENTS, 35);
+		trainedForest = new RandomForestAnalyticsService();
+		trainedForest.trainRandomForest(history);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ANSWERS)
+	public int isAnswerCorrect() throws Throwable {
+		int correct = 0;
+		for (String[] pair : answerPairs) {
+			if ((boolean) isAnswerCorrect.invokeExact(pair[0], pair[1])) {
+				correct++;
+			}
+		}
+		return correct;
+	}
+
+	/**
+	 * One 40-item exam per operation.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(STUDENTS)
+	public void estimateAbility(Blackhole blackhole) {
+		for (List<Boolean> studentResponses : responses) {
+			blackhole.consume(irt.estimateAbility(studentResponses, items));
+		}
+	}
+
+	/**
+	 * A full 100-tree fit on 500 historical records per operation.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public RandomForestAnalyticsService trainRandomForest() {
+		RandomForestAnalyticsService forest = new RandomForestAnalyticsService();
+		forest.trainRandomForest(history);
+		return forest;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(STUDENTS)
+	public void predictCategory(Blackhole blackhole) {
+		for (RandomForestAnalyticsService.StudentFeatures student : students) {
+			blackhole.consume(trainedForest.predictCategory(student));
+		}
+	}
+}
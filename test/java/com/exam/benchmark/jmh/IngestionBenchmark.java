@@ -0,0 +1,108 @@
+package com.exam.benchmark.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.exam.Controller.HomepageController;
+import com.exam.service.CsvReader;
+import com.exam.service.EquationNormalizer;
+import com.exam.service.TopicClassifier;
+import com.exam.service.TopicClassifierService;
+
+/**
+ * Upload path: equation normalization of PDF lines, CSV bank parsing, difficulty inference and
+ * topic detection. Scores are per line / row / question unless the method says otherwise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+
+	private static final int LINES = 2_000;
+	private static final int CSV_ROWS = 5_000;
+	private static final int QUESTIONS = 500;
+
+	private List<String> pdfLines;
+	private byte[] csvBank;
+	private List<String> questionBlocks;
+	private String[] typeHints;
+	private MethodHandle inferDifficulty;
+	private TopicClassifier topicClassifier;
+
+	@Setup
+	public void setUp() {
+		pdfLines = BenchmarkFixtures.pdfLines(LINES, 14);
+		csvBank = BenchmarkFixtures.csvBank(CSV_ROWS, 15);
+		questionBlocks = BenchmarkFixtures.questionBlocks(QUESTIONS, 18);
+		typeHints = new String[QUESTIONS];
+		for (int i = 0; i < QUESTIONS; i++) {
+			typeHints[i] = questionBlocks.get(i).startsWith("[TEXT_INPUT]") ? "TEXT_INPUT" : "MULTIPLE_CHOICE";
+		}
+
+		HomepageController controller = new HomepageController();
+		inferDifficulty = BenchmarkFixtures.privateMethod(controller, "inferDifficultyFromQuestion",
+			String.class, String.class, String.class);
+		topicClassifier = new TopicClassifierService().getDefault();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void normalizeEquationText(Blackhole blackhole) {
+		for (String line : pdfLines) {
+			blackhole.consume(EquationNormalizer.normalize(line));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CSV_ROWS)
+	public int parseCsvBank() throws IOException {
+		int fields = 0;
+		try (CsvReader reader = new CsvReader(new InputStreamReader(new ByteArrayInputStream(csvBank), StandardCharsets.UTF_8))) {
+			CsvReader.Row row;
+			while ((row = reader.next()) != null) {
+				for (int i = 0; i < row.size(); i++) {
+					fields += row.trimmed(i).length();
+				}
+			}
+		}
+		return fields;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUESTIONS)
+	public void inferDifficultyFromQuestion(Blackhole blackhole) throws Throwable {
+		for (int i = 0; i < QUESTIONS; i++) {
+			blackhole.consume((String) inferDifficulty.invokeExact(questionBlocks.get(i), typeHints[i]));
+		}
+	}
+
+	/**
+	 * One call over a whole 500-question exam, as ingestion does for new questions.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<String> classifyTopics() {
+		return topicClassifier.classifyAll(questionBlocks, "General");
+	}
+}
@@ -0,0 +1,91 @@
+package com.exam.benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.exam.service.IRT3PLService;
+import com.exam.service.ItemInformationIndex;
+
+/**
+ * Next-item selection for adaptive tests: the linear scan of {@link IRT3PLService#selectNextItem}
+ * against {@link ItemInformationIndex}, mid-test (20 items already used) at spread-out thetas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSelectionBenchmark {
+
+	private static final int CALLS = 64;
+	private static final int USED = 20;
+
+	@Param({"200", "2000", "5000"})
+	public int bankSize;
+
+	private IRT3PLService irt;
+	private List<IRT3PLService.ItemParameters> items;
+	private ItemInformationIndex index;
+	private double[] thetas;
+	private Set<Integer> usedIndices;
+	private long[] used;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(24);
+		irt = new IRT3PLService();
+		items = new ArrayList<>(bankSize);
+		for (int i = 0; i < bankSize; i++) {
+			items.add(new IRT3PLService.ItemParameters(0.5 + random.nextDouble() * 2.0,
+				-3.0 + random.nextDouble() * 6.0, 0.15 + random.nextDouble() * 0.1));
+		}
+		index = new ItemInformationIndex(items, irt);
+
+		thetas = new double[CALLS];
+		for (int i = 0; i < CALLS; i++) {
+			thetas[i] = -3.0 + random.nextDouble() * 6.0;
+		}
+		usedIndices = new HashSet<>();
+		used = index.newUsedSet();
+		while (usedIndices.size() < USED) {
+			int item = random.nextInt(bankSize);
+			usedIndices.add(item);
+			ItemInformationIndex.markUsed(used, item);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CALLS)
+	public void linearScan(Blackhole blackhole) {
+		for (double theta : thetas) {
+			blackhole.consume(irt.selectNextItem(theta, items, usedIndices));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CALLS)
+	public void informationIndex(Blackhole blackhole) {
+		for (double theta : thetas) {
+			blackhole.consume(index.select(theta, used));
+		}
+	}
+}
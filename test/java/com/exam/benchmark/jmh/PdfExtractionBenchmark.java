@@ -0,0 +1,139 @@
+package com.exam.benchmark.jmh;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import com.exam.service.ImageStoreService;
+import com.exam.service.PdfIngestionService;
+
+/**
+ * Text and image extraction of a generated 60-page exam (text on every page, the same diagram on
+ * every third page), sequential and page-parallel. Setup fails if the parallel lines differ from
+ * the sequential ones, or if the repeated diagram is stored more than once. Scored per PDF.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+	private static final int PAGES = 60;
+	private static final int QUESTIONS_PER_PAGE = 5;
+	private static final int MAX_WORKERS = 4;
+
+	@Param({"1", "4"})
+	private int workers;
+
+	private Path workDir;
+	private PdfIngestionService service;
+	private PdfIngestionService.IngestedPdf pdf;
+
+	@Setup
+	public void setUp() throws Exception {
+		workDir = Files.createTempDirectory("pdf-bench");
+		Path fixture = workDir.resolve("fixture.pdf");
+		writeFixture(fixture);
+
+		ImageStoreService imageStore = new ImageStoreService(workDir.resolve("images"), "/uploads/exam-images/objects/");
+		service = new PdfIngestionService(imageStore);
+		ReflectionTestUtils.setField(service, "parallelism", MAX_WORKERS);
+		service.init();
+		pdf = service.open(fixture);
+
+		List<String> sequential = service.extractLines(pdf, line -> line, 1);
+		if (!sequential.equals(service.extractLines(pdf, line -> line, MAX_WORKERS))) {
+			throw new IllegalStateException("Parallel extraction differs from sequential output");
+		}
+		Object stored = imageStore.getDedupReport().get("storedObjects");
+		if (!Long.valueOf(1).equals(stored)) {
+			throw new IllegalStateException("Repeated diagram stored " + stored + " times");
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		pdf.close();
+		service.shutdown();
+		FileSystemUtils.deleteRecursively(workDir);
+	}
+
+	@Benchmark
+	public List<String> extractLines() throws IOException {
+		return service.extractLines(pdf, line -> line, workers);
+	}
+
+	private static void writeFixture(Path target) throws IOException {
+		try (PDDocument document = new PDDocument()) {
+			PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+			PDImageXObject diagram = LosslessFactory.createFromImage(document, diagram());
+			int question = 1;
+			for (int p = 0; p < PAGES; p++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+					if (p % 3 == 0) {
+						content.drawImage(diagram, 400, 600, 160, 120);
+					}
+					content.beginText();
+					content.setFont(font, 11);
+					content.newLineAtOffset(50, 740);
+					for (int q = 0; q < QUESTIONS_PER_PAGE; q++, question++) {
+						content.showText("Q" + question + " (Medium): Which layer of the OSI model handles routing for packet " + question + "?");
+						content.newLineAtOffset(0, -16);
+						for (char label = 'A'; label <= 'D'; label++) {
+							content.showText(label + ") Option " + label + " for question " + question);
+							content.newLineAtOffset(0, -14);
+						}
+						content.showText("Answer: Option B for question " + question);
+						content.newLineAtOffset(0, -22);
+					}
+					content.endText();
+				}
+			}
+			document.save(target.toFile());
+		}
+	}
+
+	private static BufferedImage diagram() {
+		BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, 320, 240);
+		g.setColor(Color.DARK_GRAY);
+		for (int i = 0; i < 12; i++) {
+			g.drawLine(i * 26, 0, 320 - i * 26, 240);
+		}
+		g.dispose();
+		return image;
+	}
+}
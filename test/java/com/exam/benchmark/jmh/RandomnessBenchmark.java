@@ -0,0 +1,73 @@
+package com.exam.benchmark.jmh;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.exam.service.ExamContent;
+import com.exam.service.ExamVariantService;
+import com.exam.service.FisherYatesService;
+import com.exam.service.PaperLayout;
+import com.exam.service.RandomnessService;
+
+/**
+ * Papers cut concurrently, as a bulk distribution does on its fork-join pool, by random source:
+ * one SecureRandom shared by every thread, a new SecureRandom per paper, and the per-thread
+ * FAST and SECURE generators of {@link RandomnessService}. Scored in papers per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RandomnessBenchmark {
+
+	@Param({"sharedSecureRandom", "newSecureRandom", "FAST", "SECURE"})
+	public String source;
+
+	private ExamVariantService variants;
+	private ExamContent bank;
+	private RandomnessService randomness;
+	private SecureRandom shared;
+
+	@Setup
+	public void setUp() {
+		variants = new ExamVariantService();
+		ReflectionTestUtils.setField(variants, "fisherYatesService", new FisherYatesService());
+		bank = BenchmarkFixtures.examContent(300, 21);
+		randomness = new RandomnessService();
+		shared = new SecureRandom();
+	}
+
+	/**
+	 * A 40-question paper (10 easy, 20 medium, 10 hard) from a 300-question bank.
+	 */
+	@Benchmark
+	public PaperLayout derivePaper() {
+		return variants.derive(bank, generator(), 10, 20, 10);
+	}
+
+	private RandomGenerator generator() {
+		return switch (source) {
+			case "sharedSecureRandom" -> shared;
+			case "newSecureRandom" -> new SecureRandom();
+			default -> randomness.generator(RandomnessService.Mode.valueOf(source));
+		};
+	}
+}
@@ -0,0 +1,130 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class AdaptiveTestServiceTest {
+
+	@Test
+	void thetaFollowsTheResponsesAndTheStandardErrorShrinks() {
+		AdaptiveTestService service = adaptiveTestService();
+		ExamContent content = TestContents.content(60);
+
+		AdaptiveTestService.Session strong = service.start("a@school.edu", "A_1", content, new AdaptiveTestService.StoppingRule(5, 15, 0.0));
+		AdaptiveTestService.Session weak = service.start("b@school.edu", "A_1", content, new AdaptiveTestService.StoppingRule(5, 15, 0.0));
+		double previousSe = strong.getStandardError();
+		Set<Integer> served = new HashSet<>();
+		while (!strong.isFinished()) {
+			assertTrue(served.add(strong.getCurrentQuestion()), "item served twice");
+			service.answer(strong, "A");
+			assertTrue(strong.getStandardError() < previousSe);
+			previousSe = strong.getStandardError();
+		}
+		while (!weak.isFinished()) {
+			service.answer(weak, "no");
+		}
+
+		assertEquals(15, strong.getAnswered());
+		assertEquals(15, strong.getCorrectCount());
+		assertEquals(0, weak.getCorrectCount());
+		assertTrue(strong.getTheta() > 1.0, "theta " + strong.getTheta());
+		assertTrue(weak.getTheta() < -1.0, "theta " + weak.getTheta());
+		assertTrue(Double.isFinite(strong.getTheta()) && Double.isFinite(weak.getTheta()));
+		assertEquals(15, strong.getResponses().size());
+	}
+
+	@Test
+	void stopsAtTheTargetStandardErrorAndResumesUnfinishedTests() {
+		AdaptiveTestService service = adaptiveTestService();
+		ExamContent content = TestContents.content(60);
+
+		AdaptiveTestService.Session session = service.start("a@school.edu", "A_2", content, new AdaptiveTestService.StoppingRule(3, 60, 0.6));
+		assertSame(session, service.start("a@school.edu", "A_2", content, null));
+		assertNull(service.getSession(session.getSessionId(), "someone@school.edu"));
+
+		boolean correct = true;
+		while (!session.isFinished()) {
+			service.answer(session, correct ? "yes" : "maybe");
+			correct = !correct;
+		}
+		assertTrue(session.getAnswered() >= 3 && session.getAnswered() < 60, "answered " + session.getAnswered());
+		assertTrue(session.getStandardError() <= 0.6);
+		assertEquals(-1, session.getCurrentQuestion());
+	}
+
+	@Test
+	void onlyTheAnswerThatFinishesTheTestReportsIt() throws Exception {
+		AdaptiveTestService service = adaptiveTestService();
+		AdaptiveTestService.Session session = service.start("a@school.edu", "A_3", TestContents.content(60), new AdaptiveTestService.StoppingRule(1, 8, 0.0));
+
+		List<Thread> requests = new ArrayList<>();
+		AtomicInteger finishing = new AtomicInteger();
+		for (int i = 0; i < 4; i++) {
+			requests.add(new Thread(() -> {
+				while (!session.isFinished()) {
+					if (service.answer(session, "yes")) {
+						finishing.incrementAndGet();
+					}
+				}
+			}));
+		}
+		requests.forEach(Thread::start);
+		for (Thread request : requests) {
+			request.join();
+		}
+
+		assertEquals(1, finishing.get());
+		assertEquals(8, session.getAnswered());
+		assertFalse(service.answer(session, "yes"));
+	}
+
+	@Test
+	void aBankDoesNotKeepItsContentAlive() throws Exception {
+		AdaptiveTestService service = adaptiveTestService();
+		ExamContent content = TestContents.content(30);
+		AdaptiveTestService.Session session = service.start("a@school.edu", "A_4", content, null);
+		service.end(session);
+		WeakReference<ExamContent> released = new WeakReference<>(content);
+		content = null;
+		session = null;
+
+		Map<?, ?> banks = (Map<?, ?>) ReflectionTestUtils.getField(service, "banks");
+		for (int attempt = 0; attempt < 50 && released.get() != null; attempt++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(released.get());
+		assertTrue(banks.isEmpty());
+	}
+
+	@Test
+	void acceptsTheKeyAsChoiceTextOrLetter() {
+		ParsedQuestion question = ParsedQuestion.parse("Capital of France?\nA) Rome\nB) Paris\nC) Madrid");
+
+		assertTrue(AdaptiveTestService.isCorrect(question, "Paris", "Paris"));
+		assertTrue(AdaptiveTestService.isCorrect(question, "b", "Paris"));
+		assertTrue(AdaptiveTestService.isCorrect(question, "Paris", "B"));
+		assertFalse(AdaptiveTestService.isCorrect(question, "A", "Paris"));
+		assertFalse(AdaptiveTestService.isCorrect(question, " ", "Paris"));
+	}
+
+	private static AdaptiveTestService adaptiveTestService() {
+		AdaptiveTestService service = new AdaptiveTestService();
+		ReflectionTestUtils.setField(service, "irt3PLService", new IRT3PLService());
+		return service;
+	}
+}
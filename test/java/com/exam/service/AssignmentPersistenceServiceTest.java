@@ -0,0 +1,195 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import com.exam.entity.DistributedAssignment;
+import com.exam.repository.DistributedAssignmentRepository;
+
+class AssignmentPersistenceServiceTest {
+
+	@Test
+	void deletesAndSavesOfABatchCommitTogether() {
+		FakeDatabase database = new FakeDatabase();
+		AssignmentPersistenceService service = persistenceService(database);
+
+		service.enqueueDelete("a@school.edu", "A_0");
+		service.enqueueSave("a@school.edu", assignment("A_1"));
+		assertTrue(service.flushSafely());
+
+		assertEquals(List.of("A_1"), database.saved);
+		assertEquals(1, database.transactions.commits);
+		assertFalse(service.hasUnflushedWrites("a@school.edu"));
+	}
+
+	@Test
+	void aRejectedWriteIsDroppedWithoutBlockingTheOthers() {
+		FakeDatabase database = new FakeDatabase();
+		AssignmentPersistenceService service = persistenceService(database);
+
+		service.enqueueSave("a@school.edu", assignment("A_1"));
+		service.enqueueSave("b@school.edu", assignment("A_BAD"));
+		service.enqueueSave("c@school.edu", assignment("A_2"));
+		for (int attempt = 1; attempt < AssignmentPersistenceService.MAX_BATCH_ATTEMPTS; attempt++) {
+			assertFalse(service.flushSafely());
+			assertTrue(service.hasUnflushedWrites("c@school.edu"));
+		}
+		assertTrue(service.flushSafely());
+
+		assertEquals(List.of("A_1", "A_2"), database.saved);
+		assertEquals(1, service.getWritesDropped());
+		assertEquals(0, service.getPendingWrites());
+		assertEquals(AssignmentPersistenceService.MAX_BATCH_ATTEMPTS + 1, database.transactions.rollbacks);
+		for (String student : List.of("a@school.edu", "b@school.edu", "c@school.edu")) {
+			assertFalse(service.hasUnflushedWrites(student));
+		}
+	}
+
+	@Test
+	void anUnreachableDatabaseIsRetriedWithoutDroppingAnything() {
+		FakeDatabase database = new FakeDatabase();
+		database.unavailableCalls = 10;
+		AssignmentPersistenceService service = persistenceService(database);
+
+		service.enqueueSave("a@school.edu", assignment("A_1"));
+		for (int attempt = 0; attempt < 10; attempt++) {
+			assertFalse(service.flushSafely());
+		}
+		assertTrue(service.flushSafely());
+
+		assertEquals(List.of("A_1"), database.saved);
+		assertEquals(0, service.getWritesDropped());
+	}
+
+	@Test
+	void aReloadedPaperKeepsItsSourceExamAndDistributionMetadata() {
+		FakeDatabase database = new FakeDatabase();
+		AssignmentPersistenceService service = persistenceService(database);
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("examName", "Quiz");
+		metadata.put("randomness", "FAST");
+		metadata.put("layoutSeed", 42L);
+		ExamContent content = new ExamContent("EXAM_7", List.of("Q1", "Q2"), List.of("Easy", "Hard"),
+			List.of("General", "General"), Map.of(1, "A", 2, "B"));
+		service.enqueueSave("a@school.edu", new AssignmentStoreService.Assignment("A_1", metadata, content,
+			new int[] {1, 0}, new byte[2][]));
+		assertTrue(service.flushSafely());
+
+		AssignmentStoreService.Assignment reloaded = service.loadAssignments("a@school.edu").get(0);
+
+		assertEquals("EXAM_7", reloaded.getSourceExamId());
+		assertEquals("FAST", reloaded.getMetadata().get("randomness"));
+		assertEquals(42L, reloaded.getMetadata().get("layoutSeed"));
+		assertEquals(List.of("Q2", "Q1"), reloaded.getQuestions());
+	}
+
+	private static AssignmentPersistenceService persistenceService(FakeDatabase database) {
+		AssignmentPersistenceService service = new AssignmentPersistenceService();
+		ReflectionTestUtils.setField(service, "distributedAssignmentRepository", database.repository());
+		ReflectionTestUtils.setField(service, "transactionManager", database.transactions);
+		ReflectionTestUtils.setField(service, "batchSize", 50);
+		ReflectionTestUtils.setField(service, "flushIntervalMs", 60_000L);
+		service.startFlusher();
+		return service;
+	}
+
+	private static AssignmentStoreService.Assignment assignment(String assignmentId) {
+		return new AssignmentStoreService.Assignment(assignmentId, Map.of("examName", "Quiz"),
+			List.of("Q1"), List.of("Easy"), List.of("General"), Map.of(1, "A"));
+	}
+
+	/**
+	 * Rows become visible only when their transaction commits; "A_BAD" is always rejected.
+	 */
+	private static final class FakeDatabase {
+		final List<String> saved = new ArrayList<>();
+		final List<String> pending = new ArrayList<>();
+		final List<DistributedAssignment> savedRows = new ArrayList<>();
+		final List<DistributedAssignment> pendingRows = new ArrayList<>();
+		final CountingTransactionManager transactions = new CountingTransactionManager(this);
+		int unavailableCalls;
+
+		DistributedAssignmentRepository repository() {
+			return (DistributedAssignmentRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {DistributedAssignmentRepository.class}, (proxy, method, args) -> {
+					if (unavailableCalls > 0) {
+						unavailableCalls--;
+						throw new CannotCreateTransactionException("Communications link failure");
+					}
+					switch (method.getName()) {
+						case "saveAll" -> {
+							for (Object row : (Collection<?>) args[0]) {
+								String id = ((DistributedAssignment) row).getAssignmentId();
+								if (id.equals("A_BAD")) {
+									throw new DataIntegrityViolationException("Data too long for column");
+								}
+								pending.add(id);
+								pendingRows.add((DistributedAssignment) row);
+							}
+							return args[0];
+						}
+						case "findByStudentEmailOrderByDistributedAtAsc" -> {
+							return savedRows.stream().filter(row -> row.getStudentEmail().equals(args[0])).toList();
+						}
+						case "deleteByAssignmentIdIn", "deleteByStudentEmailIn" -> {
+							return 0L;
+						}
+						default -> throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		}
+	}
+
+	private static final class CountingTransactionManager extends AbstractPlatformTransactionManager {
+		private final FakeDatabase database;
+		int commits;
+		int rollbacks;
+
+		CountingTransactionManager(FakeDatabase database) {
+			this.database = database;
+		}
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			database.pending.clear();
+			database.pendingRows.clear();
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			commits++;
+			database.saved.addAll(database.pending);
+			database.savedRows.addAll(database.pendingRows);
+			database.pending.clear();
+			database.pendingRows.clear();
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+			rollbacks++;
+			database.pending.clear();
+			database.pendingRows.clear();
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class AssignmentStoreServiceTest {
+
+	private static final int STUDENTS = 400;
+	private static final int TEACHERS = 8;
+	private static final int ASSIGNMENTS_PER_TEACHER = 5;
+
+	@Test
+	void concurrentPublishesAreNeverLost() throws Exception {
+		AssignmentStoreService store = new AssignmentStoreService();
+		ExecutorService pool = Executors.newFixedThreadPool(TEACHERS + 8);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean publishing = new AtomicBoolean(true);
+		ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+		// Teachers distribute to the whole class at the same time
+		List<Future<?>> writers = new ArrayList<>();
+		for (int t = 0; t < TEACHERS; t++) {
+			final int teacher = t;
+			writers.add(pool.submit(() -> {
+				await(start);
+				for (int round = 0; round < ASSIGNMENTS_PER_TEACHER; round++) {
+					for (int s = 0; s < STUDENTS; s++) {
+						store.publish(student(s), assignment("A_" + teacher + "_" + round + "_" + s));
+					}
+				}
+			}));
+		}
+
+		// Students open their exams while distribution is running
+		for (int r = 0; r < 8; r++) {
+			pool.submit(() -> {
+				await(start);
+				while (publishing.get()) {
+					for (int s = 0; s < STUDENTS; s++) {
+						try {
+							AssignmentStoreService.Assignment latest = store.getLatestAssignment(student(s));
+							if (latest != null) {
+								// An assignment is either fully visible or not visible at all
+								assertEquals(3, latest.getQuestions().size());
+								assertEquals(3, latest.getAnswerKey().size());
+								assertEquals(latest.getAssignmentId(), latest.getMetadata().get("assignmentId"));
+							}
+							store.getHistory(student(s));
+						} catch (Throwable e) {
+							failures.add(e);
+						}
+					}
+				}
+			});
+		}
+
+		start.countDown();
+		for (Future<?> writer : writers) {
+			writer.get(60, TimeUnit.SECONDS);
+		}
+		publishing.set(false);
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+		assertTrue(failures.isEmpty(), () -> "Reader saw a torn assignment: " + failures.peek());
+		assertEquals(STUDENTS, store.getStudentCount());
+		for (int s = 0; s < STUDENTS; s++) {
+			AssignmentStoreService.StudentAssignments snapshot = store.getStudentAssignments(student(s));
+			assertNotNull(snapshot);
+			assertEquals(TEACHERS * ASSIGNMENTS_PER_TEACHER, snapshot.getAssignments().size());
+		}
+	}
+
+	@Test
+	void concurrentSubmitsRemoveOnlyTheirOwnAssignment() throws Exception {
+		AssignmentStoreService store = new AssignmentStoreService();
+		int perStudent = 50;
+		for (int i = 0; i < perStudent; i++) {
+			store.publish("s@test", assignment("A_" + i));
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < perStudent; i += 2) {
+			final String id = "A_" + i;
+			pool.submit(() -> {
+				await(start);
+				store.removeAssignment("s@test", id);
+			});
+			final String extra = "B_" + i;
+			pool.submit(() -> {
+				await(start);
+				store.publish("s@test", assignment(extra));
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+		List<AssignmentStoreService.Assignment> remaining = store.getStudentAssignments("s@test").getAssignments();
+		assertEquals(perStudent, remaining.size());
+		for (AssignmentStoreService.Assignment assignment : remaining) {
+			String id = assignment.getAssignmentId();
+			assertTrue(id.startsWith("B_") || Integer.parseInt(id.substring(2)) % 2 == 1, id);
+		}
+	}
+
+	@Test
+	void evictionSpillsColdStudentsAndReloadsThemOnDemand() throws Exception {
+		InMemoryPersistence persistence = new InMemoryPersistence();
+		AssignmentStoreService store = new AssignmentStoreService();
+		ReflectionTestUtils.setField(store, "persistence", persistence);
+		ReflectionTestUtils.setField(store, "maxResidentStudents", 2);
+		ReflectionTestUtils.setField(store, "sweepIntervalSeconds", 0L);
+
+		for (int i = 0; i < 5; i++) {
+			store.publish(student(i), assignment("A_" + i));
+			Thread.sleep(2);
+		}
+		persistence.unflushed.add(student(0));
+
+		// student0 has writes in flight, so the next three least recently used students go instead
+		assertEquals(3, store.evictColdEntries());
+		assertEquals(2, store.getStudentCount());
+		assertNotNull(store.getStudentAssignments(student(0)));
+		assertTrue(store.getStudentsWithAssignments().contains(student(1)));
+		assertEquals(3L, store.getCacheStats().get("capacityEvictions"));
+
+		AssignmentStoreService.Assignment reloaded = store.getAssignment(student(1), "A_1");
+		assertNotNull(reloaded);
+		assertEquals(List.of("Q1", "Q2", "Q3"), reloaded.getQuestions());
+		assertEquals(1L, store.getCacheStats().get("misses"));
+
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("examName", "Past");
+		metadata.put("examDeadline", "2020-01-01T08:00");
+		store.publish("late@test", new AssignmentStoreService.Assignment("A_late", metadata,
+			List.of("Q1"), List.of("Easy"), List.of("General"), Map.of(1, "A")));
+		ReflectionTestUtils.setField(store, "maxResidentStudents", 100);
+		Thread.sleep(2);
+		store.evictColdEntries();
+		assertEquals(1L, store.getCacheStats().get("deadlineEvictions"));
+		assertTrue(store.getStudentsWithAssignments().contains("late@test"));
+		assertNotNull(store.getAssignment("late@test", "A_late"));
+	}
+
+	@Test
+	void subjectIndexFollowsPublishesAndRemovals() {
+		AssignmentStoreService store = new AssignmentStoreService();
+		store.publish("s@test", subjectAssignment("A_1", "Networking"));
+		store.publish("s@test", subjectAssignment("A_2", "Databases"));
+		store.publish("s@test", subjectAssignment("A_3", "networking"));
+		store.publish("t@test", subjectAssignment("A_4", "Networking"));
+
+		List<Map<String, Object>> rows = store.getSubjectAssignments("NETWORKING", "s@test");
+		assertEquals(List.of("A_1", "A_3"), rows.stream().map(row -> row.get("assignmentId")).toList());
+		assertEquals(1, store.getSubjectAssignments("Databases", "s@test").size());
+
+		store.removeAssignment("s@test", "A_1");
+		assertEquals(1, store.getSubjectAssignments("Networking", "s@test").size());
+		store.removeAssignment("s@test", "A_2");
+		assertTrue(store.getSubjectAssignments("Databases", "s@test").isEmpty());
+		store.removeAll("s@test");
+		assertTrue(store.getSubjectAssignments("Networking", "s@test").isEmpty());
+		assertEquals(1, store.getSubjectAssignments("Networking", "t@test").size());
+	}
+
+	@Test
+	void evictionDropsSubjectIndexRowsAndLookupsReloadThem() {
+		InMemoryPersistence persistence = new InMemoryPersistence();
+		AssignmentStoreService store = new AssignmentStoreService();
+		ReflectionTestUtils.setField(store, "persistence", persistence);
+		ReflectionTestUtils.setField(store, "maxResidentStudents", 0);
+		ReflectionTestUtils.setField(store, "sweepIntervalSeconds", 0L);
+		for (int i = 0; i < 50; i++) {
+			store.publish(student(i), subjectAssignment("A_" + i, "Networking"));
+		}
+
+		assertEquals(50, store.evictColdEntries());
+		Map<?, ?> subjectIndex = (Map<?, ?>) ReflectionTestUtils.getField(store, "subjectIndex");
+		assertTrue(((Map<?, ?>) subjectIndex.get("networking")).isEmpty());
+		assertTrue(((Set<?>) ReflectionTestUtils.getField(store, "indexedStudents")).isEmpty());
+
+		List<Map<String, Object>> rows = store.getSubjectAssignments("Networking", student(7));
+		assertEquals(List.of("A_7"), rows.stream().map(row -> row.get("assignmentId")).toList());
+		assertEquals(1, ((Map<?, ?>) subjectIndex.get("networking")).size());
+	}
+
+	@Test
+	void subjectIndexMatchesTheStoreWhenPublishRacesRemoveAll() throws Exception {
+		AssignmentStoreService store = new AssignmentStoreService();
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		for (int round = 0; round < 2_000; round++) {
+			String student = student(round % 20);
+			String assignmentId = "A_" + round;
+			CountDownLatch start = new CountDownLatch(1);
+			Future<?> publisher = pool.submit(() -> {
+				await(start);
+				store.publish(student, subjectAssignment(assignmentId, "Networking"));
+			});
+			Future<?> remover = pool.submit(() -> {
+				await(start);
+				store.removeAll(student);
+			});
+			start.countDown();
+			publisher.get();
+			remover.get();
+
+			AssignmentStoreService.StudentAssignments snapshot = store.getStudentAssignments(student);
+			int stored = snapshot != null ? snapshot.getAssignments().size() : 0;
+			assertEquals(stored, store.getSubjectAssignments("Networking", student).size(), "round " + round);
+		}
+		pool.shutdown();
+	}
+
+	/**
+	 * Persistence double: saves are durable immediately unless the student is listed as unflushed.
+	 */
+	private static final class InMemoryPersistence extends AssignmentPersistenceService {
+		final Map<String, List<AssignmentStoreService.Assignment>> rows = new ConcurrentHashMap<>();
+		final List<String> unflushed = new ArrayList<>();
+
+		@Override
+		public void enqueueSave(String studentEmail, AssignmentStoreService.Assignment assignment) {
+			rows.computeIfAbsent(studentEmail, k -> new ArrayList<>()).add(assignment);
+		}
+
+		@Override
+		public boolean hasUnflushedWrites(String studentEmail) {
+			return unflushed.contains(studentEmail);
+		}
+
+		@Override
+		public List<AssignmentStoreService.Assignment> loadAssignments(String studentEmail) {
+			return new ArrayList<>(rows.getOrDefault(studentEmail, List.of()));
+		}
+	}
+
+	private static String student(int index) {
+		return "student" + index + "@test";
+	}
+
+	private static AssignmentStoreService.Assignment assignment(String assignmentId) {
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("assignmentId", assignmentId);
+		metadata.put("examName", "Stress");
+		Map<Integer, String> key = new HashMap<>();
+		key.put(1, "A");
+		key.put(2, "B");
+		key.put(3, "C");
+		return new AssignmentStoreService.Assignment(assignmentId, metadata,
+			List.of("Q1", "Q2", "Q3"), List.of("Easy", "Medium", "Hard"), List.of("General", "General", "General"), key);
+	}
+
+	private static AssignmentStoreService.Assignment subjectAssignment(String assignmentId, String subject) {
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("assignmentId", assignmentId);
+		metadata.put("examName", "Quiz " + assignmentId);
+		metadata.put("examSubject", subject);
+		return new AssignmentStoreService.Assignment(assignmentId, metadata,
+			List.of("Q1"), List.of("Easy"), List.of("General"), Map.of(1, "A"));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
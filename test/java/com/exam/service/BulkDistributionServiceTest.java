@@ -0,0 +1,55 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class BulkDistributionServiceTest {
+
+	@Test
+	void countsEachStudentAsTheirPaperIsPublished() throws Exception {
+		AssignmentStoreService store = new AssignmentStoreService() {
+			@Override
+			public void publish(String studentEmail, Assignment assignment) {
+				if (studentEmail.startsWith("broken")) {
+					throw new IllegalStateException("store unavailable");
+				}
+				super.publish(studentEmail, assignment);
+			}
+		};
+		BulkDistributionService service = new BulkDistributionService();
+		ReflectionTestUtils.setField(service, "assignmentStore", store);
+		ReflectionTestUtils.setField(service, "answerKeyService", new AnswerKeyService());
+
+		BulkDistributionService.BulkDistributionJob job = service.submit("teacher@school.edu", "Quiz",
+			List.of("a@school.edu", "broken@school.edu", "b@school.edu", "bad@school.edu"), student -> {
+				if (student.startsWith("bad")) {
+					throw new IllegalArgumentException("no questions left");
+				}
+				return new AssignmentStoreService.Assignment("A_" + student.charAt(0), Map.of("examName", "Quiz"),
+					List.of("Q1"), List.of("Easy"), List.of("General"), Map.of(1, "A"));
+			});
+		for (int i = 0; i < 500 && !job.isFinished(); i++) {
+			Thread.sleep(10);
+		}
+		service.shutdown();
+
+		assertEquals(BulkDistributionService.JobStatus.COMPLETED, job.getStatus());
+		assertEquals(2, job.getPublished());
+		assertEquals("IllegalStateException: store unavailable", job.getFailures().get("broken@school.edu"));
+		assertTrue(job.getFailures().get("bad@school.edu").contains("no questions left"));
+		assertNotNull(store.getAssignment("b@school.edu", "A_b"));
+		assertNull(job.getError());
+		assertSame(job, service.getJob(job.getJobId(), "teacher@school.edu"));
+		assertNull(service.getJob(job.getJobId(), "other@school.edu"));
+		assertEquals(2, job.toSummary().get("failed"));
+	}
+}
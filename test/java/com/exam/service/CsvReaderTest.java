@@ -0,0 +1,64 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+class CsvReaderTest {
+
+	@Test
+	void readsQuotedFieldsAcrossLines() throws Exception {
+		String csv = "\uFEFFID,Difficulty,Type,Question\r\n"
+			+ "1,Easy,Multiple Choice,\"Which is \"\"prime\"\"?\n(A) 4 (B) 7, maybe\"\r\n"
+			+ "\r\n"
+			+ "2, Hard ,Essay, \"Explain, briefly.\"";
+
+		try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+			CsvReader.Row header = reader.next();
+			assertEquals(4, header.size());
+			assertEquals("ID", header.get(0));
+			assertTrue(header.containsIgnoreCase("difficulty"));
+
+			CsvReader.Row first = reader.next();
+			assertEquals(2, first.getLineNumber());
+			assertEquals(4, first.size());
+			assertEquals("Which is \"prime\"?\n(A) 4 (B) 7, maybe", first.get(3));
+
+			assertTrue(reader.next().isBlank());
+
+			CsvReader.Row second = reader.next();
+			assertEquals(5, second.getLineNumber());
+			assertEquals("Hard", second.trimmed(1));
+			assertEquals("Explain, briefly.", second.get(3));
+
+			assertNull(reader.next());
+		}
+	}
+
+	@Test
+	void handlesFieldsLongerThanTheReadBuffer() throws Exception {
+		String longField = "x".repeat(200_000);
+		String csv = "a,\"" + longField + "\nend\",b\nc";
+
+		// A reader that hands back a few chars at a time, so fields straddle refills
+		Reader trickle = new StringReader(csv) {
+			@Override
+			public int read(char[] buffer, int offset, int length) throws java.io.IOException {
+				return super.read(buffer, offset, Math.min(length, 7));
+			}
+		};
+		try (CsvReader reader = new CsvReader(trickle)) {
+			CsvReader.Row row = reader.next();
+			assertEquals(3, row.size());
+			assertEquals(longField + "\nend", row.get(1));
+			assertEquals("b", row.get(2));
+			assertEquals(3, reader.next().getLineNumber());
+			assertNull(reader.next());
+		}
+	}
+}
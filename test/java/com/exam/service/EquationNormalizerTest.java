@@ -0,0 +1,53 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class EquationNormalizerTest {
+
+	/**
+	 * Each case is a "<<< input" line followed by a ">>> expected" line. The expected output was
+	 * recorded from the original chain of String.replace / replaceAll calls in HomepageController,
+	 * over real exam lines plus seeded random mixes of every mapped symbol, roots and brackets.
+	 */
+	private static final String GOLDEN = "equation-normalizer-golden.txt";
+
+	@Test
+	void matchesTheGoldenCorpus() throws Exception {
+		InputStream golden = EquationNormalizerTest.class.getResourceAsStream(GOLDEN);
+		assertNotNull(golden, GOLDEN + " is missing from the test classpath");
+
+		int cases = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(golden, StandardCharsets.UTF_8))) {
+			String inputLine;
+			while ((inputLine = reader.readLine()) != null) {
+				String expectedLine = reader.readLine();
+				assertTrue(inputLine.startsWith("<<< ") && expectedLine != null && expectedLine.startsWith(">>> "),
+					"Malformed golden case near line " + (cases * 2 + 1));
+				String input = inputLine.substring(4);
+				assertEquals(expectedLine.substring(4), EquationNormalizer.normalize(input), "input: " + input);
+				cases++;
+			}
+		}
+		assertTrue(cases > 500, "Golden corpus looks truncated: " + cases + " cases");
+	}
+
+	@Test
+	void returnsUnchangedLinesWithoutCopying() {
+		String plain = "Q1 (Easy): Which of the following is a prime number?";
+		String alreadyLatex = "Already LaTeX: \\(x^2\\) and x²";
+
+		assertSame(plain, EquationNormalizer.normalize(plain));
+		assertSame(alreadyLatex, EquationNormalizer.normalize(alreadyLatex));
+		assertEquals("$\\sqrt{16} + \\sqrt{9}$", EquationNormalizer.normalize("√16 + √9"));
+	}
+}
@@ -0,0 +1,31 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ExamIngestionServiceTest {
+
+	@Test
+	void onlyTheUploadingTeacherCanReadAJob() throws Exception {
+		ExamIngestionService service = new ExamIngestionService();
+		service.init();
+		try {
+			ExamIngestionService.IngestionJob job = service.submit("teacher@school.edu", "quiz.pdf", List.of(), running -> "EXAM_1");
+			for (int i = 0; i < 500 && !job.isFinished(); i++) {
+				Thread.sleep(10);
+			}
+
+			assertEquals("EXAM_1", job.getExamId());
+			assertSame(job, service.getJob(job.getJobId(), "teacher@school.edu"));
+			assertNull(service.getJob(job.getJobId(), "other@school.edu"));
+			assertNull(service.getJob("I_missing", "teacher@school.edu"));
+		} finally {
+			service.shutdown();
+		}
+	}
+}
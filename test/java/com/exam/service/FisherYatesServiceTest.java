@@ -0,0 +1,81 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class FisherYatesServiceTest {
+
+	private final FisherYatesService fisherYates = new FisherYatesService();
+
+	@Test
+	void sampleReturnsDistinctPoolElementsAndLeavesThePoolAlone() {
+		int[] pool = new int[300];
+		for (int i = 0; i < pool.length; i++) {
+			pool[i] = 1000 + i;
+		}
+		int[] before = pool.clone();
+
+		for (int k : new int[] {0, 1, 10, 75, 299, 300, 500}) {
+			int[] sample = fisherYates.sample(pool, k, new Random(k));
+			assertEquals(Math.min(k, pool.length), sample.length);
+			Set<Integer> seen = new HashSet<>();
+			for (int value : sample) {
+				assertTrue(value >= 1000 && value < 1300, "not from the pool: " + value);
+				assertTrue(seen.add(value), "picked twice: " + value);
+			}
+		}
+		assertArrayEquals(before, pool);
+	}
+
+	@Test
+	void sparseAndDenseSamplingAgreeForTheSameStream() {
+		int[] pool = new int[40];
+		Arrays.setAll(pool, i -> i * 7);
+
+		// k = 9 takes the sparse path; the first 9 picks of a k = 40 sample are the same swaps
+		for (long seed = 0; seed < 50; seed++) {
+			int[] sparse = fisherYates.sample(pool, 9, new Random(seed));
+			int[] dense = fisherYates.sample(pool, 40, new Random(seed));
+			assertArrayEquals(sparse, Arrays.copyOf(dense, 9));
+		}
+	}
+
+	@Test
+	void everyElementIsAboutEquallyLikelyToBePicked() {
+		int[] pool = new int[50];
+		Arrays.setAll(pool, i -> i);
+		int[] picks = new int[pool.length];
+		Random random = new Random(18);
+		int rounds = 20_000;
+		for (int round = 0; round < rounds; round++) {
+			for (int value : fisherYates.sample(pool, 5, random)) {
+				picks[value]++;
+			}
+		}
+		double expected = rounds * 5.0 / pool.length;
+		for (int count : picks) {
+			assertTrue(Math.abs(count - expected) < expected * 0.1, "skewed: " + count + " vs " + expected);
+		}
+	}
+
+	@Test
+	void byteShuffleMakesTheSameSwapsAsTheIntShuffle() {
+		for (long seed = 0; seed < 50; seed++) {
+			byte[] bytes = {0, 1, 2, 3, 4, 5};
+			int[] ints = {0, 1, 2, 3, 4, 5};
+			fisherYates.shuffle(bytes, new Random(seed));
+			fisherYates.shuffle(ints, new Random(seed));
+			for (int i = 0; i < ints.length; i++) {
+				assertEquals(ints[i], bytes[i]);
+			}
+		}
+	}
+}
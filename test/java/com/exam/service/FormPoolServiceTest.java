@@ -0,0 +1,63 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class FormPoolServiceTest {
+
+	@Test
+	void cutsFormsWithTheQuotasAndSpreadsStudentsEvenly() {
+		FormPoolService.FormPool pool = formPoolService().buildPool(TestContents.content(60), 32, 3, 5, 2, new Random(7));
+
+		assertEquals(32, pool.getForms().size());
+		Set<String> layouts = new HashSet<>();
+		for (FormPoolService.Form form : pool.getForms()) {
+			assertEquals(10, form.getQuestionOrder().length);
+			layouts.add(Arrays.toString(form.getQuestionOrder()));
+		}
+		assertTrue(layouts.size() > 30, "forms should differ: " + layouts.size());
+
+		int[] perForm = new int[32];
+		for (int i = 0; i < 3200; i++) {
+			perForm[pool.formFor("student" + i + "@school.edu").getFormNumber() - 1]++;
+		}
+		for (int count : perForm) {
+			assertTrue(count > 50 && count < 150, "uneven spread: " + count);
+		}
+		assertSame(pool.formFor("Ana@School.edu "), pool.formFor("ana@school.edu"));
+		assertEquals(FormPoolService.MAX_FORMS,
+			formPoolService().buildPool(TestContents.content(60), 1000, 1, 1, 1, new Random(1)).getForms().size());
+	}
+
+	@Test
+	void studentsOnAFormShareItsLayoutAndAnswerKey() {
+		FormPoolService.FormPool pool = formPoolService().buildPool(TestContents.content(20), 4, 2, 2, 1, new Random(3));
+		FormPoolService.Form form = pool.getForms().get(0);
+
+		AssignmentStoreService.Assignment first = new AssignmentStoreService.Assignment("A_1", Map.of(), form.getContent(), form);
+		AssignmentStoreService.Assignment second = new AssignmentStoreService.Assignment("A_2", Map.of(), form.getContent(), form);
+
+		assertTrue(first.hasSharedAnswerKey());
+		assertSame(first.getAnswerKey(), second.getAnswerKey());
+		assertEquals(5, first.getAnswerKey().size());
+		assertEquals(first.getQuestions(), second.getQuestions());
+	}
+
+	private static FormPoolService formPoolService() {
+		ExamVariantService variants = new ExamVariantService();
+		ReflectionTestUtils.setField(variants, "fisherYatesService", new FisherYatesService());
+		FormPoolService service = new FormPoolService();
+		ReflectionTestUtils.setField(service, "examVariantService", variants);
+		return service;
+	}
+}
@@ -0,0 +1,63 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.color.PDIndexed;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImageStoreServiceTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void samePixelBytesWithDifferentPalettesAreStoredSeparately() throws Exception {
+		ImageStoreService store = new ImageStoreService(root, "/img/");
+		byte[] pixels = {0, 1, 1, 0};
+		try (PDDocument document = new PDDocument()) {
+			String red = store.store(indexedImage(document, pixels, new byte[] {0, 0, 0, (byte) 255, 0, 0}));
+			String blue = store.store(indexedImage(document, pixels, new byte[] {0, 0, 0, 0, 0, (byte) 255}));
+			String redAgain = store.store(indexedImage(document, pixels, new byte[] {0, 0, 0, (byte) 255, 0, 0}));
+
+			assertNotEquals(red, blue);
+			assertEquals(red, redAgain);
+		}
+	}
+
+	@Test
+	void theDecodeArrayIsPartOfTheKey() throws Exception {
+		ImageStoreService store = new ImageStoreService(root, "/img/");
+		byte[] pixels = {0, 1, 1, 0};
+		try (PDDocument document = new PDDocument()) {
+			byte[] palette = {0, 0, 0, (byte) 255, (byte) 255, (byte) 255};
+			PDImageXObject plain = indexedImage(document, pixels, palette);
+			PDImageXObject inverted = indexedImage(document, pixels, palette);
+			COSArray decode = new COSArray();
+			decode.add(COSInteger.ONE);
+			decode.add(COSInteger.ZERO);
+			inverted.getCOSObject().setItem(COSName.DECODE, decode);
+
+			assertNotEquals(store.store(plain), store.store(inverted));
+		}
+	}
+
+	private static PDImageXObject indexedImage(PDDocument document, byte[] pixels, byte[] palette) throws Exception {
+		COSArray indexed = new COSArray();
+		indexed.add(COSName.INDEXED);
+		indexed.add(COSName.DEVICERGB);
+		indexed.add(COSInteger.get(palette.length / 3 - 1));
+		indexed.add(new COSString(palette));
+		return new PDImageXObject(document, new ByteArrayInputStream(pixels), null, 2, 2, 8, new PDIndexed(indexed));
+	}
+}
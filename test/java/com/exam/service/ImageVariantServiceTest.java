@@ -0,0 +1,70 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+class ImageVariantServiceTest {
+
+	@Test
+	void resolvesTheSmallestBucketThatFitsOnceVariantsExist() throws Exception {
+		Path uploads = Files.createTempDirectory("uploads");
+		Path source = uploads.resolve("question-media/EXAM_1/image_abc.png");
+		Files.createDirectories(source.getParent());
+		ImageIO.write(scan(1500, 900), "PNG", source.toFile());
+		String url = "/uploads/question-media/EXAM_1/image_abc.png";
+
+		ImageVariantService variants = new ImageVariantService(uploads);
+
+		// Nothing transcoded yet: the original is served
+		assertEquals(url, variants.resolve(url, 600, true));
+
+		// PNG + JPEG for each of 320, 640 and 1024
+		assertEquals(6, variants.transcode(url));
+
+		String phone = variants.resolve(url, 600, true);
+		assertTrue(phone.startsWith("/uploads/variants/question-media/EXAM_1/image_abc/w640."), phone);
+		assertTrue(Files.exists(uploads.resolve(phone.substring("/uploads/".length()))));
+		assertEquals("/uploads/variants/question-media/EXAM_1/image_abc/w320.png", variants.resolve(url, 300, false));
+
+		// Wider than every bucket: only the original is big enough
+		assertEquals(url, variants.resolve(url, 1400, true));
+
+		BufferedImage small = ImageIO.read(uploads.resolve("variants/question-media/EXAM_1/image_abc/w320.png").toFile());
+		assertEquals(320, small.getWidth());
+		assertEquals(192, small.getHeight());
+	}
+
+	@Test
+	void ignoresUrlsOutsideTheImageFolders() throws Exception {
+		ImageVariantService variants = new ImageVariantService(Files.createTempDirectory("uploads"));
+
+		assertNull(variants.resolve("/uploads/question-media/../../secret.png", 320, true));
+		assertNull(variants.resolve("/uploads/other/picture.png", 320, true));
+		assertNull(variants.resolve("/uploads/question-media/EXAM_1/video_abc.mp4", 320, true));
+		assertNull(variants.resolve("https://example.com/picture.png", 320, true));
+	}
+
+	private static BufferedImage scan(int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, width, height);
+		g.setColor(Color.BLACK);
+		for (int x = 0; x < width; x += 25) {
+			g.drawLine(x, 0, width - x, height);
+		}
+		g.dispose();
+		return image;
+	}
+}
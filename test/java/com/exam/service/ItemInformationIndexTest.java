@@ -0,0 +1,126 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ItemInformationIndexTest {
+
+	private final IRT3PLService irt = new IRT3PLService();
+
+	@Test
+	void selectsNearlyAsInformativeAnItemAsTheLinearScan() {
+		Random random = new Random(11);
+		List<IRT3PLService.ItemParameters> items = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			items.add(new IRT3PLService.ItemParameters(0.5 + random.nextDouble() * 2.0,
+				-3.0 + random.nextDouble() * 6.0, 0.15 + random.nextDouble() * 0.1));
+		}
+		ItemInformationIndex index = new ItemInformationIndex(items, irt);
+
+		for (int trial = 0; trial < 200; trial++) {
+			double theta = -4.0 + random.nextDouble() * 8.0;
+			long[] used = index.newUsedSet();
+			Set<Integer> usedIndices = new HashSet<>();
+			for (int u = 0; u < 20; u++) {
+				int item = random.nextInt(items.size());
+				ItemInformationIndex.markUsed(used, item);
+				usedIndices.add(item);
+			}
+
+			int expected = irt.selectNextItem(theta, items, usedIndices);
+			int selected = index.select(theta, used);
+			assertFalse(usedIndices.contains(selected));
+			double best = irt.itemInformation(theta, items.get(expected));
+			double chosen = irt.itemInformation(theta, items.get(selected));
+			assertTrue(chosen >= 0.98 * best, "theta " + theta + ": " + chosen + " < " + best);
+		}
+	}
+
+	@Test
+	void selectsTheMaximumOfTheInterpolatedInformation() {
+		Random random = new Random(12);
+		List<IRT3PLService.ItemParameters> items = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			items.add(new IRT3PLService.ItemParameters(0.5 + random.nextDouble() * 2.0,
+				-3.0 + random.nextDouble() * 6.0, 0.15 + random.nextDouble() * 0.1));
+		}
+		ItemInformationIndex index = new ItemInformationIndex(items, irt);
+
+		for (int trial = 0; trial < 300; trial++) {
+			double theta = -4.5 + random.nextDouble() * 9.0;
+			long[] used = index.newUsedSet();
+			for (int u = 0; u < 100; u++) {
+				ItemInformationIndex.markUsed(used, random.nextInt(items.size()));
+			}
+
+			double best = -1;
+			for (int item = 0; item < items.size(); item++) {
+				if (!ItemInformationIndex.isUsed(used, item)) {
+					best = Math.max(best, interpolated(theta, items.get(item)));
+				}
+			}
+			int selected = index.select(theta, used);
+			assertFalse(ItemInformationIndex.isUsed(used, selected));
+			assertEquals(best, interpolated(theta, items.get(selected)), 0.0, "theta " + theta);
+		}
+	}
+
+	@Test
+	void findsTheBestItemEvenWhenItRanksBelowTheTopOfBothGridPoints() {
+		// Sharp items peaking on the grid points either side of theta, and one between them that
+		// ranks below all of them at both points yet is the most informative once interpolated
+		List<IRT3PLService.ItemParameters> items = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			items.add(new IRT3PLService.ItemParameters(50, 0.0, 0.0));
+			items.add(new IRT3PLService.ItemParameters(50, 0.05, 0.0));
+		}
+		items.add(new IRT3PLService.ItemParameters(60, 0.025, 0.0));
+		ItemInformationIndex index = new ItemInformationIndex(items, irt);
+
+		assertEquals(8, index.select(0.025, index.newUsedSet()));
+	}
+
+	@Test
+	void neverRepeatsAnItemAndRunsOutCleanly() {
+		List<IRT3PLService.ItemParameters> items = new ArrayList<>();
+		for (int i = 0; i < 130; i++) {
+			items.add(irt.parametersFor(i % 3 == 0 ? "Easy" : i % 3 == 1 ? "Medium" : "Hard", 4));
+		}
+		ItemInformationIndex index = new ItemInformationIndex(items, irt);
+		long[] used = index.newUsedSet();
+
+		Set<Integer> served = new HashSet<>();
+		for (int i = 0; i < items.size(); i++) {
+			int item = index.select(i % 2 == 0 ? 1.2 : -0.7, used);
+			assertTrue(served.add(item), "item served twice: " + item);
+			ItemInformationIndex.markUsed(used, item);
+		}
+		assertEquals(-1, index.select(0.0, used));
+		assertEquals(-1, new ItemInformationIndex(List.of(), irt).select(0.0, new long[0]));
+	}
+
+	/**
+	 * Information at theta interpolated between the index's grid points, as the index computes it.
+	 */
+	private double interpolated(double theta, IRT3PLService.ItemParameters item) {
+		double position = (Math.max(ItemInformationIndex.GRID_MIN, Math.min(ItemInformationIndex.GRID_MAX, theta))
+			- ItemInformationIndex.GRID_MIN) / ItemInformationIndex.GRID_STEP;
+		int lower = Math.min((int) position, ItemInformationIndex.GRID_POINTS - 2);
+		double weight = position - lower;
+		return (1 - weight) * grid(lower, item) + weight * grid(lower + 1, item);
+	}
+
+	private float grid(int k, IRT3PLService.ItemParameters item) {
+		double theta = ItemInformationIndex.GRID_MIN + k * ItemInformationIndex.GRID_STEP;
+		return (float) Math.max(0.0, irt.itemInformation(theta, item));
+	}
+}
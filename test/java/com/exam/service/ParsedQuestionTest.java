@@ -0,0 +1,50 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ParsedQuestionTest {
+
+	@Test
+	void splitsStemChoicesAndMedia() {
+		ParsedQuestion question = ParsedQuestion.parse(
+			"[Hard] Which planet is largest?\na)  Mars\nB) Jupiter\n[IMG:/img/p.png]\nC) Venus\n[VID:/vid/v.mp4]\nA)\n", "Hard", "Astronomy");
+
+		assertEquals(ParsedQuestion.Type.MULTIPLE_CHOICE, question.getType());
+		assertEquals("Which planet is largest?", question.getStem());
+		assertEquals(List.of("Mars", "Jupiter", "Venus"), question.getChoices());
+		assertEquals(List.of("/img/p.png"), question.getImageUrls());
+		assertEquals(List.of("/vid/v.mp4"), question.getVideoUrls());
+		assertEquals(List.of("A)"), question.getDetails());
+		assertEquals("Jupiter", question.getChoiceForLetter("b"));
+		assertNull(question.getChoiceForLetter("D"));
+		assertEquals("Hard", question.getDifficulty());
+		assertEquals("Astronomy", question.getTopic());
+	}
+
+	@Test
+	void rendersChoicesInOrderAndKeepsTextInputAsStored() {
+		ParsedQuestion question = ParsedQuestion.parse("2 + 2?\nA) 3\nB) 4\nC) 5\n[IMG:/img/sum.png]");
+		byte[] order = {2, 0, 1};
+
+		assertEquals("2 + 2?\nA) 5\nB) 3\nC) 4\n[IMG:/img/sum.png]", question.render(order));
+		ParsedQuestion reordered = question.withChoiceOrder(order);
+		assertEquals(question.render(order), reordered.getText());
+		assertEquals(List.of("5", "3", "4"), reordered.getChoices());
+		assertEquals(question.getImageUrls(), reordered.getImageUrls());
+
+		ParsedQuestion essay = ParsedQuestion.parse("[TEXT_INPUT]Explain recursion.\n[IMG:/img/tree.png]");
+		assertTrue(essay.isTextInput());
+		assertEquals("Explain recursion.", essay.getStem());
+		assertSame(essay, essay.withChoiceOrder(null));
+		assertEquals(essay.getText(), essay.render(new byte[0]));
+		assertFalse(essay.getPrintableLines().contains("[TEXT_INPUT]Explain recursion."));
+	}
+}
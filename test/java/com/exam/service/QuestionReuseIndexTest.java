@@ -0,0 +1,58 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class QuestionReuseIndexTest {
+
+	@Test
+	void fingerprintIgnoresLayoutButNotTextOrAnswer() {
+		String block = "What is 2 + 2?\nA) 3\nB) 4\n[IMG:/uploads/exam-images/objects/ab/abc.png]";
+
+		assertEquals(QuestionReuseIndex.fingerprint(block, null),
+			QuestionReuseIndex.fingerprint("  What is 2 +  2?\r\nA) 3\n\nB) 4\n[IMG:/uploads/exam-images/objects/ab/abc.png] ", null));
+		assertNotEquals(QuestionReuseIndex.fingerprint(block, null),
+			QuestionReuseIndex.fingerprint(block.replace("B) 4", "B) 5"), null));
+		assertNotEquals(QuestionReuseIndex.fingerprint(block, "B"), QuestionReuseIndex.fingerprint(block, "A"));
+	}
+
+	@Test
+	void reusesUnchangedBlocksAndSummarisesTheRest() {
+		String q1 = QuestionReuseIndex.fingerprint("Q one", null);
+		String q2 = QuestionReuseIndex.fingerprint("Q two", null);
+		String q3 = QuestionReuseIndex.fingerprint("Q three", null);
+		QuestionReuseIndex index = QuestionReuseIndex.of(
+			List.of(q1, q2, q3),
+			List.of("Q one\nA) x\nB) y", "Q two", "Q three"),
+			List.of("Easy", "Hard", "Medium"),
+			null,
+			Map.of(1, "y", 2, "essay", 3, "z"));
+
+		QuestionReuseIndex.Entry reused = index.take(q1);
+		assertEquals("Q one\nA) x\nB) y", reused.getQuestion());
+		assertEquals("y", reused.getAnswer());
+		assertEquals("Easy", reused.getDifficulty());
+		assertNull(reused.getTopic());
+
+		// Q two was edited, Q three kept, and one question added
+		assertNull(index.take(QuestionReuseIndex.fingerprint("Q two (fixed typo)", null)));
+		assertEquals("Medium", index.take(q3).getDifficulty());
+		assertNull(index.take(QuestionReuseIndex.fingerprint("Q four", null)));
+		// A second copy of an unchanged block is new
+		assertNull(index.take(q1));
+
+		Map<String, Object> summary = index.summary();
+		assertEquals(3, summary.get("previousQuestions"));
+		assertEquals(5, summary.get("questions"));
+		assertEquals(2, summary.get("unchanged"));
+		assertEquals(1, summary.get("changed"));
+		assertEquals(2, summary.get("added"));
+		assertEquals(0, summary.get("removed"));
+	}
+}
@@ -0,0 +1,36 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.random.RandomGenerator;
+
+import org.junit.jupiter.api.Test;
+
+class RandomnessServiceTest {
+
+	private final RandomnessService randomness = new RandomnessService();
+
+	@Test
+	void eachThreadKeepsItsOwnGeneratorPerMode() throws Exception {
+		RandomGenerator fast = randomness.generator();
+		assertInstanceOf(SplittableRandom.class, fast);
+		assertSame(fast, randomness.generator(RandomnessService.Mode.FAST));
+		RandomGenerator secure = randomness.generator(RandomnessService.Mode.SECURE);
+		assertNotSame(fast, secure);
+		assertSame(secure, randomness.generator(RandomnessService.Mode.SECURE));
+
+		RandomGenerator other = CompletableFuture.supplyAsync(() -> randomness.generator()).get();
+		assertNotSame(fast, other);
+	}
+
+	@Test
+	void secureRequestsOverrideTheConfiguredMode() {
+		assertEquals(RandomnessService.Mode.SECURE, randomness.resolve(true));
+		assertEquals(RandomnessService.Mode.FAST, randomness.resolve(false));
+	}
+}
@@ -0,0 +1,116 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TestAssemblyServiceTest {
+
+	private static final String[] TOPICS = {"Arrays", "Recursion", "Sorting", "Graphs"};
+
+	@Test
+	void meetsTopicByDifficultyQuotasWithoutRepeats() {
+		TestAssemblyService service = testAssemblyService();
+		ExamContent content = TestContents.content(1200, TOPICS);
+		ExamBlueprint blueprint = ExamBlueprint.parse("arrays: 2/3/1\nRecursion: 1/2/2; *: 0/4/0");
+		TestAssemblyService.Assembly assembly = service.plan(content, blueprint);
+
+		assertTrue(assembly.getAdjustments().isEmpty());
+		Random random = new Random(5);
+		for (int paper = 0; paper < 50; paper++) {
+			int[] questions = service.assemble(assembly, random);
+			assertEquals(15, questions.length);
+			Set<Integer> distinct = new HashSet<>();
+			Map<String, Integer> cells = new HashMap<>();
+			for (int question : questions) {
+				assertTrue(distinct.add(question));
+				String topic = content.getTopic(question);
+				String row = topic.equals("Arrays") || topic.equals("Recursion") ? topic : "*";
+				cells.merge(row + "/" + content.getDifficulty(question), 1, Integer::sum);
+			}
+			assertEquals(Map.of("Arrays/Easy", 2, "Arrays/Medium", 3, "Arrays/Hard", 1,
+				"Recursion/Easy", 1, "Recursion/Medium", 2, "Recursion/Hard", 2, "*/Medium", 4), cells);
+		}
+	}
+
+	@Test
+	void repairsQuotasTheBankCannotMeetAndSaysSo() {
+		TestAssemblyService service = testAssemblyService();
+		ExamContent content = TestContents.content(48, TOPICS); // 4 questions per topic and difficulty
+		TestAssemblyService.Assembly assembly = service.plan(content, ExamBlueprint.parse("Graphs: 1/2/7\nSorting: 0/0/5\nHistory: 1/0/0"));
+
+		assertEquals(16, assembly.getTotal());
+		assertEquals(4, assembly.getQuota("Graphs", ExamContent.HARD));
+		assertEquals(4, assembly.getQuota("Graphs", ExamContent.MEDIUM));
+		assertEquals(3, assembly.getQuota("Graphs", ExamContent.EASY));
+		assertEquals(List.of("Graphs/Hard: 2 moved to Graphs/Medium", "Graphs/Hard: 1 moved to Graphs/Easy",
+			"Sorting/Hard: 1 moved to Sorting/Medium", "History/Easy: 1 moved to Graphs/Easy"), assembly.getAdjustments());
+		assertEquals(16, new HashSet<>(toList(service.assemble(assembly, new Random(1)))).size());
+	}
+
+	@Test
+	void targetInformationPrefersTheMoreInformativeItemsOfEachCell() {
+		TestAssemblyService service = testAssemblyService();
+		IRT3PLService irt = new IRT3PLService();
+		ExamContent content = TestContents.content(1200, TOPICS);
+		ExamBlueprint quotas = ExamBlueprint.parse("*: 4/4/4");
+		TestAssemblyService.Assembly plain = service.plan(content, quotas);
+		TestAssemblyService.Assembly targeted = service.plan(content, quotas.withTarget(1.5, 0));
+
+		Random random = new Random(9);
+		double plainInformation = 0;
+		double targetedInformation = 0;
+		for (int paper = 0; paper < 20; paper++) {
+			plainInformation += information(irt, content, service.assemble(plain, random), 1.5);
+			int[] questions = service.assemble(targeted, random);
+			targetedInformation += information(irt, content, questions, 1.5);
+			assertEquals(12, new HashSet<>(toList(questions)).size());
+		}
+		assertTrue(targetedInformation > plainInformation * 1.05,
+			targetedInformation + " vs " + plainInformation);
+	}
+
+	@Test
+	void apportionsByLargestRemainderInsteadOfPaddingMedium() {
+		assertArrayEquals(new int[] {3, 3, 4}, ExamBlueprint.apportion(10, 33, 33, 34));
+		assertArrayEquals(new int[] {2, 4, 1}, ExamBlueprint.apportion(7, 30, 50, 20));
+		assertArrayEquals(new int[] {4, 3, 3}, ExamBlueprint.apportion(10, 1, 1, 1));
+		assertArrayEquals(new int[] {0, 0, 0}, ExamBlueprint.apportion(10, 0, 0, 0));
+		assertNull(ExamBlueprint.parse("no counts here"));
+	}
+
+	private static double information(IRT3PLService irt, ExamContent content, int[] questions, double theta) {
+		double total = 0;
+		for (int question : questions) {
+			total += irt.itemInformation(theta, irt.parametersFor(content.getDifficulty(question), content.getChoiceCount(question)));
+		}
+		return total;
+	}
+
+	private static List<Integer> toList(int[] values) {
+		List<Integer> list = new ArrayList<>();
+		for (int value : values) {
+			list.add(value);
+		}
+		return list;
+	}
+
+	static TestAssemblyService testAssemblyService() {
+		TestAssemblyService service = new TestAssemblyService();
+		ReflectionTestUtils.setField(service, "irt3PLService", new IRT3PLService());
+		ReflectionTestUtils.setField(service, "fisherYatesService", new FisherYatesService());
+		return service;
+	}
+}
@@ -0,0 +1,40 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Question banks shared by the service tests. Question {@code i} is "Question i?" keyed "yes";
+ * difficulties cycle Easy, Medium, Hard, and every other run of 12 questions has five choices
+ * instead of three, so label-derived item parameters differ within a difficulty.
+ */
+final class TestContents {
+
+	private static final String[] LEVELS = {"Easy", "Medium", "Hard"};
+
+	private TestContents() {
+	}
+
+	static ExamContent content(int size) {
+		return content(size, "General");
+	}
+
+	/**
+	 * The same bank with topics taking turns every three questions, so each topic gets every difficulty.
+	 */
+	static ExamContent content(int size, String... topicNames) {
+		List<String> questions = new ArrayList<>();
+		List<String> difficulties = new ArrayList<>();
+		List<String> topics = new ArrayList<>();
+		Map<Integer, String> answerKey = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			questions.add("Question " + i + "?\nA) yes\nB) no\nC) maybe" + ((i / 12) % 2 == 0 ? "" : "\nD) never\nE) always"));
+			difficulties.add(LEVELS[i % 3]);
+			topics.add(topicNames[(i / 3) % topicNames.length]);
+			answerKey.put(i + 1, "yes");
+		}
+		return new ExamContent("EXAM_1", questions, difficulties, topics, answerKey);
+	}
+}
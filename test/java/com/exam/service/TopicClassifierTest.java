@@ -0,0 +1,52 @@
+package com.exam.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class TopicClassifierTest {
+
+	private final TopicClassifierService service = new TopicClassifierService();
+
+	@Test
+	void matchesWholeWordsAndPicksTheTopicWithMostKeywords() {
+		TopicClassifier classifier = service.getDefault();
+
+		assertEquals("Networking", classifier.classify("Which PROTOCOL does a router use to assign an IP?", "IT"));
+		// "ip" inside "zip" and "os" inside "most" are not keywords
+		assertEquals("IT", classifier.classify("Most zip archives are small.", "IT"));
+		assertEquals("Database", classifier.classify("Write the SQL query that uses a foreign key join.\nA) x", "IT"));
+		// One keyword each: the topic listed first wins
+		assertEquals("Security", classifier.classify("A firewall and a router", "IT"));
+		assertEquals("Security", classifier.classify("zero-day", "IT"));
+	}
+
+	@Test
+	void overlappingKeywordsAreAllFound() {
+		TopicClassifier classifier = new TopicClassifier(Map.of(
+			"Biology", List.of("cell", "cell wall", "wall")));
+
+		assertEquals(List.of("Biology", "Other"), classifier.classifyAll(
+			List.of("What is a Cell Wall made of?", "Cellular networks"), "Other"));
+	}
+
+	@Test
+	void parsesTeacherDictionariesAndReusesCompiledClassifiers() {
+		String text = "# chemistry\nAcids: pH, acid, base\n\nBonds: covalent, ionic\nAcids: litmus\n";
+		assertEquals(Map.of("Acids", List.of("pH", "acid", "base", "litmus"), "Bonds", List.of("covalent", "ionic")),
+			TopicClassifier.parseDictionary(text));
+
+		TopicClassifier classifier = service.forDictionary(text);
+		assertSame(classifier, service.forDictionary(text));
+		assertSame(service.getDefault(), service.forDictionary("  "));
+		assertEquals("Acids", classifier.classify("Litmus turns red in an acid", "Chemistry"));
+		assertEquals("Chemistry", classifier.classify("Balance the equation", "Chemistry"));
+
+		assertThrows(IllegalArgumentException.class, () -> service.forDictionary("Acids pH, acid"));
+	}
+}